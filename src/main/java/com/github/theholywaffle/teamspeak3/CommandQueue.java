@@ -26,12 +26,22 @@ package com.github.theholywaffle.teamspeak3;
  * #L%
  */
 
+import com.github.theholywaffle.teamspeak3.TS3Query.QueueFullPolicy;
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3CommandQueueFullException;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3FileTransferFailedException;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3QueryShutDownException;
 import com.github.theholywaffle.teamspeak3.commands.Command;
+import com.github.theholywaffle.teamspeak3.commands.response.DefaultArrayResponse;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Queue;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -41,11 +51,14 @@ class CommandQueue {
 
 	private static final int INITIAL_QUEUE_SIZE = 16;
 
-	private final Queue<Command> sendQueue;
+	// Commands don't override equals, so this is an insertion-ordered identity set with constant-time removal
+	private final LinkedHashSet<Command> sendQueue;
 	private final Queue<Command> receiveQueue;
 	private final Lock queueLock;
 	// Signalled when a command is added to sendQueue or removed from receiveQueue, or when rejectNew is set to true
 	private final Condition canTransfer;
+	// Signalled when a command is removed from sendQueue, or when rejectNew is set to true
+	private final Condition notFull;
 
 	// API objects that insert commands into this queue
 	private final TS3Api api;
@@ -53,26 +66,32 @@ class CommandQueue {
 
 	private final boolean unlimitedInFlightCommands;
 	private final boolean isGlobal;
+	private final int capacity;
+	private final QueueFullPolicy fullPolicy;
 
 	private boolean rejectNew = false;
 	private long firstEnqueueTimeAfterEmpty;
 
-	static CommandQueue newGlobalQueue(TS3Query query, boolean unlimited) {
-		return new CommandQueue(query, true, unlimited);
+	static CommandQueue newGlobalQueue(TS3Query query, boolean unlimited, int capacity, QueueFullPolicy policy) {
+		return new CommandQueue(query, true, unlimited, capacity, policy);
 	}
 
 	static CommandQueue newConnectQueue(TS3Query query) {
-		return new CommandQueue(query, false, true);
+		// Only used by the connection handler, never bounded
+		return new CommandQueue(query, false, true, Integer.MAX_VALUE, QueueFullPolicy.BLOCK);
 	}
 
-	private CommandQueue(TS3Query query, boolean global, boolean unlimited) {
+	private CommandQueue(TS3Query query, boolean global, boolean unlimited, int capacity, QueueFullPolicy policy) {
 		isGlobal = global;
 		unlimitedInFlightCommands = unlimited;
+		this.capacity = capacity;
+		fullPolicy = policy;
 
-		sendQueue = new ArrayDeque<>(INITIAL_QUEUE_SIZE);
+		sendQueue = new LinkedHashSet<>(INITIAL_QUEUE_SIZE);
 		receiveQueue = new ArrayDeque<>(unlimited ? INITIAL_QUEUE_SIZE : 1);
 		queueLock = new ReentrantLock();
 		canTransfer = queueLock.newCondition();
+		notFull = queueLock.newCondition();
 
 		asyncApi = new TS3ApiAsync(query, this);
 		api = new TS3Api(asyncApi);
@@ -91,13 +110,40 @@ class CommandQueue {
 	}
 
 	void enqueueCommand(Command command) {
+		CommandFuture<DefaultArrayResponse> future = command.getFuture();
+		Command dropped = null;
+
 		queueLock.lock();
 		try {
 			if (rejectNew) {
-				command.getFuture().fail(new TS3QueryShutDownException());
+				fail(command, new TS3QueryShutDownException());
+				return;
+			}
+			if (future.isCancelled()) {
+				closeSink(command);
 				return;
 			}
 
+			if (sendQueue.size() >= capacity) {
+				switch (fullPolicy) {
+					case FAIL:
+						fail(command, new TS3CommandQueueFullException("Command queue is full (capacity " + capacity + ")"));
+						return;
+					case DROP_OLDEST:
+						dropped = removeOldestDroppable();
+						if (dropped != null) break;
+						if (command.isDroppable()) {
+							fail(command, new TS3CommandQueueFullException("Command queue is full (capacity " + capacity + ")"));
+							return;
+						}
+						// Only session commands are queued and this is one, too, so none of them may be lost
+						if (!awaitNotFull(command)) return;
+						break;
+					default:
+						if (!awaitNotFull(command)) return;
+				}
+			}
+
 			if (isEmpty()) {
 				firstEnqueueTimeAfterEmpty = System.currentTimeMillis();
 			}
@@ -106,6 +152,70 @@ class CommandQueue {
 		} finally {
 			queueLock.unlock();
 		}
+
+		// Registered outside of the lock, as the listener runs immediately if the future was cancelled in the meantime
+		future.onCancellation(() -> cancelCommand(command));
+
+		if (dropped != null) {
+			String message = "Command " + dropped.getName() + " was dropped from the full command queue";
+			fail(dropped, new TS3CommandQueueFullException(message));
+		}
+	}
+
+	// Only call this when holding queueLock. Returns null if only session commands are queued
+	private Command removeOldestDroppable() {
+		Iterator<Command> iterator = sendQueue.iterator();
+		while (iterator.hasNext()) {
+			Command command = iterator.next();
+			if (command.isDroppable()) {
+				iterator.remove();
+				return command;
+			}
+		}
+		return null;
+	}
+
+	// Only call this when holding queueLock. Returns false if the command was failed or cancelled instead
+	private boolean awaitNotFull(Command command) {
+		try {
+			while (sendQueue.size() >= capacity) {
+				notFull.await();
+
+				if (rejectNew) {
+					fail(command, new TS3QueryShutDownException());
+					return false;
+				}
+				if (command.getFuture().isCancelled()) {
+					// Pass the signal on to the next waiting producer
+					notFull.signal();
+					closeSink(command);
+					return false;
+				}
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			fail(command, new TS3CommandQueueFullException("Interrupted while waiting for space in the command queue"));
+			return false;
+		}
+	}
+
+	private void cancelCommand(Command command) {
+		boolean removed;
+		queueLock.lock();
+		try {
+			// Commands which were already sent stay in the receive queue, the response to them is simply ignored
+			removed = sendQueue.remove(command);
+			if (removed) {
+				canTransfer.signalAll();
+				notFull.signal();
+			}
+		} finally {
+			queueLock.unlock();
+		}
+
+		// The reader will never see this command, so it won't close the sink either
+		if (removed) closeSink(command);
 	}
 
 	Command transferCommand() throws InterruptedException {
@@ -116,8 +226,11 @@ class CommandQueue {
 				canTransfer.await();
 			}
 
-			Command command = sendQueue.remove();
+			Iterator<Command> head = sendQueue.iterator();
+			Command command = head.next();
+			head.remove();
 			receiveQueue.add(command);
+			notFull.signal();
 
 			return command;
 		} finally {
@@ -146,6 +259,20 @@ class CommandQueue {
 		}
 	}
 
+	/**
+	 * Removes a command that was transferred, but never fully written, so that it is not sent again after reconnecting.
+	 */
+	void discardUnsentCommand(Command command) {
+		queueLock.lock();
+		try {
+			// The command was transferred last, so it is at the end of the receive queue
+			receiveQueue.remove(command);
+		} finally {
+			queueLock.unlock();
+		}
+		closeSink(command);
+	}
+
 	void resetSentCommands() {
 		queueLock.lock();
 		try {
@@ -153,7 +280,20 @@ class CommandQueue {
 
 			sendQueue.clear();
 			receiveQueue.clear();
-			sendQueue.addAll(allCommands);
+			for (Command command : allCommands) {
+				// Don't re-send commands which were cancelled while waiting for a response
+				if (command.getFuture().isCancelled()) {
+					closeSink(command);
+					continue;
+				}
+
+				if (command.isResponseStreamed()) {
+					// The sink already holds part of the response, sending the command again would corrupt it
+					fail(command, new TS3FileTransferFailedException("Connection lost while streaming response"));
+					continue;
+				}
+				sendQueue.add(command);
+			}
 
 			rejectNew = false;
 			firstEnqueueTimeAfterEmpty = System.currentTimeMillis();
@@ -164,6 +304,15 @@ class CommandQueue {
 		}
 	}
 
+	int size() {
+		queueLock.lock();
+		try {
+			return receiveQueue.size() + sendQueue.size();
+		} finally {
+			queueLock.unlock();
+		}
+	}
+
 	boolean isEmpty() {
 		queueLock.lock();
 		try {
@@ -191,6 +340,7 @@ class CommandQueue {
 		try {
 			rejectNew = true;
 			canTransfer.signalAll();
+			notFull.signalAll();
 
 			while (!isEmpty()) {
 				canTransfer.awaitUninterruptibly();
@@ -217,10 +367,11 @@ class CommandQueue {
 		try {
 			rejectNew = true;
 			canTransfer.signalAll();
+			notFull.signalAll();
 
 			Collection<Command> allCommands = getAllCommands();
 			for (Command command : allCommands) {
-				command.getFuture().fail(new TS3QueryShutDownException());
+				fail(command, new TS3QueryShutDownException());
 			}
 
 			sendQueue.clear();
@@ -237,4 +388,24 @@ class CommandQueue {
 		allCommands.addAll(receiveQueue);
 		return allCommands;
 	}
+
+	/**
+	 * Fails a command that will never receive a response, closing its response sink first
+	 * so failure listeners can clean up after it, e.g. delete the file it was writing to.
+	 */
+	private static void fail(Command command, TS3Exception exception) {
+		closeSink(command);
+		command.getFuture().fail(exception);
+	}
+
+	private static void closeSink(Command command) {
+		Writer sink = command.getResponseSink();
+		if (sink == null) return;
+
+		try {
+			sink.close();
+		} catch (IOException ignored) {
+			// Nothing left to do, the command is failed or cancelled anyway
+		}
+	}
 }
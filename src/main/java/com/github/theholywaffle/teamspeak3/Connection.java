@@ -58,7 +58,7 @@ class Connection {
 			}
 
 			streamReader = new StreamReader(this, ioChannel.getInputStream(), query, config);
-			streamWriter = new StreamWriter(this, ioChannel.getOutputStream(), config);
+			streamWriter = new StreamWriter(this, ioChannel.getOutputStream(), query, config);
 			keepAlive = new KeepAlive(this);
 		} catch (IOException ioe) {
 			closeSocket();
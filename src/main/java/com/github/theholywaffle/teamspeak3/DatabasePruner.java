@@ -0,0 +1,505 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.DatabasePruneResult;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3CommandFailedException;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import com.github.theholywaffle.teamspeak3.api.wrapper.DatabaseClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Deletes all database clients that match a set of filters, for example clients that
+ * have not connected for a long time.
+ * <p>
+ * The client database is scanned page by page instead of being loaded as a whole. Matching
+ * clients are deleted while the scan continues, keeping a bounded number of deletions
+ * pipelined on every connection so that each query sends commands as fast as its flood rate
+ * allows. If the scan gets too far ahead of the deletions, it waits for them to catch up.
+ * Passing more than one connection spreads the deletions over all of them, multiplying the
+ * command budget. All connections must have the same virtual server selected.
+ * </p><p>
+ * The database is scanned from its end towards its beginning. As deleting a client only moves
+ * the clients after it, the pages that are still to be scanned stay where they are, no matter
+ * how many clients were deleted. This also means that the offset of the last page whose
+ * deletions have all finished is a stable position to resume from. If a {@linkplain
+ * #setCheckpoint(Path) checkpoint file} is set, that offset is written to it, and a pruning that
+ * was interrupted, for example because the query was closed, continues from there next time.
+ * </p><p>
+ * In a {@linkplain #setDryRun(boolean) dry run}, the database is scanned and the deletion
+ * listener is called for every matching client, but nothing is deleted.
+ * </p>
+ */
+public class DatabasePruner {
+
+	private static final Logger log = LoggerFactory.getLogger(DatabasePruner.class);
+	private static final int PAGE_SIZE = 200;
+
+	private final List<TS3ApiAsync> apis;
+	private Predicate<DatabaseClient> filter = null;
+	private boolean dryRun = false;
+	private Path checkpoint = null;
+	private int maxPendingDeletions = 32;
+	private Consumer<DatabaseClient> deletionListener = null;
+
+	/**
+	 * Creates a pruner that scans the database with the first connection
+	 * and deletes clients using all of them.
+	 *
+	 * @param apis
+	 * 		the APIs of the connections to use, one per query
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code apis} is {@code null} or empty
+	 */
+	public DatabasePruner(Collection<TS3ApiAsync> apis) {
+		if (apis == null || apis.isEmpty()) throw new IllegalArgumentException("At least one connection is required");
+		this.apis = new ArrayList<>(apis);
+	}
+
+	/**
+	 * Creates a pruner that scans the database with the first connection
+	 * and deletes clients using all of them.
+	 *
+	 * @param apis
+	 * 		the APIs of the connections to use, one per query
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if no API was passed
+	 */
+	public DatabasePruner(TS3ApiAsync... apis) {
+		this(Arrays.asList(apis));
+	}
+
+	/**
+	 * Creates a filter that matches database clients which have not connected for at least the given time.
+	 *
+	 * @param duration
+	 * 		how long the client must not have connected
+	 * @param unit
+	 * 		the time unit of {@code duration}
+	 *
+	 * @return a filter for inactive clients
+	 */
+	public static Predicate<DatabaseClient> inactiveFor(long duration, TimeUnit unit) {
+		long millis = unit.toMillis(duration);
+		return client -> client.getLastConnectedDate().getTime() <= System.currentTimeMillis() - millis;
+	}
+
+	/**
+	 * Adds a filter that a database client must match to be deleted.
+	 * If more than one filter is added, a client must match all of them.
+	 *
+	 * @param filter
+	 * 		the filter to add
+	 *
+	 * @return this pruner for chaining
+	 */
+	public DatabasePruner addFilter(Predicate<DatabaseClient> filter) {
+		if (filter == null) throw new IllegalArgumentException("Filter must not be null");
+		this.filter = (this.filter == null) ? filter : this.filter.and(filter);
+		return this;
+	}
+
+	/**
+	 * Sets whether matching clients are only reported to the deletion listener instead of being deleted.
+	 *
+	 * @param dryRun
+	 * 		{@code true} to not delete anything
+	 *
+	 * @return this pruner for chaining
+	 */
+	public DatabasePruner setDryRun(boolean dryRun) {
+		this.dryRun = dryRun;
+		return this;
+	}
+
+	/**
+	 * Sets a file that the progress of a pruning is saved to, so it can be resumed after it was interrupted.
+	 * The file is deleted once a pruning has finished. Dry runs neither read nor write the checkpoint.
+	 * <p>
+	 * The checkpoint assumes that the database is not pruned by anyone else in the meantime. If it
+	 * was, the resumed pruning might miss a few clients, which the next pruning will catch.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the checkpoint file, or {@code null} to always scan the whole database
+	 *
+	 * @return this pruner for chaining
+	 */
+	public DatabasePruner setCheckpoint(Path file) {
+		this.checkpoint = file;
+		return this;
+	}
+
+	/**
+	 * Limits how many deletions are sent to the server before their responses have arrived.
+	 * This is also how many matching clients are held in memory before the scan pauses.
+	 * Defaults to 32.
+	 *
+	 * @param maxPendingDeletions
+	 * 		the maximum number of pipelined deletions across all connections
+	 *
+	 * @return this pruner for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxPendingDeletions} is less than 1
+	 */
+	public DatabasePruner setMaxPendingDeletions(int maxPendingDeletions) {
+		if (maxPendingDeletions < 1) throw new IllegalArgumentException("Must allow at least 1 pending deletion");
+		this.maxPendingDeletions = maxPendingDeletions;
+		return this;
+	}
+
+	/**
+	 * Sets a listener that is called with every database client that was deleted,
+	 * or that would have been deleted in a dry run. The listener is never called concurrently.
+	 *
+	 * @param listener
+	 * 		the deletion listener, or {@code null} to remove it
+	 *
+	 * @return this pruner for chaining
+	 */
+	public DatabasePruner setDeletionListener(Consumer<DatabaseClient> listener) {
+		this.deletionListener = listener;
+		return this;
+	}
+
+	/**
+	 * Scans the client database and deletes all clients that match the filters.
+	 * <p>
+	 * If the server refuses to delete a client, the client is skipped and counted in
+	 * {@link DatabasePruneResult#getFailedDeletions()}. The returned future only fails if the
+	 * database could not be scanned or a query was closed. The checkpoint is kept in that case.
+	 * Changes to the settings of this pruner don't affect running prunings.
+	 * </p>
+	 *
+	 * @return a future that completes with the counts of scanned and deleted clients
+	 *
+	 * @throws IllegalStateException
+	 * 		if no filter was added, as that would delete the whole client database
+	 */
+	public CommandFuture<DatabasePruneResult> prune() {
+		if (filter == null) throw new IllegalStateException("Refusing to prune without a filter");
+
+		Run run = new Run(apis, filter, dryRun, dryRun ? null : checkpoint, maxPendingDeletions, deletionListener);
+		run.start();
+		return run.future;
+	}
+
+	/**
+	 * The state of one call to {@link #prune()}.
+	 */
+	private static class Run {
+
+		private final List<TS3ApiAsync> apis;
+		private final Predicate<DatabaseClient> filter;
+		private final boolean dryRun;
+		private final Path checkpoint;
+		private final int maxPendingDeletions;
+		private final Consumer<DatabaseClient> deletionListener;
+		private final long startTime = System.nanoTime();
+		private final AtomicInteger drainRequests = new AtomicInteger();
+		private final CommandFuture<DatabasePruneResult> future = new CommandFuture<>();
+
+		// Guarded by this
+		private final Deque<Page> unfinishedPages = new ArrayDeque<>(); // In scan order
+		private final Queue<Deletion> queuedDeletions = new ArrayDeque<>();
+		private int sentDeletions = 0;
+		private int nextApi = 0;
+		private int scanEnd = -1; // Exclusive end of the next page to scan, -1 until known
+		private boolean scanning = false;
+		private boolean stopped = false;
+		private int scanned = 0;
+		private int matched = 0;
+		private int deleted = 0;
+		private int failed = 0;
+
+		Run(List<TS3ApiAsync> apis, Predicate<DatabaseClient> filter, boolean dryRun, Path checkpoint,
+		    int maxPendingDeletions, Consumer<DatabaseClient> deletionListener) {
+			this.apis = new ArrayList<>(apis);
+			this.filter = filter;
+			this.dryRun = dryRun;
+			this.checkpoint = checkpoint;
+			this.maxPendingDeletions = maxPendingDeletions;
+			this.deletionListener = deletionListener;
+		}
+
+		void start() {
+			int resumeOffset = readCheckpoint();
+			if (resumeOffset >= 0) {
+				log.info("Resuming database pruning at offset {}", resumeOffset);
+				scanFrom(resumeOffset);
+			} else {
+				apis.get(0).getDatabaseClientCount()
+						.onSuccess(count -> {
+							log.info("Pruning client database with {} entries{}", count, dryRun ? " (dry run)" : "");
+							scanFrom(count);
+						})
+						.onFailure(this::stop);
+			}
+		}
+
+		private void scanFrom(int end) {
+			synchronized (this) {
+				scanEnd = end;
+			}
+			drain();
+		}
+
+		/**
+		 * Sends queued deletions and requests the next page until the limits are reached.
+		 * Only one thread drains at a time, callbacks of immediately completed commands just ask for another pass.
+		 */
+		private void drain() {
+			if (drainRequests.getAndIncrement() != 0) return;
+
+			do {
+				List<Deletion> toSend = new ArrayList<>();
+				int pageStart = -1;
+				int pageEnd = -1;
+				boolean finished = false;
+
+				synchronized (this) {
+					if (stopped || scanEnd < 0) continue;
+
+					while (sentDeletions < maxPendingDeletions && !queuedDeletions.isEmpty()) {
+						toSend.add(queuedDeletions.remove());
+						++sentDeletions;
+					}
+					if (!scanning && scanEnd > 0 && queuedDeletions.size() < maxPendingDeletions) {
+						scanning = true;
+						pageEnd = scanEnd;
+						pageStart = Math.max(0, scanEnd - PAGE_SIZE);
+						scanEnd = pageStart;
+					}
+					if (!scanning && scanEnd == 0 && sentDeletions == 0 && queuedDeletions.isEmpty()) {
+						stopped = true;
+						finished = true;
+					}
+				}
+
+				for (Deletion deletion : toSend) {
+					TS3ApiAsync api = apis.get(nextApi++ % apis.size());
+					api.deleteDatabaseClientProperties(deletion.client.getDatabaseId())
+							.onSuccess(nothing -> deleted(deletion, null))
+							.onFailure(exception -> deleted(deletion, exception));
+				}
+				if (pageStart >= 0) {
+					int start = pageStart;
+					apis.get(0).getDatabaseClients(start, pageEnd - start)
+							.onSuccess(clients -> scanned(start, clients))
+							.onFailure(this::stop);
+				}
+				if (finished) finish();
+			} while (drainRequests.decrementAndGet() != 0);
+		}
+
+		private void scanned(int pageStart, List<DatabaseClient> clients) {
+			synchronized (this) {
+				scanning = false;
+				if (stopped) return;
+
+				Page page = new Page(pageStart);
+				for (DatabaseClient client : clients) {
+					++scanned;
+					boolean matches;
+					try {
+						matches = filter.test(client);
+					} catch (RuntimeException e) {
+						log.error("Database prune filter threw an exception", e);
+						stop(new TS3Exception("Database prune filter threw an exception", e));
+						return;
+					}
+					if (!matches) continue;
+
+					++matched;
+					if (dryRun) {
+						notifyListener(client);
+					} else {
+						++page.remainingDeletions;
+						queuedDeletions.add(new Deletion(page, client));
+					}
+				}
+				unfinishedPages.add(page);
+				advanceCheckpoint();
+			}
+			drain();
+		}
+
+		private void deleted(Deletion deletion, TS3Exception exception) {
+			synchronized (this) {
+				--sentDeletions;
+				if (stopped) return;
+
+				if (exception == null) {
+					++deleted;
+					notifyListener(deletion.client);
+				} else if (exception instanceof TS3CommandFailedException) {
+					++failed;
+					log.warn("Could not delete database client {}", deletion.client.getDatabaseId(), exception);
+				} else {
+					// The query was closed, the checkpoint must not move past this client
+					stop(exception);
+					return;
+				}
+
+				--deletion.page.remainingDeletions;
+				advanceCheckpoint();
+			}
+			drain();
+		}
+
+		// Only call this when holding the lock of this run
+		private void notifyListener(DatabaseClient client) {
+			if (deletionListener == null) return;
+			try {
+				deletionListener.accept(client);
+			} catch (Throwable throwable) {
+				log.error("Database prune deletion listener threw an exception", throwable);
+			}
+		}
+
+		// Only call this when holding the lock of this run
+		private void advanceCheckpoint() {
+			int resumeOffset = -1;
+			while (!unfinishedPages.isEmpty() && unfinishedPages.peek().remainingDeletions == 0) {
+				resumeOffset = unfinishedPages.remove().start;
+			}
+			if (resumeOffset >= 0) writeCheckpoint(resumeOffset);
+		}
+
+		private synchronized void stop(TS3Exception exception) {
+			if (stopped) return;
+			stopped = true;
+			log.warn("Database pruning stopped after {} deleted clients", deleted, exception);
+			future.fail(exception);
+		}
+
+		private void finish() {
+			deleteCheckpoint();
+
+			DatabasePruneResult result;
+			synchronized (this) {
+				long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+				result = new DatabasePruneResult(dryRun, scanned, matched, deleted, failed, duration);
+			}
+			log.info("Finished pruning client database: {}", result);
+			future.set(result);
+		}
+
+		private int readCheckpoint() {
+			if (checkpoint == null) return -1;
+			try {
+				String content = new String(Files.readAllBytes(checkpoint), StandardCharsets.UTF_8).trim();
+				int offset = Integer.parseInt(content);
+				return (offset >= 0) ? offset : -1;
+			} catch (NoSuchFileException e) {
+				return -1;
+			} catch (IOException | NumberFormatException e) {
+				// Scanning the whole database again is always safe
+				log.warn("Ignoring unreadable database prune checkpoint {}", checkpoint, e);
+				return -1;
+			}
+		}
+
+		private void writeCheckpoint(int offset) {
+			if (checkpoint == null) return;
+			try {
+				Path directory = checkpoint.toAbsolutePath().getParent();
+				Path temporary = Files.createTempFile(directory, "prune_", ".tmp");
+				try {
+					Files.write(temporary, Integer.toString(offset).getBytes(StandardCharsets.UTF_8));
+					try {
+						Files.move(temporary, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+					} catch (AtomicMoveNotSupportedException e) {
+						Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+					}
+				} finally {
+					Files.deleteIfExists(temporary);
+				}
+			} catch (IOException e) {
+				// Pruning itself still works, resuming just has to start over
+				log.warn("Could not write database prune checkpoint {}", checkpoint, e);
+			}
+		}
+
+		private void deleteCheckpoint() {
+			if (checkpoint == null) return;
+			try {
+				Files.deleteIfExists(checkpoint);
+			} catch (IOException e) {
+				log.warn("Could not delete database prune checkpoint {}", checkpoint, e);
+			}
+		}
+	}
+
+	/**
+	 * A scanned page of the client database whose matching clients are (being) deleted.
+	 */
+	private static class Page {
+
+		private final int start;
+		private int remainingDeletions = 0; // Guarded by the run
+
+		Page(int start) {
+			this.start = start;
+		}
+	}
+
+	private static class Deletion {
+
+		private final Page page;
+		private final DatabaseClient client;
+
+		Deletion(Page page, DatabaseClient client) {
+			this.page = page;
+			this.client = client;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+/**
+ * Detects notify lines which were already received a short time ago.
+ * <p>
+ * The TeamSpeak server sends a separate copy of an event for every notify registration
+ * that covers it, e.g. a client move is sent once for {@code SERVER} and once more for every
+ * matching {@code CHANNEL} registration. The copies don't necessarily arrive back to back.
+ * </p><p>
+ * The deduplicator remembers the last {@code windowSize} client and channel notify lines together
+ * with the time they were received. A line is a duplicate if an identical line was received less
+ * than the time horizon ago. Not thread-safe, only used by the thread reading from the connection.
+ * </p>
+ */
+class EventDeduplicator {
+
+	private final int[] hashes;
+	private final String[] lines;
+	private final long[] receiveTimes;
+	private final long horizonNanos;
+	private int next = 0;
+
+	EventDeduplicator(int windowSize, long horizonNanos) {
+		this.hashes = new int[windowSize];
+		this.lines = new String[windowSize];
+		this.receiveTimes = new long[windowSize];
+		this.horizonNanos = horizonNanos;
+	}
+
+	boolean isDuplicate(String line) {
+		if (!(line.startsWith("notifyclient") || line.startsWith("notifychannel"))) {
+			// Events that will never cause duplicates
+			return false;
+		}
+
+		final long now = System.nanoTime();
+		final int hash = line.hashCode();
+		for (int i = 0; i < lines.length; ++i) {
+			// Compare the hashes first, so the strings themselves are only compared for likely duplicates
+			if (hashes[i] == hash && lines[i] != null && now - receiveTimes[i] < horizonNanos && lines[i].equals(line)) {
+				return true;
+			}
+		}
+
+		hashes[next] = hash;
+		lines[next] = line;
+		receiveTimes[next] = now;
+		next = (next + 1) % lines.length;
+		return false;
+	}
+}
@@ -0,0 +1,218 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.event.TS3Event;
+import com.github.theholywaffle.teamspeak3.api.wrapper.Wrapper;
+import com.github.theholywaffle.teamspeak3.commands.CommandEncoding;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A single, reusable event object for one type of notify event.
+ * <p>
+ * Every record of a notify line is parsed into the same map, which backs the same event object.
+ * Apart from the property values themselves, parsing a line doesn't allocate any objects.
+ * The event is only valid until the next record is parsed.
+ * Not thread-safe, a flyweight must only be used by one thread at a time.
+ * </p>
+ */
+class EventFlyweight {
+
+	private final RecordMap map = new RecordMap();
+	private final TS3Event event;
+
+	private String body = "";
+	private int firstRecordEnd;
+	private int position;
+
+	EventFlyweight(Function<Wrapper, TS3Event> constructor) {
+		// BaseEvent wraps the map in an unmodifiable view, so it sees all later changes to the map
+		event = constructor.apply(new Wrapper(map));
+	}
+
+	TS3Event getEvent() {
+		return event;
+	}
+
+	void reset(String notifyBody) {
+		body = notifyBody;
+		firstRecordEnd = endOfRecord(0);
+		// An empty body doesn't contain any records
+		position = body.isEmpty() ? 1 : 0;
+	}
+
+	/**
+	 * Parses the next record of the notify body into the event.
+	 *
+	 * @return {@code false} if there are no more records
+	 */
+	boolean nextRecord() {
+		if (position > body.length()) return false;
+
+		final int end = endOfRecord(position);
+		map.clear();
+		// Like DefaultArrayResponse, later records use the values of the first record as defaults
+		if (position > 0) map.parse(body, 0, firstRecordEnd);
+		map.parse(body, position, end);
+
+		position = end + 1;
+		return true;
+	}
+
+	void release() {
+		body = "";
+		map.clear();
+	}
+
+	private int endOfRecord(int start) {
+		final int end = body.indexOf('|', start);
+		return (end < 0) ? body.length() : end;
+	}
+
+	/**
+	 * An insertion-ordered map backed by arrays, which reuses the key strings of previous records.
+	 */
+	private static class RecordMap extends AbstractMap<String, String> {
+
+		private static final int INITIAL_CAPACITY = 16;
+
+		private String[] keys = new String[INITIAL_CAPACITY];
+		private String[] values = new String[INITIAL_CAPACITY];
+		private int size = 0;
+
+		void parse(String raw, int start, int end) {
+			while (start < end) {
+				int paramEnd = raw.indexOf(' ', start);
+				if (paramEnd < 0 || paramEnd > end) paramEnd = end;
+
+				if (paramEnd > start) {
+					int separator = raw.indexOf('=', start);
+					if (separator < 0 || separator > paramEnd) {
+						putParameter(raw, start, paramEnd, "");
+					} else {
+						putParameter(raw, start, separator, decode(raw.substring(separator + 1, paramEnd)));
+					}
+				}
+				start = paramEnd + 1;
+			}
+		}
+
+		private static String decode(String value) {
+			// CommandEncoding.decode is expensive, only use it if there is something to decode
+			return (value.indexOf('\\') < 0) ? value : CommandEncoding.decode(value);
+		}
+
+		private void putParameter(String raw, int keyStart, int keyEnd, String value) {
+			final int keyLength = keyEnd - keyStart;
+			for (int i = 0; i < size; ++i) {
+				if (keys[i].length() == keyLength && raw.regionMatches(keyStart, keys[i], 0, keyLength)) {
+					values[i] = value;
+					return;
+				}
+			}
+
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+				values = Arrays.copyOf(values, size * 2);
+			}
+
+			// Records of the same type usually have the same keys in the same order
+			String cachedKey = keys[size];
+			if (cachedKey == null || cachedKey.length() != keyLength || !raw.regionMatches(keyStart, cachedKey, 0, keyLength)) {
+				keys[size] = raw.substring(keyStart, keyEnd);
+			}
+			values[size++] = value;
+		}
+
+		private int indexOf(Object key) {
+			for (int i = 0; i < size; ++i) {
+				if (keys[i].equals(key)) return i;
+			}
+			return -1;
+		}
+
+		@Override
+		public String get(Object key) {
+			final int index = indexOf(key);
+			return (index < 0) ? null : values[index];
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return indexOf(key) >= 0;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			// Keep the keys, they will likely be reused by the next record
+			Arrays.fill(values, 0, size, null);
+			size = 0;
+		}
+
+		@Override
+		public Set<Entry<String, String>> entrySet() {
+			return new AbstractSet<Entry<String, String>>() {
+				@Override
+				public Iterator<Entry<String, String>> iterator() {
+					return new Iterator<Entry<String, String>>() {
+						private int index = 0;
+
+						@Override
+						public boolean hasNext() {
+							return index < size;
+						}
+
+						@Override
+						public Entry<String, String> next() {
+							if (index >= size) throw new NoSuchElementException();
+							Entry<String, String> entry = new SimpleImmutableEntry<>(keys[index], values[index]);
+							++index;
+							return entry;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.event.*;
+import com.github.theholywaffle.teamspeak3.api.wrapper.Wrapper;
+
+/**
+ * Derives the identity of the entity an event is about, e.g. the client of a {@link ClientMovedEvent}.
+ * <p>
+ * Two events with equal {@linkplain #key(TS3Event) keys} are of the same type and concern the
+ * same client or channel, so a newer one supersedes an older one.
+ * </p>
+ */
+final class EventKeys {
+
+	private static final Object CLIENT = new Object();
+	private static final Object CHANNEL = new Object();
+
+	private EventKeys() {}
+
+	/**
+	 * Gets the ID of the client a client event is about.
+	 *
+	 * @return the client ID, or {@code -1} if the event is not a client event
+	 */
+	static int clientId(TS3Event event) {
+		if (event instanceof ClientMovedEvent || event instanceof ClientJoinEvent || event instanceof ClientLeaveEvent) {
+			return ((Wrapper) event).getInt("clid");
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the ID of the channel a channel event is about.
+	 *
+	 * @return the channel ID, or {@code -1} if the event is not a channel event
+	 */
+	static int channelId(TS3Event event) {
+		if (event instanceof ChannelEditedEvent || event instanceof ChannelDescriptionEditedEvent
+				|| event instanceof ChannelCreateEvent || event instanceof ChannelDeletedEvent
+				|| event instanceof ChannelMovedEvent || event instanceof ChannelPasswordChangedEvent) {
+			return ((Wrapper) event).getInt("cid");
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the channel an event happened in: the target channel of a join or move, the channel a
+	 * client left from, or the affected channel of a channel event.
+	 *
+	 * @return the channel ID, or {@code -1} if the event is not associated with a channel
+	 */
+	static int channelOf(TS3Event event) {
+		if (event instanceof ClientMovedEvent || event instanceof ClientJoinEvent) {
+			return ((Wrapper) event).getInt("ctid");
+		} else if (event instanceof ClientLeaveEvent) {
+			return ((Wrapper) event).getInt("cfid");
+		}
+		return channelId(event);
+	}
+
+	/**
+	 * Gets a key identifying the client or channel an event is about, regardless of the event's type.
+	 *
+	 * @return the key, or {@code null} if the event is neither a client nor a channel event
+	 */
+	static Object entity(TS3Event event) {
+		int id = clientId(event);
+		if (id >= 0) return new Key(CLIENT, id);
+
+		id = channelId(event);
+		return (id < 0) ? null : new Key(CHANNEL, id);
+	}
+
+	/**
+	 * Gets a key identifying the type of an event and the entity it is about.
+	 * <p>
+	 * Edit events only contain the properties that changed, so a newer edit doesn't make an
+	 * older one obsolete. They never have a key.
+	 * </p>
+	 *
+	 * @return the key, or {@code null} if every event of this type is distinct (e.g. text messages)
+	 */
+	static Object key(TS3Event event) {
+		if (event instanceof ChannelEditedEvent || event instanceof ServerEditedEvent) return null;
+
+		int id = clientId(event);
+		if (id < 0) id = channelId(event);
+		return (id < 0) ? null : new Key(event.getClass(), id);
+	}
+
+	private static final class Key {
+
+		// The event class, or CLIENT or CHANNEL for entity keys
+		private final Object type;
+		private final int id;
+
+		Key(Object type, int id) {
+			this.type = type;
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+
+			Key other = (Key) o;
+			return id == other.id && type == other.type;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + id;
+		}
+	}
+}
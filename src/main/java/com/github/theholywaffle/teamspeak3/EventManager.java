@@ -26,6 +26,8 @@ package com.github.theholywaffle.teamspeak3;
  * #L%
  */
 
+import com.github.theholywaffle.teamspeak3.TS3Query.BacklogPolicy;
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
 import com.github.theholywaffle.teamspeak3.api.event.*;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3UnknownEventException;
 import com.github.theholywaffle.teamspeak3.api.wrapper.Wrapper;
@@ -33,71 +35,362 @@ import com.github.theholywaffle.teamspeak3.commands.response.DefaultArrayRespons
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Method;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 class EventManager {
 
 	private static final Logger log = LoggerFactory.getLogger(EventManager.class);
 	private static final Map<String, Function<Wrapper, TS3Event>> eventByName = new HashMap<>(12);
+	private static final Map<Class<? extends TS3Event>, String> nameByEventClass = new HashMap<>(12);
+	private static final Map<String, Class<? extends TS3Event>> eventClassByName = new HashMap<>(12);
+	// Name of the TS3Listener method handling each notify event, used to find out which events an adapter overrides
+	private static final Map<String, String> listenerMethodByName = new HashMap<>(12);
 	static {
-		eventByName.put("notifytextmessage", TextMessageEvent::new);
-		eventByName.put("notifycliententerview", ClientJoinEvent::new);
-		eventByName.put("notifyclientleftview", ClientLeaveEvent::new);
-		eventByName.put("notifyserveredited", ServerEditedEvent::new);
-		eventByName.put("notifychanneledited", ChannelEditedEvent::new);
-		eventByName.put("notifychanneldescriptionchanged", ChannelDescriptionEditedEvent::new);
-		eventByName.put("notifyclientmoved", ClientMovedEvent::new);
-		eventByName.put("notifychannelcreated", ChannelCreateEvent::new);
-		eventByName.put("notifychanneldeleted", ChannelDeletedEvent::new);
-		eventByName.put("notifychannelmoved", ChannelMovedEvent::new);
-		eventByName.put("notifychannelpasswordchanged", ChannelPasswordChangedEvent::new);
-		eventByName.put("notifytokenused", PrivilegeKeyUsedEvent::new);
+		register("notifytextmessage", TextMessageEvent.class, TextMessageEvent::new, "onTextMessage");
+		register("notifycliententerview", ClientJoinEvent.class, ClientJoinEvent::new, "onClientJoin");
+		register("notifyclientleftview", ClientLeaveEvent.class, ClientLeaveEvent::new, "onClientLeave");
+		register("notifyserveredited", ServerEditedEvent.class, ServerEditedEvent::new, "onServerEdit");
+		register("notifychanneledited", ChannelEditedEvent.class, ChannelEditedEvent::new, "onChannelEdit");
+		register("notifychanneldescriptionchanged", ChannelDescriptionEditedEvent.class, ChannelDescriptionEditedEvent::new, "onChannelDescriptionChanged");
+		register("notifyclientmoved", ClientMovedEvent.class, ClientMovedEvent::new, "onClientMoved");
+		register("notifychannelcreated", ChannelCreateEvent.class, ChannelCreateEvent::new, "onChannelCreate");
+		register("notifychanneldeleted", ChannelDeletedEvent.class, ChannelDeletedEvent::new, "onChannelDeleted");
+		register("notifychannelmoved", ChannelMovedEvent.class, ChannelMovedEvent::new, "onChannelMoved");
+		register("notifychannelpasswordchanged", ChannelPasswordChangedEvent.class, ChannelPasswordChangedEvent::new, "onChannelPasswordChanged");
+		register("notifytokenused", PrivilegeKeyUsedEvent.class, PrivilegeKeyUsedEvent::new, "onPrivilegeKeyUsed");
+	}
+
+	private static <E extends TS3Event> void register(String notifyName, Class<E> eventClass,
+	                                                  Function<Wrapper, TS3Event> constructor, String listenerMethod) {
+		eventByName.put(notifyName, constructor);
+		nameByEventClass.put(eventClass, notifyName);
+		eventClassByName.put(notifyName, eventClass);
+		listenerMethodByName.put(notifyName, listenerMethod);
 	}
 
 	// CopyOnWriteArrayList for thread safety
 	private final Collection<ListenerTask> tasks = new CopyOnWriteArrayList<>();
 	private final TS3Query ts3;
+	// null if the per-listener queues are used
+	private final EventRingBuffer ringBuffer;
+	private final int backlogLimit;
+	private final BacklogPolicy backlogPolicy;
+	// 0 if listeners aren't timed
+	private final long slowThresholdNanos;
+
+	private final EventWaiters waiters;
+	// Only created once a batch listener or event waiter is added
+	private ScheduledExecutorService scheduler;
+	private boolean shutDown = false; // Guarded by this
+
+	// Union of the interests of all listeners, replaced whenever a listener is added or removed
+	private volatile Interest interest = Interest.NONE;
+
+	// Listeners which borrow reusable events on the reader thread, see addBorrowingListener
+	private final Collection<ListenerTask> borrowingTasks = new CopyOnWriteArrayList<>();
+	private final Map<String, EventFlyweight> flyweights = new HashMap<>(12);
+	private volatile Interest borrowingInterest = Interest.NONE;
+
+	// Listeners with an EventFilter, looked up through an index instead of being checked one by one
+	private final Collection<SubscriptionIndex.Route<ListenerTask>> routes = new CopyOnWriteArrayList<>();
+	private volatile SubscriptionIndex<ListenerTask> routeIndex = SubscriptionIndex.empty();
+	// Only used with the ring buffer, created once the first filtered listener is added
+	private EventRingBuffer.Subscriber router;
 
-	EventManager(TS3Query query) {
+	EventManager(TS3Query query, TS3Config config) {
 		ts3 = query;
+		waiters = new EventWaiters(query);
+
+		int ringBufferSize = config.getEventRingBufferSize();
+		ringBuffer = (ringBufferSize > 0) ? new EventRingBuffer(ringBufferSize, config.getEventWaitStrategy()) : null;
+		backlogLimit = config.getListenerBacklogLimit();
+		backlogPolicy = config.getBacklogPolicy();
+		slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowListenerThreshold());
+
+		for (Map.Entry<String, Function<Wrapper, TS3Event>> entry : eventByName.entrySet()) {
+			flyweights.put(entry.getKey(), new EventFlyweight(entry.getValue()));
+		}
+	}
+
+	void addBorrowingListener(TS3Listener listener) {
+		if (listener == null) throw new IllegalArgumentException("Listener was null");
+
+		borrowingTasks.add(new ListenerTask(listener, getInterest(listener), event -> event.fire(listener)));
+		updateInterest();
 	}
 
 	void addListeners(TS3Listener... listeners) {
 		for (TS3Listener listener : listeners) {
 			if (listener == null) throw new IllegalArgumentException("A listener was null");
-			ListenerTask task = new ListenerTask(listener);
-			tasks.add(task);
+			ListenerTask task = new ListenerTask(listener, getInterest(listener), event -> event.fire(listener));
+			addTask(task);
+		}
+		updateInterest();
+	}
+
+	<E extends TS3Event> void addListener(Class<E> eventClass, Consumer<? super E> listener) {
+		if (eventClass == null) throw new IllegalArgumentException("Event class was null");
+		if (listener == null) throw new IllegalArgumentException("Listener was null");
+
+		String notifyName = nameByEventClass.get(eventClass);
+		if (notifyName == null) throw new IllegalArgumentException("Unknown event class " + eventClass.getName());
+
+		Interest taskInterest = Interest.of(Collections.singleton(notifyName));
+		addTask(new ListenerTask(listener, taskInterest, event -> listener.accept(eventClass.cast(event))));
+		updateInterest();
+	}
+
+	<E extends TS3Event> void addListener(EventFilter<E> filter, Consumer<? super E> listener) {
+		if (filter == null) throw new IllegalArgumentException("Filter was null");
+		if (listener == null) throw new IllegalArgumentException("Listener was null");
+
+		Class<E> eventClass = filter.getEventClass();
+		String notifyName = nameByEventClass.get(eventClass);
+		if (notifyName == null) throw new IllegalArgumentException("Unknown event class " + eventClass.getName());
+
+		Interest taskInterest = Interest.of(Collections.singleton(notifyName));
+		ListenerTask task = new ListenerTask(listener, taskInterest, event -> listener.accept(eventClass.cast(event)));
+		routes.add(new SubscriptionIndex.Route<>(filter, task));
+
+		synchronized (this) {
+			if (ringBuffer != null && router == null) {
+				// A single subscriber looks up and calls all filtered listeners
+				router = ringBuffer.subscribe(name -> true, event -> routeIndex.forEachMatch(event, ListenerTask::dispatch));
+			}
+		}
+		updateInterest();
+	}
+
+	<E extends TS3Event> CommandFuture<E> awaitEvent(Class<E> eventClass, int id, Predicate<? super E> predicate,
+	                                                 long timeout, TimeUnit unit) {
+		if (eventClass == null) throw new IllegalArgumentException("Event class was null");
+		if (timeout < 0) throw new IllegalArgumentException("Timeout must not be negative");
+		if (unit == null) throw new IllegalArgumentException("Time unit was null");
+
+		String notifyName = nameByEventClass.get(eventClass);
+		if (notifyName == null) throw new IllegalArgumentException("Unknown event class " + eventClass.getName());
+
+		return waiters.await(notifyName, eventClass, id, predicate, timeout, unit, getScheduler());
+	}
+
+	void addPartitionedListener(TS3Listener listener, int lanes) {
+		if (listener == null) throw new IllegalArgumentException("Listener was null");
+		if (lanes < 1) throw new IllegalArgumentException("Number of lanes must be greater than 0");
+
+		addTask(new PartitionedTask(listener, getInterest(listener), event -> event.fire(listener), lanes));
+		updateInterest();
+	}
+
+	private void addTask(ListenerTask task) {
+		if (ringBuffer != null) task.subscribe(ringBuffer);
+		tasks.add(task);
+	}
+
+	private void removeTasks(Predicate<ListenerTask> filter) {
+		for (ListenerTask task : tasks) {
+			if (!filter.test(task)) continue;
+
+			tasks.remove(task);
+			task.close();
+		}
+		borrowingTasks.removeIf(filter);
+		routes.removeIf(route -> filter.test(route.target));
+		updateInterest();
+	}
+
+	@SafeVarargs
+	final void addBatchListener(TS3BatchListener listener, int windowMilliseconds, Class<? extends TS3Event>... eventClasses) {
+		if (listener == null) throw new IllegalArgumentException("Listener was null");
+		if (windowMilliseconds < 1) throw new IllegalArgumentException("Window must be at least 1 ms");
+		if (eventClasses.length == 0) throw new IllegalArgumentException("At least one event class is required");
+
+		// Only parse the events the listener actually wants
+		Set<String> notifyNames = new HashSet<>(eventClasses.length);
+		for (Class<? extends TS3Event> eventClass : eventClasses) {
+			String notifyName = nameByEventClass.get(eventClass);
+			if (notifyName == null) throw new IllegalArgumentException("Unknown event class " + eventClass);
+			notifyNames.add(notifyName);
+		}
+
+		addTask(new BatchTask(listener, Interest.of(notifyNames), windowMilliseconds));
+		updateInterest();
+	}
+
+	void removeBatchListener(TS3BatchListener listener) {
+		removeTasks(task -> task.listener == listener && task instanceof BatchTask);
+	}
+
+	// Throws a RejectedExecutionException once the event manager has been shut down
+	private synchronized ScheduledExecutorService getScheduler() {
+		if (shutDown) throw new RejectedExecutionException("Event manager has been shut down");
+		if (scheduler == null) {
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+				Thread thread = new Thread(runnable, "[TeamSpeak-3-Java-API] EventScheduler");
+				thread.setDaemon(true);
+				return thread;
+			});
+			// Event waiters usually complete long before their timeout, don't keep the cancelled timeouts around
+			executor.setRemoveOnCancelPolicy(true);
+			scheduler = executor;
+		}
+		return scheduler;
+	}
+
+	void shutDown() {
+		if (ringBuffer != null) ringBuffer.shutDown();
+		synchronized (this) {
+			shutDown = true;
+			if (scheduler != null) scheduler.shutdownNow();
 		}
 	}
 
 	void removeListeners(TS3Listener... listeners) {
 		// Bad performance (O(n*m)), but this method is rarely if ever used
 		List<TS3Listener> listenersToRemove = Arrays.asList(listeners);
-		tasks.removeIf(listenerTask -> listenersToRemove.contains(listenerTask.listener));
+		removeTasks(listenerTask -> listenersToRemove.contains(listenerTask.listener));
+	}
+
+	<E extends TS3Event> void removeListener(Class<E> eventClass, Consumer<? super E> listener) {
+		String notifyName = nameByEventClass.get(eventClass);
+		if (notifyName == null) return;
+
+		removeTasks(task -> task.listener == listener && task.interest.wants(notifyName));
 	}
 
 	void fireEvent(String notifyName, String notifyBody) {
-		final DefaultArrayResponse response = DefaultArrayResponse.parse(notifyBody);
+		fireParsedEvents(notifyName, notifyBody, parseEvents(notifyName, notifyBody));
+	}
 
-		for (Wrapper eventData : response.getResponses()) {
-			TS3Event event = createEvent(notifyName, eventData);
-			fireEvent(event);
+	/**
+	 * Parses a notification into events, without firing them. Can be called from any thread.
+	 *
+	 * @return the parsed events, or {@code null} if nobody is interested in the notification
+	 */
+	List<TS3Event> parseEvents(String notifyName, String notifyBody) {
+		// Don't even parse events nobody is listening to
+		if (!interest.wants(notifyName) && !waiters.wants(notifyName)) return null;
+
+		final List<Wrapper> records = DefaultArrayResponse.parse(notifyBody).getResponses();
+		final List<TS3Event> events = new ArrayList<>(records.size());
+		for (Wrapper eventData : records) {
+			events.add(createEvent(notifyName, eventData));
+		}
+		return events;
+	}
+
+	/**
+	 * Fires the events previously returned by {@link #parseEvents(String, String)}.
+	 * Borrowing listeners are dispatched from {@code notifyBody} directly.
+	 */
+	void fireParsedEvents(String notifyName, String notifyBody, List<TS3Event> events) {
+		if (borrowingInterest.wants(notifyName)) {
+			fireBorrowedEvents(notifyName, notifyBody);
+		}
+
+		if (events == null) return;
+		for (TS3Event event : events) {
+			fireEvent(notifyName, event);
 		}
 	}
 
 	void fireEvent(TS3Event event) {
 		if (event == null) throw new IllegalArgumentException("TS3Event was null");
+		fireEvent(nameByEventClass.get(event.getClass()), event);
+	}
+
+	private void fireEvent(String notifyName, TS3Event event) {
+		waiters.offer(notifyName, event);
+
+		if (ringBuffer != null) {
+			ringBuffer.publish(notifyName, event);
+			return;
+		}
+
 		for (ListenerTask task : tasks) {
-			task.enqueueEvent(event);
+			if (task.interest.wants(notifyName)) {
+				task.enqueueEvent(event);
+			}
 		}
+		routeIndex.forEachMatch(event, ListenerTask::enqueueEvent);
+	}
+
+	private void fireBorrowedEvents(String notifyName, String notifyBody) {
+		final EventFlyweight flyweight = flyweights.get(notifyName);
+		if (flyweight == null) return; // Unknown event, only reported by the regular path
+
+		synchronized (flyweight) {
+			flyweight.reset(notifyBody);
+			while (flyweight.nextRecord()) {
+				for (ListenerTask task : borrowingTasks) {
+					if (task.interest.wants(notifyName)) task.dispatch(flyweight.getEvent());
+				}
+			}
+			flyweight.release();
+		}
+	}
+
+	private synchronized void updateInterest() {
+		routeIndex = routes.isEmpty() ? SubscriptionIndex.empty() : new SubscriptionIndex<>(routes);
+
+		Interest taskInterest = union(tasks);
+		if (taskInterest.names != null && !routes.isEmpty()) {
+			Set<String> names = new HashSet<>(taskInterest.names);
+			for (Class<?> eventClass : routeIndex.getEventClasses()) {
+				names.add(nameByEventClass.get(eventClass));
+			}
+			taskInterest = Interest.of(names);
+		}
+		interest = taskInterest;
+		borrowingInterest = union(borrowingTasks);
+	}
+
+	private static Interest union(Collection<ListenerTask> listenerTasks) {
+		Set<String> names = new HashSet<>();
+		for (ListenerTask task : listenerTasks) {
+			if (task.interest.names == null) return Interest.ALL;
+			names.addAll(task.interest.names);
+		}
+		return Interest.of(names);
+	}
+
+	private static Interest getInterest(TS3Listener listener) {
+		// Only for adapters we know that the methods which weren't overridden do nothing
+		if (!(listener instanceof TS3EventAdapter)) return Interest.ALL;
+
+		Set<String> names = new HashSet<>();
+		for (Map.Entry<String, String> entry : listenerMethodByName.entrySet()) {
+			String notifyName = entry.getKey();
+			try {
+				Method method = listener.getClass().getMethod(entry.getValue(), eventClassByName.get(notifyName));
+				if (method.getDeclaringClass() != TS3EventAdapter.class) names.add(notifyName);
+			} catch (NoSuchMethodException e) {
+				// Cannot happen for a TS3Listener, but deliver the event just in case
+				names.add(notifyName);
+			}
+		}
+		return Interest.of(names);
 	}
 
 	private static TS3Event createEvent(String notifyName, Wrapper eventData) {
@@ -106,6 +399,30 @@ class EventManager {
 		return constructor.apply(eventData);
 	}
 
+	/**
+	 * The set of notify events a listener wants to receive.
+	 */
+	private static final class Interest {
+
+		static final Interest ALL = new Interest(null);
+		static final Interest NONE = new Interest(Collections.emptySet());
+
+		// null if all events, including unknown ones, are wanted
+		final Set<String> names;
+
+		private Interest(Set<String> names) {
+			this.names = names;
+		}
+
+		static Interest of(Set<String> names) {
+			return names.isEmpty() ? NONE : new Interest(names);
+		}
+
+		boolean wants(String notifyName) {
+			return names == null || names.contains(notifyName);
+		}
+	}
+
 	/*
 	 * Do not synchronize on instances of this class from outside the class itself!
 	 */
@@ -113,19 +430,55 @@ class EventManager {
 
 		private static final int START_QUEUE_SIZE = 16;
 
-		private final TS3Listener listener;
-		private final Queue<TS3Event> eventQueue;
+		// The object the user registered, either a TS3Listener or a Consumer
+		private final Object listener;
+		private final Interest interest;
+		private final Consumer<TS3Event> dispatcher;
+		// The head of the queue is the event currently being handled
+		private final ArrayDeque<TS3Event> eventQueue;
+		// Only used with BacklogPolicy.COALESCE: the newest queued event about each client or channel,
+		// and the newer events which replace queued events when they are handled
+		private final Map<Object, TS3Event> newestByEntity;
+		private final Map<TS3Event, TS3Event> replacements;
+		private final ListenerTimer timer;
+		// Only set if the ring buffer is used
+		EventRingBuffer.Subscriber subscriber;
+
+		private boolean overflowing = false;
+		private boolean producerWaiting = false;
 
-		ListenerTask(TS3Listener ts3Listener) {
-			listener = ts3Listener;
-			eventQueue = new ArrayDeque<>(START_QUEUE_SIZE);
+		ListenerTask(Object listener, Interest interest, Consumer<TS3Event> dispatcher) {
+			this.listener = listener;
+			this.interest = interest;
+			this.dispatcher = dispatcher;
+			eventQueue = (ringBuffer == null) ? new ArrayDeque<>(START_QUEUE_SIZE) : null;
+			newestByEntity = (backlogPolicy == BacklogPolicy.COALESCE) ? new HashMap<>() : null;
+			replacements = (backlogPolicy == BacklogPolicy.COALESCE) ? new IdentityHashMap<>() : null;
+			timer = (slowThresholdNanos > 0) ? new ListenerTimer(slowThresholdNanos) : null;
 		}
 
-		TS3Listener getListener() {
-			return listener;
+		void subscribe(EventRingBuffer ring) {
+			subscriber = ring.subscribe(interest::wants, this::dispatch);
+		}
+
+		// Called when the listener is removed
+		void close() {
+			if (subscriber != null) ringBuffer.unsubscribe(subscriber);
 		}
 
 		synchronized void enqueueEvent(TS3Event event) {
+			Object entity = null;
+			if (newestByEntity != null && (entity = EventKeys.entity(event)) != null) {
+				TS3Event newest = newestByEntity.get(entity);
+				if (newest != null && newest.getClass() == event.getClass() && EventKeys.key(event) != null) {
+					// Replace the queued event, it hasn't been handled yet and nothing
+					// else about the same client or channel has been queued after it
+					replacements.put(newest, event);
+					return;
+				}
+			}
+			if (eventQueue.size() >= backlogLimit && !makeRoom()) return;
+
 			if (eventQueue.isEmpty()) {
 				// Add the event to the queue and start a task to process this event and any events
 				// that might be enqueued before the last event is removed from the queue
@@ -135,28 +488,226 @@ class EventManager {
 				// Just add the event to the queue, the running task will pick it up
 				eventQueue.add(event);
 			}
+			if (entity != null) newestByEntity.put(entity, event);
+		}
+
+		// Returns false if the new event should be discarded instead
+		private boolean makeRoom() {
+			if (!overflowing) {
+				overflowing = true;
+				log.warn("Backlog of event listener {} is full ({} events), applying policy {}",
+						listener, backlogLimit, backlogPolicy);
+			}
+
+			switch (backlogPolicy) {
+				case BLOCK:
+					try {
+						while (eventQueue.size() >= backlogLimit) {
+							producerWaiting = true;
+							wait();
+						}
+						return true;
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return false;
+					}
+				case DROP_NEWEST:
+					return false;
+				default:
+					// The head is being handled right now, so drop the event after it
+					if (eventQueue.size() < 2) return false;
+
+					TS3Event head = eventQueue.removeFirst();
+					TS3Event dropped = eventQueue.removeFirst();
+					eventQueue.addFirst(head);
+					if (newestByEntity != null) untrack(dropped);
+					return true;
+			}
 		}
 
 		@Override
 		public void run() {
 			TS3Event currentEvent;
 			synchronized (this) {
-				currentEvent = eventQueue.peek();
+				currentEvent = peekEvent();
 				if (currentEvent == null) throw new IllegalStateException("Task started without events");
 			}
 
 			do {
-				try {
-					currentEvent.fire(listener);
-				} catch (Throwable throwable) {
-					log.error("Event listener threw an exception", throwable);
-				}
+				dispatch(currentEvent);
 
 				synchronized (this) {
 					eventQueue.remove();
-					currentEvent = eventQueue.peek();
+					if (producerWaiting) {
+						producerWaiting = false;
+						notifyAll();
+					}
+					currentEvent = peekEvent();
+					if (currentEvent == null) overflowing = false;
 				}
 			} while (currentEvent != null);
 		}
+
+		// Only call this while synchronized
+		private TS3Event peekEvent() {
+			TS3Event head = eventQueue.peek();
+			if (head == null || newestByEntity == null) return head;
+
+			TS3Event replacement = untrack(head);
+			return (replacement == null) ? head : replacement;
+		}
+
+		// Only call this while synchronized. Returns the event replacing the queued event, if any
+		private TS3Event untrack(TS3Event queued) {
+			// Newer events about the same client or channel from now on need to be queued separately
+			Object entity = EventKeys.entity(queued);
+			if (entity != null && newestByEntity.get(entity) == queued) newestByEntity.remove(entity);
+			return replacements.remove(queued);
+		}
+
+		void dispatch(TS3Event event) {
+			final long start = (timer == null) ? 0L : System.nanoTime();
+			try {
+				dispatcher.accept(event);
+			} catch (Throwable throwable) {
+				log.error("Event listener threw an exception", throwable);
+			}
+
+			if (timer != null) {
+				long p99 = timer.record(System.nanoTime() - start);
+				if (p99 >= 0) {
+					log.warn("Event listener {} is slow, 99th percentile: {} ms", listener,
+							TimeUnit.NANOSECONDS.toMillis(p99));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Spreads the events of a single listener over several serial lanes.
+	 * <p>
+	 * Events about the same client or channel always end up in the same lane, so they are
+	 * handled in order, while events about different clients and channels are handled in parallel.
+	 * Events which aren't about a specific client or channel all use the first lane.
+	 * </p>
+	 */
+	private class PartitionedTask extends ListenerTask {
+
+		private final ListenerTask[] lanes;
+
+		PartitionedTask(TS3Listener listener, Interest interest, Consumer<TS3Event> dispatcher, int laneCount) {
+			super(listener, interest, dispatcher);
+
+			lanes = new ListenerTask[laneCount];
+			for (int i = 0; i < laneCount; ++i) {
+				lanes[i] = new ListenerTask(listener, interest, dispatcher);
+			}
+		}
+
+		private int laneOf(TS3Event event) {
+			int id = EventKeys.clientId(event);
+			if (id < 0) id = EventKeys.channelId(event);
+			return (id < 0) ? 0 : id % lanes.length;
+		}
+
+		@Override
+		void subscribe(EventRingBuffer ring) {
+			for (int i = 0; i < lanes.length; ++i) {
+				final int index = i;
+				final ListenerTask lane = lanes[i];
+				lane.subscriber = ring.subscribe(interest::wants, event -> {
+					if (laneOf(event) == index) lane.dispatch(event);
+				});
+			}
+		}
+
+		@Override
+		void close() {
+			for (ListenerTask lane : lanes) {
+				lane.close();
+			}
+		}
+
+		@Override
+		void enqueueEvent(TS3Event event) {
+			lanes[laneOf(event)].enqueueEvent(event);
+		}
+
+		@Override
+		public void run() {
+			throw new IllegalStateException("Partitioned tasks are never run themselves");
+		}
+	}
+
+	/**
+	 * Collects the events fired during a time window and delivers them to a {@link TS3BatchListener}.
+	 */
+	private class BatchTask extends ListenerTask {
+
+		private final TS3BatchListener batchListener;
+		private final int windowMilliseconds;
+		// Batches are delivered one after another, in order
+		private final Executor deliveryExecutor;
+
+		// Events of the current window by key, null if no window is open
+		private LinkedHashMap<Object, TS3Event> window = null;
+		private volatile boolean closed = false;
+
+		BatchTask(TS3BatchListener listener, Interest interest, int windowMilliseconds) {
+			super(listener, interest, event -> {});
+			this.batchListener = listener;
+			this.windowMilliseconds = windowMilliseconds;
+			this.deliveryExecutor = new SerialExecutor(task -> ts3.submitUserTask("Batch listener task", task));
+		}
+
+		@Override
+		void subscribe(EventRingBuffer ring) {
+			subscriber = ring.subscribe(interest::wants, this::enqueueEvent);
+		}
+
+		@Override
+		void close() {
+			super.close();
+			closed = true;
+		}
+
+		@Override
+		synchronized void enqueueEvent(TS3Event event) {
+			if (window == null) {
+				if (closed) return;
+				try {
+					getScheduler().schedule(this::flush, windowMilliseconds, TimeUnit.MILLISECONDS);
+				} catch (RejectedExecutionException e) {
+					return; // A late event after the event manager has been shut down
+				}
+				window = new LinkedHashMap<>();
+			}
+
+			Object key = EventKeys.key(event);
+			if (key == null) {
+				// Never superseded by another event
+				key = new Object();
+			} else {
+				// Remove first so the newer event takes the position of the latest event
+				window.remove(key);
+			}
+			window.put(key, event);
+		}
+
+		private void flush() {
+			final List<TS3Event> batch;
+			synchronized (this) {
+				batch = Collections.unmodifiableList(new ArrayList<>(window.values()));
+				window = null;
+			}
+
+			if (closed) return;
+			deliveryExecutor.execute(() -> batchListener.onEvents(batch));
+		}
+
+		@Override
+		public void run() {
+			throw new IllegalStateException("Batch tasks are never run themselves");
+		}
 	}
 }
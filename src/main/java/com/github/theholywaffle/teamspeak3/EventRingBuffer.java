@@ -0,0 +1,218 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.TS3Query.EventWaitStrategy;
+import com.github.theholywaffle.teamspeak3.api.event.TS3Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A fixed-size ring buffer of events with one dedicated thread per subscriber.
+ * <p>
+ * The slots of the ring are allocated once and reused. Every subscriber tracks the sequence
+ * of the last event it has processed and advances at its own pace. The publisher only
+ * overwrites a slot once every subscriber has moved past it, so a slow subscriber eventually
+ * makes {@link #publish(String, TS3Event)} wait instead of letting memory usage grow.
+ * </p>
+ */
+class EventRingBuffer {
+
+	private static final Logger log = LoggerFactory.getLogger(EventRingBuffer.class);
+	private static final int SPIN_TRIES = 100;
+
+	private final Slot[] slots;
+	private final int mask;
+	private final EventWaitStrategy waitStrategy;
+
+	// Sequence of the last published event, -1 if nothing was published yet
+	private final AtomicLong cursor = new AtomicLong(-1L);
+	private final Collection<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+	// Only used by EventWaitStrategy.BLOCKING
+	private final Lock lock = new ReentrantLock();
+	private final Condition published = lock.newCondition();
+
+	private volatile boolean running = true;
+
+	EventRingBuffer(int minimumSize, EventWaitStrategy waitStrategy) {
+		int size = Integer.highestOneBit(minimumSize);
+		if (size < minimumSize) size <<= 1;
+
+		this.slots = new Slot[size];
+		this.mask = size - 1;
+		this.waitStrategy = waitStrategy;
+
+		for (int i = 0; i < size; ++i) {
+			slots[i] = new Slot();
+		}
+	}
+
+	Subscriber subscribe(Predicate<String> filter, Consumer<TS3Event> handler) {
+		Subscriber subscriber = new Subscriber(filter, handler);
+		synchronized (this) {
+			// Don't receive events published before subscribing
+			subscriber.sequence.set(cursor.get());
+			subscribers.add(subscriber);
+		}
+		subscriber.start();
+		return subscriber;
+	}
+
+	void unsubscribe(Subscriber subscriber) {
+		subscribers.remove(subscriber);
+		subscriber.running = false;
+		wakeUpSubscribers();
+	}
+
+	synchronized void publish(String notifyName, TS3Event event) {
+		if (!running || subscribers.isEmpty()) return;
+
+		final long next = cursor.get() + 1;
+		final long wrapPoint = next - slots.length;
+		while (wrapPoint > minimumSequence()) {
+			// The ring is full, wait for the slowest subscriber to catch up
+			if (!running) return;
+			LockSupport.parkNanos(1000L);
+		}
+
+		Slot slot = slots[(int) next & mask];
+		slot.notifyName = notifyName;
+		slot.event = event;
+		cursor.set(next);
+
+		if (waitStrategy == EventWaitStrategy.BLOCKING) {
+			wakeUpSubscribers();
+		}
+	}
+
+	void shutDown() {
+		running = false;
+		for (Subscriber subscriber : subscribers) {
+			subscriber.running = false;
+		}
+		subscribers.clear();
+		wakeUpSubscribers();
+	}
+
+	private long minimumSequence() {
+		long minimum = Long.MAX_VALUE;
+		for (Subscriber subscriber : subscribers) {
+			minimum = Math.min(minimum, subscriber.sequence.get());
+		}
+		return minimum;
+	}
+
+	private void wakeUpSubscribers() {
+		lock.lock();
+		try {
+			published.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static class Slot {
+
+		String notifyName;
+		TS3Event event;
+	}
+
+	class Subscriber extends Thread {
+
+		private final Predicate<String> filter;
+		private final Consumer<TS3Event> handler;
+		// Sequence of the last event this subscriber has processed
+		private final AtomicLong sequence = new AtomicLong();
+
+		private volatile boolean running = true;
+
+		Subscriber(Predicate<String> filter, Consumer<TS3Event> handler) {
+			super("[TeamSpeak-3-Java-API] EventSubscriber");
+			this.filter = filter;
+			this.handler = handler;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			long next = sequence.get() + 1;
+			while (running) {
+				final long available = waitFor(next);
+				if (available < next) continue;
+
+				// Process every event that's already available in one batch
+				for (; next <= available; ++next) {
+					Slot slot = slots[(int) next & mask];
+					if (!filter.test(slot.notifyName)) continue;
+
+					try {
+						handler.accept(slot.event);
+					} catch (Throwable throwable) {
+						log.error("Event listener threw an exception", throwable);
+					}
+				}
+				sequence.set(available);
+			}
+		}
+
+		private long waitFor(long next) {
+			long available;
+			int tries = 0;
+			while ((available = cursor.get()) < next && running) {
+				switch (waitStrategy) {
+					case BUSY_SPIN:
+						break;
+					case YIELDING:
+						if (++tries > SPIN_TRIES) Thread.yield();
+						break;
+					default:
+						lock.lock();
+						try {
+							while ((available = cursor.get()) < next && running) {
+								published.awaitUninterruptibly();
+							}
+						} finally {
+							lock.unlock();
+						}
+						return available;
+				}
+			}
+			return available;
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.event.TS3Event;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3EventTimeoutException;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Futures waiting for an event matching a predicate.
+ * <p>
+ * Waiters are stored by notify name and, if they wait for an event about a specific client or channel,
+ * by the ID of that client or channel. An event is therefore only tested against the waiters that
+ * could possibly match it. On timeout or cancellation, a waiter is removed from its bucket directly.
+ * </p>
+ */
+class EventWaiters {
+
+	// Key for waiters not waiting for a specific client or channel
+	private static final int ANY = -1;
+
+	// Notify name -> client or channel ID -> waiters
+	private final Map<String, Map<Integer, List<Waiter<?>>>> waiters = new HashMap<>();
+	private final TS3Query ts3;
+	private volatile int size = 0;
+
+	EventWaiters(TS3Query query) {
+		ts3 = query;
+	}
+
+	<E extends TS3Event> CommandFuture<E> await(String notifyName, Class<E> eventClass, int id, Predicate<? super E> predicate,
+	                                            long timeout, TimeUnit unit, ScheduledExecutorService scheduler) {
+		final CommandFuture<E> future = new CommandFuture<>();
+		final Waiter<E> waiter = new Waiter<>(notifyName, (id < 0) ? ANY : id, eventClass, predicate, future);
+
+		synchronized (this) {
+			waiters.computeIfAbsent(notifyName, name -> new HashMap<>())
+					.computeIfAbsent(waiter.id, key -> new ArrayList<>(1))
+					.add(waiter);
+			++size;
+		}
+
+		waiter.setTimeout(scheduler.schedule(() -> {
+			if (remove(waiter)) {
+				future.fail(new TS3EventTimeoutException("No matching " + eventClass.getSimpleName()
+						+ " received within " + timeout + " " + unit.toString().toLowerCase()));
+			}
+		}, timeout, unit));
+		future.onCancellation(() -> {
+			if (remove(waiter)) waiter.cancelTimeout();
+		});
+
+		return future;
+	}
+
+	boolean wants(String notifyName) {
+		if (size == 0) return false;
+
+		synchronized (this) {
+			return waiters.containsKey(notifyName);
+		}
+	}
+
+	void offer(String notifyName, TS3Event event) {
+		if (size == 0) return;
+
+		List<Waiter<?>> candidates = new ArrayList<>();
+		synchronized (this) {
+			Map<Integer, List<Waiter<?>>> byId = waiters.get(notifyName);
+			if (byId == null) return;
+
+			int id = EventKeys.clientId(event);
+			if (id < 0) id = EventKeys.channelId(event);
+			if (id >= 0) addAll(candidates, byId.get(id));
+			addAll(candidates, byId.get(ANY));
+		}
+
+		// Predicates are user code, so they are tested without holding the lock
+		for (Waiter<?> waiter : candidates) {
+			// A waiter can only be removed once, so it's not completed again by a concurrent event or its timeout
+			if (!waiter.test(event) || !remove(waiter)) continue;
+
+			waiter.cancelTimeout();
+			ts3.completeCommand(() -> waiter.complete(event));
+		}
+	}
+
+	private static void addAll(List<Waiter<?>> candidates, List<Waiter<?>> bucket) {
+		if (bucket != null) candidates.addAll(bucket);
+	}
+
+	private synchronized boolean remove(Waiter<?> waiter) {
+		Map<Integer, List<Waiter<?>>> byId = waiters.get(waiter.notifyName);
+		if (byId == null) return false;
+
+		List<Waiter<?>> bucket = byId.get(waiter.id);
+		if (bucket == null || !bucket.remove(waiter)) return false;
+
+		--size;
+		if (bucket.isEmpty()) byId.remove(waiter.id);
+		if (byId.isEmpty()) waiters.remove(waiter.notifyName);
+		return true;
+	}
+
+	private static class Waiter<E extends TS3Event> {
+
+		private final String notifyName;
+		private final int id;
+		private final Class<E> eventClass;
+		private final Predicate<? super E> predicate;
+		private final CommandFuture<E> future;
+		private volatile ScheduledFuture<?> timeout;
+		private volatile boolean timeoutCancelled = false;
+
+		Waiter(String notifyName, int id, Class<E> eventClass, Predicate<? super E> predicate, CommandFuture<E> future) {
+			this.notifyName = notifyName;
+			this.id = id;
+			this.eventClass = eventClass;
+			this.predicate = predicate;
+			this.future = future;
+		}
+
+		void setTimeout(ScheduledFuture<?> timeout) {
+			this.timeout = timeout;
+			// The waiter may have been completed before its timeout was even scheduled
+			if (timeoutCancelled) timeout.cancel(false);
+		}
+
+		void cancelTimeout() {
+			timeoutCancelled = true;
+			ScheduledFuture<?> task = timeout;
+			if (task != null) task.cancel(false);
+		}
+
+		boolean test(TS3Event event) {
+			try {
+				return predicate == null || predicate.test(eventClass.cast(event));
+			} catch (Throwable throwable) {
+				// Remove the waiter, completing it afterwards won't have any effect
+				future.fail(new TS3Exception("Event predicate threw an exception", throwable));
+				return true;
+			}
+		}
+
+		void complete(TS3Event event) {
+			future.set(eventClass.cast(event));
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.FileCrawlOptions;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import com.github.theholywaffle.teamspeak3.api.wrapper.FileListEntry;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Walks the file repositories of many channels with as many {@code ftgetfilelist} commands
+ * in flight as the crawl options allow, streaming matching files to a consumer.
+ * <p>
+ * Directories waiting to be listed are kept in a deque. Subdirectories are pushed to its front,
+ * so the crawl finishes one channel's tree before moving on and the deque stays small even when
+ * thousands of channels are crawled. The consumer is never called concurrently, but entries of
+ * different directories may be interleaved. The crawl fails as soon as any listing or the
+ * consumer fails, and stops issuing new listings once its future has been cancelled.
+ * </p>
+ */
+class FileCrawler {
+
+	private final Lister lister;
+	private final FileCrawlOptions options;
+	private final Consumer<FileListEntry> consumer;
+	private final CommandFuture<Void> result = new CommandFuture<>();
+	private final AtomicInteger drainRequests = new AtomicInteger();
+	private final Object consumerLock = new Object();
+
+	// Guarded by this
+	private final Deque<Directory> pending = new ArrayDeque<>();
+	private int inFlight = 0;
+
+	FileCrawler(Lister lister, FileCrawlOptions options, Consumer<FileListEntry> consumer) {
+		if (consumer == null) throw new IllegalArgumentException("Consumer cannot be null");
+
+		this.lister = lister;
+		this.options = (options == null) ? FileCrawlOptions.defaults() : options;
+		this.consumer = consumer;
+	}
+
+	CommandFuture<Void> crawl(Collection<Integer> channelIds) {
+		synchronized (this) {
+			for (int channelId : channelIds) {
+				pending.addLast(new Directory(channelId, this.options.getRootDirectory(), 0));
+			}
+		}
+		drain();
+		return result;
+	}
+
+	/**
+	 * Sends as many pending listings as allowed. Listings can complete on the calling thread,
+	 * so re-entrant calls only request another pass of the loop instead of recursing.
+	 */
+	private void drain() {
+		if (drainRequests.getAndIncrement() != 0) return;
+
+		do {
+			while (true) {
+				Directory directory;
+				synchronized (this) {
+					if (result.isDone()) return;
+					if (pending.isEmpty() && inFlight == 0) {
+						result.set(null);
+						return;
+					}
+					if (pending.isEmpty() || inFlight >= options.getMaxPendingListings()) break;
+
+					directory = pending.pollFirst();
+					++inFlight;
+				}
+
+				String password = options.getChannelPassword(directory.channelId);
+				lister.list(directory.path, directory.channelId, password)
+						.onSuccess(entries -> listed(directory, entries))
+						.onFailure(this::fail);
+			}
+		} while (drainRequests.decrementAndGet() != 0);
+	}
+
+	private void listed(Directory directory, List<FileListEntry> entries) {
+		boolean descend = options.getMaxDepth() < 0 || directory.depth < options.getMaxDepth();
+		Deque<Directory> subdirectories = new ArrayDeque<>();
+
+		try {
+			for (FileListEntry entry : entries) {
+				String path = directory.path + entry.getName();
+				if (entry.isDirectory()) {
+					if (descend) subdirectories.addFirst(new Directory(directory.channelId, path + "/", directory.depth + 1));
+				} else if (options.accepts(path, entry.getFileSize())) {
+					deliver(complete(entry, directory));
+				}
+			}
+		} catch (RuntimeException e) {
+			fail(new TS3Exception("File crawl consumer failed", e));
+			return;
+		}
+
+		synchronized (this) {
+			for (Directory subdirectory : subdirectories) {
+				pending.addFirst(subdirectory); // Reversed twice, so siblings keep their order
+			}
+			--inFlight;
+		}
+		drain();
+	}
+
+	private void deliver(FileListEntry entry) {
+		synchronized (consumerLock) {
+			if (result.isDone()) return;
+			consumer.accept(entry);
+		}
+	}
+
+	private void fail(TS3Exception exception) {
+		synchronized (this) {
+			pending.clear();
+		}
+		result.fail(exception);
+	}
+
+	/**
+	 * The crawler knows the channel and parent directory of every entry, so they are filled in
+	 * to make {@link FileListEntry#getPath()} reliable no matter which fields the server repeated.
+	 */
+	private static FileListEntry complete(FileListEntry entry, Directory directory) {
+		Map<String, String> map = new HashMap<>(entry.getMap());
+		map.put("cid", String.valueOf(directory.channelId));
+		map.put("path", directory.path);
+		return new FileListEntry(map);
+	}
+
+	interface Lister {
+
+		CommandFuture<List<FileListEntry>> list(String directoryPath, int channelId, String channelPassword);
+	}
+
+	private static class Directory {
+
+		private final int channelId;
+		private final String path;
+		private final int depth;
+
+		private Directory(int channelId, String path, int depth) {
+			this.channelId = channelId;
+			this.path = path;
+			this.depth = depth;
+		}
+	}
+}
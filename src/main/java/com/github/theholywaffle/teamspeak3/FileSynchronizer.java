@@ -0,0 +1,355 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.FileSyncResult;
+import com.github.theholywaffle.teamspeak3.api.FileTransferOptions;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3FileTransferFailedException;
+import com.github.theholywaffle.teamspeak3.api.wrapper.FileListEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synchronizes a directory of a channel's file repository with a local directory,
+ * transferring only files which are missing or have changed.
+ * <p>
+ * The remote tree is listed with one {@code ftgetfilelist} per directory. The listings of all
+ * subdirectories of a directory are requested at once, so they are pipelined by the command queue.
+ * A file is considered unchanged if its size matches and, for downloads, its modification time
+ * matches, or for uploads, the local copy is not newer than the remote one. Downloaded files get
+ * the remote modification time, so that a repeated sync of an unchanged repository only costs
+ * the listing round trips. Transfers are limited by the query's file transfer manager.
+ * </p>
+ */
+class FileSynchronizer {
+
+	private static final Logger log = LoggerFactory.getLogger(FileSynchronizer.class);
+	private static final int DELETE_BATCH_SIZE = 100;
+
+	private final TS3ApiAsync api;
+	private final String remoteRoot;
+	private final int channelId;
+	private final String channelPassword;
+	private final Path localRoot;
+	private final boolean deleteExtra;
+	private final FileTransferOptions options;
+
+	FileSynchronizer(TS3ApiAsync api, String remoteDirectory, int channelId, String channelPassword,
+	                 Path localDirectory, boolean deleteExtra, FileTransferOptions options) {
+		if (remoteDirectory == null) throw new IllegalArgumentException("Remote directory cannot be null");
+		if (localDirectory == null) throw new IllegalArgumentException("Local directory cannot be null");
+
+		String root = remoteDirectory; // Make sure path starts and ends with /
+		if (!root.startsWith("/")) root = "/" + root;
+		if (!root.endsWith("/")) root += "/";
+
+		this.api = api;
+		this.remoteRoot = root;
+		this.channelId = channelId;
+		this.channelPassword = channelPassword;
+		this.localRoot = localDirectory;
+		this.deleteExtra = deleteExtra;
+		this.options = options;
+	}
+
+	CommandFuture<FileSyncResult> download() {
+		return listRemote().then(remote -> {
+			Tree local = listLocal();
+			List<String> deleted = new ArrayList<>();
+			if (deleteExtra) deleteLocal(remote, local, deleted);
+
+			for (String directory : remote.directories) {
+				createLocalDirectory(directory);
+			}
+
+			Sync sync = new Sync(deleted);
+			for (Map.Entry<String, FileState> file : remote.files.entrySet()) {
+				String path = file.getKey();
+				FileState remoteFile = file.getValue();
+				FileState localFile = local.files.get(path);
+				if (localFile != null && localFile.size == remoteFile.size && localFile.modified == remoteFile.modified) {
+					sync.unchanged++;
+					continue;
+				}
+
+				Path target = localPath(path);
+				sync.transfer(path, remoteFile.size, api.downloadFile(target, remoteRoot + path, channelId, channelPassword, options)
+						.onSuccess(__ -> setModifiedTime(target, remoteFile.modified)));
+			}
+			return sync.finish();
+		});
+	}
+
+	CommandFuture<FileSyncResult> upload() {
+		return listRemote().then(remote -> {
+			Tree local = listLocal();
+			List<String> deleted = new ArrayList<>();
+			List<CommandFuture<Void>> deletions = deleteExtra ? deleteRemote(remote, local, deleted) : Collections.emptyList();
+
+			Sync sync = new Sync(deleted);
+			for (CommandFuture<Void> deletion : deletions) {
+				sync.await(deletion);
+			}
+
+			// Commands are sent in order, so each parent directory is created before its children
+			for (String directory : local.directories) {
+				if (!remote.directories.contains(directory)) {
+					sync.await(api.createFileDirectory(remoteRoot + directory, channelId, channelPassword));
+				}
+			}
+			for (Map.Entry<String, FileState> file : local.files.entrySet()) {
+				String path = file.getKey();
+				FileState localFile = file.getValue();
+				FileState remoteFile = remote.files.get(path);
+				if (remoteFile != null && remoteFile.size == localFile.size && remoteFile.modified >= localFile.modified) {
+					sync.unchanged++;
+					continue;
+				}
+
+				sync.transfer(path, localFile.size,
+						api.uploadFile(localPath(path), remoteRoot + path, true, channelId, channelPassword, options));
+			}
+			return sync.finish();
+		});
+	}
+
+	// REMOTE
+
+	private CommandFuture<Tree> listRemote() {
+		Tree tree = new Tree();
+		return listRemote("", tree).map(__ -> tree);
+	}
+
+	private CommandFuture<Void> listRemote(String directory, Tree tree) {
+		// An empty directory is listed as an empty list, not as an error
+		return api.getFileList(remoteRoot + directory, channelId, channelPassword).then(entries -> {
+			List<CommandFuture<Void>> subdirectories = new ArrayList<>();
+			for (FileListEntry entry : entries) {
+				String path = directory + entry.getName();
+				if (entry.isDirectory()) {
+					tree.directories.add(path);
+					subdirectories.add(listRemote(path + "/", tree));
+				} else {
+					long modified = entry.getLastModifiedDate().getTime() / 1000;
+					tree.files.put(path, new FileState(entry.getFileSize(), modified));
+				}
+			}
+
+			if (subdirectories.isEmpty()) return null;
+			return CommandFuture.ofAll(subdirectories).map(__ -> null);
+		});
+	}
+
+	private List<CommandFuture<Void>> deleteRemote(Tree remote, Tree local, List<String> deleted) {
+		List<String> paths = new ArrayList<>();
+		for (String directory : remote.directories) {
+			if (!local.directories.contains(directory) && !isInside(directory, paths)) {
+				paths.add(directory);
+			}
+		}
+		for (String file : remote.files.keySet()) {
+			if (!local.files.containsKey(file) && !isInside(file, paths)) {
+				paths.add(file);
+			}
+		}
+		deleted.addAll(paths);
+
+		List<CommandFuture<Void>> deletions = new ArrayList<>();
+		for (int i = 0; i < paths.size(); i += DELETE_BATCH_SIZE) {
+			List<String> batch = paths.subList(i, Math.min(paths.size(), i + DELETE_BATCH_SIZE));
+			String[] remotePaths = new String[batch.size()];
+			for (int j = 0; j < remotePaths.length; ++j) {
+				remotePaths[j] = remoteRoot + batch.get(j);
+			}
+			deletions.add(api.deleteFiles(remotePaths, channelId, channelPassword));
+		}
+		return deletions;
+	}
+
+	// LOCAL
+
+	private Tree listLocal() {
+		Tree tree = new Tree();
+		if (!Files.isDirectory(localRoot)) return tree;
+
+		try {
+			Files.walkFileTree(localRoot, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+					if (!dir.equals(localRoot)) tree.directories.add(relativePath(dir));
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+					if (attributes.isRegularFile()) {
+						long modified = attributes.lastModifiedTime().to(TimeUnit.SECONDS);
+						tree.files.put(relativePath(file), new FileState(attributes.size(), modified));
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			throw new TS3FileTransferFailedException("Reading local directory failed", e);
+		}
+		return tree;
+	}
+
+	private void deleteLocal(Tree remote, Tree local, List<String> deleted) {
+		// Reverse order visits the files in a directory before the directory itself
+		List<String> paths = new ArrayList<>(local.files.keySet());
+		paths.addAll(local.directories);
+		paths.sort(Collections.reverseOrder());
+
+		try {
+			for (String path : paths) {
+				if (remote.files.containsKey(path) || remote.directories.contains(path)) continue;
+
+				Files.deleteIfExists(localPath(path));
+				deleted.add(path);
+			}
+		} catch (IOException e) {
+			throw new TS3FileTransferFailedException("Deleting local file failed", e);
+		}
+
+		// Directories were deleted after their contents, only keep the outermost deleted path
+		deleted.removeIf(path -> isInside(path, deleted));
+		Collections.sort(deleted);
+	}
+
+	private void createLocalDirectory(String directory) {
+		try {
+			Files.createDirectories(localPath(directory));
+		} catch (IOException e) {
+			throw new TS3FileTransferFailedException("Creating local directory failed", e);
+		}
+	}
+
+	private static void setModifiedTime(Path file, long modified) {
+		try {
+			Files.setLastModifiedTime(file, FileTime.from(modified, TimeUnit.SECONDS));
+		} catch (IOException e) {
+			log.warn("Could not set modification time of {}, it will be downloaded again", file, e);
+		}
+	}
+
+	private Path localPath(String path) {
+		return localRoot.resolve(path.replace("/", localRoot.getFileSystem().getSeparator()));
+	}
+
+	private String relativePath(Path path) {
+		StringBuilder builder = new StringBuilder();
+		for (Path part : localRoot.relativize(path)) {
+			if (builder.length() > 0) builder.append('/');
+			builder.append(part);
+		}
+		return builder.toString();
+	}
+
+	private static boolean isInside(String path, Collection<String> directories) {
+		for (String directory : directories) {
+			if (path.startsWith(directory + "/")) return true;
+		}
+		return false;
+	}
+
+	private static final class FileState {
+
+		private final long size;
+		private final long modified; // In seconds
+
+		FileState(long size, long modified) {
+			this.size = size;
+			this.modified = modified;
+		}
+	}
+
+	/**
+	 * The files and directories below a root directory, by their relative paths.
+	 * Directories are sorted, so that parents come before their children.
+	 */
+	private static final class Tree {
+
+		// Remote listings are added to the tree from multiple threads
+		private final NavigableMap<String, FileState> files = new ConcurrentSkipListMap<>();
+		private final NavigableSet<String> directories = new ConcurrentSkipListSet<>();
+	}
+
+	/**
+	 * Collects the transfers of one synchronization and builds the result once all of them have finished.
+	 */
+	private static final class Sync {
+
+		private final List<String> deleted;
+		private final List<String> transferred = new ArrayList<>();
+		private final List<CommandFuture<?>> pending = new ArrayList<>();
+		private int unchanged = 0;
+		private long bytes = 0;
+
+		Sync(List<String> deleted) {
+			this.deleted = deleted;
+		}
+
+		void await(CommandFuture<?> future) {
+			pending.add(future);
+		}
+
+		void transfer(String path, long size, CommandFuture<?> future) {
+			transferred.add(path);
+			bytes += size;
+			pending.add(future);
+		}
+
+		CommandFuture<FileSyncResult> finish() {
+			FileSyncResult result = new FileSyncResult(transferred, deleted, unchanged, bytes);
+			if (pending.isEmpty()) return CommandFuture.immediate(result);
+
+			@SuppressWarnings("unchecked")
+			List<CommandFuture<Object>> futures = (List<CommandFuture<Object>>) (List<?>) pending;
+			return CommandFuture.ofAll(futures).map(__ -> result);
+		}
+	}
+}
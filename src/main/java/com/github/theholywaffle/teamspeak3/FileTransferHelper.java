@@ -33,8 +33,14 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.CRC32;
 
@@ -42,6 +48,7 @@ class FileTransferHelper {
 
 	private static final Logger log = LoggerFactory.getLogger(FileTransferHelper.class);
 	private static final int BUFFER_SIZE = 16_384; // 16 kB
+	static final long MIN_PART_SIZE = 1 << 20; // 1 MiB, smaller parts of parallel downloads aren't worth a connection
 
 	// Can only be in the range 0 - 65535
 	private final AtomicInteger clientTransferId = new AtomicInteger(0);
@@ -53,7 +60,7 @@ class FileTransferHelper {
 
 	// FILES
 
-	void downloadFile(OutputStream dataOut, FileTransferParameters params) throws IOException {
+	void downloadFile(OutputStream dataOut, FileTransferParameters params, FileTransferManager.Transfer transfer) throws IOException {
 		final String host = getHostFromResponse(params.getFileServerHost());
 		final int port = params.getFileServerPort();
 		final long dataLength = params.getFileSize();
@@ -72,11 +79,12 @@ class FileTransferHelper {
 			byte[] buffer = new byte[actualSize];
 			long total = 0;
 			while (total < dataLength) {
-				int read = in.read(buffer);
+				int read = in.read(buffer, 0, (int) transfer.acquire(buffer.length));
 				if (read < 0) throw new IOException("Server response contained less data than specified");
 				total += read;
 				if (total > dataLength) throw new IOException("Server response contained more data than specified");
 				dataOut.write(buffer, 0, read);
+				transfer.transferred(read);
 			}
 			log.info("[Download {}] Download finished", downloadId);
 		} catch (IOException e) {
@@ -86,7 +94,88 @@ class FileTransferHelper {
 		}
 	}
 
-	void uploadFile(InputStream dataIn, long dataLength, FileTransferParameters params) throws IOException {
+	void downloadFile(FileChannel fileOut, FileTransferParameters params, FileTransferManager.Transfer transfer) throws IOException {
+		final long position = fileOut.position();
+		final long dataLength = params.getFileSize();
+		downloadFile(fileOut, position, dataLength, params, transfer);
+		fileOut.position(position + dataLength);
+	}
+
+	/**
+	 * Opens {@code file} for a download of {@code fileSize} bytes in several ranges, replacing any
+	 * existing content. The file is grown to its final size up front, as {@link FileChannel#transferFrom}
+	 * does not write anything to positions beyond the end of the file.
+	 */
+	static FileChannel openRangedDownload(Path file, long fileSize) throws IOException {
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			if (fileSize > 0) channel.write(ByteBuffer.allocate(1), fileSize - 1);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return channel;
+	}
+
+	/**
+	 * Downloads {@code dataLength} bytes and writes them to {@code fileOut} at {@code position},
+	 * without changing the position of the channel. If the server sends more data than that,
+	 * the connection is closed early, which allows downloading parts of a file concurrently.
+	 */
+	void downloadFile(FileChannel fileOut, long position, long dataLength, FileTransferParameters params,
+	                  FileTransferManager.Transfer transfer) throws IOException {
+		final int downloadId = params.getClientTransferId() + 1;
+
+		log.info("[Download {}] Download started", downloadId);
+		try (SocketChannel socket = openChannel(params)) {
+			// Let the kernel move the data from the socket to the file, if the platform supports it
+			long total = 0;
+			while (total < dataLength) {
+				long chunk = transfer.acquire(dataLength - total);
+				long transferred = fileOut.transferFrom(socket, position + total, chunk);
+				if (transferred <= 0) throw new IOException("Server response contained less data than specified");
+				total += transferred;
+				transfer.transferred(transferred);
+			}
+			log.info("[Download {}] Download finished", downloadId);
+		} catch (IOException e) {
+			// Log and re-throw
+			log.warn("[Download {}] Download failed: {}", downloadId, e.getMessage());
+			throw e;
+		}
+	}
+
+	void downloadFile(ByteBuffer dataOut, FileTransferParameters params, FileTransferManager.Transfer transfer) throws IOException {
+		final long dataLength = params.getFileSize();
+		final int downloadId = params.getClientTransferId() + 1;
+
+		if (dataLength > dataOut.remaining()) {
+			throw new IOException("Buffer too small, file has " + dataLength + " bytes");
+		}
+
+		log.info("[Download {}] Download started", downloadId);
+		try (SocketChannel socket = openChannel(params)) {
+			// Don't read past the end of the file into the rest of the buffer
+			ByteBuffer target = dataOut.duplicate();
+			target.limit(target.position() + (int) dataLength);
+			int end = target.limit();
+			while (target.position() < end) {
+				target.limit(target.position() + (int) transfer.acquire(end - target.position()));
+				int read = socket.read(target);
+				if (read < 0) throw new IOException("Server response contained less data than specified");
+				transfer.transferred(read);
+			}
+			dataOut.position(target.position());
+			log.info("[Download {}] Download finished", downloadId);
+		} catch (IOException e) {
+			// Log and re-throw
+			log.warn("[Download {}] Download failed: {}", downloadId, e.getMessage());
+			throw e;
+		}
+	}
+
+	void uploadFile(InputStream dataIn, long dataLength, FileTransferParameters params, FileTransferManager.Transfer transfer) throws IOException {
 		final String host = getHostFromResponse(params.getFileServerHost());
 		final int port = params.getFileServerPort();
 		final int uploadId = params.getClientTransferId() + 1;
@@ -103,11 +192,12 @@ class FileTransferHelper {
 			byte[] buffer = new byte[actualSize];
 			long total = 0;
 			while (total < dataLength) {
-				int toRead = (int) Math.min(actualSize, dataLength - total);
+				int toRead = (int) transfer.acquire(Math.min(actualSize, dataLength - total));
 				int read = dataIn.read(buffer, 0, toRead);
 				if (read < 0) throw new IOException("User stream did not contain enough data");
 				total += read;
 				out.write(buffer, 0, read);
+				transfer.transferred(read);
 			}
 			log.info("[Upload {}] Upload finished", uploadId);
 		} catch (IOException e) {
@@ -117,6 +207,61 @@ class FileTransferHelper {
 		}
 	}
 
+	void uploadFile(FileChannel fileIn, long dataLength, FileTransferParameters params, FileTransferManager.Transfer transfer) throws IOException {
+		final long position = fileIn.position();
+		uploadFile(fileIn, position, dataLength, params, transfer);
+		fileIn.position(position + dataLength);
+	}
+
+	/**
+	 * Uploads {@code dataLength} bytes read from {@code fileIn} at {@code position},
+	 * without changing the position of the channel.
+	 */
+	void uploadFile(FileChannel fileIn, long position, long dataLength, FileTransferParameters params,
+	                FileTransferManager.Transfer transfer) throws IOException {
+		final int uploadId = params.getClientTransferId() + 1;
+
+		log.info("[Upload {}] Upload started", uploadId);
+		try (SocketChannel socket = openChannel(params)) {
+			// Let the kernel move the data from the file to the socket, if the platform supports it
+			long total = 0;
+			while (total < dataLength) {
+				long chunk = transfer.acquire(dataLength - total);
+				long transferred = fileIn.transferTo(position + total, chunk, socket);
+				if (transferred <= 0) throw new IOException("User file did not contain enough data");
+				total += transferred;
+				transfer.transferred(transferred);
+			}
+			log.info("[Upload {}] Upload finished", uploadId);
+		} catch (IOException e) {
+			// Log and re-throw
+			log.warn("[Upload {}] Upload failed: {}", uploadId, e.getMessage());
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a blocking socket channel to the file server and sends the transfer key.
+	 */
+	private SocketChannel openChannel(FileTransferParameters params) throws IOException {
+		final String host = getHostFromResponse(params.getFileServerHost());
+		final int port = params.getFileServerPort();
+
+		SocketChannel socket = SocketChannel.open();
+		try {
+			socket.connect(new InetSocketAddress(host, port));
+
+			ByteBuffer key = ByteBuffer.wrap(params.getFileTransferKey().getBytes(StandardCharsets.UTF_8));
+			while (key.hasRemaining()) {
+				socket.write(key);
+			}
+			return socket;
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+	}
+
 	// ICONS
 
 	static long getIconId(byte[] data) {
@@ -145,6 +290,10 @@ class FileTransferHelper {
 		return clientTransferId.getAndUpdate(id -> (id + 1) & 0xFFFF);
 	}
 
+	String getDefaultHost() {
+		return defaultHost;
+	}
+
 	private String getHostFromResponse(String raw) {
 		if (raw == null || raw.isEmpty()) return defaultHost;
 		if (raw.startsWith("0.0.0.0")) return defaultHost;
@@ -0,0 +1,302 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.FileTransferOptions;
+import com.github.theholywaffle.teamspeak3.api.TransferProgressListener;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3FileTransferFailedException;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3QueryShutDownException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs file transfers on dedicated threads, so they don't occupy the threads running user code.
+ * <p>
+ * At most {@code maxTransfers} transfers, and at most {@code maxTransfersPerHost} transfers
+ * to the same file server, run at any time. Further transfers are queued and started
+ * by priority, then in the order they were submitted. The bandwidth of all transfers combined
+ * and of each single transfer can be limited by token buckets.
+ * </p><p>
+ * The futures of finished transfers are completed on {@code completionExecutor},
+ * so slow future listeners don't hold up the next transfer.
+ * </p>
+ */
+class FileTransferManager {
+
+	private static final Logger log = LoggerFactory.getLogger(FileTransferManager.class);
+	private static final long MAX_CHUNK_SIZE = 1 << 20; // 1 MiB
+	private static final long MIN_CHUNK_SIZE = 4096;
+
+	private static final Comparator<Job<?>> ORDER = Comparator.<Job<?>> comparingInt(job -> -job.priority)
+			.thenComparingLong(job -> job.sequence);
+
+	private final int maxTransfers;
+	private final int maxTransfersPerHost;
+	private final TokenBucket globalBucket; // null if not limited
+	private final ExecutorService workers;
+	private final Executor completionExecutor;
+
+	// Guarded by this
+	private final TreeSet<Job<?>> queue = new TreeSet<>(ORDER);
+	private final Map<String, Integer> activeByHost = new HashMap<>();
+	private int active = 0;
+	private long sequence = 0;
+	private boolean shutDown = false;
+
+	FileTransferManager(int maxTransfers, int maxTransfersPerHost, long bytesPerSecond, Executor completionExecutor) {
+		this.completionExecutor = completionExecutor;
+		this.maxTransfers = maxTransfers;
+		this.maxTransfersPerHost = maxTransfersPerHost;
+		this.globalBucket = (bytesPerSecond > 0) ? new TokenBucket(bytesPerSecond) : null;
+		this.workers = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "[TeamSpeak-3-Java-API] FileTransfer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Queues a file transfer.
+	 *
+	 * @param host
+	 * 		the file server the transfer connects to
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 * @param failureMessage
+	 * 		the message of the exception if {@code task} throws an {@code IOException}
+	 * @param task
+	 * 		performs the transfer, and sets its size once it is known
+	 * @param <T>
+	 * 		the result type of the transfer
+	 *
+	 * @return a future of the transfer's result, which can be cancelled while the transfer is queued
+	 */
+	<T> CommandFuture<T> submit(String host, FileTransferOptions options, String failureMessage, Task<T> task) {
+		TokenBucket ownBucket = (options.getBandwidthLimit() > 0) ? new TokenBucket(options.getBandwidthLimit()) : null;
+		Transfer transfer = new Transfer(0, globalBucket, ownBucket, options.getProgressListener());
+
+		Job<T> job;
+		synchronized (this) {
+			job = new Job<>(host, options.getPriority(), sequence++, transfer, failureMessage, task);
+			if (shutDown) {
+				job.future.fail(new TS3QueryShutDownException());
+				return job.future;
+			}
+			queue.add(job);
+			schedule();
+		}
+
+		job.future.onCancellation(() -> dequeue(job));
+		return job.future;
+	}
+
+	/**
+	 * Fails all queued transfers and interrupts all running transfers.
+	 */
+	void shutDown() {
+		synchronized (this) {
+			shutDown = true;
+			for (Job<?> job : queue) {
+				job.future.fail(new TS3QueryShutDownException());
+			}
+			queue.clear();
+		}
+		workers.shutdownNow();
+	}
+
+	private synchronized void dequeue(Job<?> job) {
+		queue.remove(job);
+	}
+
+	private synchronized void schedule() {
+		Iterator<Job<?>> iterator = queue.iterator();
+		while (active < maxTransfers && iterator.hasNext()) {
+			Job<?> job = iterator.next();
+			int hostTransfers = activeByHost.getOrDefault(job.host, 0);
+			if (hostTransfers >= maxTransfersPerHost) continue; // Maybe a job for another host can start
+
+			iterator.remove();
+			activeByHost.put(job.host, hostTransfers + 1);
+			++active;
+			workers.execute(job);
+		}
+	}
+
+	private synchronized void finished(Job<?> job) {
+		--active;
+		activeByHost.merge(job.host, -1, (a, b) -> (a + b == 0) ? null : a + b);
+		if (!shutDown) schedule();
+	}
+
+	@FunctionalInterface
+	interface Task<T> {
+
+		T run(Transfer transfer) throws IOException;
+	}
+
+	/**
+	 * Throttles a single running transfer and reports its progress.
+	 * <p>
+	 * Transfer loops ask for permission to move a chunk with {@link #acquire(long)}
+	 * and report the bytes actually moved with {@link #transferred(long)}.
+	 * </p>
+	 */
+	static class Transfer {
+
+		private long size;
+		private final TokenBucket globalBucket;
+		private final TokenBucket ownBucket;
+		private final TransferProgressListener listener;
+		private final long chunkSize;
+		private long transferred = 0;
+
+		Transfer(long size, TokenBucket globalBucket, TokenBucket ownBucket, TransferProgressListener listener) {
+			this.size = size;
+			this.globalBucket = globalBucket;
+			this.ownBucket = ownBucket;
+			this.listener = listener;
+
+			// About 20 chunks per second keep the transfer rate smooth
+			long rate = Long.MAX_VALUE;
+			if (globalBucket != null) rate = Math.min(rate, globalBucket.getRate());
+			if (ownBucket != null) rate = Math.min(rate, ownBucket.getRate());
+			this.chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, rate / 20));
+		}
+
+		/**
+		 * Creates a transfer without bandwidth limit or progress listener.
+		 */
+		static Transfer unlimited(long size) {
+			return new Transfer(size, null, null, null);
+		}
+
+		/**
+		 * Waits until the next chunk of data may be transferred.
+		 *
+		 * @param wanted
+		 * 		the number of bytes the caller would like to transfer
+		 *
+		 * @return the number of bytes the caller may transfer, never more than {@code wanted}
+		 *
+		 * @throws InterruptedIOException
+		 * 		if the thread is interrupted while waiting
+		 */
+		long acquire(long wanted) throws InterruptedIOException {
+			long chunk = Math.min(wanted, chunkSize);
+			if (globalBucket != null) globalBucket.acquire(chunk);
+			if (ownBucket != null) ownBucket.acquire(chunk);
+			return chunk;
+		}
+
+		/**
+		 * Sets the number of bytes that will be transferred, once the server has told us.
+		 */
+		void setSize(long size) {
+			this.size = size;
+		}
+
+		/**
+		 * Marks the first {@code position} bytes of the file as already transferred,
+		 * e.g. by an earlier, interrupted transfer.
+		 */
+		void resumedAt(long position) {
+			transferred = position;
+		}
+
+		void transferred(long bytes) {
+			transferred += bytes;
+			if (listener == null) return;
+
+			try {
+				listener.onProgress(transferred, size);
+			} catch (Throwable throwable) {
+				log.error("Transfer progress listener threw an exception", throwable);
+			}
+		}
+	}
+
+	private class Job<T> implements Runnable {
+
+		private final String host;
+		private final int priority;
+		private final long sequence;
+		private final Transfer transfer;
+		private final String failureMessage;
+		private final Task<T> task;
+		private final CommandFuture<T> future = new CommandFuture<>();
+
+		Job(String host, int priority, long sequence, Transfer transfer, String failureMessage, Task<T> task) {
+			this.host = host;
+			this.priority = priority;
+			this.sequence = sequence;
+			this.transfer = transfer;
+			this.failureMessage = failureMessage;
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (future.isDone()) return; // Cancelled while starting
+
+				T result;
+				try {
+					result = task.run(transfer);
+				} catch (IOException e) {
+					TS3FileTransferFailedException exception = new TS3FileTransferFailedException(failureMessage, e);
+					completionExecutor.execute(() -> future.fail(exception));
+					return;
+				} catch (TS3Exception e) {
+					// E.g. the server refused to initialize the transfer
+					completionExecutor.execute(() -> future.fail(e));
+					return;
+				} catch (RuntimeException e) {
+					// E.g. the initialization command was cancelled or the target buffer is read-only
+					TS3Exception exception = new TS3Exception(failureMessage, e);
+					completionExecutor.execute(() -> future.fail(exception));
+					return;
+				}
+				completionExecutor.execute(() -> future.set(result));
+			} finally {
+				finished(this);
+			}
+		}
+	}
+}
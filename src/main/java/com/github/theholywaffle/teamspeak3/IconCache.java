@@ -0,0 +1,304 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A two-tier, content-addressed cache of icon files.
+ * <p>
+ * Icons are keyed by their icon ID, which is the CRC32 of their data, so a cached icon never
+ * goes stale and can be shared between virtual servers. Icons are kept in memory and,
+ * if a directory was configured, on disk, each tier bounded by its total size and evicting
+ * the least recently used icons first. Icons read from disk are checked against their ID,
+ * so a damaged cache file is treated like a miss.
+ * </p><p>
+ * The cache also remembers which icons the selected virtual server holds, so that uploads
+ * of icons the server already has can be skipped. This knowledge is refreshed by listing the
+ * icon directory if it is older than 5 minutes.
+ * </p>
+ */
+class IconCache {
+
+	private static final Logger log = LoggerFactory.getLogger(IconCache.class);
+	private static final String FILE_PREFIX = "icon_";
+	private static final long SERVER_ICONS_MAX_AGE = TimeUnit.MINUTES.toNanos(5);
+
+	private final Path directory; // null if icons are only cached in memory
+	private final long maxDiskBytes;
+	private final long maxMemoryBytes;
+
+	// Guarded by this, iteration order is least recently used first
+	private final LinkedHashMap<Long, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+	private final LinkedHashMap<Long, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+	private long memoryBytes = 0;
+	private long diskBytes = 0;
+	private final Set<Long> serverIcons = new HashSet<>();
+	private long serverIconsListedAt = 0;
+	private boolean serverIconsListed = false;
+
+	IconCache(Path directory, long maxDiskBytes, long maxMemoryBytes) {
+		this.maxDiskBytes = maxDiskBytes;
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.directory = (directory != null && maxDiskBytes > 0) ? openDirectory(directory) : null;
+	}
+
+	/**
+	 * Creates the cache directory if necessary and indexes the icons it already contains,
+	 * the oldest ones first so they are evicted first.
+	 */
+	private Path openDirectory(Path directory) {
+		List<Path> files = new ArrayList<>();
+		try {
+			Files.createDirectories(directory);
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+				for (Path file : stream) {
+					if (parseIconId(file) >= 0) files.add(file);
+				}
+			}
+			files.sort((a, b) -> lastModified(a).compareTo(lastModified(b)));
+		} catch (IOException e) {
+			log.warn("Could not open icon cache directory {}, only caching icons in memory", directory, e);
+			return null;
+		}
+
+		synchronized (this) {
+			for (Path file : files) {
+				try {
+					long size = Files.size(file);
+					disk.put(parseIconId(file), size);
+					diskBytes += size;
+				} catch (IOException ignored) {
+					// File was removed in the meantime
+				}
+			}
+		}
+		evictDisk(directory);
+		return directory;
+	}
+
+	/**
+	 * Gets the data of a cached icon.
+	 *
+	 * @param iconId
+	 * 		the ID of the icon
+	 *
+	 * @return a copy of the icon's data, or {@code null} if the icon isn't cached
+	 */
+	byte[] get(long iconId) {
+		synchronized (this) {
+			byte[] data = memory.get(iconId);
+			if (data != null) return data.clone();
+			if (directory == null || disk.get(iconId) == null) return null;
+		}
+
+		byte[] data;
+		try {
+			data = Files.readAllBytes(iconFile(iconId));
+		} catch (IOException e) {
+			if (!(e instanceof NoSuchFileException)) log.warn("Could not read cached icon {}", iconId, e);
+			removeFromDisk(iconId);
+			return null;
+		}
+
+		if (FileTransferHelper.getIconId(data) != iconId) {
+			log.warn("Cached icon {} is damaged, removing it", iconId);
+			removeFromDisk(iconId);
+			return null;
+		}
+
+		putInMemory(iconId, data);
+		return data.clone();
+	}
+
+	/**
+	 * Caches an icon. Data whose CRC32 doesn't match the icon ID is ignored,
+	 * as the cache could never verify it.
+	 *
+	 * @param iconId
+	 * 		the ID of the icon
+	 * @param data
+	 * 		the icon's data
+	 */
+	void put(long iconId, byte[] data) {
+		if (FileTransferHelper.getIconId(data) != iconId) return;
+
+		putInMemory(iconId, data.clone());
+		if (directory == null || data.length > maxDiskBytes) return;
+		synchronized (this) {
+			if (disk.get(iconId) != null) return; // Content-addressed, so already up to date
+		}
+
+		Path target = iconFile(iconId);
+		try {
+			Path temporary = Files.createTempFile(directory, "download_", ".tmp");
+			try {
+				Files.write(temporary, data);
+				try {
+					Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+		} catch (IOException e) {
+			log.warn("Could not write icon {} to the cache", iconId, e);
+			return;
+		}
+
+		synchronized (this) {
+			Long previous = disk.put(iconId, (long) data.length);
+			diskBytes += data.length - (previous == null ? 0 : previous);
+		}
+		evictDisk(directory);
+	}
+
+	private void putInMemory(long iconId, byte[] data) {
+		if (data.length > maxMemoryBytes) return;
+
+		synchronized (this) {
+			byte[] previous = memory.put(iconId, data);
+			memoryBytes += data.length - (previous == null ? 0 : previous.length);
+
+			Iterator<byte[]> iterator = memory.values().iterator();
+			while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+				memoryBytes -= iterator.next().length;
+				iterator.remove();
+			}
+		}
+	}
+
+	private void evictDisk(Path directory) {
+		List<Long> evicted = new ArrayList<>();
+		synchronized (this) {
+			Iterator<Map.Entry<Long, Long>> iterator = disk.entrySet().iterator();
+			while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+				Map.Entry<Long, Long> entry = iterator.next();
+				diskBytes -= entry.getValue();
+				evicted.add(entry.getKey());
+				iterator.remove();
+			}
+		}
+
+		for (long iconId : evicted) {
+			try {
+				Files.deleteIfExists(directory.resolve(FILE_PREFIX + iconId));
+			} catch (IOException e) {
+				log.warn("Could not evict icon {} from the cache", iconId, e);
+			}
+		}
+	}
+
+	private synchronized void removeFromDisk(long iconId) {
+		Long size = disk.remove(iconId);
+		if (size != null) diskBytes -= size;
+		try {
+			Files.deleteIfExists(iconFile(iconId));
+		} catch (IOException ignored) {
+			// Will be overwritten if the icon is cached again
+		}
+	}
+
+	private Path iconFile(long iconId) {
+		return directory.resolve(FILE_PREFIX + iconId);
+	}
+
+	private static long parseIconId(Path file) {
+		String name = file.getFileName().toString();
+		if (!name.matches(FILE_PREFIX + "\\d{1,10}")) return -1L;
+		long id = Long.parseLong(name.substring(FILE_PREFIX.length()));
+		return (id & 0xFFFF_FFFF_0000_0000L) == 0 ? id : -1L;
+	}
+
+	private static FileTime lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		} catch (IOException e) {
+			return FileTime.fromMillis(0);
+		}
+	}
+
+	// SERVER ICONS
+
+	/**
+	 * Checks whether the selected virtual server holds an icon.
+	 *
+	 * @param iconId
+	 * 		the ID of the icon
+	 * @param now
+	 * 		the current {@link System#nanoTime()}
+	 *
+	 * @return whether the server holds the icon, or {@code null} if the
+	 * icon directory hasn't been listed recently enough to tell
+	 */
+	synchronized Boolean isOnServer(long iconId, long now) {
+		if (!serverIconsListed || now - serverIconsListedAt > SERVER_ICONS_MAX_AGE) return null;
+		return serverIcons.contains(iconId);
+	}
+
+	synchronized void setServerIcons(Collection<Long> iconIds, long now) {
+		serverIcons.clear();
+		serverIcons.addAll(iconIds);
+		serverIconsListedAt = now;
+		serverIconsListed = true;
+	}
+
+	synchronized void addServerIcon(long iconId) {
+		serverIcons.add(iconId);
+	}
+
+	synchronized void removeServerIcons(long... iconIds) {
+		for (long iconId : iconIds) {
+			serverIcons.remove(iconId);
+		}
+	}
+
+	synchronized void clearServerIcons() {
+		serverIcons.clear();
+		serverIconsListed = false;
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Records how long a listener takes to handle events and checks the 99th percentile
+ * against a threshold once per window of events.
+ * <p>
+ * Durations are counted in a histogram with four buckets per power of two, so the
+ * reported percentile overestimates the real value by at most 25%.
+ * Not thread-safe, a timer must only be used by one thread at a time.
+ * </p>
+ */
+class ListenerTimer {
+
+	private static final int WINDOW = 1000;
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private final long thresholdNanos;
+	private final long[] buckets = new long[64 * SUB_BUCKETS];
+	private int count = 0;
+
+	ListenerTimer(long thresholdNanos) {
+		this.thresholdNanos = thresholdNanos;
+	}
+
+	/**
+	 * Records the duration of one event.
+	 *
+	 * @return the 99th percentile in nanoseconds if a window was completed and exceeded the threshold, {@code -1} otherwise
+	 */
+	long record(long nanos) {
+		++buckets[bucketOf(Math.max(nanos, 0L))];
+		if (++count < WINDOW) return -1L;
+
+		long p99 = percentile(0.99);
+		Arrays.fill(buckets, 0L);
+		count = 0;
+		return (p99 > thresholdNanos) ? p99 : -1L;
+	}
+
+	private long percentile(double fraction) {
+		long remaining = (long) Math.ceil(count * fraction);
+		for (int i = 0; i < buckets.length; ++i) {
+			remaining -= buckets[i];
+			if (remaining <= 0) return upperBound(i);
+		}
+		return Long.MAX_VALUE;
+	}
+
+	private static int bucketOf(long nanos) {
+		if (nanos < SUB_BUCKETS) return (int) nanos;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent << SUB_BUCKET_BITS) | subBucket;
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) return bucket;
+
+		int exponent = bucket >>> SUB_BUCKET_BITS;
+		long subBucket = bucket & (SUB_BUCKETS - 1);
+		return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
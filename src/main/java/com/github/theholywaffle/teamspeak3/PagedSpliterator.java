@@ -0,0 +1,186 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Lazily pages through a list on the server, such as the client database, keeping only
+ * a bounded number of pages in memory.
+ * <p>
+ * Up to {@code prefetch} pages are requested ahead of the consumer, so their round trips overlap
+ * with the consumption of the current page. The first page is small to keep the latency until
+ * the first element low, and every following page is twice as large, up to {@code maxPageSize}.
+ * A page that is shorter than requested marks the end of the list, and requests for the pages
+ * after it are cancelled.
+ * </p><p>
+ * For parallel streams, {@link #trySplit()} hands out one fetched page at a time, so pages are
+ * consumed in parallel while this spliterator keeps fetching the next ones. Like any spliterator,
+ * it must only be used by one thread at a time, and as it blocks while waiting for a page,
+ * it must not be consumed on a thread that completes command futures.
+ * </p>
+ */
+class PagedSpliterator<T> implements Spliterator<T> {
+
+	static final int INITIAL_PAGE_SIZE = 25;
+
+	private final PageFetcher<T> fetcher;
+	private final int maxPageSize;
+	private final int prefetch;
+	private final Deque<Page<T>> requested = new ArrayDeque<>();
+
+	private List<T> current = null;
+	private int index = 0;
+	private int nextOffset = 0;
+	private int nextPageSize;
+	private boolean exhausted = false;
+
+	PagedSpliterator(PageFetcher<T> fetcher, int maxPageSize, int prefetch) {
+		if (maxPageSize < 1) throw new IllegalArgumentException("Page size must be at least 1");
+		if (prefetch < 1) throw new IllegalArgumentException("Must fetch at least 1 page at a time");
+
+		this.fetcher = fetcher;
+		this.maxPageSize = maxPageSize;
+		this.prefetch = prefetch;
+		this.nextPageSize = Math.min(INITIAL_PAGE_SIZE, maxPageSize);
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		while (current == null || index >= current.size()) {
+			if (!nextPage()) return false;
+		}
+		action.accept(current.get(index++));
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		do {
+			if (current == null) continue;
+			while (index < current.size()) {
+				action.accept(current.get(index++));
+			}
+		} while (nextPage());
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+		while (current == null || index >= current.size()) {
+			if (!nextPage()) return null;
+		}
+
+		Spliterator<T> split = current.subList(index, current.size()).spliterator();
+		current = null;
+		return split;
+	}
+
+	@Override
+	public long estimateSize() {
+		return exhausted && requested.isEmpty() ? remainingInPage() : Long.MAX_VALUE;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+
+	/**
+	 * Cancels the requests for pages which haven't been consumed yet. Commands which
+	 * haven't been sent yet are removed from the command queue.
+	 */
+	void cancel() {
+		exhausted = true;
+		for (Page<T> page : requested) {
+			page.future.cancel(false);
+		}
+		requested.clear();
+		current = null;
+	}
+
+	/**
+	 * Waits for the next page and makes it the current page.
+	 *
+	 * @return {@code false} if there are no more pages
+	 */
+	private boolean nextPage() {
+		current = null;
+		requestPages();
+
+		Page<T> page = requested.poll();
+		if (page == null) return false;
+
+		List<T> items;
+		try {
+			items = page.future.getUninterruptibly();
+		} catch (TS3Exception e) {
+			cancel();
+			throw e;
+		}
+
+		if (items.size() < page.size) cancel(); // Last page, the pages after it are empty
+		current = items;
+		index = 0;
+		requestPages();
+		return true;
+	}
+
+	private void requestPages() {
+		while (!exhausted && requested.size() < prefetch) {
+			requested.add(new Page<>(fetcher.fetch(nextOffset, nextPageSize), nextPageSize));
+			nextOffset += nextPageSize;
+			nextPageSize = Math.min(nextPageSize * 2, maxPageSize);
+		}
+	}
+
+	private long remainingInPage() {
+		return (current == null) ? 0 : current.size() - index;
+	}
+
+	interface PageFetcher<T> {
+
+		CommandFuture<List<T>> fetch(int offset, int count);
+	}
+
+	private static class Page<T> {
+
+		private final CommandFuture<List<T>> future;
+		private final int size;
+
+		private Page(CommandFuture<List<T>> future, int size) {
+			this.future = future;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Parses the lines read by the {@link StreamReader} on a pool of worker threads
+ * and delivers the results in the order the lines were read.
+ * <p>
+ * Jobs are parsed concurrently, but a job is only delivered once every job submitted
+ * before it has been delivered. Delivery happens on whichever worker thread completes
+ * the head of the queue, at most one thread delivers at any time.
+ * </p>
+ */
+class ParseStage {
+
+	private static final Logger log = LoggerFactory.getLogger(ParseStage.class);
+
+	private final ExecutorService workers;
+	private final Queue<Job<?>> jobs = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean delivering = new AtomicBoolean(false);
+
+	ParseStage(int threads) {
+		workers = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "[TeamSpeak-3-Java-API] Parser");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Parses a line on a worker thread and hands the result to {@code deliverer}
+	 * after all previously submitted results.
+	 * <p>
+	 * Must only be called from a single thread, as the submission order defines the delivery order.
+	 * </p>
+	 *
+	 * @param parser
+	 * 		parses the line, may run concurrently with other parsers. If it throws, the line is dropped,
+	 * 		so parsers of command responses must turn parse errors into a failed result instead
+	 * @param deliverer
+	 * 		consumes the parsed result, never runs concurrently with other deliverers
+	 * @param <T>
+	 * 		the type of the parsed result
+	 */
+	<T> void submit(Supplier<T> parser, Consumer<T> deliverer) {
+		Job<T> job = new Job<>(parser, deliverer);
+		jobs.add(job);
+
+		try {
+			workers.execute(job);
+		} catch (RejectedExecutionException ignored) {
+			// Shutting down, the job is never delivered
+		}
+	}
+
+	void shutDown() {
+		workers.shutdown();
+	}
+
+	private void deliverParsedJobs() {
+		while (delivering.compareAndSet(false, true)) {
+			try {
+				Job<?> job;
+				while ((job = jobs.peek()) != null && job.parsed) {
+					jobs.poll();
+					job.deliver();
+				}
+			} finally {
+				delivering.set(false);
+			}
+
+			// The head might have been parsed while we were releasing the flag
+			Job<?> head = jobs.peek();
+			if (head == null || !head.parsed) return;
+		}
+	}
+
+	private class Job<T> implements Runnable {
+
+		private final Supplier<T> parser;
+		private final Consumer<T> deliverer;
+		private T result;
+		private boolean failed;
+		// Written after result and failed, which publishes them to the delivering thread
+		private volatile boolean parsed;
+
+		Job(Supplier<T> parser, Consumer<T> deliverer) {
+			this.parser = parser;
+			this.deliverer = deliverer;
+		}
+
+		@Override
+		public void run() {
+			try {
+				result = parser.get();
+			} catch (Throwable throwable) {
+				log.error("Failed to parse a response", throwable);
+				failed = true;
+			}
+
+			parsed = true;
+			deliverParsedJobs();
+		}
+
+		void deliver() {
+			if (failed) return; // Already logged, only event parsers are allowed to throw
+
+			try {
+				deliverer.accept(result);
+			} catch (Throwable throwable) {
+				log.error("Delivering a parsed response threw an exception", throwable);
+			}
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks one after another on a delegate executor, in the order they were submitted.
+ * <p>
+ * At most one task of this executor occupies a thread of the delegate at any time.
+ * </p>
+ */
+class SerialExecutor implements Executor, Runnable {
+
+	private static final Logger log = LoggerFactory.getLogger(SerialExecutor.class);
+
+	private final Executor delegate;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pending = new AtomicInteger(0);
+
+	SerialExecutor(Executor delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		tasks.add(task);
+		if (pending.getAndIncrement() == 0) {
+			// No drain task running, start one
+			try {
+				delegate.execute(this);
+			} catch (RejectedExecutionException e) {
+				tasks.remove(task);
+				if (pending.decrementAndGet() > 0) {
+					// Tasks submitted in the meantime rely on a drain task as well
+					restartDrain();
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Starts a drain task for tasks that are already pending, dropping
+	 * the oldest pending task each time the delegate rejects the drain task.
+	 */
+	private void restartDrain() {
+		do {
+			try {
+				delegate.execute(this);
+				return;
+			} catch (RejectedExecutionException e) {
+				tasks.poll();
+				log.error("Delegate executor rejected a serial task, dropping it", e);
+			}
+		} while (pending.decrementAndGet() > 0);
+	}
+
+	@Override
+	public void run() {
+		do {
+			Runnable task = tasks.poll();
+			try {
+				task.run();
+			} catch (Throwable throwable) {
+				log.error("Serial task threw an exception", throwable);
+			}
+		} while (pending.decrementAndGet() > 0);
+	}
+}
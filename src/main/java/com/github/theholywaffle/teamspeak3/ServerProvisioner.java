@@ -0,0 +1,368 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.ProvisioningResult;
+import com.github.theholywaffle.teamspeak3.api.ProvisioningResult.Step;
+import com.github.theholywaffle.teamspeak3.api.ProvisioningTask;
+import com.github.theholywaffle.teamspeak3.api.ProvisioningTask.GroupPermission;
+import com.github.theholywaffle.teamspeak3.api.ProvisioningTask.PrivilegeKeyTemplate;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3QueryShutDownException;
+import com.github.theholywaffle.teamspeak3.api.wrapper.CreatedVirtualServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Creates and configures many virtual servers in parallel, using a pool of query connections.
+ * <p>
+ * Every connection provisions one virtual server at a time: it creates the server,
+ * {@linkplain TS3ApiAsync#selectVirtualServerById(int) selects} it, deploys the snapshot,
+ * adds the server group permissions and creates the privilege keys of the task. As each
+ * connection has its own selected virtual server, as many servers are provisioned at once
+ * as there are connections, up to the configured concurrency limit. The permissions and
+ * privilege keys of a server are requested all at once, so they are pipelined.
+ * </p><p>
+ * Every command is retried with exponential backoff if it fails. Note that this also applies to
+ * {@code servercreate}: if its response is lost, retrying it can create a second virtual server.
+ * A task whose step still fails after the last attempt is reported as failed, but the other
+ * tasks are provisioned regardless.
+ * </p><p>
+ * The connections must be logged in with an account that may create virtual servers.
+ * </p>
+ */
+public class ServerProvisioner {
+
+	private static final Logger log = LoggerFactory.getLogger(ServerProvisioner.class);
+	private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	private final List<TS3ApiAsync> apis;
+	private int maxConcurrency = Integer.MAX_VALUE;
+	private int maxAttempts = 3;
+	private long retryDelayMillis = 1000;
+	private Consumer<ProvisioningResult> progressListener = null;
+
+	/**
+	 * Creates a provisioner that uses the given connections.
+	 *
+	 * @param apis
+	 * 		the APIs of the connections to use, one per query
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code apis} is {@code null} or empty
+	 */
+	public ServerProvisioner(Collection<TS3ApiAsync> apis) {
+		if (apis == null || apis.isEmpty()) throw new IllegalArgumentException("At least one connection is required");
+		this.apis = new ArrayList<>(apis);
+	}
+
+	/**
+	 * Creates a provisioner that uses the given connections.
+	 *
+	 * @param apis
+	 * 		the APIs of the connections to use, one per query
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if no API was passed
+	 */
+	public ServerProvisioner(TS3ApiAsync... apis) {
+		this(Arrays.asList(apis));
+	}
+
+	/**
+	 * Limits how many virtual servers are provisioned at the same time.
+	 * By default, every connection provisions a server at the same time.
+	 *
+	 * @param maxConcurrency
+	 * 		the maximum number of servers provisioned at once
+	 *
+	 * @return this provisioner for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxConcurrency} is less than 1
+	 */
+	public ServerProvisioner setMaxConcurrency(int maxConcurrency) {
+		if (maxConcurrency < 1) throw new IllegalArgumentException("Must allow at least 1 server at a time");
+		this.maxConcurrency = maxConcurrency;
+		return this;
+	}
+
+	/**
+	 * Sets how often a failed command is attempted and how long to wait before the first retry.
+	 * The delay doubles with every retry, up to one minute. By default, commands are
+	 * attempted 3 times with an initial delay of 1 second.
+	 *
+	 * @param maxAttempts
+	 * 		how many times a command is attempted, {@code 1} to never retry
+	 * @param initialDelay
+	 * 		the delay before the first retry
+	 * @param unit
+	 * 		the time unit of {@code initialDelay}
+	 *
+	 * @return this provisioner for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxAttempts} is less than 1 or {@code initialDelay} is negative
+	 */
+	public ServerProvisioner setRetries(int maxAttempts, long initialDelay, TimeUnit unit) {
+		if (maxAttempts < 1) throw new IllegalArgumentException("Must attempt every command at least once");
+		if (initialDelay < 0) throw new IllegalArgumentException("Retry delay must not be negative");
+		this.maxAttempts = maxAttempts;
+		this.retryDelayMillis = unit.toMillis(initialDelay);
+		return this;
+	}
+
+	/**
+	 * Sets a listener that is called with the result of each task as soon as it has finished.
+	 * The listener is never called concurrently.
+	 *
+	 * @param listener
+	 * 		the progress listener, or {@code null} to remove it
+	 *
+	 * @return this provisioner for chaining
+	 */
+	public ServerProvisioner setProgressListener(Consumer<ProvisioningResult> listener) {
+		this.progressListener = listener;
+		return this;
+	}
+
+	/**
+	 * Provisions a virtual server for every task.
+	 * <p>
+	 * The returned future never fails because of a failed task, failures are reported in the
+	 * results instead. Changes to the settings of this provisioner don't affect running provisionings.
+	 * </p>
+	 *
+	 * @param tasks
+	 * 		the virtual servers to provision
+	 *
+	 * @return a future that completes with the results of all tasks, in the order of {@code tasks}
+	 */
+	public CommandFuture<List<ProvisioningResult>> provision(List<ProvisioningTask> tasks) {
+		if (tasks.isEmpty()) return CommandFuture.immediate(Collections.emptyList());
+		Run run = new Run(new ArrayList<>(tasks), maxAttempts, retryDelayMillis, progressListener);
+
+		int workers = Math.min(Math.min(apis.size(), maxConcurrency), tasks.size());
+		log.info("Provisioning {} virtual servers on {} connections", tasks.size(), workers);
+		for (int i = 0; i < workers; ++i) {
+			run.work(apis.get(i));
+		}
+		return run.future;
+	}
+
+	/**
+	 * The state of one call to {@link #provision(List)}.
+	 */
+	private static class Run {
+
+		private final List<ProvisioningTask> tasks;
+		private final ProvisioningResult[] results;
+		private final int maxAttempts;
+		private final long retryDelayMillis;
+		private final Consumer<ProvisioningResult> progressListener;
+		private final AtomicInteger nextTask = new AtomicInteger();
+		private final AtomicInteger remainingTasks;
+		private final CommandFuture<List<ProvisioningResult>> future = new CommandFuture<>();
+		private ScheduledExecutorService scheduler = null; // Only created once a command needs to be retried
+
+		Run(List<ProvisioningTask> tasks, int maxAttempts, long retryDelayMillis, Consumer<ProvisioningResult> progressListener) {
+			this.tasks = tasks;
+			this.results = new ProvisioningResult[tasks.size()];
+			this.maxAttempts = maxAttempts;
+			this.retryDelayMillis = retryDelayMillis;
+			this.progressListener = progressListener;
+			this.remainingTasks = new AtomicInteger(tasks.size());
+		}
+
+		/**
+		 * Lets a connection provision the next task, and then the one after that, until none are left.
+		 */
+		void work(TS3ApiAsync api) {
+			int index = nextTask.getAndIncrement();
+			if (index >= tasks.size()) return;
+
+			new Job(this, api, tasks.get(index)).run().onSuccess(result -> {
+				finished(index, result);
+				work(api);
+			});
+		}
+
+		private void finished(int index, ProvisioningResult result) {
+			if (result.isSuccessful()) {
+				log.debug("Provisioned virtual server {} ({})", result.getServerId(), result.getTask().getName());
+			} else {
+				log.warn("Provisioning {} failed at step {}", result.getTask().getName(), result.getFailedStep(), result.getException());
+			}
+
+			synchronized (this) {
+				results[index] = result;
+				if (progressListener != null) {
+					try {
+						progressListener.accept(result);
+					} catch (Throwable throwable) {
+						log.error("Provisioning progress listener threw an exception", throwable);
+					}
+				}
+			}
+
+			if (remainingTasks.decrementAndGet() == 0) {
+				synchronized (this) {
+					if (scheduler != null) scheduler.shutdown();
+				}
+				future.set(Collections.unmodifiableList(Arrays.asList(results)));
+			}
+		}
+
+		<T> CommandFuture<T> withRetries(Supplier<CommandFuture<T>> command) {
+			CommandFuture<T> result = new CommandFuture<>();
+			attempt(command, 1, result);
+			return result;
+		}
+
+		private <T> void attempt(Supplier<CommandFuture<T>> command, int attempt, CommandFuture<T> result) {
+			CommandFuture<T> commandFuture;
+			try {
+				commandFuture = command.get();
+			} catch (TS3Exception e) {
+				retryOrFail(command, attempt, result, e);
+				return;
+			}
+
+			commandFuture.onSuccess(result::set)
+					.onFailure(exception -> retryOrFail(command, attempt, result, exception));
+		}
+
+		private <T> void retryOrFail(Supplier<CommandFuture<T>> command, int attempt, CommandFuture<T> result, TS3Exception exception) {
+			if (attempt >= maxAttempts || exception instanceof TS3QueryShutDownException) {
+				result.fail(exception);
+				return;
+			}
+
+			long delay = Math.min(retryDelayMillis << Math.min(attempt - 1, 20), MAX_RETRY_DELAY_MILLIS);
+			log.debug("Command failed, retrying in {} ms (attempt {} of {})", delay, attempt + 1, maxAttempts, exception);
+			getScheduler().schedule(() -> attempt(command, attempt + 1, result), delay, TimeUnit.MILLISECONDS);
+		}
+
+		private synchronized ScheduledExecutorService getScheduler() {
+			if (scheduler == null) {
+				scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+					Thread thread = new Thread(runnable, "[TeamSpeak-3-Java-API] ServerProvisioner");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			return scheduler;
+		}
+	}
+
+	/**
+	 * Provisions a single virtual server, remembering which step is running and what was created so far.
+	 */
+	private static class Job {
+
+		private final Run run;
+		private final TS3ApiAsync api;
+		private final ProvisioningTask task;
+		private final long startTime = System.nanoTime();
+		private volatile Step step = Step.CREATE_SERVER;
+		private volatile CreatedVirtualServer server = null;
+
+		Job(Run run, TS3ApiAsync api, ProvisioningTask task) {
+			this.run = run;
+			this.api = api;
+			this.task = task;
+		}
+
+		/**
+		 * Runs all steps of the task.
+		 *
+		 * @return a future that always succeeds, even if a step failed
+		 */
+		CommandFuture<ProvisioningResult> run() {
+			CommandFuture<ProvisioningResult> result = new CommandFuture<>();
+
+			run.withRetries(() -> api.createServer(task.getName(), task.getProperties()))
+					.then(created -> {
+						server = created;
+						step = Step.SELECT_SERVER;
+						return run.withRetries(() -> api.selectVirtualServerById(created.getId()));
+					})
+					.then(__ -> {
+						step = Step.DEPLOY_SNAPSHOT;
+						if (task.getSnapshot() != null) {
+							return run.withRetries(() -> api.deployServerSnapshot(task.getSnapshot()));
+						} else if (task.getSnapshotFile() != null) {
+							return run.withRetries(() -> api.deployServerSnapshot(task.getSnapshotFile()));
+						}
+						return null;
+					})
+					.then(__ -> {
+						step = Step.ADD_PERMISSIONS;
+						List<CommandFuture<Void>> permissions = new ArrayList<>();
+						for (GroupPermission permission : task.getServerGroupPermissions()) {
+							permissions.add(run.withRetries(() -> api.addServerGroupPermission(permission.getGroupId(),
+									permission.getPermName(), permission.getValue(), permission.isNegated(), permission.isSkipped())));
+						}
+						return CommandFuture.ofAll(permissions);
+					})
+					.then(__ -> {
+						step = Step.ADD_PRIVILEGE_KEYS;
+						List<CommandFuture<String>> keys = new ArrayList<>();
+						for (PrivilegeKeyTemplate key : task.getPrivilegeKeys()) {
+							keys.add(run.withRetries(() -> api.addPrivilegeKey(key.getType(), key.getGroupId(),
+									key.getChannelId(), key.getDescription())));
+						}
+						return CommandFuture.ofAll(keys);
+					})
+					.onSuccess(keys -> result.set(result(keys, null, null)))
+					.onFailure(exception -> result.set(result(Collections.emptyList(), step, exception)));
+
+			return result;
+		}
+
+		private ProvisioningResult result(List<String> keys, Step failedStep, TS3Exception exception) {
+			long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+			CreatedVirtualServer created = server;
+			if (created == null) return new ProvisioningResult(task, -1, -1, null, keys, failedStep, exception, duration);
+			return new ProvisioningResult(task, created.getId(), created.getPort(), created.getServerAdminToken(),
+					keys, failedStep, exception, duration);
+		}
+	}
+}
@@ -28,6 +28,8 @@ package com.github.theholywaffle.teamspeak3;
 
 import com.github.theholywaffle.teamspeak3.api.CommandFuture;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3CommandFailedException;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3FileTransferFailedException;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
 import com.github.theholywaffle.teamspeak3.api.wrapper.QueryError;
 import com.github.theholywaffle.teamspeak3.commands.Command;
 import com.github.theholywaffle.teamspeak3.commands.response.DefaultArrayResponse;
@@ -39,8 +41,11 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Writer;
 import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 class StreamReader extends Thread {
 
@@ -53,7 +58,11 @@ class StreamReader extends Thread {
 
 	private CommandQueue commandQueue = null;
 	private ResponseBuilder responseBuilder = null;
-	private String lastEvent = "";
+	private StreamedResponse streamedResponse = null;
+	// null if duplicate events aren't filtered
+	private final EventDeduplicator deduplicator;
+	// null if responses are parsed on this thread
+	private final ParseStage parseStage;
 
 	StreamReader(Connection connection, InputStream inStream, TS3Query query, TS3Config config) throws IOException {
 		super("[TeamSpeak-3-Java-API] StreamReader");
@@ -63,6 +72,11 @@ class StreamReader extends Thread {
 		in = new BufferedReader(new InputStreamReader(inStream, StandardCharsets.UTF_8));
 		logComms = config.getEnableCommunicationsLogging();
 
+		int windowSize = config.getEventDeduplicationWindow();
+		long horizon = TimeUnit.MILLISECONDS.toNanos(config.getEventDeduplicationHorizon());
+		deduplicator = (windowSize > 0) ? new EventDeduplicator(windowSize, horizon) : null;
+		parseStage = query.getParseStage();
+
 		readWelcomeMessage();
 	}
 
@@ -79,8 +93,13 @@ class StreamReader extends Thread {
 			String line;
 
 			try {
-				// Will block until a full line of text could be read.
-				line = in.readLine();
+				if (responseBuilder == null && isStreamedResponse()) {
+					if (!streamedResponse.copyLine(in, con::isTimedOut)) line = null;
+					else continue;
+				} else {
+					// Will block until a full line of text could be read.
+					line = in.readLine();
+				}
 			} catch (SocketTimeoutException socketTimeout) {
 				// Really disconnected or just no data transferred for <commandTimeout> milliseconds?
 				if (con.isTimedOut()) {
@@ -123,14 +142,69 @@ class StreamReader extends Thread {
 		}
 	}
 
+	/**
+	 * Checks whether the next line is a response line of a command whose response
+	 * should be streamed to a sink, without consuming any response characters.
+	 */
+	private boolean isStreamedResponse() throws IOException {
+		Command command = con.getCommandQueue().peekReceiveQueue();
+		if (command == null || command.getResponseSink() == null) return false;
+		if (!isResponseLine(in)) return false;
+
+		if (streamedResponse == null || streamedResponse.command != command) {
+			streamedResponse = new StreamedResponse(command);
+		}
+		return true;
+	}
+
+	/**
+	 * Skips line terminators and peeks at the start of the next line. Returns {@code false}
+	 * for event notifications and error lines, which are read with {@code readLine} as usual.
+	 */
+	static boolean isResponseLine(BufferedReader in) throws IOException {
+		while (true) {
+			in.mark(1);
+			int c = in.read();
+			if (c < 0) return false;
+			if (c != '\r' && c != '\n') {
+				in.reset();
+				break;
+			}
+		}
+
+		char[] start = new char[6];
+		int length = 0;
+		in.mark(start.length);
+		try {
+			while (length < start.length) {
+				int read = in.read(start, length, start.length - length);
+				if (read < 0) break;
+				length += read;
+			}
+		} finally {
+			in.reset();
+		}
+
+		String prefix = new String(start, 0, length);
+		return !prefix.startsWith("notify") && !prefix.startsWith("error ");
+	}
+
 	private void handleEvent(String event) {
 		if (logComms) log.debug("[event] < {}", event);
 
-		// Filter out duplicate events for join, quit and channel move events
-		if (isDuplicate(event)) return;
+		// Filter out duplicate events caused by overlapping notify registrations
+		if (deduplicator != null && deduplicator.isDuplicate(event)) return;
 
 		String arr[] = event.split(" ", 2);
-		ts3.getEventManager().fireEvent(arr[0], arr[1]);
+		EventManager eventManager = ts3.getEventManager();
+		if (parseStage == null) {
+			eventManager.fireEvent(arr[0], arr[1]);
+		} else {
+			String name = arr[0];
+			String body = arr[1];
+			parseStage.submit(() -> eventManager.parseEvents(name, body),
+					events -> eventManager.fireParsedEvents(name, body, events));
+		}
 	}
 
 	private void handleCommandResponse(String response) {
@@ -149,7 +223,11 @@ class StreamReader extends Thread {
 		if (logComms) log.debug("[{}] < {}", responseBuilder.getCommand().getName(), response);
 
 		if (response.startsWith("error ")) {
-			handleCommandError(responseBuilder, response);
+			TS3Exception sinkFailure = null;
+			if (responseBuilder.getCommand().getResponseSink() != null) {
+				sinkFailure = finishStreamedResponse(responseBuilder.getCommand());
+			}
+			handleCommandError(responseBuilder, response, sinkFailure);
 
 			commandQueue.removeFromReceiveQueue();
 			responseBuilder = null;
@@ -158,45 +236,188 @@ class StreamReader extends Thread {
 		}
 	}
 
-	private void handleCommandError(ResponseBuilder responseBuilder, String error) {
+	private void handleCommandError(ResponseBuilder responseBuilder, String error, TS3Exception sinkFailure) {
 		Command command = responseBuilder.getCommand();
 		if (command.getName().equals("quit")) {
 			// Response to a quit command received, we're done
 			interrupt();
 		}
 
-		QueryError queryError = DefaultArrayResponse.parseError(error);
-		CommandFuture<DefaultArrayResponse> future = command.getFuture();
+		if (parseStage == null) {
+			ts3.completeCommand(Completion.parse(responseBuilder, error, sinkFailure));
+		} else {
+			parseStage.submit(() -> Completion.parse(responseBuilder, error, sinkFailure), ts3::completeCommand);
+		}
+	}
+
+	/**
+	 * Closes the sink of a streamed response.
+	 *
+	 * @return the exception to fail the command with if the sink failed, {@code null} otherwise
+	 */
+	private TS3Exception finishStreamedResponse(Command command) {
+		// Error responses have no response lines, but the sink still needs to be closed
+		StreamedResponse response = (streamedResponse != null && streamedResponse.command == command)
+				? streamedResponse : new StreamedResponse(command);
+		streamedResponse = null;
 
-		if (queryError.isSuccessful()) {
-			DefaultArrayResponse response = responseBuilder.buildResponse();
+		IOException failure = response.finish();
+		if (logComms) log.debug("[{}] < ({} chars streamed)", response.command.getName(), response.chars);
 
-			ts3.submitUserTask("Future SuccessListener (" + command.getName() + ")",
-					() -> future.set(response));
-		} else {
-			log.debug("TS3 command error: {}", queryError);
+		if (failure == null) return null;
 
-			ts3.submitUserTask("Future FailureListener (" + command.getName() + ")",
-					() -> future.fail(new TS3CommandFailedException(queryError, command.getName())));
-		}
+		log.warn("Writing the streamed response of {} failed", response.command.getName(), failure);
+		return new TS3FileTransferFailedException("Writing response failed", failure);
 	}
 
-	private boolean isDuplicate(String eventMessage) {
-		if (!(eventMessage.startsWith("notifyclientmoved")
-				|| eventMessage.startsWith("notifycliententerview")
-				|| eventMessage.startsWith("notifyclientleftview"))) {
+	/**
+	 * Copies the response lines of one command to its sink in chunks, so they never have to be
+	 * held in memory as a whole. Lines are separated by {@code |}, like in a raw response.
+	 * If the sink fails, the rest of the response is still read, but discarded.
+	 */
+	static final class StreamedResponse {
+
+		private static final int CHUNK_SIZE = 8192;
+
+		private final Command command;
+		private final char[] buffer = new char[CHUNK_SIZE];
+		private Writer sink;
+		private IOException failure = null;
+		private int lines = 0;
+		private long chars = 0;
+
+		StreamedResponse(Command command) {
+			this.command = command;
+			this.sink = command.getResponseSink();
+			command.markResponseStreamed();
+		}
+
+		/**
+		 * Copies the rest of the current line to the sink and consumes its line terminator.
+		 *
+		 * @return {@code false} if the stream ended before the line did
+		 */
+		boolean copyLine(BufferedReader in, BooleanSupplier timedOut) throws IOException {
+			if (lines++ > 0) write(new char[] {'|'}, 0, 1);
+
+			boolean pendingReturn = false; // A '\r' at the end of a chunk might be part of "\r\n"
+			while (true) {
+				int read;
+				in.mark(buffer.length);
+				try {
+					read = in.read(buffer, 0, buffer.length);
+				} catch (SocketTimeoutException e) {
+					if (timedOut.getAsBoolean()) throw e;
+					continue;
+				}
+				if (read < 0) return false;
+
+				int end = 0;
+				while (end < read && buffer[end] != '\n') ++end;
+				int length = (end > 0 && buffer[end - 1] == '\r') ? end - 1 : end;
+
+				if (pendingReturn && end > 0) write(new char[] {'\r'}, 0, 1);
+				pendingReturn = false;
+
+				if (end < read) {
+					// Found the end of the line, give back everything after the terminator
+					write(buffer, 0, length);
+					in.reset();
+					in.skip(end + 1);
+					return true;
+				}
+
+				pendingReturn = (length < end);
+				write(buffer, 0, length);
+			}
+		}
+
+		private void write(char[] data, int offset, int length) {
+			chars += length;
+			if (sink == null) return;
+
+			try {
+				sink.write(data, offset, length);
+			} catch (IOException e) {
+				failure = e;
+				sink = null;
+			}
+		}
+
+		/**
+		 * Closes the sink.
+		 *
+		 * @return the exception the sink failed with, or {@code null} if all data was written
+		 */
+		IOException finish() {
+			try {
+				command.getResponseSink().close();
+			} catch (IOException e) {
+				if (failure == null) failure = e;
+			}
+			return failure;
+		}
+	}
 
-			// Event that will never cause duplicates
-			return false;
+	/**
+	 * Completes the future of a command with its response or error.
+	 * <p>
+	 * A single object per response, the log label is only built if a listener actually throws.
+	 * </p>
+	 */
+	static class Completion implements Runnable {
+
+		private final Command command;
+		private final DefaultArrayResponse response;
+		private final QueryError error;
+		private final TS3Exception failure;
+
+		Completion(Command command, DefaultArrayResponse response, QueryError error, TS3Exception failure) {
+			this.command = command;
+			this.response = response;
+			this.error = error;
+			this.failure = failure;
 		}
 
-		if (eventMessage.equals(lastEvent)) {
-			// Duplicate event!
-			lastEvent = ""; // Let's only ever filter one duplicate
-			return true;
+		/**
+		 * @param failure
+		 * 		an exception that fails the command even if the server reported success, or {@code null}
+		 */
+		static Completion parse(ResponseBuilder responseBuilder, String error, TS3Exception failure) {
+			Command command = responseBuilder.getCommand();
+			if (failure != null) return new Completion(command, null, null, failure);
+
+			try {
+				QueryError queryError = DefaultArrayResponse.parseError(error);
+				if (queryError.isSuccessful()) {
+					return new Completion(command, responseBuilder.buildResponse(), null, null);
+				} else {
+					log.debug("TS3 command error: {}", queryError);
+					return new Completion(command, null, queryError, null);
+				}
+			} catch (RuntimeException e) {
+				// Still complete the command, otherwise callers waiting for it would block forever
+				log.error("Failed to parse the response to {}", command.getName(), e);
+				return new Completion(command, null, null, new TS3Exception("Could not parse the response to " + command.getName(), e));
+			}
 		}
 
-		lastEvent = eventMessage;
-		return false;
+		@Override
+		public void run() {
+			CommandFuture<DefaultArrayResponse> future = command.getFuture();
+			boolean succeeded = (error == null && failure == null);
+			try {
+				if (failure != null) {
+					future.fail(failure);
+				} else if (error == null) {
+					future.set(response);
+				} else {
+					future.fail(new TS3CommandFailedException(error, command.getName()));
+				}
+			} catch (Throwable throwable) {
+				String type = succeeded ? "SuccessListener" : "FailureListener";
+				log.error("Future " + type + " (" + command.getName() + ") threw an exception", throwable);
+			}
+		}
 	}
 }
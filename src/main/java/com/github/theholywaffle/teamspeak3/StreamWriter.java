@@ -26,10 +26,12 @@ package com.github.theholywaffle.teamspeak3;
  * #L%
  */
 
+import com.github.theholywaffle.teamspeak3.api.exception.TS3FileTransferFailedException;
 import com.github.theholywaffle.teamspeak3.commands.Command;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -39,14 +41,16 @@ class StreamWriter extends Thread {
 
 	private static final Logger log = LoggerFactory.getLogger(StreamWriter.class);
 
+	private final TS3Query ts3;
 	private final Connection con;
 	private final PrintWriter out;
 	private final int floodRate;
 	private final boolean logComms;
 
-	StreamWriter(Connection connection, OutputStream outStream, TS3Config config) {
+	StreamWriter(Connection connection, OutputStream outStream, TS3Query query, TS3Config config) {
 		super("[TeamSpeak-3-Java-API] StreamWriter");
 
+		ts3 = query;
 		con = connection;
 		out = new PrintWriter(new OutputStreamWriter(outStream, StandardCharsets.UTF_8), true);
 		floodRate = config.getFloodRate().getMs();
@@ -55,6 +59,7 @@ class StreamWriter extends Thread {
 
 	@Override
 	public void run() {
+		boolean aborted = false;
 		try {
 			while (!isInterrupted()) {
 				if (floodRate > 0) Thread.sleep(floodRate);
@@ -63,16 +68,28 @@ class StreamWriter extends Thread {
 				if (command == null) continue;
 
 				con.resetIdleTime();
-				String message = command.toString();
+				if (logComms) log.debug("[{}] > {}", command.getName(), command);
 
-				if (logComms) log.debug("[{}] > {}", command.getName(), message);
-				out.println(message);
+				try {
+					command.writeTo(out);
+				} catch (IOException e) {
+					// Only streamed parameters throw. Part of the command might already be on the wire, and
+					// terminating the line would let the server run it, so the connection is dropped instead
+					log.error("Could not read streamed parameter of command {}, closing the connection", command.getName(), e);
+					con.getCommandQueue().discardUnsentCommand(command);
+					TS3FileTransferFailedException failure = new TS3FileTransferFailedException("Reading command data failed", e);
+					ts3.completeCommand(() -> command.getFuture().fail(failure));
+					aborted = true;
+					break;
+				}
+				out.println();
 			}
 		} catch (InterruptedException e) {
 			interrupt(); // Regular shutdown
 		}
 
-		out.close();
+		// Flushing an aborted command would send even more of it, closing the socket discards the rest
+		if (!aborted) out.close();
 
 		if (!isInterrupted()) {
 			log.warn("StreamWriter has stopped!");
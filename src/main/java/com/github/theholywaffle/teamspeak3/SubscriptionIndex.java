@@ -0,0 +1,210 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.TextMessageTargetMode;
+import com.github.theholywaffle.teamspeak3.api.event.BaseEvent;
+import com.github.theholywaffle.teamspeak3.api.event.EventFilter;
+import com.github.theholywaffle.teamspeak3.api.event.TS3Event;
+import com.github.theholywaffle.teamspeak3.api.event.TextMessageEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable index of {@link EventFilter}s, which finds the filters matching an event
+ * without checking every single one of them.
+ * <p>
+ * Per event type, every filter is indexed by its most selective criterion: channel IDs in a hash index,
+ * channel ranges in an interval index, then the invoker's unique ID and lastly the text message target mode.
+ * Only the filters found through these indexes are checked against the remaining criteria.
+ * </p>
+ *
+ * @param <T>
+ * 		the type of the objects the filters route events to
+ */
+class SubscriptionIndex<T> {
+
+	private static final SubscriptionIndex<?> EMPTY = new SubscriptionIndex<>(Collections.emptyList());
+
+	private final Map<Class<?>, TypeIndex<T>> indexByEventClass;
+
+	@SuppressWarnings("unchecked")
+	static <T> SubscriptionIndex<T> empty() {
+		return (SubscriptionIndex<T>) EMPTY;
+	}
+
+	SubscriptionIndex(Collection<Route<T>> routes) {
+		Map<Class<?>, List<Route<T>>> routesByEventClass = new HashMap<>();
+		for (Route<T> route : routes) {
+			routesByEventClass.computeIfAbsent(route.filter.getEventClass(), c -> new ArrayList<>()).add(route);
+		}
+
+		indexByEventClass = new HashMap<>(routesByEventClass.size() * 2);
+		for (Map.Entry<Class<?>, List<Route<T>>> entry : routesByEventClass.entrySet()) {
+			indexByEventClass.put(entry.getKey(), new TypeIndex<>(entry.getValue()));
+		}
+	}
+
+	Set<Class<?>> getEventClasses() {
+		return indexByEventClass.keySet();
+	}
+
+	void forEachMatch(TS3Event event, BiConsumer<T, TS3Event> action) {
+		final TypeIndex<T> index = indexByEventClass.get(event.getClass());
+		if (index == null) return;
+
+		final int channelId = EventKeys.channelOf(event);
+		final String uniqueId = (event instanceof BaseEvent) ? ((BaseEvent) event).getInvokerUniqueId() : "";
+		final TextMessageTargetMode mode = (event instanceof TextMessageEvent) ? ((TextMessageEvent) event).getTargetMode() : null;
+
+		index.forEachMatch(channelId, uniqueId, mode, event, action);
+	}
+
+	static final class Route<T> {
+
+		final EventFilter<?> filter;
+		final T target;
+
+		Route(EventFilter<?> filter, T target) {
+			this.filter = filter;
+			this.target = target;
+		}
+	}
+
+	private static final class TypeIndex<T> {
+
+		private final Map<Integer, List<Route<T>>> byChannel = new HashMap<>();
+		private final Map<String, List<Route<T>>> byInvoker = new HashMap<>();
+		private final Map<TextMessageTargetMode, List<Route<T>>> byTargetMode = new EnumMap<>(TextMessageTargetMode.class);
+		private final List<Route<T>> unindexed = new ArrayList<>();
+
+		// Interval index: segment i covers the channel IDs [boundaries[i], boundaries[i + 1])
+		private final long[] boundaries;
+		private final List<List<Route<T>>> segments;
+
+		TypeIndex(List<Route<T>> routes) {
+			List<Route<T>> ranged = new ArrayList<>();
+			for (Route<T> route : routes) {
+				EventFilter<?> filter = route.filter;
+				int[] channelIds = filter.getChannelIds();
+
+				if (channelIds != null) {
+					for (int channelId : channelIds) {
+						byChannel.computeIfAbsent(channelId, id -> new ArrayList<>(1)).add(route);
+					}
+				} else if (filter.hasChannelRange()) {
+					ranged.add(route);
+				} else if (filter.getInvokerUniqueId() != null) {
+					byInvoker.computeIfAbsent(filter.getInvokerUniqueId(), uid -> new ArrayList<>(1)).add(route);
+				} else if (filter.getTargetMode() != null) {
+					byTargetMode.computeIfAbsent(filter.getTargetMode(), mode -> new ArrayList<>(1)).add(route);
+				} else {
+					unindexed.add(route);
+				}
+			}
+
+			TreeSet<Long> points = new TreeSet<>();
+			for (Route<T> route : ranged) {
+				points.add((long) route.filter.getChannelRangeFrom());
+				points.add(route.filter.getChannelRangeTo() + 1L);
+			}
+			boundaries = points.stream().mapToLong(Long::longValue).toArray();
+			segments = buildSegments(ranged, boundaries);
+		}
+
+		/**
+		 * Sweeps over the sorted boundaries, keeping track of the ranges that cover the current segment.
+		 * Routes are identified by their index in {@code ranged}, so every segment keeps the registration order.
+		 */
+		private static <T> List<List<Route<T>>> buildSegments(List<Route<T>> ranged, long[] boundaries) {
+			List<List<Integer>> starting = new ArrayList<>(boundaries.length);
+			List<List<Integer>> ending = new ArrayList<>(boundaries.length);
+			for (int i = 0; i < boundaries.length; ++i) {
+				starting.add(new ArrayList<>(1));
+				ending.add(new ArrayList<>(1));
+			}
+			for (int r = 0; r < ranged.size(); ++r) {
+				EventFilter<?> filter = ranged.get(r).filter;
+				starting.get(Arrays.binarySearch(boundaries, filter.getChannelRangeFrom())).add(r);
+				ending.get(Arrays.binarySearch(boundaries, filter.getChannelRangeTo() + 1L)).add(r);
+			}
+
+			List<List<Route<T>>> segments = new ArrayList<>(Math.max(boundaries.length - 1, 0));
+			TreeSet<Integer> active = new TreeSet<>();
+			for (int i = 0; i < boundaries.length - 1; ++i) {
+				for (int r : ending.get(i)) {
+					active.remove(r);
+				}
+				active.addAll(starting.get(i));
+
+				List<Route<T>> segment = new ArrayList<>(active.size());
+				for (int r : active) {
+					segment.add(ranged.get(r));
+				}
+				segments.add(segment);
+			}
+			return segments;
+		}
+
+		void forEachMatch(int channelId, String uniqueId, TextMessageTargetMode mode,
+		                  TS3Event event, BiConsumer<T, TS3Event> action) {
+			if (channelId >= 0) {
+				visit(byChannel.get(channelId), channelId, uniqueId, mode, event, action);
+
+				int segment = Arrays.binarySearch(boundaries, channelId);
+				if (segment < 0) segment = -segment - 2; // Segment starting before channelId
+				if (segment >= 0 && segment < segments.size()) {
+					visit(segments.get(segment), channelId, uniqueId, mode, event, action);
+				}
+			}
+			if (!uniqueId.isEmpty()) visit(byInvoker.get(uniqueId), channelId, uniqueId, mode, event, action);
+			if (mode != null) visit(byTargetMode.get(mode), channelId, uniqueId, mode, event, action);
+			visit(unindexed, channelId, uniqueId, mode, event, action);
+		}
+
+		private static <T> void visit(List<Route<T>> candidates, int channelId, String uniqueId, TextMessageTargetMode mode,
+		                              TS3Event event, BiConsumer<T, TS3Event> action) {
+			if (candidates == null) return;
+
+			for (Route<T> route : candidates) {
+				if (route.filter.matches(channelId, uniqueId, mode)) {
+					action.accept(route.target, event);
+				}
+			}
+		}
+	}
+}
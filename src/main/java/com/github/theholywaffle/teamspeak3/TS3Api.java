@@ -27,18 +27,37 @@ package com.github.theholywaffle.teamspeak3;
  */
 
 import com.github.theholywaffle.teamspeak3.api.*;
+import com.github.theholywaffle.teamspeak3.api.event.ClientJoinEvent;
+import com.github.theholywaffle.teamspeak3.api.event.ClientLeaveEvent;
+import com.github.theholywaffle.teamspeak3.api.event.ClientMovedEvent;
+import com.github.theholywaffle.teamspeak3.api.event.EventFilter;
+import com.github.theholywaffle.teamspeak3.api.event.TS3BatchListener;
+import com.github.theholywaffle.teamspeak3.api.event.TS3Event;
 import com.github.theholywaffle.teamspeak3.api.event.TS3EventType;
 import com.github.theholywaffle.teamspeak3.api.event.TS3Listener;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3CommandFailedException;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3ConnectionFailedException;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3EventTimeoutException;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3FileTransferFailedException;
 import com.github.theholywaffle.teamspeak3.api.wrapper.*;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * API to interact with the {@link TS3Query} synchronously.
@@ -66,6 +85,12 @@ import java.util.regex.Pattern;
  */
 public class TS3Api {
 
+	/**
+	 * The most database clients the server returns for a single {@code clientdblist}.
+	 */
+	private static final int DATABASE_CLIENT_PAGE_SIZE = 200;
+	private static final int DATABASE_CLIENT_PREFETCH = 4;
+
 	private final TS3ApiAsync asyncApi;
 
 	/**
@@ -146,6 +171,62 @@ public class TS3Api {
 		return asyncApi.addBan(ip, name, uid, myTSId, timeInSeconds, reason).getUninterruptibly();
 	}
 
+	/**
+	 * Adds a {@link TS3BatchListener} which receives events in batches.
+	 * <p>
+	 * The first event fired after the previous batch opens a window of {@code windowMilliseconds}.
+	 * Once the window has passed, all events fired during it are delivered in one batch, with
+	 * superseded events about the same client or channel removed. This reduces the work
+	 * needed to handle bursts of events, e.g. when many clients are moved at once. Edit events
+	 * only contain the changed properties, so they are never removed.
+	 * </p><p>
+	 * Only the given event types are collected, so other events are not parsed for this listener.
+	 * Note that for the TS3 server to fire events, you must first also register
+	 * the event types you want to listen to.
+	 * </p>
+	 *
+	 * @param listener
+	 * 		the batch listener to register
+	 * @param windowMilliseconds
+	 * 		how long to collect events before delivering them, in milliseconds
+	 * @param eventClasses
+	 * 		the classes of the events the listener wants to receive, e.g. {@code ClientMovedEvent.class}
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code listener} is {@code null}, if {@code windowMilliseconds} is less than {@code 1},
+	 * 		or if no or an unknown event class was passed
+	 * @see #removeBatchListener(TS3BatchListener)
+	 * @see #registerAllEvents()
+	 */
+	@SafeVarargs
+	public final void addBatchListener(TS3BatchListener listener, int windowMilliseconds, Class<? extends TS3Event>... eventClasses) {
+		asyncApi.addBatchListener(listener, windowMilliseconds, eventClasses);
+	}
+
+	/**
+	 * Adds a {@link TS3Listener} which borrows reusable event objects instead of receiving new ones.
+	 * <p>
+	 * To avoid creating objects for every event, the query keeps a single event object per event type
+	 * and overwrites it with the data of each new event. A borrowing listener is called directly on
+	 * the thread reading from the connection, and the event it receives is <b>only valid during the
+	 * method call</b>. The listener must not keep a reference to the event, pass it to another thread,
+	 * or block, as no further responses or events can be read while it runs. In particular,
+	 * it must not call any method of the synchronous {@link TS3Api}.
+	 * </p><p>
+	 * Borrowing listeners can be removed using {@link #removeTS3Listeners(TS3Listener...)}.
+	 * </p>
+	 *
+	 * @param listener
+	 * 		the non-blocking listener to register
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code listener} is {@code null}
+	 * @see #addTS3Listeners(TS3Listener...)
+	 */
+	public void addBorrowingTS3Listener(TS3Listener listener) {
+		asyncApi.addBorrowingTS3Listener(listener);
+	}
+
 	/**
 	 * Adds a specified permission to a client in a specific channel.
 	 *
@@ -365,6 +446,91 @@ public class TS3Api {
 		asyncApi.addComplaint(clientDBId, message).getUninterruptibly();
 	}
 
+	/**
+	 * Adds a listener for a single type of event to the event manager of the query.
+	 * <p>
+	 * Unlike a {@link TS3Listener}, such a listener only causes the events of type {@code eventClass}
+	 * to be parsed and dispatched. Events that no listener is interested in are discarded
+	 * without being parsed at all.
+	 * </p><p>
+	 * Note that for the TS3 server to fire events, you must first also register
+	 * the event types you want to listen to.
+	 * </p>
+	 *
+	 * @param eventClass
+	 * 		the class of the events to listen to, e.g. {@code TextMessageEvent.class}
+	 * @param listener
+	 * 		the listener to notify
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code eventClass} is not a concrete event class or if {@code listener} is {@code null}
+	 * @see #removeEventListener(Class, Consumer)
+	 * @see #registerEvent(TS3EventType, int)
+	 */
+	public <E extends TS3Event> void addEventListener(Class<E> eventClass, Consumer<? super E> listener) {
+		asyncApi.addEventListener(eventClass, listener);
+	}
+
+	/**
+	 * Adds a listener for the events matching an {@link EventFilter} to the event manager of the query.
+	 * <p>
+	 * The criteria of all filters are indexed, so events are only dispatched to the listeners whose filter
+	 * they match, without checking every registered filter. This makes it possible to register thousands
+	 * of listeners for events in specific channels, from specific clients or with specific target modes.
+	 * </p><p>
+	 * If an {@linkplain TS3Config#setEventRingBuffer(int, TS3Query.EventWaitStrategy) event ring buffer}
+	 * is used, all filtered listeners are called one after another by a single ring buffer subscriber,
+	 * so a slow filtered listener delays every other filtered listener. Without the ring buffer,
+	 * each filtered listener handles its events in its own task.
+	 * </p><p>
+	 * The listener can be removed using {@link #removeEventListener(Class, Consumer)}.
+	 * Note that for the TS3 server to fire events, you must first also register
+	 * the event types you want to listen to.
+	 * </p>
+	 *
+	 * @param filter
+	 * 		the filter events have to match, e.g. {@code EventFilter.of(ClientJoinEvent.class).inChannels(1, 2)}
+	 * @param listener
+	 * 		the listener to notify
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code filter} or {@code listener} is {@code null}
+	 * @see EventFilter
+	 */
+	public <E extends TS3Event> void addEventListener(EventFilter<E> filter, Consumer<? super E> listener) {
+		asyncApi.addEventListener(filter, listener);
+	}
+
+	/**
+	 * Adds a {@link TS3Listener} whose events are handled by several threads in parallel.
+	 * <p>
+	 * Usually, a listener handles one event after another. A partitioned listener instead distributes
+	 * the events over {@code lanes} serial lanes, based on the ID of the client or channel
+	 * an event is about. Events concerning the same client or channel are still handled in the order
+	 * they were fired, but there is no ordering between events in different lanes.
+	 * Events not concerning a specific client or channel, like text messages, all use the same lane.
+	 * </p><p>
+	 * The listener <b>must be thread-safe</b>, as up to {@code lanes} of its methods can be called concurrently.
+	 * It can be removed using {@link #removeTS3Listeners(TS3Listener...)}.
+	 * </p>
+	 *
+	 * @param listener
+	 * 		the thread-safe listener to register
+	 * @param lanes
+	 * 		the maximum number of events handled in parallel
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code listener} is {@code null} or if {@code lanes} is less than {@code 1}
+	 * @see #addTS3Listeners(TS3Listener...)
+	 */
+	public void addPartitionedTS3Listener(TS3Listener listener, int lanes) {
+		asyncApi.addPartitionedTS3Listener(listener, lanes);
+	}
+
 	/**
 	 * Adds a specified permission to all server groups of the type specified by {@code type} on all virtual servers.
 	 *
@@ -578,6 +744,72 @@ public class TS3Api {
 		asyncApi.addTS3Listeners(listeners);
 	}
 
+	/**
+	 * Waits for the next event of type {@code eventClass} matching {@code predicate}.
+	 * <p>
+	 * This can be used to wait for the effect of a command, e.g. for the {@link ClientMovedEvent}
+	 * after moving a client. Only events fired after this method was called are considered.
+	 * Note that for the TS3 server to fire events, you must first also register
+	 * the event types you want to wait for.
+	 * </p>
+	 *
+	 * @param eventClass
+	 * 		the class of the event to wait for
+	 * @param predicate
+	 * 		the condition the event has to fulfil, or {@code null} to accept any event of this type
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of {@code timeout}
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @return the first matching event
+	 *
+	 * @throws TS3EventTimeoutException
+	 * 		if no matching event was received within the timeout
+	 * @throws IllegalArgumentException
+	 * 		if {@code eventClass} is not a concrete event class
+	 * @see #awaitEvent(Class, int, Predicate, long, TimeUnit)
+	 */
+	public <E extends TS3Event> E awaitEvent(Class<E> eventClass, Predicate<? super E> predicate, long timeout, TimeUnit unit) {
+		return asyncApi.awaitEvent(eventClass, predicate, timeout, unit).getUninterruptibly();
+	}
+
+	/**
+	 * Waits for the next event of type {@code eventClass} about a specific client or channel that matches {@code predicate}.
+	 * <p>
+	 * For client events ({@link ClientJoinEvent}, {@link ClientMovedEvent} and {@link ClientLeaveEvent}),
+	 * {@code id} is the ID of the client. For channel events, it is the ID of the channel.
+	 * Waiting for events about a specific client or channel is cheaper than checking the ID in the predicate,
+	 * as each event is only tested against the waiters for the same client or channel.
+	 * </p>
+	 *
+	 * @param eventClass
+	 * 		the class of the event to wait for
+	 * @param id
+	 * 		the ID of the client or channel the event has to be about
+	 * @param predicate
+	 * 		the condition the event has to fulfil, or {@code null} to accept any event about {@code id}
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of {@code timeout}
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @return the first matching event
+	 *
+	 * @throws TS3EventTimeoutException
+	 * 		if no matching event was received within the timeout
+	 * @throws IllegalArgumentException
+	 * 		if {@code eventClass} is not a concrete event class
+	 * @see #awaitEvent(Class, Predicate, long, TimeUnit)
+	 */
+	public <E extends TS3Event> E awaitEvent(Class<E> eventClass, int id, Predicate<? super E> predicate, long timeout, TimeUnit unit) {
+		return asyncApi.awaitEvent(eventClass, id, predicate, timeout, unit).getUninterruptibly();
+	}
+
 	/**
 	 * Bans a client with a given client ID for a given time.
 	 * <p>
@@ -806,6 +1038,84 @@ public class TS3Api {
 		return asyncApi.copyServerGroup(sourceGroupId, targetName, type).getUninterruptibly();
 	}
 
+	/**
+	 * Crawls the file repositories of all channels on the virtual server, streaming every file that passes
+	 * the filters of {@code options} to {@code consumer} as soon as its directory has been listed.
+	 * <p>
+	 * Instead of listing one directory after another, up to
+	 * {@link FileCrawlOptions#getMaxPendingListings()} {@code ftgetfilelist} commands are kept
+	 * queued at once, so their round trips overlap. The flood rate of the query still applies.
+	 * The consumer is never called concurrently. If a listing fails, the crawl fails and no
+	 * further directories are listed.
+	 * </p>
+	 *
+	 * @param consumer
+	 * 		receives every matching file
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1 + 1 per directory
+	 * @see FileCrawlOptions
+	 * @see #getFileList(String, int, String)
+	 */
+	public void crawlFiles(Consumer<FileListEntry> consumer) {
+		asyncApi.crawlFiles(consumer).getUninterruptibly();
+	}
+
+	/**
+	 * Crawls the file repositories of all channels on the virtual server, streaming every file that passes
+	 * the filters of {@code options} to {@code consumer} as soon as its directory has been listed.
+	 * <p>
+	 * Instead of listing one directory after another, up to
+	 * {@link FileCrawlOptions#getMaxPendingListings()} {@code ftgetfilelist} commands are kept
+	 * queued at once, so their round trips overlap. The flood rate of the query still applies.
+	 * The consumer is never called concurrently. If a listing fails, the crawl fails and no
+	 * further directories are listed.
+	 * </p>
+	 *
+	 * @param options
+	 * 		the root directory, filters and limits of the crawl
+	 * @param consumer
+	 * 		receives every matching file
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1 + 1 per directory
+	 * @see FileCrawlOptions
+	 * @see #getFileList(String, int, String)
+	 */
+	public void crawlFiles(FileCrawlOptions options, Consumer<FileListEntry> consumer) {
+		asyncApi.crawlFiles(options, consumer).getUninterruptibly();
+	}
+
+	/**
+	 * Crawls the file repositories of the given channels, streaming every file that passes
+	 * the filters of {@code options} to {@code consumer} as soon as its directory has been listed.
+	 * <p>
+	 * Instead of listing one directory after another, up to
+	 * {@link FileCrawlOptions#getMaxPendingListings()} {@code ftgetfilelist} commands are kept
+	 * queued at once, so their round trips overlap. The flood rate of the query still applies.
+	 * The consumer is never called concurrently. If a listing fails, the crawl fails and no
+	 * further directories are listed.
+	 * </p>
+	 *
+	 * @param channelIds
+	 * 		the IDs of the channels whose file repositories should be crawled
+	 * @param options
+	 * 		the root directory, filters and limits of the crawl
+	 * @param consumer
+	 * 		receives every matching file
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1 per directory
+	 * @see FileCrawlOptions
+	 * @see #getFileList(String, int, String)
+	 */
+	public void crawlFiles(Collection<Integer> channelIds, FileCrawlOptions options, Consumer<FileListEntry> consumer) {
+		asyncApi.crawlFiles(channelIds, options, consumer).getUninterruptibly();
+	}
+
 	/**
 	 * Creates a new channel with a given name using the given properties and returns its ID.
 	 *
@@ -908,6 +1218,60 @@ public class TS3Api {
 		return asyncApi.createServerSnapshot().getUninterruptibly();
 	}
 
+	/**
+	 * Creates a {@link Snapshot} of the selected virtual server and writes the raw snapshot
+	 * data to an open {@link OutputStream}, as it arrives from the server.
+	 * <p>
+	 * Unlike {@link #createServerSnapshot()}, the snapshot is never held in memory as a whole,
+	 * so memory use stays flat regardless of the size of the virtual server. The data written
+	 * to {@code dataOut} is the same as {@link Snapshot#get()} would return, encoded as UTF-8.
+	 * </p><p>
+	 * The stream is written to by the thread reading the query's responses, so other responses
+	 * are delayed until the snapshot has been written. It is the user's responsibility to ensure
+	 * that the given {@code OutputStream} is open and to close the stream again once the
+	 * snapshot has been written. The stream is flushed, but not closed.
+	 * </p>
+	 *
+	 * @param dataOut
+	 * 		a stream that the snapshot data should be written to
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if writing to the stream fails
+	 * @querycommands 1
+	 * @see #deployServerSnapshot(Path)
+	 */
+	public void createServerSnapshot(OutputStream dataOut) {
+		asyncApi.createServerSnapshot(dataOut).getUninterruptibly();
+	}
+
+	/**
+	 * Creates a {@link Snapshot} of the selected virtual server and writes the raw snapshot
+	 * data to a file, optionally compressed with GZIP, as it arrives from the server.
+	 * <p>
+	 * Unlike {@link #createServerSnapshot()}, the snapshot is never held in memory as a whole,
+	 * so memory use stays flat regardless of the size of the virtual server. If the file
+	 * already exists, it is overwritten. If the command fails, the file is deleted again.
+	 * Snapshot files can be restored using {@link #deployServerSnapshot(Path)}.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the file the snapshot should be written to
+	 * @param compress
+	 * 		whether the snapshot data should be compressed with GZIP
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file could not be written
+	 * @querycommands 1
+	 * @see #deployServerSnapshot(Path)
+	 */
+	public void createServerSnapshot(Path file, boolean compress) {
+		asyncApi.createServerSnapshot(file, compress).getUninterruptibly();
+	}
+
 	/**
 	 * Deletes all active ban rules from the server. Use with caution.
 	 *
@@ -1478,6 +1842,29 @@ public class TS3Api {
 		asyncApi.deployServerSnapshot(snapshot).getUninterruptibly();
 	}
 
+	/**
+	 * Restores the configuration of the selected virtual server using a server snapshot
+	 * stored in a file, streaming the snapshot data from disk while the command is being sent.
+	 * <p>
+	 * The file must contain the raw snapshot data, as written by
+	 * {@link #createServerSnapshot(Path, boolean)} or {@link #createServerSnapshot(OutputStream)},
+	 * or the same data compressed with GZIP. Compression is detected automatically.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the file containing the snapshot to restore
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file does not exist or could not be read
+	 * @querycommands 1
+	 * @see #createServerSnapshot(Path, boolean)
+	 */
+	public void deployServerSnapshot(Path file) {
+		asyncApi.deployServerSnapshot(file).getUninterruptibly();
+	}
+
 	/**
 	 * Downloads a file from the file repository at a given path and channel
 	 * and writes the file's bytes to an open {@link OutputStream}.
@@ -1548,19 +1935,27 @@ public class TS3Api {
 
 	/**
 	 * Downloads a file from the file repository at a given path and channel
-	 * and returns the file's bytes as a byte array.
+	 * and writes the file's bytes to an open {@link OutputStream}.
 	 * <p>
-	 * Note that this method <strong>will read the entire file to memory</strong>.
-	 * That means that if a file is larger than 2<sup>31</sup>-1 bytes in size,
-	 * the download will fail.
+	 * It is the user's responsibility to ensure that the given {@code OutputStream} is
+	 * open and to close the stream again once the download has finished.
+	 * </p><p>
+	 * Note that this method will not read the entire file to memory and can thus
+	 * download arbitrarily sized files from the file repository.
 	 * </p>
 	 *
+	 * @param dataOut
+	 * 		a stream that the downloaded data should be written to
 	 * @param filePath
 	 * 		the path of the file on the file repository
 	 * @param channelId
 	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
 	 *
-	 * @return a byte array containing the file's data
+	 * @return how many bytes were downloaded
 	 *
 	 * @throws TS3CommandFailedException
 	 * 		if the execution of a command fails
@@ -1569,29 +1964,29 @@ public class TS3Api {
 	 * @querycommands 1
 	 * @see FileInfo#getPath()
 	 * @see Channel#getId()
-	 * @see #downloadFile(OutputStream, String, int)
+	 * @see #downloadFileDirect(String, int, String)
 	 */
-	public byte[] downloadFileDirect(String filePath, int channelId) {
-		return asyncApi.downloadFileDirect(filePath, channelId).getUninterruptibly();
+	public long downloadFile(OutputStream dataOut, String filePath, int channelId, String channelPassword, FileTransferOptions options) {
+		return asyncApi.downloadFile(dataOut, filePath, channelId, channelPassword, options).getUninterruptibly();
 	}
 
 	/**
 	 * Downloads a file from the file repository at a given path and channel
-	 * and returns the file's bytes as a byte array.
+	 * and writes the file's bytes to {@code file}.
 	 * <p>
-	 * Note that this method <strong>will read the entire file to memory</strong>.
-	 * That means that if a file is larger than 2<sup>31</sup>-1 bytes in size,
-	 * the download will fail.
+	 * The data is transferred from the file server socket to the file using
+	 * {@link FileChannel#transferFrom}, which avoids copying it through the Java heap
+	 * on platforms that support it. If {@code file} already exists, it is overwritten.
 	 * </p>
 	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
 	 * @param filePath
 	 * 		the path of the file on the file repository
 	 * @param channelId
 	 * 		the ID of the channel to download the file from
-	 * @param channelPassword
-	 * 		that channel's password
 	 *
-	 * @return a byte array containing the file's data
+	 * @return how many bytes were downloaded
 	 *
 	 * @throws TS3CommandFailedException
 	 * 		if the execution of a command fails
@@ -1600,91 +1995,439 @@ public class TS3Api {
 	 * @querycommands 1
 	 * @see FileInfo#getPath()
 	 * @see Channel#getId()
-	 * @see #downloadFile(OutputStream, String, int, String)
+	 * @see #uploadFile(Path, String, boolean, int)
 	 */
-	public byte[] downloadFileDirect(String filePath, int channelId, String channelPassword) {
-		return asyncApi.downloadFileDirect(filePath, channelId, channelPassword).getUninterruptibly();
+	public long downloadFile(Path file, String filePath, int channelId) {
+		return asyncApi.downloadFile(file, filePath, channelId).getUninterruptibly();
 	}
 
 	/**
-	 * Downloads an icon from the icon directory in the file repository
-	 * and writes the file's bytes to an open {@link OutputStream}.
+	 * Downloads a file from the file repository at a given path and channel
+	 * and writes the file's bytes to {@code file}.
 	 * <p>
-	 * It is the user's responsibility to ensure that the given {@code OutputStream} is
-	 * open and to close the stream again once the download has finished.
+	 * The data is transferred from the file server socket to the file using
+	 * {@link FileChannel#transferFrom}, which avoids copying it through the Java heap
+	 * on platforms that support it. If {@code file} already exists, it is overwritten.
 	 * </p>
 	 *
-	 * @param dataOut
-	 * 		a stream that the downloaded data should be written to
-	 * @param iconId
-	 * 		the ID of the icon that should be downloaded
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
 	 *
-	 * @return a byte array containing the icon file's data
+	 * @return how many bytes were downloaded
 	 *
 	 * @throws TS3CommandFailedException
 	 * 		if the execution of a command fails
 	 * @throws TS3FileTransferFailedException
 	 * 		if the file transfer fails for any reason
 	 * @querycommands 1
-	 * @see IconFile#getIconId()
-	 * @see #downloadIconDirect(long)
-	 * @see #uploadIcon(InputStream, long)
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #uploadFile(Path, String, boolean, int, String)
 	 */
-	public long downloadIcon(OutputStream dataOut, long iconId) {
-		return asyncApi.downloadIcon(dataOut, iconId).getUninterruptibly();
+	public long downloadFile(Path file, String filePath, int channelId, String channelPassword) {
+		return asyncApi.downloadFile(file, filePath, channelId, channelPassword).getUninterruptibly();
 	}
 
 	/**
-	 * Downloads an icon from the icon directory in the file repository
-	 * and returns the file's bytes as a byte array.
+	 * Downloads a file from the file repository at a given path and channel
+	 * and writes the file's bytes to {@code file}.
 	 * <p>
-	 * Note that this method <strong>will read the entire file to memory</strong>.
+	 * The data is transferred from the file server socket to the file using
+	 * {@link FileChannel#transferFrom}, which avoids copying it through the Java heap
+	 * on platforms that support it. If {@code file} already exists, it is overwritten.
 	 * </p>
 	 *
-	 * @param iconId
-	 * 		the ID of the icon that should be downloaded
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
 	 *
-	 * @return a byte array containing the icon file's data
+	 * @return how many bytes were downloaded
 	 *
 	 * @throws TS3CommandFailedException
 	 * 		if the execution of a command fails
 	 * @throws TS3FileTransferFailedException
 	 * 		if the file transfer fails for any reason
 	 * @querycommands 1
-	 * @see IconFile#getIconId()
-	 * @see #downloadIcon(OutputStream, long)
-	 * @see #uploadIconDirect(byte[])
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #uploadFile(Path, String, boolean, int, String)
 	 */
-	public byte[] downloadIconDirect(long iconId) {
-		return asyncApi.downloadIconDirect(iconId).getUninterruptibly();
+	public long downloadFile(Path file, String filePath, int channelId, String channelPassword, FileTransferOptions options) {
+		return asyncApi.downloadFile(file, filePath, channelId, channelPassword, options).getUninterruptibly();
 	}
 
 	/**
-	 * Changes a channel's configuration using the given properties.
+	 * Downloads a file from the file repository at a given path and channel
+	 * and writes the file's bytes into a {@link ByteBuffer}.
+	 * <p>
+	 * The file's bytes are written starting at the buffer's current position,
+	 * which is advanced by the size of the file. If the file is larger than
+	 * the buffer's remaining space, the download fails without touching the buffer.
+	 * Direct buffers are filled straight from the socket without an intermediate copy.
+	 * </p>
 	 *
+	 * @param dataOut
+	 * 		the buffer the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
 	 * @param channelId
-	 * 		the ID of the channel to edit
-	 * @param options
-	 * 		the map of properties to modify
+	 * 		the ID of the channel to download the file from
+	 *
+	 * @return how many bytes were downloaded
 	 *
 	 * @throws TS3CommandFailedException
 	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
 	 * @querycommands 1
+	 * @see FileInfo#getPath()
 	 * @see Channel#getId()
+	 * @see #downloadFileMapped(Path, String, int)
 	 */
-	public void editChannel(int channelId, Map<ChannelProperty, String> options) {
-		asyncApi.editChannel(channelId, options).getUninterruptibly();
+	public long downloadFile(ByteBuffer dataOut, String filePath, int channelId) {
+		return asyncApi.downloadFile(dataOut, filePath, channelId).getUninterruptibly();
 	}
 
 	/**
-	 * Changes a single property of the given channel.
+	 * Downloads a file from the file repository at a given path and channel
+	 * and writes the file's bytes into a {@link ByteBuffer}.
 	 * <p>
-	 * Note that one can set many properties at once with the overloaded method that
-	 * takes a map of channel properties and strings.
+	 * The file's bytes are written starting at the buffer's current position,
+	 * which is advanced by the size of the file. If the file is larger than
+	 * the buffer's remaining space, the download fails without touching the buffer.
+	 * Direct buffers are filled straight from the socket without an intermediate copy.
 	 * </p>
 	 *
-	 * @param channelId
-	 * 		the ID of the channel to edit
+	 * @param dataOut
+	 * 		the buffer the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 *
+	 * @return how many bytes were downloaded
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFileMapped(Path, String, int, String)
+	 */
+	public long downloadFile(ByteBuffer dataOut, String filePath, int channelId, String channelPassword) {
+		return asyncApi.downloadFile(dataOut, filePath, channelId, channelPassword).getUninterruptibly();
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * and returns the file's bytes as a byte array.
+	 * <p>
+	 * Note that this method <strong>will read the entire file to memory</strong>.
+	 * That means that if a file is larger than 2<sup>31</sup>-1 bytes in size,
+	 * the download will fail.
+	 * </p>
+	 *
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 *
+	 * @return a byte array containing the file's data
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(OutputStream, String, int)
+	 */
+	public byte[] downloadFileDirect(String filePath, int channelId) {
+		return asyncApi.downloadFileDirect(filePath, channelId).getUninterruptibly();
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * and returns the file's bytes as a byte array.
+	 * <p>
+	 * Note that this method <strong>will read the entire file to memory</strong>.
+	 * That means that if a file is larger than 2<sup>31</sup>-1 bytes in size,
+	 * the download will fail.
+	 * </p>
+	 *
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 *
+	 * @return a byte array containing the file's data
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(OutputStream, String, int, String)
+	 */
+	public byte[] downloadFileDirect(String filePath, int channelId, String channelPassword) {
+		return asyncApi.downloadFileDirect(filePath, channelId, channelPassword).getUninterruptibly();
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * into a memory-mapped region of {@code file}.
+	 * <p>
+	 * {@code file} is created or resized to the size of the downloaded file and mapped into memory,
+	 * the data is then read from the file server socket straight into the mapping.
+	 * The returned buffer is positioned at the start of the file's bytes and stays valid
+	 * until it is garbage collected, even though the underlying channel is already closed.
+	 * Files larger than 2<sup>31</sup>-1 bytes cannot be mapped and will fail to download.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 *
+	 * @return a buffer mapping the downloaded file
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int)
+	 */
+	public MappedByteBuffer downloadFileMapped(Path file, String filePath, int channelId) {
+		return asyncApi.downloadFileMapped(file, filePath, channelId).getUninterruptibly();
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * into a memory-mapped region of {@code file}.
+	 * <p>
+	 * {@code file} is created or resized to the size of the downloaded file and mapped into memory,
+	 * the data is then read from the file server socket straight into the mapping.
+	 * The returned buffer is positioned at the start of the file's bytes and stays valid
+	 * until it is garbage collected, even though the underlying channel is already closed.
+	 * Files larger than 2<sup>31</sup>-1 bytes cannot be mapped and will fail to download.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 *
+	 * @return a buffer mapping the downloaded file
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int, String)
+	 */
+	public MappedByteBuffer downloadFileMapped(Path file, String filePath, int channelId, String channelPassword) {
+		return asyncApi.downloadFileMapped(file, filePath, channelId, channelPassword).getUninterruptibly();
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * over several concurrent connections and writes the file's bytes to {@code file}.
+	 * <p>
+	 * The file is split into up to {@code parts} ranges of at least 1 MiB each. Every range
+	 * is downloaded by its own file transfer, which writes into {@code file} at the range's offset.
+	 * The transfers are subject to the query's file transfer limits, so at most as many ranges as
+	 * allowed per file server are downloaded at the same time. Before the first range is downloaded,
+	 * {@code file} is grown to the size reported by the server.
+	 * </p><p>
+	 * If {@code file} already exists, it is overwritten. If any range fails, the download fails
+	 * and the remaining ranges are cancelled, leaving {@code file} incomplete.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param parts
+	 * 		the maximum number of ranges to download concurrently
+	 *
+	 * @return how many bytes were downloaded
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 + 1 per range
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int)
+	 */
+	public long downloadFileParallel(Path file, String filePath, int channelId, int parts) {
+		return asyncApi.downloadFileParallel(file, filePath, channelId, parts).getUninterruptibly();
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * over several concurrent connections and writes the file's bytes to {@code file}.
+	 * <p>
+	 * The file is split into up to {@code parts} ranges of at least 1 MiB each. Every range
+	 * is downloaded by its own file transfer, which writes into {@code file} at the range's offset.
+	 * The transfers are subject to the query's file transfer limits, so at most as many ranges as
+	 * allowed per file server are downloaded at the same time. Before the first range is downloaded,
+	 * {@code file} is grown to the size reported by the server.
+	 * </p><p>
+	 * If {@code file} already exists, it is overwritten. If any range fails, the download fails
+	 * and the remaining ranges are cancelled, leaving {@code file} incomplete.
+	 * </p><p>
+	 * The bandwidth limit of {@code options} applies to each range separately, while the progress
+	 * listener is notified of the progress of the whole file, possibly from several threads at once.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param parts
+	 * 		the maximum number of ranges to download concurrently
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfers
+	 *
+	 * @return how many bytes were downloaded
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 + 1 per range
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int, String, FileTransferOptions)
+	 */
+	public long downloadFileParallel(Path file, String filePath, int channelId, String channelPassword, int parts, FileTransferOptions options) {
+		return asyncApi.downloadFileParallel(file, filePath, channelId, channelPassword, parts, options).getUninterruptibly();
+	}
+
+	/**
+	 * Downloads an icon from the icon directory in the file repository
+	 * and writes the file's bytes to an open {@link OutputStream}.
+	 * <p>
+	 * It is the user's responsibility to ensure that the given {@code OutputStream} is
+	 * open and to close the stream again once the download has finished.
+	 * </p>
+	 *
+	 * @param dataOut
+	 * 		a stream that the downloaded data should be written to
+	 * @param iconId
+	 * 		the ID of the icon that should be downloaded
+	 *
+	 * @return a byte array containing the icon file's data
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see IconFile#getIconId()
+	 * @see #downloadIconDirect(long)
+	 * @see #uploadIcon(InputStream, long)
+	 */
+	public long downloadIcon(OutputStream dataOut, long iconId) {
+		return asyncApi.downloadIcon(dataOut, iconId).getUninterruptibly();
+	}
+
+	/**
+	 * Downloads an icon from the icon directory in the file repository
+	 * and returns the file's bytes as a byte array.
+	 * <p>
+	 * Note that this method <strong>will read the entire file to memory</strong>.
+	 * </p><p>
+	 * If an {@linkplain TS3Config#setIconCache(java.nio.file.Path, long, long) icon cache} is configured,
+	 * cached icons are returned without contacting the server and downloaded icons are added to the cache.
+	 * </p>
+	 *
+	 * @param iconId
+	 * 		the ID of the icon that should be downloaded
+	 *
+	 * @return a byte array containing the icon file's data
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see IconFile#getIconId()
+	 * @see #downloadIcon(OutputStream, long)
+	 * @see #uploadIconDirect(byte[])
+	 */
+	public byte[] downloadIconDirect(long iconId) {
+		return asyncApi.downloadIconDirect(iconId).getUninterruptibly();
+	}
+
+	/**
+	 * Changes a channel's configuration using the given properties.
+	 *
+	 * @param channelId
+	 * 		the ID of the channel to edit
+	 * @param options
+	 * 		the map of properties to modify
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1
+	 * @see Channel#getId()
+	 */
+	public void editChannel(int channelId, Map<ChannelProperty, String> options) {
+		asyncApi.editChannel(channelId, options).getUninterruptibly();
+	}
+
+	/**
+	 * Changes a single property of the given channel.
+	 * <p>
+	 * Note that one can set many properties at once with the overloaded method that
+	 * takes a map of channel properties and strings.
+	 * </p>
+	 *
+	 * @param channelId
+	 * 		the ID of the channel to edit
 	 * @param property
 	 * 		the channel property to modify, make sure it is editable
 	 * @param value
@@ -2281,6 +3024,20 @@ public class TS3Api {
 		return asyncApi.getDatabaseClientInfo(clientDBId).getUninterruptibly();
 	}
 
+	/**
+	 * Gets the number of clients in the server database.
+	 *
+	 * @return the number of database clients
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1
+	 * @see #getDatabaseClients(int, int)
+	 */
+	public int getDatabaseClientCount() {
+		return asyncApi.getDatabaseClientCount().getUninterruptibly();
+	}
+
 	/**
 	 * Gets information about all clients in the server database.
 	 * <p>
@@ -2297,6 +3054,7 @@ public class TS3Api {
 	 * @querycommands 1 + n,
 	 * where n = Math.ceil([amount of database clients] / 200)
 	 * @see DatabaseClient
+	 * @see #streamDatabaseClients()
 	 */
 	public List<DatabaseClient> getDatabaseClients() {
 		return asyncApi.getDatabaseClients().getUninterruptibly();
@@ -3054,6 +3812,30 @@ public class TS3Api {
 		return asyncApi.isClientOnline(clientUId).getUninterruptibly();
 	}
 
+	/**
+	 * Returns an iterator over all clients in the server database, which fetches
+	 * the database clients page by page as the iteration progresses.
+	 * <p>
+	 * Unlike {@link #getDatabaseClients()}, the client database is never held in memory as a whole
+	 * and the first clients are available after a single round trip. A few pages are requested
+	 * ahead of the iteration so their round trips overlap. The pages start small and grow
+	 * to 200 clients, the most the server returns at once.
+	 * </p><p>
+	 * {@code next()} and {@code hasNext()} block while waiting for a page and throw a
+	 * {@link TS3CommandFailedException} if fetching it failed. If clients are added to or removed
+	 * from the database during the iteration, clients may be skipped or returned twice.
+	 * </p>
+	 *
+	 * @return an iterator over all database clients
+	 *
+	 * @querycommands 1 per page
+	 * @see #streamDatabaseClients()
+	 * @see DatabaseClient
+	 */
+	public Iterator<DatabaseClient> iterateDatabaseClients() {
+		return Spliterators.iterator(databaseClientSpliterator(DATABASE_CLIENT_PREFETCH));
+	}
+
 	/**
 	 * Kicks one or more clients from their current channels.
 	 * This will move the kicked clients into the default channel and
@@ -3765,6 +4547,22 @@ public class TS3Api {
 		asyncApi.registerEvents(eventTypes).getUninterruptibly();
 	}
 
+	/**
+	 * Removes a {@link TS3BatchListener} from the event manager of the query.
+	 * <p>
+	 * Events collected for the current window are discarded.
+	 * If the listener was not actually registered, it will be ignored and no exception will be thrown.
+	 * </p>
+	 *
+	 * @param listener
+	 * 		the batch listener to remove
+	 *
+	 * @see #addBatchListener(TS3BatchListener, int, Class...)
+	 */
+	public void removeBatchListener(TS3BatchListener listener) {
+		asyncApi.removeBatchListener(listener);
+	}
+
 	/**
 	 * Removes the client specified by its database ID from the specified server group.
 	 *
@@ -3801,6 +4599,26 @@ public class TS3Api {
 		asyncApi.removeClientFromServerGroup(serverGroup, client).getUninterruptibly();
 	}
 
+	/**
+	 * Removes a listener added with {@link #addEventListener(Class, Consumer)} or
+	 * {@link #addEventListener(EventFilter, Consumer)} from the event manager of the query.
+	 * <p>
+	 * If the listener was not actually registered for this event class, it will be ignored and no exception will be thrown.
+	 * </p>
+	 *
+	 * @param eventClass
+	 * 		the class of events the listener was added for
+	 * @param listener
+	 * 		the listener to remove
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @see #addEventListener(Class, Consumer)
+	 */
+	public <E extends TS3Event> void removeEventListener(Class<E> eventClass, Consumer<? super E> listener) {
+		asyncApi.removeEventListener(eventClass, listener);
+	}
+
 	/**
 	 * Removes one or more {@link TS3Listener}s to the event manager of the query.
 	 * <p>
@@ -3856,49 +4674,189 @@ public class TS3Api {
 	/**
 	 * Renames the server group with the specified ID.
 	 *
-	 * @param serverGroupId
-	 * 		the ID of the server group to rename
-	 * @param name
-	 * 		the new name for the server group
+	 * @param serverGroupId
+	 * 		the ID of the server group to rename
+	 * @param name
+	 * 		the new name for the server group
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1
+	 * @see ServerGroup#getId()
+	 * @see #renameServerGroup(ServerGroup, String)
+	 */
+	public void renameServerGroup(int serverGroupId, String name) {
+		asyncApi.renameServerGroup(serverGroupId, name).getUninterruptibly();
+	}
+
+	/**
+	 * Renames the specified server group.
+	 *
+	 * @param serverGroup
+	 * 		the server group to rename
+	 * @param name
+	 * 		the new name for the server group
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1
+	 * @see #renameServerGroup(int, String)
+	 */
+	public void renameServerGroup(ServerGroup serverGroup, String name) {
+		asyncApi.renameServerGroup(serverGroup, name).getUninterruptibly();
+	}
+
+	/**
+	 * Resets all permissions and deletes all server / channel groups. Use carefully.
+	 *
+	 * @return a token for a new administrator account
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1
+	 */
+	public String resetPermissions() {
+		return asyncApi.resetPermissions().getUninterruptibly();
+	}
+
+	/**
+	 * Resumes downloading a file from the file repository at a given path and channel
+	 * by appending the missing bytes to {@code file}.
+	 * <p>
+	 * If {@code file} exists, it is assumed to contain the first bytes of the file from
+	 * an earlier, interrupted download, and only the remaining bytes are requested from the server.
+	 * Otherwise, the whole file is downloaded. After the download, the size of {@code file}
+	 * is compared to the size reported by the server. Progress reports include the bytes
+	 * downloaded earlier.
+	 * </p><p>
+	 * Note that the contents of {@code file} are not compared to the file on the server.
+	 * If the file on the server has changed since the earlier download, {@code file} will be corrupted.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be appended to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 *
+	 * @return the size of the complete file
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int)
+	 */
+	public long resumeDownload(Path file, String filePath, int channelId) {
+		return asyncApi.resumeDownload(file, filePath, channelId).getUninterruptibly();
+	}
+
+	/**
+	 * Resumes downloading a file from the file repository at a given path and channel
+	 * by appending the missing bytes to {@code file}.
+	 * <p>
+	 * If {@code file} exists, it is assumed to contain the first bytes of the file from
+	 * an earlier, interrupted download, and only the remaining bytes are requested from the server.
+	 * Otherwise, the whole file is downloaded. After the download, the size of {@code file}
+	 * is compared to the size reported by the server. Progress reports include the bytes
+	 * downloaded earlier.
+	 * </p><p>
+	 * Note that the contents of {@code file} are not compared to the file on the server.
+	 * If the file on the server has changed since the earlier download, {@code file} will be corrupted.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be appended to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 *
+	 * @return the size of the complete file
 	 *
 	 * @throws TS3CommandFailedException
 	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
 	 * @querycommands 1
-	 * @see ServerGroup#getId()
-	 * @see #renameServerGroup(ServerGroup, String)
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int, String, FileTransferOptions)
 	 */
-	public void renameServerGroup(int serverGroupId, String name) {
-		asyncApi.renameServerGroup(serverGroupId, name).getUninterruptibly();
+	public long resumeDownload(Path file, String filePath, int channelId, String channelPassword, FileTransferOptions options) {
+		return asyncApi.resumeDownload(file, filePath, channelId, channelPassword, options).getUninterruptibly();
 	}
 
 	/**
-	 * Renames the specified server group.
+	 * Resumes uploading a local file to the file repository at a given path and channel.
+	 * <p>
+	 * If an earlier upload of {@code file} to {@code filePath} was interrupted, the file server
+	 * still has the bytes it received and only the remaining bytes are uploaded.
+	 * Otherwise, the whole file is uploaded. A resumed upload never overwrites an existing,
+	 * complete file. After the upload, the size of the file on the server is compared
+	 * to the size of {@code file}. Progress reports include the bytes uploaded earlier.
+	 * </p>
 	 *
-	 * @param serverGroup
-	 * 		the server group to rename
-	 * @param name
-	 * 		the new name for the server group
+	 * @param file
+	 * 		the local file that should be uploaded
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
 	 *
 	 * @throws TS3CommandFailedException
 	 * 		if the execution of a command fails
-	 * @querycommands 1
-	 * @see #renameServerGroup(int, String)
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 2
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #uploadFile(Path, String, boolean, int)
 	 */
-	public void renameServerGroup(ServerGroup serverGroup, String name) {
-		asyncApi.renameServerGroup(serverGroup, name).getUninterruptibly();
+	public void resumeUpload(Path file, String filePath, int channelId) {
+		asyncApi.resumeUpload(file, filePath, channelId).getUninterruptibly();
 	}
 
 	/**
-	 * Resets all permissions and deletes all server / channel groups. Use carefully.
+	 * Resumes uploading a local file to the file repository at a given path and channel.
+	 * <p>
+	 * If an earlier upload of {@code file} to {@code filePath} was interrupted, the file server
+	 * still has the bytes it received and only the remaining bytes are uploaded.
+	 * Otherwise, the whole file is uploaded. A resumed upload never overwrites an existing,
+	 * complete file. After the upload, the size of the file on the server is compared
+	 * to the size of {@code file}. Progress reports include the bytes uploaded earlier.
+	 * </p>
 	 *
-	 * @return a token for a new administrator account
+	 * @param file
+	 * 		the local file that should be uploaded
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
 	 *
 	 * @throws TS3CommandFailedException
 	 * 		if the execution of a command fails
-	 * @querycommands 1
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 2
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #uploadFile(Path, String, boolean, int, String, FileTransferOptions)
 	 */
-	public String resetPermissions() {
-		return asyncApi.resetPermissions().getUninterruptibly();
+	public void resumeUpload(Path file, String filePath, int channelId, String channelPassword, FileTransferOptions options) {
+		asyncApi.resumeUpload(file, filePath, channelId, channelPassword, options).getUninterruptibly();
 	}
 
 	/**
@@ -4494,6 +5452,205 @@ public class TS3Api {
 		asyncApi.stopServerProcess(reason).getUninterruptibly();
 	}
 
+	/**
+	 * Returns a stream of all clients in the server database, which fetches
+	 * the database clients page by page as the stream is consumed.
+	 * <p>
+	 * Unlike {@link #getDatabaseClients()}, the client database is never held in memory as a whole
+	 * and the first clients are available after a single round trip. A few pages are requested
+	 * ahead of the consumer so their round trips overlap. The pages start small and grow
+	 * to 200 clients, the most the server returns at once.
+	 * </p><p>
+	 * The stream can be made {@linkplain Stream#parallel() parallel}, in which case fetched pages
+	 * are handed to the worker threads while the next pages are being fetched. Closing the stream
+	 * cancels the requests for pages which haven't been consumed yet.
+	 * </p>
+	 *
+	 * @return a stream of all database clients
+	 *
+	 * @querycommands 1 per page
+	 * @see #streamDatabaseClients(int)
+	 * @see #iterateDatabaseClients()
+	 * @see DatabaseClient
+	 */
+	public Stream<DatabaseClient> streamDatabaseClients() {
+		return streamDatabaseClients(DATABASE_CLIENT_PREFETCH);
+	}
+
+	/**
+	 * Returns a stream of all clients in the server database, which fetches
+	 * the database clients page by page as the stream is consumed.
+	 * <p>
+	 * Unlike {@link #getDatabaseClients()}, the client database is never held in memory as a whole
+	 * and the first clients are available after a single round trip. Up to {@code prefetchPages}
+	 * pages are requested ahead of the consumer so their round trips overlap. The pages start small
+	 * and grow to 200 clients, the most the server returns at once.
+	 * </p><p>
+	 * The stream can be made {@linkplain Stream#parallel() parallel}, in which case fetched pages
+	 * are handed to the worker threads while the next pages are being fetched. Closing the stream
+	 * cancels the requests for pages which haven't been consumed yet.
+	 * </p>
+	 *
+	 * @param prefetchPages
+	 * 		how many pages may be requested ahead of the consumer, at least {@code 1}
+	 *
+	 * @return a stream of all database clients
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code prefetchPages} is less than 1
+	 * @querycommands 1 per page
+	 * @see #iterateDatabaseClients()
+	 * @see DatabaseClient
+	 */
+	public Stream<DatabaseClient> streamDatabaseClients(int prefetchPages) {
+		PagedSpliterator<DatabaseClient> spliterator = databaseClientSpliterator(prefetchPages);
+		return StreamSupport.stream(spliterator, false).onClose(spliterator::cancel);
+	}
+
+	/**
+	 * Synchronizes a local directory with a directory of a channel's file repository,
+	 * downloading only the files which are missing locally or have changed.
+	 * <p>
+	 * The remote directory is listed recursively, with the listings of sibling directories
+	 * pipelined. A local file is considered up to date if its size and its modification time,
+	 * in seconds, match the remote file. Downloaded files are given the modification time of
+	 * the remote file, so that a repeated sync of an unchanged repository only costs the
+	 * listing commands. Downloads are queued with the query's file transfer manager.
+	 * </p>
+	 *
+	 * @param remoteDirectory
+	 * 		the directory in the file repository to download
+	 * @param channelId
+	 * 		the ID of the channel whose file repository should be synchronized
+	 * @param localDirectory
+	 * 		the local directory the files should be downloaded to
+	 *
+	 * @return a summary of the transferred and deleted files
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 per remote directory + 1 per changed file
+	 * @see #getFileList(String, int, String)
+	 * @see #syncUpload(Path, String, int, String, boolean, FileTransferOptions)
+	 */
+	public FileSyncResult syncDownload(String remoteDirectory, int channelId, Path localDirectory) {
+		return asyncApi.syncDownload(remoteDirectory, channelId, localDirectory).getUninterruptibly();
+	}
+
+	/**
+	 * Synchronizes a local directory with a directory of a channel's file repository,
+	 * downloading only the files which are missing locally or have changed.
+	 * <p>
+	 * The remote directory is listed recursively, with the listings of sibling directories
+	 * pipelined. A local file is considered up to date if its size and its modification time,
+	 * in seconds, match the remote file. Downloaded files are given the modification time of
+	 * the remote file, so that a repeated sync of an unchanged repository only costs the
+	 * listing commands. Downloads are queued with the query's file transfer manager.
+	 * </p><p>
+	 * If {@code deleteExtra} is {@code true}, local files and directories
+	 * which don't exist in the remote directory are deleted.
+	 * </p>
+	 *
+	 * @param remoteDirectory
+	 * 		the directory in the file repository to download
+	 * @param channelId
+	 * 		the ID of the channel whose file repository should be synchronized
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param localDirectory
+	 * 		the local directory the files should be downloaded to
+	 * @param deleteExtra
+	 * 		whether to delete local files which don't exist remotely
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of each download
+	 *
+	 * @return a summary of the transferred and deleted files
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 per remote directory + 1 per changed file
+	 * @see #getFileList(String, int, String)
+	 * @see #syncUpload(Path, String, int, String, boolean, FileTransferOptions)
+	 */
+	public FileSyncResult syncDownload(String remoteDirectory, int channelId, String channelPassword, Path localDirectory, boolean deleteExtra, FileTransferOptions options) {
+		return asyncApi.syncDownload(remoteDirectory, channelId, channelPassword, localDirectory, deleteExtra, options).getUninterruptibly();
+	}
+
+	/**
+	 * Synchronizes a directory of a channel's file repository with a local directory,
+	 * uploading only the files which are missing remotely or have changed.
+	 * <p>
+	 * The remote directory is listed recursively, with the listings of sibling directories
+	 * pipelined. A remote file is considered up to date if its size matches the local file
+	 * and the local file hasn't been modified since the remote file was uploaded.
+	 * Missing remote directories are created. Uploads are queued with the query's file transfer manager.
+	 * </p>
+	 *
+	 * @param localDirectory
+	 * 		the local directory to upload
+	 * @param remoteDirectory
+	 * 		the directory in the file repository the files should be uploaded to
+	 * @param channelId
+	 * 		the ID of the channel whose file repository should be synchronized
+	 *
+	 * @return a summary of the transferred and deleted files
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 per remote directory + 1 per changed file
+	 * @see #getFileList(String, int, String)
+	 * @see #syncDownload(String, int, String, Path, boolean, FileTransferOptions)
+	 */
+	public FileSyncResult syncUpload(Path localDirectory, String remoteDirectory, int channelId) {
+		return asyncApi.syncUpload(localDirectory, remoteDirectory, channelId).getUninterruptibly();
+	}
+
+	/**
+	 * Synchronizes a directory of a channel's file repository with a local directory,
+	 * uploading only the files which are missing remotely or have changed.
+	 * <p>
+	 * The remote directory is listed recursively, with the listings of sibling directories
+	 * pipelined. A remote file is considered up to date if its size matches the local file
+	 * and the local file hasn't been modified since the remote file was uploaded.
+	 * Missing remote directories are created. Uploads are queued with the query's file transfer manager.
+	 * </p><p>
+	 * If {@code deleteExtra} is {@code true}, remote files and directories which don't exist
+	 * in the local directory are deleted, using one command per 100 deleted paths.
+	 * </p>
+	 *
+	 * @param localDirectory
+	 * 		the local directory to upload
+	 * @param remoteDirectory
+	 * 		the directory in the file repository the files should be uploaded to
+	 * @param channelId
+	 * 		the ID of the channel whose file repository should be synchronized
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param deleteExtra
+	 * 		whether to delete remote files which don't exist locally
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of each upload
+	 *
+	 * @return a summary of the transferred and deleted files
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 per remote directory + 1 per changed file
+	 * @see #getFileList(String, int, String)
+	 * @see #syncDownload(String, int, String, Path, boolean, FileTransferOptions)
+	 */
+	public FileSyncResult syncUpload(Path localDirectory, String remoteDirectory, int channelId, String channelPassword, boolean deleteExtra, FileTransferOptions options) {
+		return asyncApi.syncUpload(localDirectory, remoteDirectory, channelId, channelPassword, deleteExtra, options).getUninterruptibly();
+	}
+
 	/**
 	 * Unregisters the server query from receiving any event notifications.
 	 *
@@ -4640,6 +5797,142 @@ public class TS3Api {
 		asyncApi.uploadFile(dataIn, dataLength, filePath, overwrite, channelId, channelPassword).getUninterruptibly();
 	}
 
+	/**
+	 * Uploads a file to the file repository at a given path and channel
+	 * by reading {@code dataLength} bytes from an open {@link InputStream}.
+	 * <p>
+	 * It is the user's responsibility to ensure that the given {@code InputStream} is
+	 * open and that {@code dataLength} bytes can eventually be read from it. The user is
+	 * also responsible for closing the stream once the upload has finished.
+	 * </p><p>
+	 * Note that this method will not read the entire file to memory and can thus
+	 * upload arbitrarily sized files to the file repository.
+	 * </p>
+	 *
+	 * @param dataIn
+	 * 		a stream that contains the data that should be uploaded
+	 * @param dataLength
+	 * 		how many bytes should be read from the stream
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param overwrite
+	 * 		if {@code false}, fails if there's already a file at {@code filePath}
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #uploadFileDirect(byte[], String, boolean, int, String)
+	 */
+	public void uploadFile(InputStream dataIn, long dataLength, String filePath, boolean overwrite, int channelId, String channelPassword, FileTransferOptions options) {
+		asyncApi.uploadFile(dataIn, dataLength, filePath, overwrite, channelId, channelPassword, options).getUninterruptibly();
+	}
+
+	/**
+	 * Uploads a local file to the file repository at a given path and channel.
+	 * <p>
+	 * The data is transferred from the file to the file server socket using
+	 * {@link FileChannel#transferTo}, which avoids copying it through the Java heap
+	 * on platforms that support it.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file that should be uploaded
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param overwrite
+	 * 		if {@code false}, fails if there's already a file at {@code filePath}
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int)
+	 */
+	public void uploadFile(Path file, String filePath, boolean overwrite, int channelId) {
+		asyncApi.uploadFile(file, filePath, overwrite, channelId).getUninterruptibly();
+	}
+
+	/**
+	 * Uploads a local file to the file repository at a given path and channel.
+	 * <p>
+	 * The data is transferred from the file to the file server socket using
+	 * {@link FileChannel#transferTo}, which avoids copying it through the Java heap
+	 * on platforms that support it.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file that should be uploaded
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param overwrite
+	 * 		if {@code false}, fails if there's already a file at {@code filePath}
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 * @param channelPassword
+	 * 		that channel's password
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int, String)
+	 */
+	public void uploadFile(Path file, String filePath, boolean overwrite, int channelId, String channelPassword) {
+		asyncApi.uploadFile(file, filePath, overwrite, channelId, channelPassword).getUninterruptibly();
+	}
+
+	/**
+	 * Uploads a local file to the file repository at a given path and channel.
+	 * <p>
+	 * The data is transferred from the file to the file server socket using
+	 * {@link FileChannel#transferTo}, which avoids copying it through the Java heap
+	 * on platforms that support it.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file that should be uploaded
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param overwrite
+	 * 		if {@code false}, fails if there's already a file at {@code filePath}
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int, String)
+	 */
+	public void uploadFile(Path file, String filePath, boolean overwrite, int channelId, String channelPassword, FileTransferOptions options) {
+		asyncApi.uploadFile(file, filePath, overwrite, channelId, channelPassword, options).getUninterruptibly();
+	}
+
 	/**
 	 * Uploads a file that is already stored in memory to the file repository
 	 * at a given path and channel.
@@ -4734,6 +6027,11 @@ public class TS3Api {
 	 * Uploads an icon that is already stored in memory to the icon directory
 	 * in the file repository. If this icon has already been uploaded or
 	 * if a CRC32 hash collision occurs, this command will fail.
+	 * <p>
+	 * If an {@linkplain TS3Config#setIconCache(java.nio.file.Path, long, long) icon cache} is configured,
+	 * the icon is added to it, and the upload is skipped if the server already holds the icon.
+	 * To tell, the icon directory is listed if it hasn't been listed in the last 5 minutes.
+	 * </p>
 	 *
 	 * @param data
 	 * 		the icon's data as a byte array
@@ -4800,4 +6098,8 @@ public class TS3Api {
 	public ServerQueryInfo whoAmI() {
 		return asyncApi.whoAmI().getUninterruptibly();
 	}
+
+	private PagedSpliterator<DatabaseClient> databaseClientSpliterator(int prefetchPages) {
+		return new PagedSpliterator<>(asyncApi::getDatabaseClients, DATABASE_CLIENT_PAGE_SIZE, prefetchPages);
+	}
 }
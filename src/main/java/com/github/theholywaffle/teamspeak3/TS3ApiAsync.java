@@ -27,24 +27,50 @@ package com.github.theholywaffle.teamspeak3;
  */
 
 import com.github.theholywaffle.teamspeak3.api.*;
+import com.github.theholywaffle.teamspeak3.api.event.ClientJoinEvent;
+import com.github.theholywaffle.teamspeak3.api.event.ClientLeaveEvent;
+import com.github.theholywaffle.teamspeak3.api.event.ClientMovedEvent;
+import com.github.theholywaffle.teamspeak3.api.event.EventFilter;
+import com.github.theholywaffle.teamspeak3.api.event.TS3BatchListener;
+import com.github.theholywaffle.teamspeak3.api.event.TS3Event;
 import com.github.theholywaffle.teamspeak3.api.event.TS3EventType;
 import com.github.theholywaffle.teamspeak3.api.event.TS3Listener;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3CommandFailedException;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3EventTimeoutException;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3FileTransferFailedException;
 import com.github.theholywaffle.teamspeak3.api.wrapper.*;
 import com.github.theholywaffle.teamspeak3.commands.*;
+import com.github.theholywaffle.teamspeak3.commands.parameter.StreamParam;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Asynchronous version of {@link TS3Api} to interact with the {@link TS3Query}.
@@ -76,6 +102,11 @@ import java.util.stream.Collectors;
  */
 public class TS3ApiAsync {
 
+	/**
+	 * The buffer size used when reading or writing snapshot files.
+	 */
+	private static final int SNAPSHOT_BUFFER_SIZE = 64 * 1024;
+
 	/**
 	 * The TS3 query that holds the event manager and the file transfer helper.
 	 */
@@ -168,6 +199,62 @@ public class TS3ApiAsync {
 		return executeAndReturnIntProperty(cmd, "banid");
 	}
 
+	/**
+	 * Adds a {@link TS3BatchListener} which receives events in batches.
+	 * <p>
+	 * The first event fired after the previous batch opens a window of {@code windowMilliseconds}.
+	 * Once the window has passed, all events fired during it are delivered in one batch, with
+	 * superseded events about the same client or channel removed. This reduces the work
+	 * needed to handle bursts of events, e.g. when many clients are moved at once. Edit events
+	 * only contain the changed properties, so they are never removed.
+	 * </p><p>
+	 * Only the given event types are collected, so other events are not parsed for this listener.
+	 * Note that for the TS3 server to fire events, you must first also register
+	 * the event types you want to listen to.
+	 * </p>
+	 *
+	 * @param listener
+	 * 		the batch listener to register
+	 * @param windowMilliseconds
+	 * 		how long to collect events before delivering them, in milliseconds
+	 * @param eventClasses
+	 * 		the classes of the events the listener wants to receive, e.g. {@code ClientMovedEvent.class}
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code listener} is {@code null}, if {@code windowMilliseconds} is less than {@code 1},
+	 * 		or if no or an unknown event class was passed
+	 * @see #removeBatchListener(TS3BatchListener)
+	 * @see #registerAllEvents()
+	 */
+	@SafeVarargs
+	public final void addBatchListener(TS3BatchListener listener, int windowMilliseconds, Class<? extends TS3Event>... eventClasses) {
+		query.getEventManager().addBatchListener(listener, windowMilliseconds, eventClasses);
+	}
+
+	/**
+	 * Adds a {@link TS3Listener} which borrows reusable event objects instead of receiving new ones.
+	 * <p>
+	 * To avoid creating objects for every event, the query keeps a single event object per event type
+	 * and overwrites it with the data of each new event. A borrowing listener is called directly on
+	 * the thread reading from the connection, and the event it receives is <b>only valid during the
+	 * method call</b>. The listener must not keep a reference to the event, pass it to another thread,
+	 * or block, as no further responses or events can be read while it runs. In particular,
+	 * it must not call any method of the synchronous {@link TS3Api}.
+	 * </p><p>
+	 * Borrowing listeners can be removed using {@link #removeTS3Listeners(TS3Listener...)}.
+	 * </p>
+	 *
+	 * @param listener
+	 * 		the non-blocking listener to register
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code listener} is {@code null}
+	 * @see #addTS3Listeners(TS3Listener...)
+	 */
+	public void addBorrowingTS3Listener(TS3Listener listener) {
+		query.getEventManager().addBorrowingListener(listener);
+	}
+
 	/**
 	 * Adds a specified permission to a client in a specific channel.
 	 *
@@ -412,6 +499,91 @@ public class TS3ApiAsync {
 		return executeAndReturnError(cmd);
 	}
 
+	/**
+	 * Adds a listener for a single type of event to the event manager of the query.
+	 * <p>
+	 * Unlike a {@link TS3Listener}, such a listener only causes the events of type {@code eventClass}
+	 * to be parsed and dispatched. Events that no listener is interested in are discarded
+	 * without being parsed at all.
+	 * </p><p>
+	 * Note that for the TS3 server to fire events, you must first also register
+	 * the event types you want to listen to.
+	 * </p>
+	 *
+	 * @param eventClass
+	 * 		the class of the events to listen to, e.g. {@code TextMessageEvent.class}
+	 * @param listener
+	 * 		the listener to notify
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code eventClass} is not a concrete event class or if {@code listener} is {@code null}
+	 * @see #removeEventListener(Class, Consumer)
+	 * @see #registerEvent(TS3EventType, int)
+	 */
+	public <E extends TS3Event> void addEventListener(Class<E> eventClass, Consumer<? super E> listener) {
+		query.getEventManager().addListener(eventClass, listener);
+	}
+
+	/**
+	 * Adds a listener for the events matching an {@link EventFilter} to the event manager of the query.
+	 * <p>
+	 * The criteria of all filters are indexed, so events are only dispatched to the listeners whose filter
+	 * they match, without checking every registered filter. This makes it possible to register thousands
+	 * of listeners for events in specific channels, from specific clients or with specific target modes.
+	 * </p><p>
+	 * If an {@linkplain TS3Config#setEventRingBuffer(int, TS3Query.EventWaitStrategy) event ring buffer}
+	 * is used, all filtered listeners are called one after another by a single ring buffer subscriber,
+	 * so a slow filtered listener delays every other filtered listener. Without the ring buffer,
+	 * each filtered listener handles its events in its own task.
+	 * </p><p>
+	 * The listener can be removed using {@link #removeEventListener(Class, Consumer)}.
+	 * Note that for the TS3 server to fire events, you must first also register
+	 * the event types you want to listen to.
+	 * </p>
+	 *
+	 * @param filter
+	 * 		the filter events have to match, e.g. {@code EventFilter.of(ClientJoinEvent.class).inChannels(1, 2)}
+	 * @param listener
+	 * 		the listener to notify
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code filter} or {@code listener} is {@code null}
+	 * @see EventFilter
+	 */
+	public <E extends TS3Event> void addEventListener(EventFilter<E> filter, Consumer<? super E> listener) {
+		query.getEventManager().addListener(filter, listener);
+	}
+
+	/**
+	 * Adds a {@link TS3Listener} whose events are handled by several threads in parallel.
+	 * <p>
+	 * Usually, a listener handles one event after another. A partitioned listener instead distributes
+	 * the events over {@code lanes} serial lanes, based on the ID of the client or channel
+	 * an event is about. Events concerning the same client or channel are still handled in the order
+	 * they were fired, but there is no ordering between events in different lanes.
+	 * Events not concerning a specific client or channel, like text messages, all use the same lane.
+	 * </p><p>
+	 * The listener <b>must be thread-safe</b>, as up to {@code lanes} of its methods can be called concurrently.
+	 * It can be removed using {@link #removeTS3Listeners(TS3Listener...)}.
+	 * </p>
+	 *
+	 * @param listener
+	 * 		the thread-safe listener to register
+	 * @param lanes
+	 * 		the maximum number of events handled in parallel
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code listener} is {@code null} or if {@code lanes} is less than {@code 1}
+	 * @see #addTS3Listeners(TS3Listener...)
+	 */
+	public void addPartitionedTS3Listener(TS3Listener listener, int lanes) {
+		query.getEventManager().addPartitionedListener(listener, lanes);
+	}
+
 	/**
 	 * Adds a specified permission to all server groups of the type specified by {@code type} on all virtual servers.
 	 *
@@ -634,6 +806,70 @@ public class TS3ApiAsync {
 		query.getEventManager().addListeners(listeners);
 	}
 
+	/**
+	 * Waits for the next event of type {@code eventClass} matching {@code predicate}.
+	 * <p>
+	 * This can be used to wait for the effect of a command, e.g. for the {@link ClientMovedEvent}
+	 * after moving a client. Only events fired after this method was called are considered.
+	 * Note that for the TS3 server to fire events, you must first also register
+	 * the event types you want to wait for.
+	 * </p>
+	 *
+	 * @param eventClass
+	 * 		the class of the event to wait for
+	 * @param predicate
+	 * 		the condition the event has to fulfil, or {@code null} to accept any event of this type
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of {@code timeout}
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @return a future completed with the first matching event, or failed with a
+	 * 		{@link TS3EventTimeoutException} if no matching event was received within the timeout
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code eventClass} is not a concrete event class
+	 * @see #awaitEvent(Class, int, Predicate, long, TimeUnit)
+	 */
+	public <E extends TS3Event> CommandFuture<E> awaitEvent(Class<E> eventClass, Predicate<? super E> predicate, long timeout, TimeUnit unit) {
+		return awaitEvent(eventClass, -1, predicate, timeout, unit);
+	}
+
+	/**
+	 * Waits for the next event of type {@code eventClass} about a specific client or channel that matches {@code predicate}.
+	 * <p>
+	 * For client events ({@link ClientJoinEvent}, {@link ClientMovedEvent} and {@link ClientLeaveEvent}),
+	 * {@code id} is the ID of the client. For channel events, it is the ID of the channel.
+	 * Waiting for events about a specific client or channel is cheaper than checking the ID in the predicate,
+	 * as each event is only tested against the waiters for the same client or channel.
+	 * </p>
+	 *
+	 * @param eventClass
+	 * 		the class of the event to wait for
+	 * @param id
+	 * 		the ID of the client or channel the event has to be about
+	 * @param predicate
+	 * 		the condition the event has to fulfil, or {@code null} to accept any event about {@code id}
+	 * @param timeout
+	 * 		the maximum time to wait
+	 * @param unit
+	 * 		the time unit of {@code timeout}
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @return a future completed with the first matching event, or failed with a
+	 * 		{@link TS3EventTimeoutException} if no matching event was received within the timeout
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code eventClass} is not a concrete event class
+	 * @see #awaitEvent(Class, Predicate, long, TimeUnit)
+	 */
+	public <E extends TS3Event> CommandFuture<E> awaitEvent(Class<E> eventClass, int id, Predicate<? super E> predicate, long timeout, TimeUnit unit) {
+		return query.getEventManager().awaitEvent(eventClass, id, predicate, timeout, unit);
+	}
+
 	/**
 	 * Bans a client with a given client ID for a given time.
 	 * <p>
@@ -884,6 +1120,96 @@ public class TS3ApiAsync {
 		return executeAndReturnIntProperty(cmd, "sgid");
 	}
 
+	/**
+	 * Crawls the file repositories of all channels on the virtual server, streaming every file that passes
+	 * the filters of {@code options} to {@code consumer} as soon as its directory has been listed.
+	 * <p>
+	 * Instead of listing one directory after another, up to
+	 * {@link FileCrawlOptions#getMaxPendingListings()} {@code ftgetfilelist} commands are kept
+	 * queued at once, so their round trips overlap. The flood rate of the query still applies.
+	 * The consumer is never called concurrently. If a listing fails, the crawl fails and no
+	 * further directories are listed.
+	 * </p>
+	 *
+	 * @param consumer
+	 * 		receives every matching file
+	 *
+	 * @return a future that completes once all directories have been listed
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1 + 1 per directory
+	 * @see FileCrawlOptions
+	 * @see #getFileList(String, int, String)
+	 */
+	public CommandFuture<Void> crawlFiles(Consumer<FileListEntry> consumer) {
+		return crawlFiles(FileCrawlOptions.defaults(), consumer);
+	}
+
+	/**
+	 * Crawls the file repositories of all channels on the virtual server, streaming every file that passes
+	 * the filters of {@code options} to {@code consumer} as soon as its directory has been listed.
+	 * <p>
+	 * Instead of listing one directory after another, up to
+	 * {@link FileCrawlOptions#getMaxPendingListings()} {@code ftgetfilelist} commands are kept
+	 * queued at once, so their round trips overlap. The flood rate of the query still applies.
+	 * The consumer is never called concurrently. If a listing fails, the crawl fails and no
+	 * further directories are listed.
+	 * </p>
+	 *
+	 * @param options
+	 * 		the root directory, filters and limits of the crawl
+	 * @param consumer
+	 * 		receives every matching file
+	 *
+	 * @return a future that completes once all directories have been listed
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1 + 1 per directory
+	 * @see FileCrawlOptions
+	 * @see #getFileList(String, int, String)
+	 */
+	public CommandFuture<Void> crawlFiles(FileCrawlOptions options, Consumer<FileListEntry> consumer) {
+		return getChannels().then(channels -> {
+			List<Integer> channelIds = new ArrayList<>(channels.size());
+			for (Channel channel : channels) {
+				channelIds.add(channel.getId());
+			}
+			return crawlFiles(channelIds, options, consumer);
+		});
+	}
+
+	/**
+	 * Crawls the file repositories of the given channels, streaming every file that passes
+	 * the filters of {@code options} to {@code consumer} as soon as its directory has been listed.
+	 * <p>
+	 * Instead of listing one directory after another, up to
+	 * {@link FileCrawlOptions#getMaxPendingListings()} {@code ftgetfilelist} commands are kept
+	 * queued at once, so their round trips overlap. The flood rate of the query still applies.
+	 * The consumer is never called concurrently. If a listing fails, the crawl fails and no
+	 * further directories are listed.
+	 * </p>
+	 *
+	 * @param channelIds
+	 * 		the IDs of the channels whose file repositories should be crawled
+	 * @param options
+	 * 		the root directory, filters and limits of the crawl
+	 * @param consumer
+	 * 		receives every matching file
+	 *
+	 * @return a future that completes once all directories have been listed
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1 per directory
+	 * @see FileCrawlOptions
+	 * @see #getFileList(String, int, String)
+	 */
+	public CommandFuture<Void> crawlFiles(Collection<Integer> channelIds, FileCrawlOptions options, Consumer<FileListEntry> consumer) {
+		return new FileCrawler(this::getFileList, options, consumer).crawl(channelIds);
+	}
+
 	/**
 	 * Creates a new channel with a given name using the given properties and returns its ID.
 	 *
@@ -998,6 +1324,92 @@ public class TS3ApiAsync {
 		return future;
 	}
 
+	/**
+	 * Creates a {@link Snapshot} of the selected virtual server and writes the raw snapshot
+	 * data to an open {@link OutputStream}, as it arrives from the server.
+	 * <p>
+	 * Unlike {@link #createServerSnapshot()}, the snapshot is never held in memory as a whole,
+	 * so memory use stays flat regardless of the size of the virtual server. The data written
+	 * to {@code dataOut} is the same as {@link Snapshot#get()} would return, encoded as UTF-8.
+	 * </p><p>
+	 * The stream is written to by the thread reading the query's responses, so other responses
+	 * are delayed until the snapshot has been written. It is the user's responsibility to ensure
+	 * that the given {@code OutputStream} is open and to close the stream again once the
+	 * snapshot has been written. The stream is flushed, but not closed.
+	 * </p>
+	 *
+	 * @param dataOut
+	 * 		a stream that the snapshot data should be written to
+	 *
+	 * @return a future to track the progress of this command
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if writing to the stream fails
+	 * @querycommands 1
+	 * @see #deployServerSnapshot(Path)
+	 */
+	public CommandFuture<Void> createServerSnapshot(OutputStream dataOut) {
+		Command cmd = VirtualServerCommands.serverSnapshotCreate();
+		cmd.streamResponseTo(new OutputStreamWriter(new NonClosingOutputStream(dataOut), StandardCharsets.UTF_8));
+		return executeAndReturnError(cmd);
+	}
+
+	/**
+	 * Creates a {@link Snapshot} of the selected virtual server and writes the raw snapshot
+	 * data to a file, optionally compressed with GZIP, as it arrives from the server.
+	 * <p>
+	 * Unlike {@link #createServerSnapshot()}, the snapshot is never held in memory as a whole,
+	 * so memory use stays flat regardless of the size of the virtual server. If the file
+	 * already exists, it is overwritten. If the command fails, the file is deleted again.
+	 * Snapshot files can be restored using {@link #deployServerSnapshot(Path)}.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the file the snapshot should be written to
+	 * @param compress
+	 * 		whether the snapshot data should be compressed with GZIP
+	 *
+	 * @return a future to track the progress of this command
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file could not be written
+	 * @querycommands 1
+	 * @see #deployServerSnapshot(Path)
+	 */
+	public CommandFuture<Void> createServerSnapshot(Path file, boolean compress) {
+		OutputStream fileOut;
+		try {
+			fileOut = Files.newOutputStream(file);
+		} catch (IOException e) {
+			throw new TS3FileTransferFailedException("Opening snapshot file failed", e);
+		}
+
+		OutputStream dataOut = fileOut;
+		if (compress) {
+			try {
+				dataOut = new GZIPOutputStream(fileOut, SNAPSHOT_BUFFER_SIZE);
+			} catch (IOException e) {
+				closeQuietly(fileOut);
+				throw new TS3FileTransferFailedException("Opening snapshot file failed", e);
+			}
+		}
+
+		Command cmd = VirtualServerCommands.serverSnapshotCreate();
+		cmd.streamResponseTo(new OutputStreamWriter(dataOut, StandardCharsets.UTF_8));
+		// The reader or the command queue closes the file before the command completes
+		return executeAndReturnError(cmd).onFailure(__ -> {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException ignored) {
+				// Already failing
+			}
+		});
+	}
+
 	/**
 	 * Deletes all active ban rules from the server. Use with caution.
 	 *
@@ -1438,7 +1850,10 @@ public class TS3ApiAsync {
 	 */
 	public CommandFuture<Void> deleteIcon(long iconId) {
 		String iconPath = "/icon_" + iconId;
-		return deleteFile(iconPath, 0);
+		IconCache iconCache = query.getIconCache();
+		if (iconCache == null) return deleteFile(iconPath, 0);
+
+		return deleteFile(iconPath, 0).onSuccess(__ -> iconCache.removeServerIcons(iconId));
 	}
 
 	/**
@@ -1459,7 +1874,10 @@ public class TS3ApiAsync {
 		for (int i = 0; i < iconIds.length; ++i) {
 			iconPaths[i] = "/icon_" + iconIds[i];
 		}
-		return deleteFiles(iconPaths, 0);
+		IconCache iconCache = query.getIconCache();
+		if (iconCache == null) return deleteFiles(iconPaths, 0);
+
+		return deleteFiles(iconPaths, 0).onSuccess(__ -> iconCache.removeServerIcons(iconIds));
 	}
 
 	/**
@@ -1663,6 +2081,35 @@ public class TS3ApiAsync {
 		return executeAndReturnError(cmd);
 	}
 
+	/**
+	 * Restores the configuration of the selected virtual server using a server snapshot
+	 * stored in a file, streaming the snapshot data from disk while the command is being sent.
+	 * <p>
+	 * The file must contain the raw snapshot data, as written by
+	 * {@link #createServerSnapshot(Path, boolean)} or {@link #createServerSnapshot(OutputStream)},
+	 * or the same data compressed with GZIP. Compression is detected automatically.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the file containing the snapshot to restore
+	 *
+	 * @return a future to track the progress of this command
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file does not exist or could not be read
+	 * @querycommands 1
+	 * @see #createServerSnapshot(Path, boolean)
+	 */
+	public CommandFuture<Void> deployServerSnapshot(Path file) {
+		if (!Files.isReadable(file)) throw new TS3FileTransferFailedException("Snapshot file cannot be read: " + file);
+
+		StreamParam snapshot = new StreamParam(() -> openSnapshot(file), file.getFileName().toString());
+		Command cmd = VirtualServerCommands.serverSnapshotDeploy(snapshot);
+		return executeAndReturnError(cmd);
+	}
+
 	/**
 	 * Downloads a file from the file repository at a given path and channel
 	 * and writes the file's bytes to an open {@link OutputStream}.
@@ -1728,45 +2175,70 @@ public class TS3ApiAsync {
 	 * @see #downloadFileDirect(String, int, String)
 	 */
 	public CommandFuture<Long> downloadFile(OutputStream dataOut, String filePath, int channelId, String channelPassword) {
+		return downloadFile(dataOut, filePath, channelId, channelPassword, FileTransferOptions.defaults());
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * and writes the file's bytes to an open {@link OutputStream}.
+	 * <p>
+	 * It is the user's responsibility to ensure that the given {@code OutputStream} is
+	 * open and to close the stream again once the download has finished.
+	 * </p><p>
+	 * Note that this method will not read the entire file to memory and can thus
+	 * download arbitrarily sized files from the file repository.
+	 * </p>
+	 *
+	 * @param dataOut
+	 * 		a stream that the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 *
+	 * @return how many bytes were downloaded
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFileDirect(String, int, String)
+	 */
+	public CommandFuture<Long> downloadFile(OutputStream dataOut, String filePath, int channelId, String channelPassword, FileTransferOptions options) {
 		FileTransferHelper helper = query.getFileTransferHelper();
 		int transferId = helper.getClientTransferId();
 		Command cmd = FileCommands.ftInitDownload(transferId, filePath, channelId, channelPassword);
-		CommandFuture<Long> future = new CommandFuture<>();
-
-		executeAndTransformFirst(cmd, FileTransferParameters::new).onSuccess(params -> {
-			QueryError error = params.getQueryError();
-			if (!error.isSuccessful()) {
-				future.fail(new TS3CommandFailedException(error, cmd.getName()));
-				return;
-			}
-
-			try {
-				query.getFileTransferHelper().downloadFile(dataOut, params);
-			} catch (IOException e) {
-				future.fail(new TS3FileTransferFailedException("Download failed", e));
-				return;
-			}
-			future.set(params.getFileSize());
-		}).forwardFailure(future);
 
-		return future;
+		return transferFile(cmd, options, "Download failed", FileTransferParameters::getFileSize, (params, transfer) -> {
+			helper.downloadFile(dataOut, params, transfer);
+			return params.getFileSize();
+		});
 	}
 
 	/**
 	 * Downloads a file from the file repository at a given path and channel
-	 * and returns the file's bytes as a byte array.
+	 * and writes the file's bytes to {@code file}.
 	 * <p>
-	 * Note that this method <strong>will read the entire file to memory</strong>.
-	 * That means that if a file is larger than 2<sup>31</sup>-1 bytes in size,
-	 * the download will fail.
+	 * The data is transferred from the file server socket to the file using
+	 * {@link FileChannel#transferFrom}, which avoids copying it through the Java heap
+	 * on platforms that support it. If {@code file} already exists, it is overwritten.
 	 * </p>
 	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
 	 * @param filePath
 	 * 		the path of the file on the file repository
 	 * @param channelId
 	 * 		the ID of the channel to download the file from
 	 *
-	 * @return a byte array containing the file's data
+	 * @return how many bytes were downloaded
 	 *
 	 * @throws TS3CommandFailedException
 	 * 		if the execution of a command fails
@@ -1775,21 +2247,23 @@ public class TS3ApiAsync {
 	 * @querycommands 1
 	 * @see FileInfo#getPath()
 	 * @see Channel#getId()
-	 * @see #downloadFile(OutputStream, String, int)
+	 * @see #uploadFile(Path, String, boolean, int)
 	 */
-	public CommandFuture<byte[]> downloadFileDirect(String filePath, int channelId) {
-		return downloadFileDirect(filePath, channelId, null);
+	public CommandFuture<Long> downloadFile(Path file, String filePath, int channelId) {
+		return downloadFile(file, filePath, channelId, null);
 	}
 
 	/**
 	 * Downloads a file from the file repository at a given path and channel
-	 * and returns the file's bytes as a byte array.
+	 * and writes the file's bytes to {@code file}.
 	 * <p>
-	 * Note that this method <strong>will read the entire file to memory</strong>.
-	 * That means that if a file is larger than 2<sup>31</sup>-1 bytes in size,
-	 * the download will fail.
+	 * The data is transferred from the file server socket to the file using
+	 * {@link FileChannel#transferFrom}, which avoids copying it through the Java heap
+	 * on platforms that support it. If {@code file} already exists, it is overwritten.
 	 * </p>
 	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
 	 * @param filePath
 	 * 		the path of the file on the file repository
 	 * @param channelId
@@ -1797,7 +2271,7 @@ public class TS3ApiAsync {
 	 * @param channelPassword
 	 * 		that channel's password
 	 *
-	 * @return a byte array containing the file's data
+	 * @return how many bytes were downloaded
 	 *
 	 * @throws TS3CommandFailedException
 	 * 		if the execution of a command fails
@@ -1806,38 +2280,423 @@ public class TS3ApiAsync {
 	 * @querycommands 1
 	 * @see FileInfo#getPath()
 	 * @see Channel#getId()
-	 * @see #downloadFile(OutputStream, String, int, String)
+	 * @see #uploadFile(Path, String, boolean, int, String)
 	 */
-	public CommandFuture<byte[]> downloadFileDirect(String filePath, int channelId, String channelPassword) {
-		FileTransferHelper helper = query.getFileTransferHelper();
-		int transferId = helper.getClientTransferId();
-		Command cmd = FileCommands.ftInitDownload(transferId, filePath, channelId, channelPassword);
-		CommandFuture<byte[]> future = new CommandFuture<>();
-
-		executeAndTransformFirst(cmd, FileTransferParameters::new).onSuccess(params -> {
-			QueryError error = params.getQueryError();
-			if (!error.isSuccessful()) {
-				future.fail(new TS3CommandFailedException(error, cmd.getName()));
-				return;
-			}
+	public CommandFuture<Long> downloadFile(Path file, String filePath, int channelId, String channelPassword) {
+		return downloadFile(file, filePath, channelId, channelPassword, FileTransferOptions.defaults());
+	}
 
-			long fileSize = params.getFileSize();
-			if (fileSize > Integer.MAX_VALUE) {
-				future.fail(new TS3FileTransferFailedException("File too big for byte array"));
-				return;
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * and writes the file's bytes to {@code file}.
+	 * <p>
+	 * The data is transferred from the file server socket to the file using
+	 * {@link FileChannel#transferFrom}, which avoids copying it through the Java heap
+	 * on platforms that support it. If {@code file} already exists, it is overwritten.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 *
+	 * @return how many bytes were downloaded
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #uploadFile(Path, String, boolean, int, String)
+	 */
+	public CommandFuture<Long> downloadFile(Path file, String filePath, int channelId, String channelPassword, FileTransferOptions options) {
+		FileTransferHelper helper = query.getFileTransferHelper();
+		int transferId = helper.getClientTransferId();
+		Command cmd = FileCommands.ftInitDownload(transferId, filePath, channelId, channelPassword);
+
+		return transferFile(cmd, options, "Download failed", FileTransferParameters::getFileSize, (params, transfer) -> {
+			try (FileChannel fileOut = FileChannel.open(file, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				helper.downloadFile(fileOut, params, transfer);
 			}
-			ByteArrayOutputStream dataOut = new ByteArrayOutputStream((int) fileSize);
+			return params.getFileSize();
+		});
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * and writes the file's bytes into a {@link ByteBuffer}.
+	 * <p>
+	 * The file's bytes are written starting at the buffer's current position,
+	 * which is advanced by the size of the file. If the file is larger than
+	 * the buffer's remaining space, the download fails without touching the buffer.
+	 * Direct buffers are filled straight from the socket without an intermediate copy.
+	 * </p>
+	 *
+	 * @param dataOut
+	 * 		the buffer the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 *
+	 * @return how many bytes were downloaded
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFileMapped(Path, String, int)
+	 */
+	public CommandFuture<Long> downloadFile(ByteBuffer dataOut, String filePath, int channelId) {
+		return downloadFile(dataOut, filePath, channelId, null);
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * and writes the file's bytes into a {@link ByteBuffer}.
+	 * <p>
+	 * The file's bytes are written starting at the buffer's current position,
+	 * which is advanced by the size of the file. If the file is larger than
+	 * the buffer's remaining space, the download fails without touching the buffer.
+	 * Direct buffers are filled straight from the socket without an intermediate copy.
+	 * </p>
+	 *
+	 * @param dataOut
+	 * 		the buffer the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 *
+	 * @return how many bytes were downloaded
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFileMapped(Path, String, int, String)
+	 */
+	public CommandFuture<Long> downloadFile(ByteBuffer dataOut, String filePath, int channelId, String channelPassword) {
+		FileTransferHelper helper = query.getFileTransferHelper();
+		int transferId = helper.getClientTransferId();
+		Command cmd = FileCommands.ftInitDownload(transferId, filePath, channelId, channelPassword);
+
+		return transferFile(cmd, FileTransferOptions.defaults(), "Download failed", FileTransferParameters::getFileSize, (params, transfer) -> {
+			helper.downloadFile(dataOut, params, transfer);
+			return params.getFileSize();
+		});
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * and returns the file's bytes as a byte array.
+	 * <p>
+	 * Note that this method <strong>will read the entire file to memory</strong>.
+	 * That means that if a file is larger than 2<sup>31</sup>-1 bytes in size,
+	 * the download will fail.
+	 * </p>
+	 *
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 *
+	 * @return a byte array containing the file's data
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(OutputStream, String, int)
+	 */
+	public CommandFuture<byte[]> downloadFileDirect(String filePath, int channelId) {
+		return downloadFileDirect(filePath, channelId, null);
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * and returns the file's bytes as a byte array.
+	 * <p>
+	 * Note that this method <strong>will read the entire file to memory</strong>.
+	 * That means that if a file is larger than 2<sup>31</sup>-1 bytes in size,
+	 * the download will fail.
+	 * </p>
+	 *
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 *
+	 * @return a byte array containing the file's data
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(OutputStream, String, int, String)
+	 */
+	public CommandFuture<byte[]> downloadFileDirect(String filePath, int channelId, String channelPassword) {
+		FileTransferHelper helper = query.getFileTransferHelper();
+		int transferId = helper.getClientTransferId();
+		Command cmd = FileCommands.ftInitDownload(transferId, filePath, channelId, channelPassword);
+
+		return transferFile(cmd, FileTransferOptions.defaults(), "Download failed", FileTransferParameters::getFileSize, (params, transfer) -> {
+			long fileSize = params.getFileSize();
+			if (fileSize > Integer.MAX_VALUE) throw new IOException("File too big for byte array");
+
+			// Read straight into the array that is handed to the user
+			byte[] data = new byte[(int) fileSize];
+			helper.downloadFile(ByteBuffer.wrap(data), params, transfer);
+			return data;
+		});
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * into a memory-mapped region of {@code file}.
+	 * <p>
+	 * {@code file} is created or resized to the size of the downloaded file and mapped into memory,
+	 * the data is then read from the file server socket straight into the mapping.
+	 * The returned buffer is positioned at the start of the file's bytes and stays valid
+	 * until it is garbage collected, even though the underlying channel is already closed.
+	 * Files larger than 2<sup>31</sup>-1 bytes cannot be mapped and will fail to download.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 *
+	 * @return a buffer mapping the downloaded file
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int)
+	 */
+	public CommandFuture<MappedByteBuffer> downloadFileMapped(Path file, String filePath, int channelId) {
+		return downloadFileMapped(file, filePath, channelId, null);
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * into a memory-mapped region of {@code file}.
+	 * <p>
+	 * {@code file} is created or resized to the size of the downloaded file and mapped into memory,
+	 * the data is then read from the file server socket straight into the mapping.
+	 * The returned buffer is positioned at the start of the file's bytes and stays valid
+	 * until it is garbage collected, even though the underlying channel is already closed.
+	 * Files larger than 2<sup>31</sup>-1 bytes cannot be mapped and will fail to download.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 *
+	 * @return a buffer mapping the downloaded file
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int, String)
+	 */
+	public CommandFuture<MappedByteBuffer> downloadFileMapped(Path file, String filePath, int channelId, String channelPassword) {
+		FileTransferHelper helper = query.getFileTransferHelper();
+		int transferId = helper.getClientTransferId();
+		Command cmd = FileCommands.ftInitDownload(transferId, filePath, channelId, channelPassword);
+
+		return transferFile(cmd, FileTransferOptions.defaults(), "Download failed", FileTransferParameters::getFileSize, (params, transfer) -> {
+			long fileSize = params.getFileSize();
+			if (fileSize > Integer.MAX_VALUE) throw new IOException("File too big to be mapped");
+
+			try (FileChannel fileOut = FileChannel.open(file, StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				fileOut.truncate(fileSize);
+				MappedByteBuffer mapped = fileOut.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+				helper.downloadFile(mapped, params, transfer);
+				mapped.flip();
+				return mapped;
+			}
+		});
+	}
+
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * over several concurrent connections and writes the file's bytes to {@code file}.
+	 * <p>
+	 * The file is split into up to {@code parts} ranges of at least 1 MiB each. Every range
+	 * is downloaded by its own file transfer, which writes into {@code file} at the range's offset.
+	 * The transfers are subject to the query's file transfer limits, so at most as many ranges as
+	 * allowed per file server are downloaded at the same time. Before the first range is downloaded,
+	 * {@code file} is grown to the size reported by the server.
+	 * </p><p>
+	 * If {@code file} already exists, it is overwritten. If any range fails, the download fails
+	 * and the remaining ranges are cancelled, leaving {@code file} incomplete.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param parts
+	 * 		the maximum number of ranges to download concurrently
+	 *
+	 * @return how many bytes were downloaded
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 + 1 per range
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int)
+	 */
+	public CommandFuture<Long> downloadFileParallel(Path file, String filePath, int channelId, int parts) {
+		return downloadFileParallel(file, filePath, channelId, null, parts, FileTransferOptions.defaults());
+	}
 
+	/**
+	 * Downloads a file from the file repository at a given path and channel
+	 * over several concurrent connections and writes the file's bytes to {@code file}.
+	 * <p>
+	 * The file is split into up to {@code parts} ranges of at least 1 MiB each. Every range
+	 * is downloaded by its own file transfer, which writes into {@code file} at the range's offset.
+	 * The transfers are subject to the query's file transfer limits, so at most as many ranges as
+	 * allowed per file server are downloaded at the same time. Before the first range is downloaded,
+	 * {@code file} is grown to the size reported by the server.
+	 * </p><p>
+	 * If {@code file} already exists, it is overwritten. If any range fails, the download fails
+	 * and the remaining ranges are cancelled, leaving {@code file} incomplete.
+	 * </p><p>
+	 * The bandwidth limit of {@code options} applies to each range separately, while the progress
+	 * listener is notified of the progress of the whole file, possibly from several threads at once.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be written to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param parts
+	 * 		the maximum number of ranges to download concurrently
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfers
+	 *
+	 * @return how many bytes were downloaded
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 + 1 per range
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int, String, FileTransferOptions)
+	 */
+	public CommandFuture<Long> downloadFileParallel(Path file, String filePath, int channelId, String channelPassword,
+	                                                int parts, FileTransferOptions options) {
+		if (parts < 1) throw new IllegalArgumentException("Must download at least 1 part");
+
+		return getFileInfo(filePath, channelId, channelPassword).then(info -> {
+			long fileSize = info.getFileSize();
+			CommandFuture<Long> result = new CommandFuture<>();
+
+			FileChannel fileOut;
 			try {
-				query.getFileTransferHelper().downloadFile(dataOut, params);
+				fileOut = FileTransferHelper.openRangedDownload(file, fileSize);
 			} catch (IOException e) {
-				future.fail(new TS3FileTransferFailedException("Download failed", e));
-				return;
+				result.fail(new TS3FileTransferFailedException("Download failed", e));
+				return result;
 			}
-			future.set(dataOut.toByteArray());
-		}).forwardFailure(future);
 
-		return future;
+			int count = (int) Math.max(1, Math.min(parts, fileSize / FileTransferHelper.MIN_PART_SIZE));
+			long partSize = fileSize / count;
+			AtomicLong downloaded = new AtomicLong(0);
+			List<CommandFuture<Long>> futures = new ArrayList<>(count);
+			for (int i = 0; i < count; ++i) {
+				long offset = i * partSize;
+				long length = (i == count - 1) ? fileSize - offset : partSize;
+				FileTransferOptions partOptions = options;
+
+				TransferProgressListener listener = options.getProgressListener();
+				if (listener != null) {
+					// Translate the progress of a range into the progress of the whole file
+					long[] last = {0};
+					partOptions = options.withProgressListener((transferred, total) -> {
+						long delta = transferred - last[0];
+						last[0] = transferred;
+						listener.onProgress(downloaded.addAndGet(delta), fileSize);
+					});
+				}
+				futures.add(downloadFilePart(fileOut, offset, length, filePath, channelId, channelPassword, partOptions));
+			}
+
+			CommandFuture<List<Long>> all = CommandFuture.ofAll(futures, true);
+			all.onSuccess(__ -> {
+				try {
+					fileOut.close();
+				} catch (IOException e) {
+					result.fail(new TS3FileTransferFailedException("Download failed", e));
+					return;
+				}
+				result.set(fileSize);
+			}).onFailure(exception -> {
+				closeQuietly(fileOut);
+				result.fail(exception);
+			});
+			result.onCancellation(() -> {
+				all.cancel(false);
+				closeQuietly(fileOut);
+			});
+
+			return result;
+		});
 	}
 
 	/**
@@ -1865,6 +2724,18 @@ public class TS3ApiAsync {
 	 * @see #uploadIcon(InputStream, long)
 	 */
 	public CommandFuture<Long> downloadIcon(OutputStream dataOut, long iconId) {
+		if (query.getIconCache() != null) {
+			// Icons are small, going through the cache is cheaper than streaming them again
+			return downloadIconDirect(iconId).map(data -> {
+				try {
+					dataOut.write(data);
+				} catch (IOException e) {
+					throw new TS3FileTransferFailedException("Writing to stream failed", e);
+				}
+				return (long) data.length;
+			});
+		}
+
 		String iconPath = "/icon_" + iconId;
 		return downloadFile(dataOut, iconPath, 0);
 	}
@@ -1874,6 +2745,9 @@ public class TS3ApiAsync {
 	 * and returns the file's bytes as a byte array.
 	 * <p>
 	 * Note that this method <strong>will read the entire file to memory</strong>.
+	 * </p><p>
+	 * If an {@linkplain TS3Config#setIconCache(java.nio.file.Path, long, long) icon cache} is configured,
+	 * cached icons are returned without contacting the server and downloaded icons are added to the cache.
 	 * </p>
 	 *
 	 * @param iconId
@@ -1892,7 +2766,17 @@ public class TS3ApiAsync {
 	 */
 	public CommandFuture<byte[]> downloadIconDirect(long iconId) {
 		String iconPath = "/icon_" + iconId;
-		return downloadFileDirect(iconPath, 0);
+		IconCache iconCache = query.getIconCache();
+		if (iconCache == null) return downloadFileDirect(iconPath, 0);
+
+		byte[] cached = iconCache.get(iconId);
+		if (cached != null) return CommandFuture.immediate(cached);
+
+		return downloadFileDirect(iconPath, 0).map(data -> {
+			iconCache.put(iconId, data);
+			iconCache.addServerIcon(iconId);
+			return data;
+		});
 	}
 
 	/**
@@ -2570,7 +3454,7 @@ public class TS3ApiAsync {
 					for (int dbClientId : dbClientIds) {
 						infoFutures.add(getDatabaseClientInfo(dbClientId));
 					}
-					return CommandFuture.ofAll(infoFutures);
+					return CommandFuture.ofAll(infoFutures, true);
 				});
 	}
 
@@ -2623,6 +3507,21 @@ public class TS3ApiAsync {
 		return executeAndTransformFirst(cmd, DatabaseClientInfo::new);
 	}
 
+	/**
+	 * Gets the number of clients in the server database.
+	 *
+	 * @return the number of database clients
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @querycommands 1
+	 * @see #getDatabaseClients(int, int)
+	 */
+	public CommandFuture<Integer> getDatabaseClientCount() {
+		Command cmd = DatabaseClientCommands.clientDBList(0, 1, true);
+		return executeAndReturnIntProperty(cmd, "count");
+	}
+
 	/**
 	 * Gets information about all clients in the server database.
 	 * <p>
@@ -2641,15 +3540,13 @@ public class TS3ApiAsync {
 	 * @see DatabaseClient
 	 */
 	public CommandFuture<List<DatabaseClient>> getDatabaseClients() {
-		Command cmd = DatabaseClientCommands.clientDBList(0, 1, true);
-
-		return executeAndReturnIntProperty(cmd, "count")
+		return getDatabaseClientCount()
 				.then(count -> {
 					Collection<CommandFuture<List<DatabaseClient>>> futures = new ArrayList<>((count + 199) / 200);
 					for (int i = 0; i < count; i += 200) {
 						futures.add(getDatabaseClients(i, 200));
 					}
-					return CommandFuture.ofAll(futures);
+					return CommandFuture.ofAll(futures, true);
 				}).map(listOfLists -> listOfLists.stream()
 						.flatMap(List::stream)
 						.collect(Collectors.toList()));
@@ -2886,6 +3783,7 @@ public class TS3ApiAsync {
 	 * @return a list of all icons
 	 */
 	public CommandFuture<List<IconFile>> getIconList() {
+		long listedAt = System.nanoTime();
 		return getFileList("/icons/", 0)
 				.map(result -> {
 					List<IconFile> icons = new ArrayList<>(result.size());
@@ -2893,6 +3791,15 @@ public class TS3ApiAsync {
 						if (file.isDirectory() || file.isStillUploading()) continue;
 						icons.add(new IconFile(file.getMap()));
 					}
+
+					IconCache iconCache = query.getIconCache();
+					if (iconCache != null) {
+						List<Long> iconIds = new ArrayList<>(icons.size());
+						for (IconFile icon : icons) {
+							iconIds.add(icon.getIconId());
+						}
+						iconCache.setServerIcons(iconIds, listedAt);
+					}
 					return icons;
 				});
 	}
@@ -4339,6 +5246,22 @@ public class TS3ApiAsync {
 				.map(__ -> null); // Return success as Void, not List<Void>
 	}
 
+	/**
+	 * Removes a {@link TS3BatchListener} from the event manager of the query.
+	 * <p>
+	 * Events collected for the current window are discarded.
+	 * If the listener was not actually registered, it will be ignored and no exception will be thrown.
+	 * </p>
+	 *
+	 * @param listener
+	 * 		the batch listener to remove
+	 *
+	 * @see #addBatchListener(TS3BatchListener, int, Class...)
+	 */
+	public void removeBatchListener(TS3BatchListener listener) {
+		query.getEventManager().removeBatchListener(listener);
+	}
+
 	/**
 	 * Removes the client specified by its database ID from the specified server group.
 	 *
@@ -4380,6 +5303,26 @@ public class TS3ApiAsync {
 		return removeClientFromServerGroup(serverGroup.getId(), client.getDatabaseId());
 	}
 
+	/**
+	 * Removes a listener added with {@link #addEventListener(Class, Consumer)} or
+	 * {@link #addEventListener(EventFilter, Consumer)} from the event manager of the query.
+	 * <p>
+	 * If the listener was not actually registered for this event class, it will be ignored and no exception will be thrown.
+	 * </p>
+	 *
+	 * @param eventClass
+	 * 		the class of events the listener was added for
+	 * @param listener
+	 * 		the listener to remove
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @see #addEventListener(Class, Consumer)
+	 */
+	public <E extends TS3Event> void removeEventListener(Class<E> eventClass, Consumer<? super E> listener) {
+		query.getEventManager().removeListener(eventClass, listener);
+	}
+
 	/**
 	 * Removes one or more {@link TS3Listener}s to the event manager of the query.
 	 * <p>
@@ -4491,6 +5434,208 @@ public class TS3ApiAsync {
 		return executeAndReturnStringProperty(cmd, "token");
 	}
 
+	/**
+	 * Resumes downloading a file from the file repository at a given path and channel
+	 * by appending the missing bytes to {@code file}.
+	 * <p>
+	 * If {@code file} exists, it is assumed to contain the first bytes of the file from
+	 * an earlier, interrupted download, and only the remaining bytes are requested from the server.
+	 * Otherwise, the whole file is downloaded. After the download, the size of {@code file}
+	 * is compared to the size reported by the server. Progress reports include the bytes
+	 * downloaded earlier.
+	 * </p><p>
+	 * Note that the contents of {@code file} are not compared to the file on the server.
+	 * If the file on the server has changed since the earlier download, {@code file} will be corrupted.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be appended to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 *
+	 * @return the size of the complete file
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int)
+	 */
+	public CommandFuture<Long> resumeDownload(Path file, String filePath, int channelId) {
+		return resumeDownload(file, filePath, channelId, null, FileTransferOptions.defaults());
+	}
+
+	/**
+	 * Resumes downloading a file from the file repository at a given path and channel
+	 * by appending the missing bytes to {@code file}.
+	 * <p>
+	 * If {@code file} exists, it is assumed to contain the first bytes of the file from
+	 * an earlier, interrupted download, and only the remaining bytes are requested from the server.
+	 * Otherwise, the whole file is downloaded. After the download, the size of {@code file}
+	 * is compared to the size reported by the server. Progress reports include the bytes
+	 * downloaded earlier.
+	 * </p><p>
+	 * Note that the contents of {@code file} are not compared to the file on the server.
+	 * If the file on the server has changed since the earlier download, {@code file} will be corrupted.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file the downloaded data should be appended to
+	 * @param filePath
+	 * 		the path of the file on the file repository
+	 * @param channelId
+	 * 		the ID of the channel to download the file from
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 *
+	 * @return the size of the complete file
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int, String, FileTransferOptions)
+	 */
+	public CommandFuture<Long> resumeDownload(Path file, String filePath, int channelId, String channelPassword,
+	                                          FileTransferOptions options) {
+		long seekPosition;
+		try {
+			seekPosition = Files.exists(file) ? Files.size(file) : 0;
+		} catch (IOException e) {
+			throw new TS3FileTransferFailedException("Reading file failed", e);
+		}
+
+		FileTransferHelper helper = query.getFileTransferHelper();
+		int transferId = helper.getClientTransferId();
+		Command cmd = FileCommands.ftInitDownload(transferId, filePath, channelId, channelPassword, seekPosition);
+
+		return transferFile(cmd, options, "Download failed", FileTransferParameters::getFileSize, (params, transfer) -> {
+			long fileSize = params.getFileSize();
+			if (seekPosition > fileSize) throw new IOException("Local file is larger than the file on the server");
+
+			try (FileChannel fileOut = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+				transfer.resumedAt(seekPosition);
+				helper.downloadFile(fileOut, seekPosition, fileSize - seekPosition, params, transfer);
+
+				long actualSize = fileOut.size();
+				if (actualSize != fileSize) {
+					throw new IOException("Downloaded file has " + actualSize + " bytes, expected " + fileSize);
+				}
+			}
+			return fileSize;
+		});
+	}
+
+	/**
+	 * Resumes uploading a local file to the file repository at a given path and channel.
+	 * <p>
+	 * If an earlier upload of {@code file} to {@code filePath} was interrupted, the file server
+	 * still has the bytes it received and only the remaining bytes are uploaded.
+	 * Otherwise, the whole file is uploaded. A resumed upload never overwrites an existing,
+	 * complete file. After the upload, the size of the file on the server is compared
+	 * to the size of {@code file}. Progress reports include the bytes uploaded earlier.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file that should be uploaded
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 *
+	 * @return a future to track the progress of this command
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 2
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #uploadFile(Path, String, boolean, int)
+	 */
+	public CommandFuture<Void> resumeUpload(Path file, String filePath, int channelId) {
+		return resumeUpload(file, filePath, channelId, null, FileTransferOptions.defaults());
+	}
+
+	/**
+	 * Resumes uploading a local file to the file repository at a given path and channel.
+	 * <p>
+	 * If an earlier upload of {@code file} to {@code filePath} was interrupted, the file server
+	 * still has the bytes it received and only the remaining bytes are uploaded.
+	 * Otherwise, the whole file is uploaded. A resumed upload never overwrites an existing,
+	 * complete file. After the upload, the size of the file on the server is compared
+	 * to the size of {@code file}. Progress reports include the bytes uploaded earlier.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file that should be uploaded
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 *
+	 * @return a future to track the progress of this command
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 2
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #uploadFile(Path, String, boolean, int, String, FileTransferOptions)
+	 */
+	public CommandFuture<Void> resumeUpload(Path file, String filePath, int channelId, String channelPassword,
+	                                        FileTransferOptions options) {
+		long dataLength;
+		try {
+			dataLength = Files.size(file);
+		} catch (IOException e) {
+			throw new TS3FileTransferFailedException("Reading file failed", e);
+		}
+
+		FileTransferHelper helper = query.getFileTransferHelper();
+		int transferId = helper.getClientTransferId();
+		Command cmd = FileCommands.ftInitUpload(transferId, filePath, channelId, channelPassword, dataLength, false, true);
+
+		CommandFuture<Void> upload = transferFile(cmd, options, "Upload failed", params -> dataLength, (params, transfer) -> {
+			long seekPosition = params.getSeekPosition();
+			if (seekPosition > dataLength) throw new IOException("File on the server is larger than the local file");
+
+			try (FileChannel fileIn = FileChannel.open(file, StandardOpenOption.READ)) {
+				transfer.resumedAt(seekPosition);
+				helper.uploadFile(fileIn, seekPosition, dataLength - seekPosition, params, transfer);
+			}
+			return null;
+		});
+
+		return upload.then(__ -> getFileInfo(filePath, channelId, channelPassword)).then(info -> {
+			CommandFuture<Void> verified = new CommandFuture<>();
+			if (info.getFileSize() == dataLength) {
+				verified.set(null);
+			} else {
+				verified.fail(new TS3FileTransferFailedException("Uploaded file has " + info.getFileSize()
+						+ " bytes, expected " + dataLength));
+			}
+			return verified;
+		});
+	}
+
 	/**
 	 * Finds all clients that have any value associated with the {@code key} custom client property,
 	 * and returns the client's database ID and the key and value of the matching custom property.
@@ -4585,7 +5730,7 @@ public class TS3ApiAsync {
 	 */
 	public CommandFuture<Void> selectVirtualServerById(int id, String nickname) {
 		Command cmd = QueryCommands.useId(id, nickname);
-		return executeAndReturnError(cmd);
+		return executeAndReturnError(cmd).onSuccess(__ -> forgetServerIcons());
 	}
 
 	/**
@@ -4632,7 +5777,7 @@ public class TS3ApiAsync {
 	 */
 	public CommandFuture<Void> selectVirtualServerByPort(int port, String nickname) {
 		Command cmd = QueryCommands.usePort(port, nickname);
-		return executeAndReturnError(cmd);
+		return executeAndReturnError(cmd).onSuccess(__ -> forgetServerIcons());
 	}
 
 	/**
@@ -5172,6 +6317,152 @@ public class TS3ApiAsync {
 		return executeAndReturnError(cmd);
 	}
 
+	/**
+	 * Synchronizes a local directory with a directory of a channel's file repository,
+	 * downloading only the files which are missing locally or have changed.
+	 * <p>
+	 * The remote directory is listed recursively, with the listings of sibling directories
+	 * pipelined. A local file is considered up to date if its size and its modification time,
+	 * in seconds, match the remote file. Downloaded files are given the modification time of
+	 * the remote file, so that a repeated sync of an unchanged repository only costs the
+	 * listing commands. Downloads are queued with the query's file transfer manager.
+	 * </p>
+	 *
+	 * @param remoteDirectory
+	 * 		the directory in the file repository to download
+	 * @param channelId
+	 * 		the ID of the channel whose file repository should be synchronized
+	 * @param localDirectory
+	 * 		the local directory the files should be downloaded to
+	 *
+	 * @return a summary of the transferred and deleted files
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 per remote directory + 1 per changed file
+	 * @see #getFileList(String, int, String)
+	 * @see #syncUpload(Path, String, int, String, boolean, FileTransferOptions)
+	 */
+	public CommandFuture<FileSyncResult> syncDownload(String remoteDirectory, int channelId, Path localDirectory) {
+		return syncDownload(remoteDirectory, channelId, null, localDirectory, false, FileTransferOptions.defaults());
+	}
+
+	/**
+	 * Synchronizes a local directory with a directory of a channel's file repository,
+	 * downloading only the files which are missing locally or have changed.
+	 * <p>
+	 * The remote directory is listed recursively, with the listings of sibling directories
+	 * pipelined. A local file is considered up to date if its size and its modification time,
+	 * in seconds, match the remote file. Downloaded files are given the modification time of
+	 * the remote file, so that a repeated sync of an unchanged repository only costs the
+	 * listing commands. Downloads are queued with the query's file transfer manager.
+	 * </p><p>
+	 * If {@code deleteExtra} is {@code true}, local files and directories
+	 * which don't exist in the remote directory are deleted.
+	 * </p>
+	 *
+	 * @param remoteDirectory
+	 * 		the directory in the file repository to download
+	 * @param channelId
+	 * 		the ID of the channel whose file repository should be synchronized
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param localDirectory
+	 * 		the local directory the files should be downloaded to
+	 * @param deleteExtra
+	 * 		whether to delete local files which don't exist remotely
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of each download
+	 *
+	 * @return a summary of the transferred and deleted files
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 per remote directory + 1 per changed file
+	 * @see #getFileList(String, int, String)
+	 * @see #syncUpload(Path, String, int, String, boolean, FileTransferOptions)
+	 */
+	public CommandFuture<FileSyncResult> syncDownload(String remoteDirectory, int channelId, String channelPassword,
+	                                                  Path localDirectory, boolean deleteExtra, FileTransferOptions options) {
+		return new FileSynchronizer(this, remoteDirectory, channelId, channelPassword, localDirectory, deleteExtra, options).download();
+	}
+
+	/**
+	 * Synchronizes a directory of a channel's file repository with a local directory,
+	 * uploading only the files which are missing remotely or have changed.
+	 * <p>
+	 * The remote directory is listed recursively, with the listings of sibling directories
+	 * pipelined. A remote file is considered up to date if its size matches the local file
+	 * and the local file hasn't been modified since the remote file was uploaded.
+	 * Missing remote directories are created. Uploads are queued with the query's file transfer manager.
+	 * </p>
+	 *
+	 * @param localDirectory
+	 * 		the local directory to upload
+	 * @param remoteDirectory
+	 * 		the directory in the file repository the files should be uploaded to
+	 * @param channelId
+	 * 		the ID of the channel whose file repository should be synchronized
+	 *
+	 * @return a summary of the transferred and deleted files
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 per remote directory + 1 per changed file
+	 * @see #getFileList(String, int, String)
+	 * @see #syncDownload(String, int, String, Path, boolean, FileTransferOptions)
+	 */
+	public CommandFuture<FileSyncResult> syncUpload(Path localDirectory, String remoteDirectory, int channelId) {
+		return syncUpload(localDirectory, remoteDirectory, channelId, null, false, FileTransferOptions.defaults());
+	}
+
+	/**
+	 * Synchronizes a directory of a channel's file repository with a local directory,
+	 * uploading only the files which are missing remotely or have changed.
+	 * <p>
+	 * The remote directory is listed recursively, with the listings of sibling directories
+	 * pipelined. A remote file is considered up to date if its size matches the local file
+	 * and the local file hasn't been modified since the remote file was uploaded.
+	 * Missing remote directories are created. Uploads are queued with the query's file transfer manager.
+	 * </p><p>
+	 * If {@code deleteExtra} is {@code true}, remote files and directories which don't exist
+	 * in the local directory are deleted, using one command per 100 deleted paths.
+	 * </p>
+	 *
+	 * @param localDirectory
+	 * 		the local directory to upload
+	 * @param remoteDirectory
+	 * 		the directory in the file repository the files should be uploaded to
+	 * @param channelId
+	 * 		the ID of the channel whose file repository should be synchronized
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param deleteExtra
+	 * 		whether to delete remote files which don't exist locally
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of each upload
+	 *
+	 * @return a summary of the transferred and deleted files
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1 per remote directory + 1 per changed file
+	 * @see #getFileList(String, int, String)
+	 * @see #syncDownload(String, int, String, Path, boolean, FileTransferOptions)
+	 */
+	public CommandFuture<FileSyncResult> syncUpload(Path localDirectory, String remoteDirectory, int channelId,
+	                                                String channelPassword, boolean deleteExtra, FileTransferOptions options) {
+		return new FileSynchronizer(this, remoteDirectory, channelId, channelPassword, localDirectory, deleteExtra, options).upload();
+	}
+
 	/**
 	 * Unregisters the server query from receiving any event notifications.
 	 *
@@ -5328,28 +6619,174 @@ public class TS3ApiAsync {
 	 * @see #uploadFileDirect(byte[], String, boolean, int, String)
 	 */
 	public CommandFuture<Void> uploadFile(InputStream dataIn, long dataLength, String filePath, boolean overwrite, int channelId, String channelPassword) {
+		return uploadFile(dataIn, dataLength, filePath, overwrite, channelId, channelPassword, FileTransferOptions.defaults());
+	}
+
+	/**
+	 * Uploads a file to the file repository at a given path and channel
+	 * by reading {@code dataLength} bytes from an open {@link InputStream}.
+	 * <p>
+	 * It is the user's responsibility to ensure that the given {@code InputStream} is
+	 * open and that {@code dataLength} bytes can eventually be read from it. The user is
+	 * also responsible for closing the stream once the upload has finished.
+	 * </p><p>
+	 * Note that this method will not read the entire file to memory and can thus
+	 * upload arbitrarily sized files to the file repository.
+	 * </p>
+	 *
+	 * @param dataIn
+	 * 		a stream that contains the data that should be uploaded
+	 * @param dataLength
+	 * 		how many bytes should be read from the stream
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param overwrite
+	 * 		if {@code false}, fails if there's already a file at {@code filePath}
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 *
+	 * @return a future to track the progress of this command
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #uploadFileDirect(byte[], String, boolean, int, String)
+	 */
+	public CommandFuture<Void> uploadFile(InputStream dataIn, long dataLength, String filePath, boolean overwrite, int channelId, String channelPassword, FileTransferOptions options) {
 		FileTransferHelper helper = query.getFileTransferHelper();
 		int transferId = helper.getClientTransferId();
 		Command cmd = FileCommands.ftInitUpload(transferId, filePath, channelId, channelPassword, dataLength, overwrite);
-		CommandFuture<Void> future = new CommandFuture<>();
 
-		executeAndTransformFirst(cmd, FileTransferParameters::new).onSuccess(params -> {
-			QueryError error = params.getQueryError();
-			if (!error.isSuccessful()) {
-				future.fail(new TS3CommandFailedException(error, cmd.getName()));
-				return;
-			}
+		return transferFile(cmd, options, "Upload failed", params -> dataLength, (params, transfer) -> {
+			helper.uploadFile(dataIn, dataLength, params, transfer);
+			return null;
+		});
+	}
 
-			try {
-				query.getFileTransferHelper().uploadFile(dataIn, dataLength, params);
-			} catch (IOException e) {
-				future.fail(new TS3FileTransferFailedException("Upload failed", e));
-				return;
-			}
-			future.set(null); // Mark as successful
-		}).forwardFailure(future);
+	/**
+	 * Uploads a local file to the file repository at a given path and channel.
+	 * <p>
+	 * The data is transferred from the file to the file server socket using
+	 * {@link FileChannel#transferTo}, which avoids copying it through the Java heap
+	 * on platforms that support it.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file that should be uploaded
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param overwrite
+	 * 		if {@code false}, fails if there's already a file at {@code filePath}
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 *
+	 * @return a future to track the progress of this command
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int)
+	 */
+	public CommandFuture<Void> uploadFile(Path file, String filePath, boolean overwrite, int channelId) {
+		return uploadFile(file, filePath, overwrite, channelId, null);
+	}
 
-		return future;
+	/**
+	 * Uploads a local file to the file repository at a given path and channel.
+	 * <p>
+	 * The data is transferred from the file to the file server socket using
+	 * {@link FileChannel#transferTo}, which avoids copying it through the Java heap
+	 * on platforms that support it.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file that should be uploaded
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param overwrite
+	 * 		if {@code false}, fails if there's already a file at {@code filePath}
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 * @param channelPassword
+	 * 		that channel's password
+	 *
+	 * @return a future to track the progress of this command
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int, String)
+	 */
+	public CommandFuture<Void> uploadFile(Path file, String filePath, boolean overwrite, int channelId, String channelPassword) {
+		return uploadFile(file, filePath, overwrite, channelId, channelPassword, FileTransferOptions.defaults());
+	}
+
+	/**
+	 * Uploads a local file to the file repository at a given path and channel.
+	 * <p>
+	 * The data is transferred from the file to the file server socket using
+	 * {@link FileChannel#transferTo}, which avoids copying it through the Java heap
+	 * on platforms that support it.
+	 * </p>
+	 *
+	 * @param file
+	 * 		the local file that should be uploaded
+	 * @param filePath
+	 * 		the path the file should have after being uploaded
+	 * @param overwrite
+	 * 		if {@code false}, fails if there's already a file at {@code filePath}
+	 * @param channelId
+	 * 		the ID of the channel to upload the file to
+	 * @param channelPassword
+	 * 		that channel's password
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 *
+	 * @return a future to track the progress of this command
+	 *
+	 * @throws TS3CommandFailedException
+	 * 		if the execution of a command fails
+	 * @throws TS3FileTransferFailedException
+	 * 		if the file transfer fails for any reason
+	 * @querycommands 1
+	 * @see FileInfo#getPath()
+	 * @see Channel#getId()
+	 * @see #downloadFile(Path, String, int, String)
+	 */
+	public CommandFuture<Void> uploadFile(Path file, String filePath, boolean overwrite, int channelId, String channelPassword, FileTransferOptions options) {
+		long dataLength;
+		try {
+			dataLength = Files.size(file);
+		} catch (IOException e) {
+			throw new TS3FileTransferFailedException("Reading file failed", e);
+		}
+
+		FileTransferHelper helper = query.getFileTransferHelper();
+		int transferId = helper.getClientTransferId();
+		Command cmd = FileCommands.ftInitUpload(transferId, filePath, channelId, channelPassword, dataLength, overwrite);
+
+		return transferFile(cmd, options, "Upload failed", params -> dataLength, (params, transfer) -> {
+			try (FileChannel fileIn = FileChannel.open(file, StandardOpenOption.READ)) {
+				helper.uploadFile(fileIn, dataLength, params, transfer);
+			}
+			return null;
+		});
 	}
 
 	/**
@@ -5456,6 +6893,11 @@ public class TS3ApiAsync {
 	 * Uploads an icon that is already stored in memory to the icon directory
 	 * in the file repository. If this icon has already been uploaded or
 	 * if a CRC32 hash collision occurs, this command will fail.
+	 * <p>
+	 * If an {@linkplain TS3Config#setIconCache(java.nio.file.Path, long, long) icon cache} is configured,
+	 * the icon is added to it, and the upload is skipped if the server already holds the icon.
+	 * To tell, the icon directory is listed if it hasn't been listed in the last 5 minutes.
+	 * </p>
 	 *
 	 * @param data
 	 * 		the icon's data as a byte array
@@ -5472,18 +6914,50 @@ public class TS3ApiAsync {
 	 * @see #downloadIconDirect(long)
 	 */
 	public CommandFuture<Long> uploadIconDirect(byte[] data) {
-		CommandFuture<Long> future = new CommandFuture<>();
-
 		long iconId = FileTransferHelper.getIconId(data);
+		IconCache iconCache = query.getIconCache();
+		if (iconCache == null) return uploadIconFile(data, iconId);
+
+		iconCache.put(iconId, data);
+		Boolean onServer = iconCache.isOnServer(iconId, System.nanoTime());
+		if (onServer == null) {
+			// Not listed recently, one ftgetfilelist is still cheaper than an upload
+			CommandFuture<Long> future = new CommandFuture<>();
+			getIconList()
+					.onSuccess(__ -> {
+						if (Boolean.TRUE.equals(iconCache.isOnServer(iconId, System.nanoTime()))) {
+							future.set(iconId);
+						} else {
+							uploadIconFile(data, iconId).forwardResult(future);
+						}
+					})
+					.onFailure(__ -> uploadIconFile(data, iconId).forwardResult(future));
+			return future;
+		} else if (onServer) {
+			return CommandFuture.immediate(iconId);
+		} else {
+			return uploadIconFile(data, iconId);
+		}
+	}
+
+	private CommandFuture<Long> uploadIconFile(byte[] data, long iconId) {
+		CommandFuture<Long> future = new CommandFuture<>();
 		String path = "/icon_" + iconId;
 
 		uploadFileDirect(data, path, false, 0)
 				.onSuccess(__ -> future.set(iconId))
 				.onFailure(transformError(future, 2050, iconId));
 
+		IconCache iconCache = query.getIconCache();
+		if (iconCache != null) future.onSuccess(__ -> iconCache.addServerIcon(iconId));
 		return future;
 	}
 
+	private void forgetServerIcons() {
+		IconCache iconCache = query.getIconCache();
+		if (iconCache != null) iconCache.clearServerIcons();
+	}
+
 	/**
 	 * Uses an existing privilege key to join a server or channel group.
 	 *
@@ -5657,6 +7131,109 @@ public class TS3ApiAsync {
 		return future;
 	}
 
+	/**
+	 * Downloads {@code length} bytes of a file, starting at {@code offset},
+	 * and writes them to {@code fileOut} at the same offset.
+	 */
+	private CommandFuture<Long> downloadFilePart(FileChannel fileOut, long offset, long length, String filePath,
+	                                             int channelId, String channelPassword, FileTransferOptions options) {
+		FileTransferHelper helper = query.getFileTransferHelper();
+		int transferId = helper.getClientTransferId();
+		Command cmd = FileCommands.ftInitDownload(transferId, filePath, channelId, channelPassword, offset);
+
+		return transferFile(cmd, options, "Download failed", params -> length, (params, transfer) -> {
+			helper.downloadFile(fileOut, offset, length, params, transfer);
+			return length;
+		});
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException ignored) {
+			// Already failing
+		}
+	}
+
+	/**
+	 * Opens a snapshot file, decompressing it if it starts with the GZIP magic number.
+	 */
+	private static Reader openSnapshot(Path file) throws IOException {
+		InputStream in = new BufferedInputStream(Files.newInputStream(file), SNAPSHOT_BUFFER_SIZE);
+		try {
+			in.mark(2);
+			boolean compressed = in.read() == 0x1F && in.read() == 0x8B;
+			in.reset();
+
+			if (compressed) in = new GZIPInputStream(in, SNAPSHOT_BUFFER_SIZE);
+			return new InputStreamReader(in, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			closeQuietly(in);
+			throw e;
+		}
+	}
+
+	/**
+	 * Wraps a user's stream so that closing the writer on top of it only flushes it.
+	 */
+	private static class NonClosingOutputStream extends FilterOutputStream {
+
+		NonClosingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+
+	/**
+	 * Queues a file transfer with the query's file transfer manager, which executes the file transfer
+	 * initialization command and checks for failure once the transfer is started.
+	 * <p>
+	 * The transfer key is only requested when the transfer may actually run, so queued transfers
+	 * don't hold keys that could expire or exceed the server's limit of pending transfers.
+	 * All transfers of a query use the file server of its virtual server, so they are
+	 * counted towards the per-host limit of the query's host.
+	 * </p>
+	 *
+	 * @param command
+	 * 		the {@code ftinitdownload} or {@code ftinitupload} command to execute
+	 * @param options
+	 * 		the priority, bandwidth limit and progress listener of the transfer
+	 * @param failureMessage
+	 * 		the message of the exception if {@code action} throws an {@code IOException}
+	 * @param size
+	 * 		returns the number of bytes that will be transferred
+	 * @param action
+	 * 		transfers the file, given the parameters the server responded with
+	 * @param <T>
+	 * 		the result type of the transfer
+	 *
+	 * @return a future of the transfer's result
+	 */
+	private <T> CommandFuture<T> transferFile(Command command, FileTransferOptions options, String failureMessage,
+	                                          ToLongFunction<FileTransferParameters> size, TransferAction<T> action) {
+		FileTransferHelper helper = query.getFileTransferHelper();
+		FileTransferManager manager = query.getFileTransferManager();
+
+		return manager.submit(helper.getDefaultHost(), options, failureMessage, transfer -> {
+			// Runs on a transfer thread, which may block until the server has responded
+			FileTransferParameters params = executeAndTransformFirst(command, FileTransferParameters::new).getUninterruptibly();
+			QueryError error = params.getQueryError();
+			if (!error.isSuccessful()) throw new TS3CommandFailedException(error, command.getName());
+
+			transfer.setSize(size.applyAsLong(params));
+			return action.transfer(params, transfer);
+		});
+	}
+
 	/**
 	 * Executes a command, checks for failure and transforms the first
 	 * response map by invoking {@code fn}.
@@ -5790,4 +7367,16 @@ public class TS3ApiAsync {
 
 		return future;
 	}
+
+	/**
+	 * A file transfer that is performed once the server has accepted the transfer.
+	 *
+	 * @param <T>
+	 * 		the result type of the transfer
+	 */
+	@FunctionalInterface
+	private interface TransferAction<T> {
+
+		T transfer(FileTransferParameters params, FileTransferManager.Transfer transfer) throws IOException;
+	}
 }
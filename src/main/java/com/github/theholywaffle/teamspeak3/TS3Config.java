@@ -26,11 +26,19 @@ package com.github.theholywaffle.teamspeak3;
  * #L%
  */
 
+import com.github.theholywaffle.teamspeak3.TS3Query.BacklogPolicy;
+import com.github.theholywaffle.teamspeak3.TS3Query.CompletionMode;
+import com.github.theholywaffle.teamspeak3.TS3Query.EventWaitStrategy;
 import com.github.theholywaffle.teamspeak3.TS3Query.FloodRate;
 import com.github.theholywaffle.teamspeak3.TS3Query.Protocol;
+import com.github.theholywaffle.teamspeak3.TS3Query.QueueFullPolicy;
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
 import com.github.theholywaffle.teamspeak3.api.reconnect.ConnectionHandler;
 import com.github.theholywaffle.teamspeak3.api.reconnect.ReconnectStrategy;
 
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
 /**
  * Class used to configure the behavior of a {@link TS3Query}.
  */
@@ -48,6 +56,24 @@ public class TS3Config {
 	private int commandTimeout = 4000;
 	private ReconnectStrategy reconnectStrategy = ReconnectStrategy.disconnect();
 	private ConnectionHandler connectionHandler = null;
+	private CompletionMode completionMode = CompletionMode.POOL;
+	private Executor userExecutor = null;
+	private int commandQueueCapacity = Integer.MAX_VALUE;
+	private QueueFullPolicy queueFullPolicy = QueueFullPolicy.BLOCK;
+	private int eventRingBufferSize = 0;
+	private EventWaitStrategy eventWaitStrategy = EventWaitStrategy.BLOCKING;
+	private int listenerBacklogLimit = Integer.MAX_VALUE;
+	private BacklogPolicy backlogPolicy = BacklogPolicy.BLOCK;
+	private int slowListenerThreshold = 0;
+	private int eventDeduplicationWindow = 32;
+	private int eventDeduplicationHorizon = 100;
+	private int parseThreads = 0;
+	private int maxFileTransfers = 8;
+	private int maxFileTransfersPerHost = 4;
+	private long fileTransferBandwidth = 0;
+	private Path iconCacheDirectory = null;
+	private long iconCacheDiskBytes = 0;
+	private long iconCacheMemoryBytes = 0;
 
 	/**
 	 * Sets the hostname or IP address of the TeamSpeak3 server to connect to.
@@ -340,6 +366,402 @@ public class TS3Config {
 		return connectionHandler;
 	}
 
+	/**
+	 * Defines how the {@link CommandFuture}s of commands are completed once the response arrives.
+	 * <p>
+	 * By default, {@link CompletionMode#POOL} is used, which completes every future in
+	 * a separate task on the query's thread pool.
+	 * </p><p>
+	 * {@link CompletionMode#SERIAL} completes the futures one after another in the order in which
+	 * the responses arrived. {@link CompletionMode#INLINE} completes the futures directly on the thread
+	 * reading from the connection, which is the fastest option, but <b>requires that no future listener
+	 * ever blocks</b>. In particular, listeners must not call any method of the synchronous {@link TS3Api}.
+	 * </p>
+	 *
+	 * @param completionMode
+	 * 		the way command futures should be completed
+	 *
+	 * @return this TS3Config object for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code completionMode} is {@code null}
+	 * @see CompletionMode CompletionMode
+	 */
+	public TS3Config setCompletionMode(CompletionMode completionMode) {
+		checkFrozen();
+
+		if (completionMode == null) throw new IllegalArgumentException("completionMode cannot be null!");
+		this.completionMode = completionMode;
+		return this;
+	}
+
+	CompletionMode getCompletionMode() {
+		return completionMode;
+	}
+
+	/**
+	 * Sets the {@link Executor} used to run event listeners, future listeners and the connection handler.
+	 * <p>
+	 * By default, every {@code TS3Query} creates its own cached thread pool. Setting a custom executor
+	 * allows sharing a single executor between many {@code TS3Query} instances.
+	 * A custom executor will <b>not</b> be shut down when the query exits.
+	 * </p>
+	 *
+	 * @param executor
+	 * 		the executor to use, or {@code null} to let the query create its own thread pool
+	 *
+	 * @return this TS3Config object for chaining
+	 */
+	public TS3Config setUserExecutor(Executor executor) {
+		checkFrozen();
+
+		this.userExecutor = executor;
+		return this;
+	}
+
+	Executor getUserExecutor() {
+		return userExecutor;
+	}
+
+	/**
+	 * Limits how many commands may wait in the query's command queue before being sent to the server.
+	 * <p>
+	 * Because of flood protection, commands are usually sent much slower than a program can create them.
+	 * Setting a capacity protects against unbounded memory growth if commands are produced too fast.
+	 * By default, the command queue is unbounded.
+	 * </p><p>
+	 * Once the queue holds {@code capacity} unsent commands, {@code policy} decides what happens to
+	 * any further command. Commands that were already written to the connection don't count towards the capacity.
+	 * </p>
+	 *
+	 * @param capacity
+	 * 		the maximum number of unsent commands
+	 * @param policy
+	 * 		what to do when a command is sent while the queue is full
+	 *
+	 * @return this TS3Config object for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code capacity} is less than {@code 1} or if {@code policy} is {@code null}
+	 * @see QueueFullPolicy QueueFullPolicy
+	 * @see TS3Query#getCommandQueueSize()
+	 */
+	public TS3Config setCommandQueueCapacity(int capacity, QueueFullPolicy policy) {
+		checkFrozen();
+
+		if (capacity < 1) throw new IllegalArgumentException("Capacity must be greater than 0");
+		if (policy == null) throw new IllegalArgumentException("policy cannot be null!");
+		this.commandQueueCapacity = capacity;
+		this.queueFullPolicy = policy;
+		return this;
+	}
+
+	int getCommandQueueCapacity() {
+		return commandQueueCapacity;
+	}
+
+	QueueFullPolicy getQueueFullPolicy() {
+		return queueFullPolicy;
+	}
+
+	/**
+	 * Dispatches events through a fixed-size ring buffer instead of per-listener queues.
+	 * <p>
+	 * By default, every listener has its own unbounded queue of events, which is processed
+	 * by a task on the query's thread pool whenever new events arrive.
+	 * With a ring buffer, all events are stored in {@code size} pre-allocated slots and every listener
+	 * gets a dedicated thread which processes the events in order and at its own pace.
+	 * </p><p>
+	 * If the slowest listener falls {@code size} events behind, the query stops reading from
+	 * the connection until that listener catches up. This bounds the memory used for events,
+	 * but also delays command responses, so listeners should return quickly.
+	 * </p>
+	 *
+	 * @param size
+	 * 		the number of event slots, rounded up to the next power of two
+	 * @param waitStrategy
+	 * 		how the listener threads wait for new events
+	 *
+	 * @return this TS3Config object for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code size} is less than {@code 1} or if {@code waitStrategy} is {@code null}
+	 * @see EventWaitStrategy EventWaitStrategy
+	 */
+	public TS3Config setEventRingBuffer(int size, EventWaitStrategy waitStrategy) {
+		checkFrozen();
+
+		if (size < 1 || size > (1 << 30)) throw new IllegalArgumentException("Size must be between 1 and 2^30");
+		if (waitStrategy == null) throw new IllegalArgumentException("waitStrategy cannot be null!");
+		this.eventRingBufferSize = size;
+		this.eventWaitStrategy = waitStrategy;
+		return this;
+	}
+
+	int getEventRingBufferSize() {
+		return eventRingBufferSize;
+	}
+
+	EventWaitStrategy getEventWaitStrategy() {
+		return eventWaitStrategy;
+	}
+
+	/**
+	 * Limits how many events may be waiting for each event listener.
+	 * <p>
+	 * By default, the backlog of a listener is unbounded, so a listener which can't keep up with
+	 * the events fired by the server will eventually use up all available memory.
+	 * The limit counts the event currently being handled by the listener as well.
+	 * </p><p>
+	 * This setting has no effect if a {@linkplain #setEventRingBuffer(int, EventWaitStrategy) ring buffer}
+	 * is used, which is always bounded.
+	 * </p>
+	 *
+	 * @param limit
+	 * 		the maximum number of events waiting for a single listener
+	 * @param policy
+	 * 		what to do when an event is fired while the backlog is full
+	 *
+	 * @return this TS3Config object for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code limit} is less than {@code 1} or if {@code policy} is {@code null}
+	 * @see BacklogPolicy BacklogPolicy
+	 */
+	public TS3Config setListenerBacklog(int limit, BacklogPolicy policy) {
+		checkFrozen();
+
+		if (limit < 1) throw new IllegalArgumentException("Limit must be greater than 0");
+		if (policy == null) throw new IllegalArgumentException("policy cannot be null!");
+		this.listenerBacklogLimit = limit;
+		this.backlogPolicy = policy;
+		return this;
+	}
+
+	int getListenerBacklogLimit() {
+		return listenerBacklogLimit;
+	}
+
+	BacklogPolicy getBacklogPolicy() {
+		return backlogPolicy;
+	}
+
+	/**
+	 * Makes the query log a warning for event listeners which are too slow.
+	 * <p>
+	 * If enabled, the time each listener takes to handle an event is measured.
+	 * Once per 1000 events, the 99th percentile of these times is compared to
+	 * {@code milliseconds} and a warning is logged if it is higher.
+	 * By default, listeners are not timed.
+	 * </p>
+	 *
+	 * @param milliseconds
+	 * 		the 99th percentile above which a listener is considered slow, or {@code 0} to disable
+	 *
+	 * @return this TS3Config object for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code milliseconds} is negative
+	 */
+	public TS3Config setSlowListenerThreshold(int milliseconds) {
+		checkFrozen();
+
+		if (milliseconds < 0) throw new IllegalArgumentException("Threshold must not be negative");
+		this.slowListenerThreshold = milliseconds;
+		return this;
+	}
+
+	int getSlowListenerThreshold() {
+		return slowListenerThreshold;
+	}
+
+	/**
+	 * Configures how duplicate events are filtered out.
+	 * <p>
+	 * If the query is registered to the same event multiple times, e.g. for {@code SERVER} events
+	 * and {@code CHANNEL} events, the TeamSpeak server sends a separate copy of a client or channel event
+	 * for each registration. The query remembers the last {@code windowSize} client and channel events
+	 * and discards any identical event received less than {@code horizonMilliseconds} later.
+	 * </p><p>
+	 * Note that a client doing exactly the same thing twice within the horizon, e.g. switching
+	 * back and forth between two channels, will also be considered a duplicate.
+	 * By default, the last 32 events are remembered for 100 milliseconds.
+	 * </p>
+	 *
+	 * @param windowSize
+	 * 		the number of events to remember, or {@code 0} to disable duplicate filtering
+	 * @param horizonMilliseconds
+	 * 		how long to remember an event, in milliseconds
+	 *
+	 * @return this TS3Config object for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code windowSize} or {@code horizonMilliseconds} is negative
+	 */
+	public TS3Config setEventDeduplication(int windowSize, int horizonMilliseconds) {
+		checkFrozen();
+
+		if (windowSize < 0) throw new IllegalArgumentException("Window size must not be negative");
+		if (horizonMilliseconds < 0) throw new IllegalArgumentException("Horizon must not be negative");
+		this.eventDeduplicationWindow = windowSize;
+		this.eventDeduplicationHorizon = horizonMilliseconds;
+		return this;
+	}
+
+	int getEventDeduplicationWindow() {
+		return eventDeduplicationWindow;
+	}
+
+	int getEventDeduplicationHorizon() {
+		return eventDeduplicationHorizon;
+	}
+
+	/**
+	 * Moves the parsing of command responses and events off the thread reading from the socket.
+	 * <p>
+	 * By default, a single thread reads, parses and dispatches everything the server sends.
+	 * If a number of parse threads is set, the reading thread only splits the input into lines
+	 * and hands them to a pool of {@code threads} parser threads. Command futures are still completed
+	 * and events are still fired in the order they were received from the server.
+	 * </p><p>
+	 * This only pays off if the server sends large responses or many events in quick succession,
+	 * e.g. for {@code clientlist} on a crowded server.
+	 * </p>
+	 *
+	 * @param threads
+	 * 		the number of parser threads, or {@code 0} to parse on the reading thread
+	 *
+	 * @return this TS3Config object for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code threads} is negative
+	 */
+	public TS3Config setParseThreads(int threads) {
+		checkFrozen();
+
+		if (threads < 0) throw new IllegalArgumentException("Number of parse threads must not be negative");
+		this.parseThreads = threads;
+		return this;
+	}
+
+	int getParseThreads() {
+		return parseThreads;
+	}
+
+	/**
+	 * Limits how many file transfers run at the same time.
+	 * <p>
+	 * File transfers are run on dedicated threads, separate from the threads that run
+	 * listeners and future callbacks. Transfers exceeding either limit are queued and started
+	 * in order of their {@linkplain com.github.theholywaffle.teamspeak3.api.FileTransferOptions#withPriority(int) priority}
+	 * once a running transfer has finished. By default, up to 8 transfers run at the same time,
+	 * at most 4 of them with the same file server.
+	 * </p>
+	 *
+	 * @param maxTransfers
+	 * 		the maximum number of concurrent file transfers
+	 * @param maxTransfersPerHost
+	 * 		the maximum number of concurrent file transfers with the same file server
+	 *
+	 * @return this TS3Config object for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxTransfers} or {@code maxTransfersPerHost} is less than 1
+	 */
+	public TS3Config setFileTransferConcurrency(int maxTransfers, int maxTransfersPerHost) {
+		checkFrozen();
+
+		if (maxTransfers < 1) throw new IllegalArgumentException("Must allow at least 1 transfer");
+		if (maxTransfersPerHost < 1) throw new IllegalArgumentException("Must allow at least 1 transfer per host");
+		this.maxFileTransfers = maxTransfers;
+		this.maxFileTransfersPerHost = maxTransfersPerHost;
+		return this;
+	}
+
+	int getMaxFileTransfers() {
+		return maxFileTransfers;
+	}
+
+	int getMaxFileTransfersPerHost() {
+		return maxFileTransfersPerHost;
+	}
+
+	/**
+	 * Limits the bandwidth used by all file transfers of the query combined.
+	 * <p>
+	 * Single transfers can be limited further using
+	 * {@link com.github.theholywaffle.teamspeak3.api.FileTransferOptions#withBandwidthLimit(long)}.
+	 * By default, the bandwidth is not limited.
+	 * </p>
+	 *
+	 * @param bytesPerSecond
+	 * 		the maximum combined transfer rate in bytes per second, or {@code 0} for no limit
+	 *
+	 * @return this TS3Config object for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code bytesPerSecond} is negative
+	 */
+	public TS3Config setFileTransferBandwidth(long bytesPerSecond) {
+		checkFrozen();
+
+		if (bytesPerSecond < 0) throw new IllegalArgumentException("Bandwidth limit must not be negative");
+		this.fileTransferBandwidth = bytesPerSecond;
+		return this;
+	}
+
+	long getFileTransferBandwidth() {
+		return fileTransferBandwidth;
+	}
+
+	/**
+	 * Enables a cache for icon files, so that icons are only downloaded from
+	 * the file server once and icons the server already holds aren't uploaded again.
+	 * <p>
+	 * Icons are identified by the CRC32 of their data, so cached icons never need to be
+	 * invalidated. The most recently used icons are kept in memory, and if {@code directory}
+	 * is not {@code null}, also on disk, where they survive restarts of the application.
+	 * Once a tier exceeds its size limit, the least recently used icons are evicted.
+	 * By default, icons are not cached.
+	 * </p>
+	 *
+	 * @param directory
+	 * 		the directory to store cached icons in, or {@code null} to only cache icons in memory
+	 * @param maxDiskBytes
+	 * 		the maximum combined size of the icons cached on disk
+	 * @param maxMemoryBytes
+	 * 		the maximum combined size of the icons cached in memory
+	 *
+	 * @return this TS3Config object for chaining
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxDiskBytes} or {@code maxMemoryBytes} is negative
+	 * @see com.github.theholywaffle.teamspeak3.TS3ApiAsync#downloadIconDirect(long)
+	 * @see com.github.theholywaffle.teamspeak3.TS3ApiAsync#uploadIconDirect(byte[])
+	 */
+	public TS3Config setIconCache(Path directory, long maxDiskBytes, long maxMemoryBytes) {
+		checkFrozen();
+
+		if (maxDiskBytes < 0) throw new IllegalArgumentException("Disk cache size must not be negative");
+		if (maxMemoryBytes < 0) throw new IllegalArgumentException("Memory cache size must not be negative");
+		this.iconCacheDirectory = directory;
+		this.iconCacheDiskBytes = maxDiskBytes;
+		this.iconCacheMemoryBytes = maxMemoryBytes;
+		return this;
+	}
+
+	Path getIconCacheDirectory() {
+		return iconCacheDirectory;
+	}
+
+	long getIconCacheDiskBytes() {
+		return iconCacheDiskBytes;
+	}
+
+	long getIconCacheMemoryBytes() {
+		return iconCacheMemoryBytes;
+	}
+
 	TS3Config freeze() {
 		frozen = true;
 		return this;
@@ -26,6 +26,8 @@ package com.github.theholywaffle.teamspeak3;
  * #L%
  */
 
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3CommandQueueFullException;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3ConnectionFailedException;
 import com.github.theholywaffle.teamspeak3.api.exception.TS3QueryShutDownException;
 import com.github.theholywaffle.teamspeak3.api.reconnect.ConnectionHandler;
@@ -34,6 +36,7 @@ import com.github.theholywaffle.teamspeak3.api.reconnect.ReconnectStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -95,14 +98,131 @@ public class TS3Query {
 		RAW, SSH
 	}
 
+	/**
+	 * Defines on which thread the {@link CommandFuture} of a command is completed once its response arrives.
+	 *
+	 * @see TS3Config#setCompletionMode(CompletionMode)
+	 */
+	public enum CompletionMode {
+
+		/**
+		 * Every future is completed in a separate task on the query's thread pool.
+		 * Futures of different commands may complete in any order.
+		 */
+		POOL,
+
+		/**
+		 * Futures are completed one after another on the query's thread pool,
+		 * in the same order in which the responses arrived.
+		 */
+		SERIAL,
+
+		/**
+		 * Futures are completed directly on the thread that reads from the connection.
+		 * Future listeners must never block, otherwise no further responses or events can be processed.
+		 */
+		INLINE
+	}
+
+	/**
+	 * Defines how the threads of the ring buffer event bus wait for new events.
+	 *
+	 * @see TS3Config#setEventRingBuffer(int, EventWaitStrategy)
+	 */
+	public enum EventWaitStrategy {
+
+		/**
+		 * Listener threads sleep until an event is published. Uses the least CPU, but has the highest latency.
+		 */
+		BLOCKING,
+
+		/**
+		 * Listener threads spin for a short while and then yield to other threads while waiting.
+		 */
+		YIELDING,
+
+		/**
+		 * Listener threads spin continuously, occupying one CPU core per listener. Lowest latency.
+		 */
+		BUSY_SPIN
+	}
+
+	/**
+	 * Defines what happens when an event is fired while the backlog of a listener is full.
+	 *
+	 * @see TS3Config#setListenerBacklog(int, BacklogPolicy)
+	 */
+	public enum BacklogPolicy {
+
+		/**
+		 * The thread reading from the connection waits until the listener has caught up.
+		 * Must not be used if listeners call methods of the synchronous {@link TS3Api}.
+		 */
+		BLOCK,
+
+		/**
+		 * The oldest event in the backlog which is not being handled yet is discarded.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * The new event is discarded.
+		 */
+		DROP_NEWEST,
+
+		/**
+		 * A pending event of the same type about the same client or channel is replaced by the new event, even if
+		 * the backlog is not full, unless another event about that client or channel is pending after it.
+		 * Edit events only contain the changed properties, so they are never replaced.
+		 * If no such event is pending and the backlog is full, the oldest event is discarded.
+		 */
+		COALESCE
+	}
+
+	/**
+	 * Defines what happens when a command is sent while the command queue is full.
+	 *
+	 * @see TS3Config#setCommandQueueCapacity(int, QueueFullPolicy)
+	 */
+	public enum QueueFullPolicy {
+
+		/**
+		 * The calling thread blocks until there is space in the queue.
+		 * Must not be used with {@link CompletionMode#INLINE} if commands are sent from future listeners.
+		 */
+		BLOCK,
+
+		/**
+		 * The new command is rejected, its future fails with a {@link TS3CommandQueueFullException}.
+		 */
+		FAIL,
+
+		/**
+		 * The oldest command that has not been sent yet is removed from the queue to make room,
+		 * its future fails with a {@link TS3CommandQueueFullException}.
+		 * <p>
+		 * Commands that change the session state, such as {@code use}, {@code login} or
+		 * {@code servernotifyregister}, are never dropped. If only such commands are queued,
+		 * the new command is rejected instead, or waits for room if it is a session command itself.
+		 * </p>
+		 */
+		DROP_OLDEST
+	}
+
 	private final ConnectionHandler connectionHandler;
 	private final EventManager eventManager;
 	private final ExecutorService userThreadPool;
+	private final Executor userExecutor;
+	private final Executor completionExecutor;
+	private final ParseStage parseStage; // null if responses are parsed on the reading thread
 	private final FileTransferHelper fileTransferHelper;
+	private final FileTransferManager fileTransferManager;
+	private final IconCache iconCache; // null if icons aren't cached
 	private final CommandQueue globalQueue;
 	private final TS3Config config;
 
 	private final AtomicBoolean connected = new AtomicBoolean(false);
+	private volatile boolean shutDown = false;
 
 	private Connection connection;
 
@@ -123,11 +243,36 @@ public class TS3Query {
 	 */
 	public TS3Query(TS3Config config) {
 		this.config = config.freeze();
-		this.eventManager = new EventManager(this);
-		this.userThreadPool = Executors.newCachedThreadPool();
+		this.eventManager = new EventManager(this, config);
+		if (config.getUserExecutor() == null) {
+			this.userThreadPool = Executors.newCachedThreadPool();
+			this.userExecutor = userThreadPool;
+		} else {
+			this.userThreadPool = null; // Not owned by this query, don't shut it down
+			this.userExecutor = config.getUserExecutor();
+		}
+		this.completionExecutor = createCompletionExecutor(config.getCompletionMode(), userExecutor);
+		this.parseStage = (config.getParseThreads() > 0) ? new ParseStage(config.getParseThreads()) : null;
 		this.fileTransferHelper = new FileTransferHelper(config.getHost());
+		this.fileTransferManager = new FileTransferManager(config.getMaxFileTransfers(),
+				config.getMaxFileTransfersPerHost(), config.getFileTransferBandwidth(), completionExecutor);
+		this.iconCache = (config.getIconCacheDiskBytes() > 0 || config.getIconCacheMemoryBytes() > 0)
+				? new IconCache(config.getIconCacheDirectory(), config.getIconCacheDiskBytes(), config.getIconCacheMemoryBytes())
+				: null;
 		this.connectionHandler = config.getReconnectStrategy().create(config.getConnectionHandler());
-		this.globalQueue = CommandQueue.newGlobalQueue(this, connectionHandler instanceof DisconnectingConnectionHandler);
+		this.globalQueue = CommandQueue.newGlobalQueue(this, connectionHandler instanceof DisconnectingConnectionHandler,
+				config.getCommandQueueCapacity(), config.getQueueFullPolicy());
+	}
+
+	private static Executor createCompletionExecutor(CompletionMode mode, Executor userExecutor) {
+		switch (mode) {
+			case SERIAL:
+				return new SerialExecutor(userExecutor);
+			case INLINE:
+				return Runnable::run;
+			default:
+				return userExecutor;
+		}
 	}
 
 	// PUBLIC
@@ -150,7 +295,7 @@ public class TS3Query {
 	}
 
 	private synchronized void doConnect() {
-		if (userThreadPool.isShutdown()) {
+		if (shutDown) {
 			throw new IllegalStateException("The query has already been shut down");
 		}
 
@@ -215,11 +360,15 @@ public class TS3Query {
 	}
 
 	private synchronized void shutDown() {
-		if (userThreadPool.isShutdown()) return;
+		if (shutDown) return;
+		shutDown = true;
 
 		disconnect();
 		globalQueue.failRemainingCommands();
-		userThreadPool.shutdown();
+		eventManager.shutDown();
+		if (parseStage != null) parseStage.shutDown();
+		fileTransferManager.shutDown();
+		if (userThreadPool != null) userThreadPool.shutdown();
 	}
 
 	private synchronized void disconnect() {
@@ -274,10 +423,25 @@ public class TS3Query {
 		return globalQueue.getAsyncApi();
 	}
 
+	/**
+	 * Gets the number of commands that have been sent to this query, but have not received a response yet.
+	 * <p>
+	 * This includes both the commands waiting to be sent to the server and the commands which
+	 * have already been written to the connection.
+	 * </p>
+	 *
+	 * @return the current depth of the command queue
+	 *
+	 * @see TS3Config#setCommandQueueCapacity(int, QueueFullPolicy)
+	 */
+	public int getCommandQueueSize() {
+		return globalQueue.size();
+	}
+
 	// INTERNAL
 
 	void submitUserTask(final String name, final Runnable task) {
-		userThreadPool.submit(() -> {
+		userExecutor.execute(() -> {
 			try {
 				task.run();
 			} catch (Throwable throwable) {
@@ -286,6 +450,14 @@ public class TS3Query {
 		});
 	}
 
+	void completeCommand(Runnable completion) {
+		completionExecutor.execute(completion);
+	}
+
+	ParseStage getParseStage() {
+		return parseStage;
+	}
+
 	EventManager getEventManager() {
 		return eventManager;
 	}
@@ -294,6 +466,14 @@ public class TS3Query {
 		return fileTransferHelper;
 	}
 
+	FileTransferManager getFileTransferManager() {
+		return fileTransferManager;
+	}
+
+	IconCache getIconCache() {
+		return iconCache;
+	}
+
 	void fireDisconnect() {
 		connected.set(false);
 
@@ -0,0 +1,88 @@
+package com.github.theholywaffle.teamspeak3;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits a rate of bytes per second, allowing bursts of up to one second worth of bytes.
+ * <p>
+ * Acquiring more bytes than are available puts the bucket into debt, which later callers
+ * have to wait out as well. This way, large chunks are throttled just as well as small ones.
+ * </p>
+ */
+class TokenBucket {
+
+	private final long bytesPerSecond;
+	private double available;
+	private long lastRefill;
+
+	TokenBucket(long bytesPerSecond) {
+		if (bytesPerSecond <= 0) throw new IllegalArgumentException("Rate must be positive");
+
+		this.bytesPerSecond = bytesPerSecond;
+		this.available = bytesPerSecond;
+		this.lastRefill = System.nanoTime();
+	}
+
+	long getRate() {
+		return bytesPerSecond;
+	}
+
+	/**
+	 * Takes {@code bytes} out of the bucket, blocking until the bucket is out of debt again.
+	 *
+	 * @throws InterruptedIOException
+	 * 		if the thread is interrupted while waiting
+	 */
+	void acquire(long bytes) throws InterruptedIOException {
+		long waitNanos = reserve(bytes, System.nanoTime());
+		if (waitNanos <= 0) return;
+
+		try {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while throttling transfer");
+		}
+	}
+
+	/**
+	 * Takes {@code bytes} out of the bucket without blocking.
+	 *
+	 * @return how many nanoseconds the caller has to wait until the bytes may be used
+	 */
+	synchronized long reserve(long bytes, long now) {
+		available = Math.min(bytesPerSecond, available + (now - lastRefill) * bytesPerSecond / 1e9);
+		lastRefill = now;
+
+		available -= bytes;
+		if (available >= 0) return 0;
+		return (long) (-available * 1e9 / bytesPerSecond);
+	}
+}
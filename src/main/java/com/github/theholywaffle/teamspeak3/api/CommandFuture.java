@@ -34,13 +34,18 @@ import org.slf4j.LoggerFactory;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
 
 /**
@@ -73,15 +78,23 @@ import java.util.function.Function;
  * asynchronously, you need to register success and failure listeners.
  * These listeners will be called in a separate thread once a response arrives.
  * </p><p>
- * Each {@code CommandFuture} can only ever have one {@link SuccessListener} and
- * one {@link FailureListener} registered. All {@link TS3ApiAsync} methods are
- * guaranteed to return a {@code CommandFuture} with no listeners registered.
+ * Any number of {@link SuccessListener}s, {@link FailureListener}s and
+ * {@link CancellationListener}s can be registered with a {@code CommandFuture}.
+ * Listeners are notified in the order in which they were registered.
+ * All {@link TS3ApiAsync} methods are guaranteed to return a {@code CommandFuture}
+ * with no listeners registered.
  * </p><p>
  * To set the value of a {@code CommandFuture}, the {@link #set(Object)} method is used;
  * to notify it of a failure, {@link #fail(TS3Exception)} is used. You usually
  * shouldn't call these methods yourself, however. That's the job of the API.
  * </p><p>
- * {@code CommandFuture}s are thread-safe. All state-changing methods are synchronized.
+ * A {@code CommandFuture} can be converted to a {@link CompletableFuture} by calling
+ * {@link #toCompletableFuture()}, and any {@link CompletionStage} can be turned into
+ * a {@code CommandFuture} by calling {@link #fromCompletionStage(CompletionStage)}.
+ * </p><p>
+ * {@code CommandFuture}s are thread-safe and lock-free. All state transitions are performed
+ * with a single atomic compare-and-set, and threads waiting for a result are parked
+ * instead of waiting on a monitor.
  * </p>
  *
  * @param <V>
@@ -93,32 +106,63 @@ public class CommandFuture<V> implements Future<V> {
 
 	private static final Logger log = LoggerFactory.getLogger(CommandFuture.class);
 
-	private enum FutureState {
-		WAITING,
-		CANCELLED,
-		FAILED,
-		SUCCEEDED
-	}
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<CommandFuture, Object> RESULT =
+			AtomicReferenceFieldUpdater.newUpdater(CommandFuture.class, Object.class, "result");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<CommandFuture, Node> STACK =
+			AtomicReferenceFieldUpdater.newUpdater(CommandFuture.class, Node.class, "stack");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<CommandFuture, Object> UPSTREAM =
+			AtomicReferenceFieldUpdater.newUpdater(CommandFuture.class, Object.class, "upstream");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<CommandFuture> DEPENDENTS =
+			AtomicIntegerFieldUpdater.newUpdater(CommandFuture.class, "dependents");
+
+	/**
+	 * Result of a future that succeeded with a value of {@code null}.
+	 */
+	private static final AltResult NIL = new AltResult(null);
 
 	/**
-	 * Just a plain object used for its monitor to synchronize access to the
-	 * critical sections of this future and to signal state changes to any
-	 * threads waiting in {@link #get()} and {@link #getUninterruptibly()} methods.
+	 * Result of a future that was cancelled.
 	 */
-	private final Object monitor = new Object();
+	private static final AltResult CANCELLED = new AltResult(null);
 
 	/**
-	 * The current state of the future. Marked as volatile so {@link #isDone()}
-	 * and similar functions can work without synchronization.
-	 * State transitions and check-then-acts must be guarded by monitor.
+	 * Marks the listener stack of a future that has completed and
+	 * no longer accepts any new listeners.
 	 */
-	private volatile FutureState state = FutureState.WAITING;
+	private static final Node TOMBSTONE = new Tombstone();
 
-	// All guarded by monitor
-	private V value = null;
-	private TS3Exception exception = null;
-	private SuccessListener<? super V> successListener = null;
-	private FailureListener failureListener = null;
+	/**
+	 * The result of the future. {@code null} while the future is waiting,
+	 * {@link #NIL} or {@link #CANCELLED} or an {@link AltResult} holding an
+	 * exception for the respective outcomes, or the value itself otherwise.
+	 * <p>
+	 * Only ever set once, using a compare-and-set from {@code null}.
+	 * </p>
+	 */
+	private volatile Object result = null;
+
+	/**
+	 * A Treiber stack of listeners and waiting threads, which is replaced
+	 * by {@link #TOMBSTONE} once the future has completed.
+	 */
+	private volatile Node stack = null;
+
+	/**
+	 * The number of consumers which could be dropped again, i.e. futures derived from this future.
+	 * If the last of them is cancelled, this future is cancelled as well.
+	 * Listeners which are registered by users permanently keep this counter above 0.
+	 */
+	private volatile int dependents = 0;
+
+	/**
+	 * The future(s) this future was derived from, which will be notified if this future is cancelled.
+	 * Either {@code null}, a {@code CommandFuture}, an array of {@code CommandFuture}s or any other {@link Future}.
+	 */
+	private volatile Object upstream = null;
 
 	/**
 	 * Waits indefinitely until the command completes.
@@ -138,10 +182,10 @@ public class CommandFuture<V> implements Future<V> {
 	 * 		The interrupt flag will be cleared
 	 */
 	public void await() throws InterruptedException {
-		synchronized (monitor) {
-			while (state == FutureState.WAITING) {
-				monitor.wait();
-			}
+		try {
+			waitForResult(true, false, 0L);
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Untimed wait timed out", e);
 		}
 	}
 
@@ -170,14 +214,7 @@ public class CommandFuture<V> implements Future<V> {
 	 * 		if the given time elapsed without the command completing
 	 */
 	public void await(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
-		synchronized (monitor) {
-			final long end = System.currentTimeMillis() + unit.toMillis(timeout);
-			while (state == FutureState.WAITING && System.currentTimeMillis() < end) {
-				monitor.wait(end - System.currentTimeMillis());
-			}
-
-			if (state == FutureState.WAITING) throw new TimeoutException();
-		}
+		waitForResult(true, true, unit.toNanos(timeout));
 	}
 
 	/**
@@ -194,20 +231,10 @@ public class CommandFuture<V> implements Future<V> {
 	 * </i></p>
 	 */
 	public void awaitUninterruptibly() {
-		synchronized (monitor) {
-			boolean interrupted = false;
-			while (state == FutureState.WAITING) {
-				try {
-					monitor.wait();
-				} catch (InterruptedException e) {
-					interrupted = true;
-				}
-			}
-
-			if (interrupted) {
-				// Restore the interrupt for the caller
-				Thread.currentThread().interrupt();
-			}
+		try {
+			waitForResult(false, false, 0L);
+		} catch (InterruptedException | TimeoutException e) {
+			throw new IllegalStateException("Uninterruptible untimed wait was aborted", e);
 		}
 	}
 
@@ -233,24 +260,10 @@ public class CommandFuture<V> implements Future<V> {
 	 * 		if the given time elapsed without the command completing
 	 */
 	public void awaitUninterruptibly(long timeout, TimeUnit unit) throws TimeoutException {
-		synchronized (monitor) {
-			final long end = System.currentTimeMillis() + unit.toMillis(timeout);
-			boolean interrupted = false;
-
-			while (state == FutureState.WAITING && System.currentTimeMillis() < end) {
-				try {
-					monitor.wait(end - System.currentTimeMillis());
-				} catch (InterruptedException e) {
-					interrupted = true;
-				}
-			}
-
-			if (interrupted) {
-				// Restore the interrupt for the caller
-				Thread.currentThread().interrupt();
-			}
-
-			if (state == FutureState.WAITING) throw new TimeoutException();
+		try {
+			waitForResult(false, true, unit.toNanos(timeout));
+		} catch (InterruptedException e) {
+			throw new IllegalStateException("Uninterruptible wait was interrupted", e);
 		}
 	}
 
@@ -280,12 +293,8 @@ public class CommandFuture<V> implements Future<V> {
 	 */
 	@Override
 	public V get() throws InterruptedException {
-		synchronized (monitor) {
-			await();
-
-			checkForFailure();
-			return value;
-		}
+		await();
+		return reportResult(result);
 	}
 
 	/**
@@ -321,12 +330,8 @@ public class CommandFuture<V> implements Future<V> {
 	 */
 	@Override
 	public V get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
-		synchronized (monitor) {
-			await(timeout, unit);
-
-			checkForFailure();
-			return value;
-		}
+		await(timeout, unit);
+		return reportResult(result);
 	}
 
 	/**
@@ -351,12 +356,8 @@ public class CommandFuture<V> implements Future<V> {
 	 * 		if the command fails
 	 */
 	public V getUninterruptibly() {
-		synchronized (monitor) {
-			awaitUninterruptibly();
-
-			checkForFailure();
-			return value;
-		}
+		awaitUninterruptibly();
+		return reportResult(result);
 	}
 
 	/**
@@ -388,39 +389,98 @@ public class CommandFuture<V> implements Future<V> {
 	 * 		if the command fails
 	 */
 	public V getUninterruptibly(long timeout, TimeUnit unit) throws TimeoutException {
-		synchronized (monitor) {
-			awaitUninterruptibly(timeout, unit);
+		awaitUninterruptibly(timeout, unit);
+		return reportResult(result);
+	}
+
+	/**
+	 * Parks the current thread until this future has completed or until the timeout has elapsed.
+	 *
+	 * @param interruptible
+	 * 		whether to abort with an {@code InterruptedException} if the thread is interrupted
+	 * @param timed
+	 * 		whether {@code nanos} should be used as a timeout
+	 * @param nanos
+	 * 		the maximum time to wait in nanoseconds, ignored if {@code timed} is {@code false}
+	 *
+	 * @throws InterruptedException
+	 * 		if {@code interruptible} is set and the thread was interrupted
+	 * @throws TimeoutException
+	 * 		if {@code timed} is set and the timeout elapsed
+	 */
+	private void waitForResult(boolean interruptible, boolean timed, long nanos)
+			throws InterruptedException, TimeoutException {
+
+		if (result != null) return;
+		if (interruptible && Thread.interrupted()) throw new InterruptedException();
+
+		final Waiter waiter = new Waiter(Thread.currentThread());
+		if (!push(waiter)) return; // Completed in the meantime
+
+		final long deadline = timed ? System.nanoTime() + nanos : 0L;
+		boolean interrupted = false;
+		try {
+			while (result == null) {
+				if (timed) {
+					final long remaining = deadline - System.nanoTime();
+					if (remaining <= 0L) throw new TimeoutException();
+					LockSupport.parkNanos(this, remaining);
+				} else {
+					LockSupport.park(this);
+				}
 
-			checkForFailure();
-			return value;
+				if (Thread.interrupted()) {
+					if (interruptible) throw new InterruptedException();
+					interrupted = true;
+				}
+			}
+		} finally {
+			waiter.thread = null;
+			if (result == null) {
+				// Timed out or interrupted, unlink the abandoned waiter so repeated polls don't pile up
+				cleanStack();
+			}
+			if (interrupted) {
+				// Restore the interrupt for the caller
+				Thread.currentThread().interrupt();
+			}
 		}
 	}
 
 	/**
-	 * Throws an exception if the future was either cancelled or the command failed.
-	 * <p>
-	 * <strong>Must be called with the monitor lock held!</strong>
-	 * </p>
+	 * Returns the value of a completed future or throws an exception
+	 * if the future was either cancelled or the command failed.
+	 *
+	 * @param r
+	 * 		the result of this future, must not be {@code null}
+	 *
+	 * @return the value of this future
 	 *
 	 * @throws CancellationException
 	 * 		if the future was cancelled
 	 * @throws TS3Exception
 	 * 		if the command failed
 	 */
-	private void checkForFailure() {
-		if (state == FutureState.CANCELLED) {
-			throw new CancellationException();
-		} else if (state == FutureState.FAILED) {
-			// Make the stack trace of the exception point to this method and not
-			// SocketReader#run -> TS3ApiAsync#hasFailed, which wouldn't be helpful
-			exception.fillInStackTrace();
-			throw exception;
+	@SuppressWarnings("unchecked")
+	private V reportResult(Object r) {
+		if (r instanceof AltResult) {
+			if (r == CANCELLED) throw new CancellationException();
+
+			TS3Exception exception = ((AltResult) r).exception;
+			if (exception != null) {
+				// Make the stack trace of the exception point to this method and not
+				// SocketReader#run -> TS3ApiAsync#hasFailed, which wouldn't be helpful
+				exception.fillInStackTrace();
+				throw exception;
+			}
+			return null;
 		}
+		return (V) r;
 	}
 
 	@Override
 	public boolean isDone() {
-		return state != FutureState.WAITING;
+		return result != null;
 	}
 
 	/**
@@ -430,12 +490,12 @@ public class CommandFuture<V> implements Future<V> {
 	 * @return {@code true} if the command completed successfully
 	 */
 	public boolean isSuccessful() {
-		return state == FutureState.SUCCEEDED;
+		return isSuccess(result);
 	}
 
 	@Override
 	public boolean isCancelled() {
-		return state == FutureState.CANCELLED;
+		return result == CANCELLED;
 	}
 
 	/**
@@ -444,14 +504,22 @@ public class CommandFuture<V> implements Future<V> {
 	 * @return {@code true} if the command failed
 	 */
 	public boolean hasFailed() {
-		return state == FutureState.FAILED;
+		return isFailure(result);
+	}
+
+	private static boolean isSuccess(Object r) {
+		return r != null && (r == NIL || !(r instanceof AltResult));
+	}
+
+	private static boolean isFailure(Object r) {
+		return r instanceof AltResult && ((AltResult) r).exception != null;
 	}
 
 	/**
 	 * Sets the value of this future. This will mark the future as successful.
 	 * <p>
-	 * Furthermore, this will run the {@link SuccessListener}, if one is registered.
-	 * All exceptions thrown from the body of the {@code SuccessListener} are caught
+	 * Furthermore, this will run all {@link SuccessListener}s which are registered.
+	 * All exceptions thrown from the body of a {@code SuccessListener} are caught
 	 * so no exceptions can leak into user code.
 	 * </p><p>
 	 * Note that a future's value can only be set once. Subsequent calls to
@@ -464,33 +532,16 @@ public class CommandFuture<V> implements Future<V> {
 	 * @return {@code true} if the command was marked as successful
 	 */
 	public boolean set(V value) {
-		SuccessListener<? super V> listener;
-
-		synchronized (monitor) {
-			if (isDone()) return false; // Ignore
-
-			this.state = FutureState.SUCCEEDED;
-			this.value = value;
-			listener = successListener;
-			monitor.notifyAll();
-		}
-
-		if (listener != null) {
-			try {
-				listener.handleSuccess(value);
-			} catch (Exception e) {
-				// Whatever happens, we do not want a user error to leak into our logic
-				log.error("SuccessListener threw an exception", e);
-			}
-		}
+		if (!completeResult(value == null ? NIL : value)) return false;
+		postComplete(this);
 		return true;
 	}
 
 	/**
 	 * Notifies this future that the command has failed.
 	 * <p>
-	 * Furthermore, this will run the {@link FailureListener}, if one is registered.
-	 * All exceptions thrown from the body of the {@code FailureListener} are caught
+	 * Furthermore, this will run all {@link FailureListener}s which are registered.
+	 * All exceptions thrown from the body of a {@code FailureListener} are caught
 	 * so no exceptions can leak into user code.
 	 * </p><p>
 	 * Note that a future can only fail once. Subsequent calls to this method will be ignored.
@@ -502,53 +553,111 @@ public class CommandFuture<V> implements Future<V> {
 	 * @return {@code true} if the command was marked as failed
 	 */
 	public boolean fail(TS3Exception exception) {
-		FailureListener listener;
-
-		synchronized (monitor) {
-			if (isDone()) return false; // Ignore
-
-			this.state = FutureState.FAILED;
-			this.exception = exception;
-			listener = failureListener;
-			monitor.notifyAll();
-		}
-
-		if (listener != null) {
-			try {
-				listener.handleFailure(exception);
-			} catch (Exception e) {
-				// Whatever happens, we do not want a user error to leak into our logic
-				log.error("FailureListener threw an exception", e);
-			}
-		}
+		if (exception == null) throw new IllegalArgumentException("exception cannot be null");
+		if (!completeResult(new AltResult(exception))) return false;
+		postComplete(this);
 		return true;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 * <p>
-	 * Cancelling a {@code CommandFuture} will <b>not</b> actually cancel the
-	 * execution of the command which was sent to the TeamSpeak server.
+	 * If this future belongs to a command which has not yet been sent to the TeamSpeak server,
+	 * the command will be removed from the command queue and will never be sent.
+	 * Commands which have already been sent to the server can <b>not</b> be cancelled anymore,
+	 * but any response from the server will be ignored.
 	 * </p><p>
-	 * It will, however, prevent the {@link SuccessListener} and the
-	 * {@link FailureListener} from firing, provided a response from the
+	 * Cancelling a future also prevents the {@link SuccessListener}s and the
+	 * {@link FailureListener}s from firing, provided a response from the
 	 * server has not yet arrived.
+	 * </p><p>
+	 * Futures created by {@link #map(Function)}, {@link #then(Function)}, {@link #ofAll(Collection)}
+	 * and {@link #ofAny(Collection)} propagate a cancellation to the futures they were created from,
+	 * unless those futures are still needed by other listeners or derived futures.
+	 * Conversely, if a future is cancelled, all futures derived from it are cancelled as well.
 	 * </p>
 	 */
 	@Override
 	public boolean cancel(boolean mayInterruptIfRunning) {
-		synchronized (monitor) {
-			if (isDone()) return false; // Ignore
+		if (!completeResult(CANCELLED)) return false;
+		postComplete(this);
+		return true;
+	}
 
-			this.state = FutureState.CANCELLED;
-			monitor.notifyAll();
+	/**
+	 * Atomically sets the result of this future. If this future was cancelled,
+	 * the cancellation is forwarded to the future(s) this future was derived from.
+	 * <p>
+	 * This method does <b>not</b> notify the listeners, {@link #postComplete(CommandFuture)}
+	 * needs to be called separately.
+	 * </p>
+	 *
+	 * @param r
+	 * 		the encoded result
+	 *
+	 * @return {@code true} if this call completed the future
+	 */
+	private boolean completeResult(Object r) {
+		if (!RESULT.compareAndSet(this, null, r)) return false;
+
+		final Object up = UPSTREAM.getAndSet(this, null);
+		if (r == CANCELLED && up != null) {
+			if (up instanceof CommandFuture) {
+				((CommandFuture<?>) up).release();
+			} else if (up instanceof CommandFuture[]) {
+				for (CommandFuture<?> future : (CommandFuture<?>[]) up) {
+					future.release();
+				}
+			} else if (up instanceof Future) {
+				((Future<?>) up).cancel(false);
+			}
 		}
-
 		return true;
 	}
 
 	/**
-	 * Sets a {@link SuccessListener} which will be notified when this future
+	 * Registers a consumer of this future whose interest may be withdrawn again by calling {@link #release()}.
+	 */
+	private void retain() {
+		DEPENDENTS.incrementAndGet(this);
+	}
+
+	/**
+	 * Withdraws the interest of a consumer. If no consumers are left, this future is cancelled.
+	 */
+	private void release() {
+		if (DEPENDENTS.decrementAndGet(this) == 0) {
+			cancel(false);
+		}
+	}
+
+	/**
+	 * Adds a {@link CancellationListener} which will be notified when this future is cancelled.
+	 * <p>
+	 * If this future has already been cancelled, this method will immediately call the listener method,
+	 * which will be executed synchronously. If the future has completed in any other way,
+	 * the listener will never be called.
+	 * </p><p>
+	 * Unlike success and failure listeners, cancellation listeners do not prevent this future from
+	 * being cancelled when all futures derived from it were cancelled.
+	 * </p>
+	 *
+	 * @param listener
+	 * 		the listener to notify of a cancellation
+	 *
+	 * @return this object for chaining
+	 */
+	public CommandFuture<V> onCancellation(CancellationListener listener) {
+		if (listener == null) throw new IllegalArgumentException("listener cannot be null");
+
+		if (!push(new CancellationNode(listener)) && isCancelled()) {
+			listener.handleCancellation();
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a {@link SuccessListener} which will be notified when this future
 	 * succeeded and a value has been set.
 	 * <p>
 	 * If this future has already succeeded, this method will immediately call
@@ -561,28 +670,20 @@ public class CommandFuture<V> implements Future<V> {
 	 * @return this object for chaining
 	 */
 	public CommandFuture<V> onSuccess(SuccessListener<? super V> listener) {
-		boolean runSuccessListener;
-		V successValue;
+		if (listener == null) throw new IllegalArgumentException("listener cannot be null");
+		retain(); // Never released, a listener doesn't go away
 
-		synchronized (monitor) {
-			if (successListener != null) {
-				throw new IllegalStateException("Listener already set");
+		if (!push(new SuccessNode<>(listener))) {
+			final Object r = result;
+			if (isSuccess(r)) {
+				listener.handleSuccess(reportResult(r));
 			}
-			successListener = listener;
-
-			runSuccessListener = isSuccessful();
-			successValue = value;
 		}
-
-		if (runSuccessListener) {
-			listener.handleSuccess(successValue);
-		}
-
 		return this;
 	}
 
 	/**
-	 * Sets a {@link FailureListener} which will be notified when this future
+	 * Adds a {@link FailureListener} which will be notified when this future
 	 * fails because of a error returned by the TeamSpeak server.
 	 * <p>
 	 * If this future has already failed, this method will immediately call
@@ -595,33 +696,21 @@ public class CommandFuture<V> implements Future<V> {
 	 * @return this object for chaining
 	 */
 	public CommandFuture<V> onFailure(FailureListener listener) {
-		boolean runFailureListener;
-		TS3Exception failureException;
+		if (listener == null) throw new IllegalArgumentException("listener cannot be null");
+		retain(); // Never released, a listener doesn't go away
 
-		synchronized (monitor) {
-			if (failureListener != null) {
-				throw new IllegalStateException("Listener already set");
+		if (!push(new FailureNode(listener))) {
+			final Object r = result;
+			if (isFailure(r)) {
+				listener.handleFailure(((AltResult) r).exception);
 			}
-			failureListener = listener;
-
-			runFailureListener = hasFailed();
-			failureException = exception;
-		}
-
-		if (runFailureListener) {
-			listener.handleFailure(failureException);
 		}
-
 		return this;
 	}
 
 	/**
 	 * Forwards a success to another future by calling {@link #set(Object)} on
 	 * that future with the value this future was set to.
-	 * <p>
-	 * This will register a {@link SuccessListener}, meaning that you will not
-	 * be able to register another {@code SuccessListener}.
-	 * </p>
 	 *
 	 * @param otherFuture
 	 * 		the future to forward a success to
@@ -635,10 +724,6 @@ public class CommandFuture<V> implements Future<V> {
 	/**
 	 * Forwards a failure to another future by calling {@link #fail(TS3Exception)}
 	 * on that future with the error that caused this future to fail.
-	 * <p>
-	 * This will register a {@link FailureListener}, meaning that you will not
-	 * be able to register another {@code FailureListener}.
-	 * </p>
 	 *
 	 * @param otherFuture
 	 * 		the future to forward a failure to
@@ -653,10 +738,6 @@ public class CommandFuture<V> implements Future<V> {
 	 * Forwards both a success as well as a failure to another {@code CommandFuture}.
 	 * This method just calls both {@link #forwardSuccess(CommandFuture)} and
 	 * {@link #forwardFailure(CommandFuture)}.
-	 * <p>
-	 * This will set both a {@link SuccessListener} as well as a {@link FailureListener},
-	 * so no other listeners can be registered.
-	 * </p>
 	 *
 	 * @param otherFuture
 	 * 		the future which should be notified about
@@ -670,6 +751,14 @@ public class CommandFuture<V> implements Future<V> {
 	 * if the original future succeeded with a value {@code result}, and fails
 	 * if the original future failed or if the mapping function {@code fn} threw
 	 * an exception.
+	 * <p>
+	 * The mapping function is applied directly by the thread which completes the original future,
+	 * and chains of {@code map} calls are completed in a single pass without any intermediate
+	 * listener invocations.
+	 * </p><p>
+	 * Cancelling the created {@code CommandFuture} also cancels the original future,
+	 * unless it is still needed elsewhere. Cancelling the original future cancels the created future.
+	 * </p>
 	 *
 	 * @param fn
 	 * 		a function that maps the result value of type {@code V} to a value of type {@code F}
@@ -679,17 +768,19 @@ public class CommandFuture<V> implements Future<V> {
 	 * @return a new {@code CommandFuture} that will hold the return value of {@code fn}
 	 */
 	public <F> CommandFuture<F> map(Function<? super V, ? extends F> fn) {
-		CommandFuture<F> target = new CommandFuture<>();
-		onSuccess(result -> {
-			F output;
-			try {
-				output = fn.apply(result);
-			} catch (Exception ex) {
-				target.fail(new TS3Exception("CommandFuture 'map' function threw an exception", ex));
-				return;
-			}
-			target.set(output);
-		}).forwardFailure(target);
+		if (fn == null) throw new IllegalArgumentException("fn cannot be null");
+
+		final CommandFuture<F> target = new CommandFuture<>();
+		final Object r = result;
+		if (r != null) {
+			// Already completed, skip creating a listener node
+			MapNode.apply(r, fn, target);
+			postComplete(target);
+			return target;
+		}
+
+		target.upstream = this;
+		addDependent(new MapNode<>(fn, target));
 		return target;
 	}
 
@@ -704,6 +795,10 @@ public class CommandFuture<V> implements Future<V> {
 	 * If {@code fn} returns {@code null}, the created {@code CommandFuture}
 	 * will immediately succeed with a value of {@code null}. To create this effect
 	 * with non-null values, return an {@link #immediate(Object)} future instead.
+	 * </p><p>
+	 * Cancelling the created {@code CommandFuture} also cancels the original future
+	 * and, if it has already been created, the future returned by {@code fn},
+	 * unless they are still needed elsewhere.
 	 * </p>
 	 *
 	 * @param fn
@@ -714,23 +809,75 @@ public class CommandFuture<V> implements Future<V> {
 	 * @return a new {@code CommandFuture} that will hold the result of the future returned by {@code fn}
 	 */
 	public <F> CommandFuture<F> then(Function<? super V, CommandFuture<F>> fn) {
-		CommandFuture<F> target = new CommandFuture<>();
-		onSuccess(result -> {
-			CommandFuture<F> nextFuture;
-			try {
-				nextFuture = fn.apply(result);
-			} catch (Exception ex) {
-				target.fail(new TS3Exception("CommandFuture 'then' function threw an exception", ex));
+		if (fn == null) throw new IllegalArgumentException("fn cannot be null");
+
+		final CommandFuture<F> target = new CommandFuture<>();
+		target.upstream = this;
+		addDependent(new ThenNode<>(fn, target));
+		return target;
+	}
+
+	/**
+	 * Creates a {@link CompletableFuture} which completes when this future completes.
+	 * <p>
+	 * The {@code CompletableFuture} is completed directly by the thread which completes this future,
+	 * without being handed off to an executor. If this future fails, the {@code CompletableFuture}
+	 * completes exceptionally with the same {@link TS3Exception}.
+	 * </p><p>
+	 * Cancelling the returned {@code CompletableFuture} cancels this future, unless it is still
+	 * needed elsewhere, and cancelling this future cancels the {@code CompletableFuture}.
+	 * </p>
+	 *
+	 * @return a {@code CompletableFuture} mirroring the outcome of this future
+	 */
+	public CompletableFuture<V> toCompletableFuture() {
+		final LinkedCompletableFuture<V> target = new LinkedCompletableFuture<>(this);
+		addDependent(new CompletableNode<>(target));
+		return target;
+	}
+
+	/**
+	 * Creates a {@code CommandFuture} which completes when the given {@link CompletionStage} completes.
+	 * <p>
+	 * If the stage completes exceptionally with a {@link TS3Exception}, the returned future fails with that
+	 * exception. Any other exception will be wrapped in a {@code TS3Exception}. If the stage is cancelled,
+	 * the returned future is cancelled as well. If the stage is also a {@link Future}, cancelling the
+	 * returned {@code CommandFuture} will cancel the stage.
+	 * </p>
+	 *
+	 * @param stage
+	 * 		the completion stage to mirror
+	 * @param <V>
+	 * 		the result type of the completion stage
+	 *
+	 * @return a {@code CommandFuture} mirroring the outcome of {@code stage}
+	 */
+	public static <V> CommandFuture<V> fromCompletionStage(CompletionStage<? extends V> stage) {
+		if (stage == null) throw new IllegalArgumentException("stage cannot be null");
+
+		final CommandFuture<V> future = new CommandFuture<>();
+		if (stage instanceof Future) future.upstream = stage;
+
+		stage.whenComplete((value, throwable) -> {
+			if (throwable == null) {
+				future.set(value);
 				return;
 			}
 
-			if (nextFuture == null) {
-				target.set(null); // Propagate null shortcut
+			Throwable cause = throwable;
+			if (cause instanceof CompletionException && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+
+			if (cause instanceof CancellationException) {
+				future.cancel(false);
+			} else if (cause instanceof TS3Exception) {
+				future.fail((TS3Exception) cause);
 			} else {
-				nextFuture.forwardResult(target);
+				future.fail(new TS3Exception("CompletionStage completed exceptionally", cause));
 			}
-		}).forwardFailure(target);
-		return target;
+		});
+		return future;
 	}
 
 	/**
@@ -762,12 +909,17 @@ public class CommandFuture<V> implements Future<V> {
 	 */
 	@SafeVarargs
 	public static <F> CommandFuture<List<F>> ofAll(CommandFuture<F>... futures) {
-		return ofAll(Arrays.asList(futures));
+		return ofAll(Arrays.asList(futures), false);
 	}
 
 	/**
 	 * Combines a collection of {@code CommandFuture}s into a single future, which will
 	 * succeed if all futures succeed and fail as soon as one future fails.
+	 * <p>
+	 * Cancelling the combined future also cancels all of the supplied futures
+	 * which are not needed elsewhere. If one of the supplied futures is cancelled,
+	 * the combined future is cancelled as well.
+	 * </p>
 	 *
 	 * @param futures
 	 * 		the futures to combine
@@ -777,27 +929,41 @@ public class CommandFuture<V> implements Future<V> {
 	 * @return a future which succeeds if all supplied futures succeed
 	 */
 	public static <F> CommandFuture<List<F>> ofAll(final Collection<CommandFuture<F>> futures) {
-		if (futures.isEmpty()) return immediate(Collections.emptyList());
-
-		@SuppressWarnings("unchecked") final F[] results = (F[]) new Object[futures.size()];
-		final AtomicInteger successCounter = new AtomicInteger(futures.size());
-		final CommandFuture<List<F>> combined = new CommandFuture<>();
-
-		final Iterator<CommandFuture<F>> iterator = futures.iterator();
-		for (int i = 0; iterator.hasNext(); ++i) {
-			final int index = i;
-			final CommandFuture<F> future = iterator.next();
+		return ofAll(futures, false);
+	}
 
-			future.forwardFailure(combined).onSuccess(result -> {
-				results[index] = result;
+	/**
+	 * Combines a collection of {@code CommandFuture}s into a single future, which will
+	 * succeed if all futures succeed and fail as soon as one future fails.
+	 * <p>
+	 * If {@code cancelRemainingOnFailure} is {@code true}, all supplied futures which have not yet
+	 * completed and which are not needed elsewhere are cancelled as soon as one future fails.
+	 * For futures returned by {@link TS3ApiAsync}, this means that commands which have not yet been
+	 * sent to the server are removed from the command queue.
+	 * </p><p>
+	 * The combined future only uses a single atomic counter and one pre-allocated result array,
+	 * so combining tens of thousands of futures is cheap.
+	 * </p>
+	 *
+	 * @param futures
+	 * 		the futures to combine
+	 * @param cancelRemainingOnFailure
+	 * 		whether to cancel the remaining futures once one future has failed
+	 * @param <F>
+	 * 		the common return type of the futures
+	 *
+	 * @return a future which succeeds if all supplied futures succeed
+	 */
+	public static <F> CommandFuture<List<F>> ofAll(final Collection<CommandFuture<F>> futures,
+	                                                boolean cancelRemainingOnFailure) {
+		if (futures.isEmpty()) return immediate(Collections.emptyList());
 
-				if (successCounter.decrementAndGet() == 0) {
-					combined.set(Arrays.asList(results));
-				}
-			});
+		final AllAggregate<F> aggregate = new AllAggregate<>(futures, cancelRemainingOnFailure);
+		final CommandFuture<?>[] members = aggregate.members;
+		for (int i = 0; i < members.length; ++i) {
+			members[i].addDependent(new AggregateNode(aggregate, i));
 		}
-
-		return combined;
+		return aggregate.combined;
 	}
 
 	/**
@@ -813,12 +979,16 @@ public class CommandFuture<V> implements Future<V> {
 	 */
 	@SafeVarargs
 	public static <F> CommandFuture<F> ofAny(CommandFuture<F>... futures) {
-		return ofAny(Arrays.asList(futures));
+		return ofAny(Arrays.asList(futures), false);
 	}
 
 	/**
 	 * Combines a collection of {@code CommandFuture}s into a single future, which will
 	 * succeed as soon as one of the futures succeeds and fail if all futures fail.
+	 * <p>
+	 * Cancelling the combined future also cancels all of the supplied futures
+	 * which are not needed elsewhere.
+	 * </p>
 	 *
 	 * @param futures
 	 * 		the futures to combine
@@ -828,20 +998,578 @@ public class CommandFuture<V> implements Future<V> {
 	 * @return a future which succeeds if one of the supplied futures succeeds
 	 */
 	public static <F> CommandFuture<F> ofAny(final Collection<CommandFuture<F>> futures) {
+		return ofAny(futures, false);
+	}
+
+	/**
+	 * Combines a collection of {@code CommandFuture}s into a single future, which will
+	 * succeed as soon as one of the futures succeeds and fail if all futures fail.
+	 * <p>
+	 * If {@code cancelRemainingOnSuccess} is {@code true}, all supplied futures which have not yet
+	 * completed and which are not needed elsewhere are cancelled as soon as one future succeeds.
+	 * </p>
+	 *
+	 * @param futures
+	 * 		the futures to combine
+	 * @param cancelRemainingOnSuccess
+	 * 		whether to cancel the remaining futures once one future has succeeded
+	 * @param <F>
+	 * 		the common return type of the futures
+	 *
+	 * @return a future which succeeds if one of the supplied futures succeeds
+	 */
+	public static <F> CommandFuture<F> ofAny(final Collection<CommandFuture<F>> futures,
+	                                         boolean cancelRemainingOnSuccess) {
 		if (futures.isEmpty()) throw new IllegalArgumentException("Requires at least 1 future");
 
-		final CommandFuture<F> any = new CommandFuture<>();
-		final AtomicInteger failureCounter = new AtomicInteger(futures.size());
+		final AnyAggregate<F> aggregate = new AnyAggregate<>(futures, cancelRemainingOnSuccess);
+		final CommandFuture<?>[] members = aggregate.members;
+		for (int i = 0; i < members.length; ++i) {
+			members[i].addDependent(new AggregateNode(aggregate, i));
+		}
+		return aggregate.combined;
+	}
+
+	/**
+	 * Returns a list of futures which complete in the order in which the supplied futures complete.
+	 * <p>
+	 * The first future in the returned list completes with the result of whichever supplied
+	 * future completes first, the second future with the result of the future that completes second,
+	 * and so on. This allows processing results as soon as they arrive, e.g. by iterating over the
+	 * returned list and calling {@link #get()} on each future in turn.
+	 * </p><p>
+	 * Cancelling a future in the returned list does not cancel any of the supplied futures.
+	 * </p>
+	 *
+	 * @param futures
+	 * 		the futures to order by completion
+	 * @param <F>
+	 * 		the common return type of the futures
+	 *
+	 * @return a list of futures which complete in completion order
+	 */
+	public static <F> List<CommandFuture<F>> inCompletionOrder(final Collection<CommandFuture<F>> futures) {
+		if (futures.isEmpty()) return Collections.emptyList();
+
+		final OrderAggregate<F> aggregate = new OrderAggregate<>(futures);
+		final CommandFuture<?>[] members = aggregate.members;
+		for (int i = 0; i < members.length; ++i) {
+			// Not added as a dependent, the ordered futures don't propagate cancellations
+			members[i].push(new AggregateNode(aggregate, i), true);
+		}
+		return Arrays.asList(aggregate.ordered);
+	}
+
+	// Listener stack
+
+	/**
+	 * Registers a node which depends on this future and whose interest can be withdrawn
+	 * by the future it completes. If this future has already completed, the node is run immediately.
+	 *
+	 * @param node
+	 * 		the dependent node
+	 */
+	private void addDependent(Node node) {
+		retain();
+		push(node, true);
+	}
+
+	/**
+	 * Unlinks all abandoned waiters from the listener stack of a pending future.
+	 * <p>
+	 * Nodes are only ever unlinked by swinging a {@code next} pointer from an abandoned
+	 * waiter to that waiter's successor, so a concurrent {@link #push(Node)} or
+	 * {@link #postComplete(CommandFuture)} can at most end up skipping or visiting
+	 * abandoned waiters, which are no-ops when fired.
+	 * </p>
+	 */
+	private void cleanStack() {
+		Node head = stack;
+		while (isAbandoned(head)) {
+			STACK.compareAndSet(this, head, head.next);
+			head = stack;
+		}
+		if (head == null || head == TOMBSTONE) return;
+
+		Node p = head;
+		Node q;
+		while ((q = p.next) != null) {
+			if (isAbandoned(q)) {
+				Node.NEXT.compareAndSet(p, q, q.next);
+			} else {
+				p = q;
+			}
+		}
+	}
+
+	private static boolean isAbandoned(Node node) {
+		return node instanceof Waiter && ((Waiter) node).thread == null;
+	}
+
+	/**
+	 * Pushes a node onto the listener stack, unless this future has already completed.
+	 *
+	 * @param node
+	 * 		the node to push
+	 *
+	 * @return {@code true} if the node was pushed, {@code false} if this future has already completed
+	 */
+	private boolean push(Node node) {
+		Node head;
+		do {
+			head = stack;
+			if (head == TOMBSTONE) return false;
+			node.next = head;
+		} while (!STACK.compareAndSet(this, head, node));
+		return true;
+	}
+
+	/**
+	 * Pushes a node onto the listener stack. If this future has already completed
+	 * and {@code runIfDone} is set, the node is run synchronously instead.
+	 *
+	 * @param node
+	 * 		the node to push or run
+	 * @param runIfDone
+	 * 		whether to run the node if this future has already completed
+	 */
+	private void push(Node node, boolean runIfDone) {
+		if (push(node) || !runIfDone) return;
 
-		for (CommandFuture<F> future : futures) {
-			future.forwardSuccess(any).onFailure(exception -> {
-				if (failureCounter.decrementAndGet() == 0) {
-					any.fail(exception);
+		final CommandFuture<?> next = node.fire(result);
+		if (next != null) postComplete(next);
+	}
+
+	/**
+	 * Notifies all listeners of a completed future.
+	 * <p>
+	 * Nodes which complete another future return that future instead of notifying its
+	 * listeners themselves. This way, a chain of dependent futures is completed by a loop
+	 * instead of a deep recursion, and chained {@code map} stages are effectively fused.
+	 * </p>
+	 *
+	 * @param future
+	 * 		the future which has just been completed
+	 */
+	private static void postComplete(CommandFuture<?> future) {
+		CommandFuture<?> current = future;
+		while (current != null) {
+			final Object r = current.result;
+			Node head = STACK.getAndSet(current, TOMBSTONE);
+			if (head == TOMBSTONE) return; // Already notified
+
+			// Reverse the stack so listeners are run in registration order
+			Node reversed = null;
+			while (head != null) {
+				final Node next = head.next;
+				head.next = reversed;
+				reversed = head;
+				head = next;
+			}
+
+			CommandFuture<?> continuation = null;
+			for (Node node = reversed; node != null; ) {
+				final Node next = node.next;
+				node.next = null;
+
+				final CommandFuture<?> completed = node.fire(r);
+				if (completed != null) {
+					if (continuation != null) postComplete(continuation); // Fan-out, recurse once
+					continuation = completed;
 				}
-			});
+				node = next;
+			}
+			current = continuation;
 		}
+	}
+
+	/**
+	 * The encoded result of a future which did not succeed with a non-null value.
+	 */
+	private static final class AltResult {
 
-		return any;
+		final TS3Exception exception;
+
+		AltResult(TS3Exception exception) {
+			this.exception = exception;
+		}
+	}
+
+	/**
+	 * A node in the listener stack of a future.
+	 */
+	private abstract static class Node {
+
+		static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+				AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+		volatile Node next;
+
+		/**
+		 * Notifies this node that the future has completed.
+		 *
+		 * @param r
+		 * 		the encoded result of the future
+		 *
+		 * @return a future that this node has completed but whose listeners have not yet been notified,
+		 * or {@code null}
+		 */
+		abstract CommandFuture<?> fire(Object r);
+	}
+
+	private static final class Tombstone extends Node {
+
+		@Override
+		CommandFuture<?> fire(Object r) {
+			throw new IllegalStateException("Tombstone node fired");
+		}
+	}
+
+	private static final class Waiter extends Node {
+
+		volatile Thread thread;
+
+		Waiter(Thread thread) {
+			this.thread = thread;
+		}
+
+		@Override
+		CommandFuture<?> fire(Object r) {
+			final Thread t = thread;
+			if (t != null) {
+				thread = null;
+				LockSupport.unpark(t);
+			}
+			return null;
+		}
+	}
+
+	private static final class SuccessNode<V> extends Node {
+
+		private final SuccessListener<? super V> listener;
+
+		SuccessNode(SuccessListener<? super V> listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		CommandFuture<?> fire(Object r) {
+			if (!isSuccess(r)) return null;
+
+			try {
+				listener.handleSuccess(r == NIL ? null : (V) r);
+			} catch (Exception e) {
+				// Whatever happens, we do not want a user error to leak into our logic
+				log.error("SuccessListener threw an exception", e);
+			}
+			return null;
+		}
+	}
+
+	private static final class FailureNode extends Node {
+
+		private final FailureListener listener;
+
+		FailureNode(FailureListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		CommandFuture<?> fire(Object r) {
+			if (!isFailure(r)) return null;
+
+			try {
+				listener.handleFailure(((AltResult) r).exception);
+			} catch (Exception e) {
+				// Whatever happens, we do not want a user error to leak into our logic
+				log.error("FailureListener threw an exception", e);
+			}
+			return null;
+		}
+	}
+
+	private static final class CancellationNode extends Node {
+
+		private final CancellationListener listener;
+
+		CancellationNode(CancellationListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		CommandFuture<?> fire(Object r) {
+			if (r != CANCELLED) return null;
+
+			try {
+				listener.handleCancellation();
+			} catch (Exception e) {
+				// Whatever happens, we do not want a user error to leak into our logic
+				log.error("CancellationListener threw an exception", e);
+			}
+			return null;
+		}
+	}
+
+	private static final class MapNode<V, F> extends Node {
+
+		private final Function<? super V, ? extends F> fn;
+		private final CommandFuture<F> target;
+
+		MapNode(Function<? super V, ? extends F> fn, CommandFuture<F> target) {
+			this.fn = fn;
+			this.target = target;
+		}
+
+		@Override
+		CommandFuture<?> fire(Object r) {
+			return apply(r, fn, target) ? target : null;
+		}
+
+		@SuppressWarnings("unchecked")
+		static <V, F> boolean apply(Object r, Function<? super V, ? extends F> fn, CommandFuture<F> target) {
+			if (!isSuccess(r)) {
+				// Failures and cancellations are passed on as they are
+				return target.completeResult(r);
+			}
+
+			final Object output;
+			try {
+				final F value = fn.apply(r == NIL ? null : (V) r);
+				output = (value == null) ? NIL : value;
+			} catch (Exception ex) {
+				return target.completeResult(new AltResult(
+						new TS3Exception("CommandFuture 'map' function threw an exception", ex)));
+			}
+			return target.completeResult(output);
+		}
+	}
+
+	private static final class ThenNode<V, F> extends Node {
+
+		private final Function<? super V, CommandFuture<F>> fn;
+		private final CommandFuture<F> target;
+
+		ThenNode(Function<? super V, CommandFuture<F>> fn, CommandFuture<F> target) {
+			this.fn = fn;
+			this.target = target;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		CommandFuture<?> fire(Object r) {
+			if (!isSuccess(r)) {
+				return target.completeResult(r) ? target : null;
+			}
+
+			final CommandFuture<F> nextFuture;
+			try {
+				nextFuture = fn.apply(r == NIL ? null : (V) r);
+			} catch (Exception ex) {
+				final TS3Exception exception = new TS3Exception("CommandFuture 'then' function threw an exception", ex);
+				return target.completeResult(new AltResult(exception)) ? target : null;
+			}
+
+			if (nextFuture == null) {
+				// Propagate null shortcut
+				return target.completeResult(NIL) ? target : null;
+			}
+
+			nextFuture.retain();
+			target.upstream = nextFuture;
+			if (target.isDone() && UPSTREAM.compareAndSet(target, nextFuture, null)) {
+				// Cancelled while fn was running
+				nextFuture.release();
+				return null;
+			}
+			nextFuture.push(new ForwardNode(target), true);
+			return null;
+		}
+	}
+
+	private static final class ForwardNode extends Node {
+
+		private final CommandFuture<?> target;
+
+		ForwardNode(CommandFuture<?> target) {
+			this.target = target;
+		}
+
+		@Override
+		CommandFuture<?> fire(Object r) {
+			return target.completeResult(r) ? target : null;
+		}
+	}
+
+	private static final class CompletableNode<V> extends Node {
+
+		private final CompletableFuture<V> target;
+
+		CompletableNode(CompletableFuture<V> target) {
+			this.target = target;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		CommandFuture<?> fire(Object r) {
+			if (r == CANCELLED) {
+				target.cancel(false);
+			} else if (r instanceof AltResult && r != NIL) {
+				target.completeExceptionally(((AltResult) r).exception);
+			} else {
+				target.complete(r == NIL ? null : (V) r);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * A {@code CompletableFuture} which withdraws its interest in the
+	 * {@code CommandFuture} it was created from if it is cancelled.
+	 */
+	private static final class LinkedCompletableFuture<V> extends CompletableFuture<V> {
+
+		private final CommandFuture<V> source;
+
+		LinkedCompletableFuture(CommandFuture<V> source) {
+			this.source = source;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			final boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) source.release();
+			return cancelled;
+		}
+	}
+
+	/**
+	 * Shared state of a future combining multiple other futures.
+	 */
+	private abstract static class Aggregate {
+
+		final CommandFuture<?>[] members;
+
+		Aggregate(Collection<? extends CommandFuture<?>> futures) {
+			members = futures.toArray(new CommandFuture<?>[0]);
+		}
+
+		/**
+		 * Called once for every member future when it completes.
+		 *
+		 * @param index
+		 * 		the index of the member future
+		 * @param r
+		 * 		the encoded result of the member future
+		 *
+		 * @return a future that has been completed but whose listeners have not yet been notified,
+		 * or {@code null}
+		 */
+		abstract CommandFuture<?> memberCompleted(int index, Object r);
+
+		/**
+		 * Withdraws the interest in all members which have not yet completed.
+		 */
+		void releaseMembers() {
+			for (CommandFuture<?> member : members) {
+				if (!member.isDone()) member.release();
+			}
+		}
+	}
+
+	private static final class AllAggregate<F> extends Aggregate {
+
+		final CommandFuture<List<F>> combined = new CommandFuture<>();
+		final Object[] results;
+		final AtomicInteger remaining;
+		final boolean cancelRemaining;
+
+		AllAggregate(Collection<CommandFuture<F>> futures, boolean cancelRemaining) {
+			super(futures);
+			this.results = new Object[members.length];
+			this.remaining = new AtomicInteger(members.length);
+			this.cancelRemaining = cancelRemaining;
+			combined.upstream = members;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		CommandFuture<?> memberCompleted(int index, Object r) {
+			if (isSuccess(r)) {
+				results[index] = (r == NIL) ? null : r;
+				if (remaining.decrementAndGet() != 0) return null;
+				return combined.completeResult(Arrays.asList((F[]) results)) ? combined : null;
+			}
+
+			// Failed or cancelled
+			if (!combined.completeResult(r)) return null;
+			if (r != CANCELLED && cancelRemaining) releaseMembers();
+			return combined;
+		}
+	}
+
+	private static final class AnyAggregate<F> extends Aggregate {
+
+		final CommandFuture<F> combined = new CommandFuture<>();
+		final AtomicInteger remaining;
+		final boolean cancelRemaining;
+
+		AnyAggregate(Collection<CommandFuture<F>> futures, boolean cancelRemaining) {
+			super(futures);
+			this.remaining = new AtomicInteger(members.length);
+			this.cancelRemaining = cancelRemaining;
+			combined.upstream = members;
+		}
+
+		@Override
+		CommandFuture<?> memberCompleted(int index, Object r) {
+			if (isSuccess(r)) {
+				if (!combined.completeResult(r)) return null;
+				if (cancelRemaining) releaseMembers();
+				return combined;
+			}
+
+			// Failed or cancelled, the last member to complete determines the outcome
+			if (remaining.decrementAndGet() != 0) return null;
+			return combined.completeResult(r) ? combined : null;
+		}
+	}
+
+	private static final class OrderAggregate<F> extends Aggregate {
+
+		final CommandFuture<F>[] ordered;
+		final AtomicInteger nextSlot = new AtomicInteger(0);
+
+		@SuppressWarnings("unchecked")
+		OrderAggregate(Collection<CommandFuture<F>> futures) {
+			super(futures);
+			ordered = (CommandFuture<F>[]) new CommandFuture<?>[members.length];
+			for (int i = 0; i < ordered.length; ++i) {
+				ordered[i] = new CommandFuture<>();
+			}
+		}
+
+		@Override
+		CommandFuture<?> memberCompleted(int index, Object r) {
+			final CommandFuture<F> slot = ordered[nextSlot.getAndIncrement()];
+			return slot.completeResult(r) ? slot : null;
+		}
+	}
+
+	private static final class AggregateNode extends Node {
+
+		private final Aggregate aggregate;
+		private final int index;
+
+		AggregateNode(Aggregate aggregate, int index) {
+			this.aggregate = aggregate;
+			this.index = index;
+		}
+
+		@Override
+		CommandFuture<?> fire(Object r) {
+			return aggregate.memberCompleted(index, r);
+		}
 	}
 
 	/**
@@ -849,7 +1577,7 @@ public class CommandFuture<V> implements Future<V> {
 	 * In that case, {@link #handleSuccess(Object)} will be called with the value
 	 * the future has been set to.
 	 * <p>
-	 * A {@code CommandFuture}'s {@code SuccessListener} can be set by calling
+	 * A {@code SuccessListener} can be added to a {@code CommandFuture} by calling
 	 * {@link #onSuccess(SuccessListener)}.
 	 * </p>
 	 *
@@ -873,7 +1601,7 @@ public class CommandFuture<V> implements Future<V> {
 	 * In that case, {@link #handleFailure(TS3Exception)} will be called with
 	 * the exception that occurred while executing this command.
 	 * <p>
-	 * A {@code CommandFuture}'s {@code FailureListener} can be set by calling
+	 * A {@code FailureListener} can be added to a {@code CommandFuture} by calling
 	 * {@link #onFailure(FailureListener)}.
 	 * </p>
 	 */
@@ -888,4 +1616,19 @@ public class CommandFuture<V> implements Future<V> {
 		 */
 		void handleFailure(TS3Exception exception);
 	}
+
+	/**
+	 * A listener which will be notified if the {@link CommandFuture} was cancelled.
+	 * <p>
+	 * Cancellation listeners can be added by calling {@link #onCancellation(CancellationListener)}.
+	 * </p>
+	 */
+	@FunctionalInterface
+	public interface CancellationListener {
+
+		/**
+		 * The method to be executed when the future is cancelled.
+		 */
+		void handleCancellation();
+	}
 }
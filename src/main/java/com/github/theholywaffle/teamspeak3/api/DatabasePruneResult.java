@@ -0,0 +1,118 @@
+package com.github.theholywaffle.teamspeak3.api;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+/**
+ * Reports how pruning the client database went.
+ * <p>
+ * A pruning that was stopped by a failed scan or a closed query does not produce a result,
+ * but can be resumed from its checkpoint. The counts of a resumed pruning only cover the
+ * database clients handled after resuming.
+ * </p>
+ *
+ * @see com.github.theholywaffle.teamspeak3.DatabasePruner
+ */
+public final class DatabasePruneResult {
+
+	private final boolean dryRun;
+	private final int scannedClients;
+	private final int matchedClients;
+	private final int deletedClients;
+	private final int failedDeletions;
+	private final long durationMillis;
+
+	public DatabasePruneResult(boolean dryRun, int scannedClients, int matchedClients,
+	                           int deletedClients, int failedDeletions, long durationMillis) {
+		this.dryRun = dryRun;
+		this.scannedClients = scannedClients;
+		this.matchedClients = matchedClients;
+		this.deletedClients = deletedClients;
+		this.failedDeletions = failedDeletions;
+		this.durationMillis = durationMillis;
+	}
+
+	/**
+	 * Returns {@code true} if no database clients were deleted because this was a dry run.
+	 *
+	 * @return whether this was a dry run
+	 */
+	public boolean isDryRun() {
+		return dryRun;
+	}
+
+	/**
+	 * Gets the number of database clients that were checked against the filters.
+	 *
+	 * @return the number of scanned database clients
+	 */
+	public int getScannedClients() {
+		return scannedClients;
+	}
+
+	/**
+	 * Gets the number of database clients that matched all filters.
+	 * In a dry run, these are the clients that would have been deleted.
+	 *
+	 * @return the number of matching database clients
+	 */
+	public int getMatchedClients() {
+		return matchedClients;
+	}
+
+	/**
+	 * Gets the number of database clients that were deleted.
+	 *
+	 * @return the number of deleted database clients, always {@code 0} in a dry run
+	 */
+	public int getDeletedClients() {
+		return deletedClients;
+	}
+
+	/**
+	 * Gets the number of matching database clients the server refused to delete.
+	 *
+	 * @return the number of failed deletions
+	 */
+	public int getFailedDeletions() {
+		return failedDeletions;
+	}
+
+	/**
+	 * Gets how long the pruning took.
+	 *
+	 * @return the duration in milliseconds
+	 */
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "DatabasePruneResult{dryRun=" + dryRun + ", scanned=" + scannedClients + ", matched=" + matchedClients
+				+ ", deleted=" + deletedClients + ", failed=" + failedDeletions + ", duration=" + durationMillis + "ms}";
+	}
+}
@@ -0,0 +1,225 @@
+package com.github.theholywaffle.teamspeak3.api;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Describes which parts of the channel file repositories a file crawl should visit
+ * and which files it should report.
+ * <p>
+ * Directories are always descended into up to the maximum depth, the size and
+ * path filters only decide which files are passed to the consumer.
+ * </p><p>
+ * Options are immutable, every method returns a new options object with the changed setting.
+ * </p>
+ *
+ * @see com.github.theholywaffle.teamspeak3.TS3ApiAsync#crawlFiles(java.util.Collection, FileCrawlOptions, java.util.function.Consumer)
+ */
+public final class FileCrawlOptions {
+
+	private static final FileCrawlOptions DEFAULTS = new FileCrawlOptions("/", -1, 0, Long.MAX_VALUE, null,
+			Collections.emptyMap(), 16);
+
+	private final String rootDirectory;
+	private final int maxDepth;
+	private final long minSize;
+	private final long maxSize;
+	private final Pattern pathPattern;
+	private final Map<Integer, String> channelPasswords;
+	private final int maxPendingListings;
+
+	private FileCrawlOptions(String rootDirectory, int maxDepth, long minSize, long maxSize, Pattern pathPattern,
+	                         Map<Integer, String> channelPasswords, int maxPendingListings) {
+		this.rootDirectory = rootDirectory;
+		this.maxDepth = maxDepth;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.pathPattern = pathPattern;
+		this.channelPasswords = channelPasswords;
+		this.maxPendingListings = maxPendingListings;
+	}
+
+	/**
+	 * Returns the default options: crawl every channel's whole repository starting at {@code /},
+	 * report all files, and keep at most 16 directory listings in flight.
+	 *
+	 * @return the default file crawl options
+	 */
+	public static FileCrawlOptions defaults() {
+		return DEFAULTS;
+	}
+
+	/**
+	 * Sets the directory of each channel's file repository the crawl starts at.
+	 *
+	 * @param directoryPath
+	 * 		the path of the root directory, {@code /} by default
+	 *
+	 * @return new options with the given root directory
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code directoryPath} is {@code null}
+	 */
+	public FileCrawlOptions withRootDirectory(String directoryPath) {
+		if (directoryPath == null) throw new IllegalArgumentException("Root directory cannot be null");
+
+		String root = directoryPath; // Make sure path starts and ends with /
+		if (!root.startsWith("/")) root = "/" + root;
+		if (!root.endsWith("/")) root += "/";
+		return new FileCrawlOptions(root, maxDepth, minSize, maxSize, pathPattern, channelPasswords, maxPendingListings);
+	}
+
+	/**
+	 * Limits how deep the crawl descends into subdirectories.
+	 * A depth of {@code 0} only lists the root directory itself.
+	 *
+	 * @param maxDepth
+	 * 		the maximum depth, or {@code -1} for no limit
+	 *
+	 * @return new options with the given maximum depth
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxDepth} is less than {@code -1}
+	 */
+	public FileCrawlOptions withMaxDepth(int maxDepth) {
+		if (maxDepth < -1) throw new IllegalArgumentException("Maximum depth must be -1 or greater");
+		return new FileCrawlOptions(rootDirectory, maxDepth, minSize, maxSize, pathPattern, channelPasswords, maxPendingListings);
+	}
+
+	/**
+	 * Only reports files whose size is within the given bounds, both inclusive.
+	 *
+	 * @param minSize
+	 * 		the minimum file size in bytes
+	 * @param maxSize
+	 * 		the maximum file size in bytes
+	 *
+	 * @return new options with the given size bounds
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code minSize} is negative or greater than {@code maxSize}
+	 */
+	public FileCrawlOptions withSizeRange(long minSize, long maxSize) {
+		if (minSize < 0) throw new IllegalArgumentException("Minimum size must not be negative");
+		if (minSize > maxSize) throw new IllegalArgumentException("Minimum size must not exceed maximum size");
+		return new FileCrawlOptions(rootDirectory, maxDepth, minSize, maxSize, pathPattern, channelPasswords, maxPendingListings);
+	}
+
+	/**
+	 * Only reports files whose full path, e.g. {@code /screenshots/map.png}, matches the given pattern.
+	 *
+	 * @param pattern
+	 * 		the pattern the whole path must match, or {@code null} to report all paths
+	 *
+	 * @return new options with the given path pattern
+	 */
+	public FileCrawlOptions withPathPattern(Pattern pattern) {
+		return new FileCrawlOptions(rootDirectory, maxDepth, minSize, maxSize, pattern, channelPasswords, maxPendingListings);
+	}
+
+	/**
+	 * Sets the passwords used to access the file repositories of password-protected channels.
+	 *
+	 * @param passwords
+	 * 		a map from channel IDs to channel passwords
+	 *
+	 * @return new options with the given channel passwords
+	 */
+	public FileCrawlOptions withChannelPasswords(Map<Integer, String> passwords) {
+		Map<Integer, String> copy = (passwords == null) ? Collections.emptyMap()
+				: Collections.unmodifiableMap(new HashMap<>(passwords));
+		return new FileCrawlOptions(rootDirectory, maxDepth, minSize, maxSize, pathPattern, copy, maxPendingListings);
+	}
+
+	/**
+	 * Limits how many {@code ftgetfilelist} commands the crawl keeps queued at the same time.
+	 * <p>
+	 * The listings are pipelined by the command queue and are still subject to the query's
+	 * flood rate, this limit only keeps a large crawl from filling up the command queue
+	 * and delaying unrelated commands.
+	 * </p>
+	 *
+	 * @param maxPendingListings
+	 * 		the maximum number of listings in flight, {@code 16} by default
+	 *
+	 * @return new options with the given limit
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxPendingListings} is less than {@code 1}
+	 */
+	public FileCrawlOptions withMaxPendingListings(int maxPendingListings) {
+		if (maxPendingListings < 1) throw new IllegalArgumentException("At least one listing must be allowed");
+		return new FileCrawlOptions(rootDirectory, maxDepth, minSize, maxSize, pathPattern, channelPasswords, maxPendingListings);
+	}
+
+	public String getRootDirectory() {
+		return rootDirectory;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public long getMinSize() {
+		return minSize;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public Pattern getPathPattern() {
+		return pathPattern;
+	}
+
+	public String getChannelPassword(int channelId) {
+		return channelPasswords.get(channelId);
+	}
+
+	public int getMaxPendingListings() {
+		return maxPendingListings;
+	}
+
+	/**
+	 * Checks whether a file with the given path and size passes the size and path filters.
+	 *
+	 * @param path
+	 * 		the full path of the file
+	 * @param size
+	 * 		the size of the file in bytes
+	 *
+	 * @return whether the file should be reported
+	 */
+	public boolean accepts(String path, long size) {
+		if (size < minSize || size > maxSize) return false;
+		return pathPattern == null || pathPattern.matcher(path).matches();
+	}
+}
@@ -0,0 +1,98 @@
+package com.github.theholywaffle.teamspeak3.api;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Summarizes what a directory synchronization changed.
+ * <p>
+ * All paths are relative to the synchronized directories and use {@code /} as separator,
+ * e.g. {@code docs/readme.txt}.
+ * </p>
+ *
+ * @see com.github.theholywaffle.teamspeak3.TS3ApiAsync#syncDownload(String, int, String, java.nio.file.Path, boolean, FileTransferOptions)
+ * @see com.github.theholywaffle.teamspeak3.TS3ApiAsync#syncUpload(java.nio.file.Path, String, int, String, boolean, FileTransferOptions)
+ */
+public final class FileSyncResult {
+
+	private final List<String> transferredFiles;
+	private final List<String> deletedFiles;
+	private final int unchangedFiles;
+	private final long transferredBytes;
+
+	public FileSyncResult(List<String> transferredFiles, List<String> deletedFiles, int unchangedFiles, long transferredBytes) {
+		this.transferredFiles = Collections.unmodifiableList(transferredFiles);
+		this.deletedFiles = Collections.unmodifiableList(deletedFiles);
+		this.unchangedFiles = unchangedFiles;
+		this.transferredBytes = transferredBytes;
+	}
+
+	/**
+	 * Gets the files which were missing or had changed and were therefore transferred.
+	 *
+	 * @return the paths of the transferred files
+	 */
+	public List<String> getTransferredFiles() {
+		return transferredFiles;
+	}
+
+	/**
+	 * Gets the files and directories which only existed at the destination and were deleted.
+	 * Files inside of a deleted directory are not listed separately.
+	 *
+	 * @return the paths of the deleted files and directories
+	 */
+	public List<String> getDeletedFiles() {
+		return deletedFiles;
+	}
+
+	/**
+	 * Gets the number of files which were already up to date and were not transferred.
+	 *
+	 * @return the number of unchanged files
+	 */
+	public int getUnchangedFiles() {
+		return unchangedFiles;
+	}
+
+	/**
+	 * Gets the combined size of all transferred files.
+	 *
+	 * @return the number of transferred bytes
+	 */
+	public long getTransferredBytes() {
+		return transferredBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "FileSyncResult{transferred=" + transferredFiles.size() + ", deleted=" + deletedFiles.size()
+				+ ", unchanged=" + unchangedFiles + ", bytes=" + transferredBytes + "}";
+	}
+}
@@ -0,0 +1,117 @@
+package com.github.theholywaffle.teamspeak3.api;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+/**
+ * Describes how a single file transfer should be scheduled.
+ * <p>
+ * File transfers are run by the query's transfer manager, which limits how many transfers
+ * run at the same time. Transfers waiting for a free slot are started in order of their
+ * priority, transfers with the same priority in the order they were requested.
+ * </p><p>
+ * Options are immutable, every method returns a new options object with the changed setting.
+ * </p>
+ *
+ * @see com.github.theholywaffle.teamspeak3.TS3Config#setFileTransferConcurrency(int, int)
+ * @see com.github.theholywaffle.teamspeak3.TS3Config#setFileTransferBandwidth(long)
+ */
+public final class FileTransferOptions {
+
+	private static final FileTransferOptions DEFAULTS = new FileTransferOptions(0, 0, null);
+
+	private final int priority;
+	private final long bandwidthLimit;
+	private final TransferProgressListener progressListener;
+
+	private FileTransferOptions(int priority, long bandwidthLimit, TransferProgressListener progressListener) {
+		this.priority = priority;
+		this.bandwidthLimit = bandwidthLimit;
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Returns the default options: priority {@code 0}, no bandwidth limit
+	 * apart from the query's global limit and no progress listener.
+	 *
+	 * @return the default file transfer options
+	 */
+	public static FileTransferOptions defaults() {
+		return DEFAULTS;
+	}
+
+	/**
+	 * Sets the priority of the transfer. Transfers with a higher priority are started first.
+	 *
+	 * @param priority
+	 * 		the priority of the transfer, {@code 0} by default
+	 *
+	 * @return new options with the given priority
+	 */
+	public FileTransferOptions withPriority(int priority) {
+		return new FileTransferOptions(priority, bandwidthLimit, progressListener);
+	}
+
+	/**
+	 * Limits the bandwidth this transfer may use, in addition to the query's global limit.
+	 *
+	 * @param bytesPerSecond
+	 * 		the maximum transfer rate in bytes per second, or {@code 0} for no limit
+	 *
+	 * @return new options with the given bandwidth limit
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code bytesPerSecond} is negative
+	 */
+	public FileTransferOptions withBandwidthLimit(long bytesPerSecond) {
+		if (bytesPerSecond < 0) throw new IllegalArgumentException("Bandwidth limit must not be negative");
+		return new FileTransferOptions(priority, bytesPerSecond, progressListener);
+	}
+
+	/**
+	 * Sets a listener that is notified as the transfer progresses.
+	 *
+	 * @param listener
+	 * 		the progress listener, or {@code null} to remove it
+	 *
+	 * @return new options with the given progress listener
+	 */
+	public FileTransferOptions withProgressListener(TransferProgressListener listener) {
+		return new FileTransferOptions(priority, bandwidthLimit, listener);
+	}
+
+	public int getPriority() {
+		return priority;
+	}
+
+	public long getBandwidthLimit() {
+		return bandwidthLimit;
+	}
+
+	public TransferProgressListener getProgressListener() {
+		return progressListener;
+	}
+}
@@ -0,0 +1,159 @@
+package com.github.theholywaffle.teamspeak3.api;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reports how provisioning a single virtual server went.
+ * <p>
+ * If a step failed even after retrying it, the remaining steps were not run. The virtual server
+ * is not deleted in that case, so {@link #getServerId()} may still refer to a created server.
+ * </p>
+ *
+ * @see com.github.theholywaffle.teamspeak3.ServerProvisioner
+ */
+public final class ProvisioningResult {
+
+	/**
+	 * The steps of provisioning a virtual server, in the order they are run.
+	 */
+	public enum Step {
+		CREATE_SERVER,
+		SELECT_SERVER,
+		DEPLOY_SNAPSHOT,
+		ADD_PERMISSIONS,
+		ADD_PRIVILEGE_KEYS
+	}
+
+	private final ProvisioningTask task;
+	private final int serverId;
+	private final int port;
+	private final String serverAdminToken;
+	private final List<String> privilegeKeys;
+	private final Step failedStep;
+	private final TS3Exception exception;
+	private final long durationMillis;
+
+	public ProvisioningResult(ProvisioningTask task, int serverId, int port, String serverAdminToken,
+	                          List<String> privilegeKeys, Step failedStep, TS3Exception exception, long durationMillis) {
+		this.task = task;
+		this.serverId = serverId;
+		this.port = port;
+		this.serverAdminToken = serverAdminToken;
+		this.privilegeKeys = Collections.unmodifiableList(privilegeKeys);
+		this.failedStep = failedStep;
+		this.exception = exception;
+		this.durationMillis = durationMillis;
+	}
+
+	public ProvisioningTask getTask() {
+		return task;
+	}
+
+	/**
+	 * Returns {@code true} if all steps of the task succeeded.
+	 *
+	 * @return whether the virtual server was fully provisioned
+	 */
+	public boolean isSuccessful() {
+		return failedStep == null;
+	}
+
+	/**
+	 * Gets the ID of the created virtual server.
+	 *
+	 * @return the server ID, or {@code -1} if the server could not be created
+	 */
+	public int getServerId() {
+		return serverId;
+	}
+
+	/**
+	 * Gets the voice port of the created virtual server.
+	 *
+	 * @return the port, or {@code -1} if the server could not be created
+	 */
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * Gets the server admin token that was created together with the virtual server.
+	 *
+	 * @return the server admin token, or {@code null} if the server could not be created
+	 */
+	public String getServerAdminToken() {
+		return serverAdminToken;
+	}
+
+	/**
+	 * Gets the tokens of the created privilege keys, in the order they were added to the task.
+	 *
+	 * @return the privilege key tokens, empty unless all steps succeeded
+	 */
+	public List<String> getPrivilegeKeys() {
+		return privilegeKeys;
+	}
+
+	/**
+	 * Gets the step that failed.
+	 *
+	 * @return the failed step, or {@code null} if provisioning succeeded
+	 */
+	public Step getFailedStep() {
+		return failedStep;
+	}
+
+	/**
+	 * Gets the exception the failed step failed with after its last attempt.
+	 *
+	 * @return the exception, or {@code null} if provisioning succeeded
+	 */
+	public TS3Exception getException() {
+		return exception;
+	}
+
+	/**
+	 * Gets how long provisioning the virtual server took, including retries.
+	 *
+	 * @return the duration in milliseconds
+	 */
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	@Override
+	public String toString() {
+		String outcome = isSuccessful() ? "success" : ("failed at " + failedStep + ": " + exception.getMessage());
+		return "ProvisioningResult{name=" + task.getName() + ", serverId=" + serverId + ", " + outcome
+				+ ", duration=" + durationMillis + "ms}";
+	}
+}
@@ -0,0 +1,254 @@
+package com.github.theholywaffle.teamspeak3.api;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes a virtual server that should be created and configured by a
+ * {@link com.github.theholywaffle.teamspeak3.ServerProvisioner}.
+ * <p>
+ * The server is created with the given name and properties. Then, if set, a snapshot is
+ * deployed to it, the server group permissions are added and the privilege keys are created,
+ * in that order. Group IDs refer to the groups of the server after the snapshot was deployed.
+ * </p><p>
+ * All methods return this task for chaining. A task must not be modified
+ * after it has been passed to the provisioner.
+ * </p>
+ */
+public class ProvisioningTask {
+
+	private final String name;
+	private final Map<VirtualServerProperty, String> properties = new HashMap<>();
+	private String snapshot = null;
+	private Path snapshotFile = null;
+	private final List<GroupPermission> permissions = new ArrayList<>();
+	private final List<PrivilegeKeyTemplate> privilegeKeys = new ArrayList<>();
+
+	/**
+	 * Creates a task for a new virtual server with the given name.
+	 *
+	 * @param name
+	 * 		the name of the virtual server
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code name} is {@code null} or empty
+	 */
+	public ProvisioningTask(String name) {
+		if (name == null || name.isEmpty()) throw new IllegalArgumentException("Server name must be a non-empty string");
+		this.name = name;
+	}
+
+	/**
+	 * Sets a property the virtual server should be created with, e.g. its port or maximum number of clients.
+	 *
+	 * @param property
+	 * 		the property to set
+	 * @param value
+	 * 		the value of the property
+	 *
+	 * @return this task for chaining
+	 */
+	public ProvisioningTask setProperty(VirtualServerProperty property, String value) {
+		properties.put(property, value);
+		return this;
+	}
+
+	/**
+	 * Sets a snapshot to deploy to the virtual server after it has been created.
+	 *
+	 * @param snapshot
+	 * 		the snapshot to deploy, or {@code null} to not deploy a snapshot
+	 *
+	 * @return this task for chaining
+	 */
+	public ProvisioningTask setSnapshot(Snapshot snapshot) {
+		this.snapshot = (snapshot == null) ? null : snapshot.get();
+		this.snapshotFile = null;
+		return this;
+	}
+
+	/**
+	 * Sets a snapshot file to deploy to the virtual server after it has been created.
+	 * The file is streamed from disk every time it is deployed.
+	 *
+	 * @param snapshotFile
+	 * 		the file containing the snapshot, or {@code null} to not deploy a snapshot
+	 *
+	 * @return this task for chaining
+	 *
+	 * @see com.github.theholywaffle.teamspeak3.TS3ApiAsync#deployServerSnapshot(Path)
+	 */
+	public ProvisioningTask setSnapshot(Path snapshotFile) {
+		this.snapshot = null;
+		this.snapshotFile = snapshotFile;
+		return this;
+	}
+
+	/**
+	 * Adds a permission to a server group of the virtual server.
+	 *
+	 * @param groupId
+	 * 		the ID of the server group
+	 * @param permName
+	 * 		the name of the permission
+	 * @param value
+	 * 		the value of the permission
+	 * @param negated
+	 * 		whether the permission should be negated
+	 * @param skipped
+	 * 		whether the permission should be skipped
+	 *
+	 * @return this task for chaining
+	 */
+	public ProvisioningTask addServerGroupPermission(int groupId, String permName, int value, boolean negated, boolean skipped) {
+		permissions.add(new GroupPermission(groupId, permName, value, negated, skipped));
+		return this;
+	}
+
+	/**
+	 * Adds a privilege key that should be created on the virtual server.
+	 * The tokens of the created keys are part of the provisioning result.
+	 *
+	 * @param type
+	 * 		whether the key grants a server group or a channel group
+	 * @param groupId
+	 * 		the ID of the group the key grants
+	 * @param channelId
+	 * 		the ID of the channel for channel group keys, otherwise ignored
+	 * @param description
+	 * 		a description of the key, can be {@code null}
+	 *
+	 * @return this task for chaining
+	 */
+	public ProvisioningTask addPrivilegeKey(PrivilegeKeyType type, int groupId, int channelId, String description) {
+		privilegeKeys.add(new PrivilegeKeyTemplate(type, groupId, channelId, description));
+		return this;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Map<VirtualServerProperty, String> getProperties() {
+		return Collections.unmodifiableMap(properties);
+	}
+
+	public String getSnapshot() {
+		return snapshot;
+	}
+
+	public Path getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	public List<GroupPermission> getServerGroupPermissions() {
+		return Collections.unmodifiableList(permissions);
+	}
+
+	public List<PrivilegeKeyTemplate> getPrivilegeKeys() {
+		return Collections.unmodifiableList(privilegeKeys);
+	}
+
+	@Override
+	public String toString() {
+		return "ProvisioningTask{name=" + name + "}";
+	}
+
+	public static final class GroupPermission {
+
+		private final int groupId;
+		private final String permName;
+		private final int value;
+		private final boolean negated;
+		private final boolean skipped;
+
+		private GroupPermission(int groupId, String permName, int value, boolean negated, boolean skipped) {
+			this.groupId = groupId;
+			this.permName = permName;
+			this.value = value;
+			this.negated = negated;
+			this.skipped = skipped;
+		}
+
+		public int getGroupId() {
+			return groupId;
+		}
+
+		public String getPermName() {
+			return permName;
+		}
+
+		public int getValue() {
+			return value;
+		}
+
+		public boolean isNegated() {
+			return negated;
+		}
+
+		public boolean isSkipped() {
+			return skipped;
+		}
+	}
+
+	public static final class PrivilegeKeyTemplate {
+
+		private final PrivilegeKeyType type;
+		private final int groupId;
+		private final int channelId;
+		private final String description;
+
+		private PrivilegeKeyTemplate(PrivilegeKeyType type, int groupId, int channelId, String description) {
+			this.type = type;
+			this.groupId = groupId;
+			this.channelId = channelId;
+			this.description = description;
+		}
+
+		public PrivilegeKeyType getType() {
+			return type;
+		}
+
+		public int getGroupId() {
+			return groupId;
+		}
+
+		public int getChannelId() {
+			return channelId;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+	}
+}
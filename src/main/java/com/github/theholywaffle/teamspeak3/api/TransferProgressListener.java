@@ -0,0 +1,50 @@
+package com.github.theholywaffle.teamspeak3.api;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+/**
+ * Receives progress updates of a file transfer.
+ *
+ * @see FileTransferOptions#withProgressListener(TransferProgressListener)
+ */
+@FunctionalInterface
+public interface TransferProgressListener {
+
+	/**
+	 * Called after a chunk of a file has been transferred.
+	 * <p>
+	 * This method is called on the thread performing the file transfer,
+	 * blocking it until the method returns. Implementations should therefore return quickly.
+	 * </p>
+	 *
+	 * @param transferredBytes
+	 * 		how many bytes of the file have been transferred so far
+	 * @param totalBytes
+	 * 		the size of the file in bytes
+	 */
+	void onProgress(long transferredBytes, long totalBytes);
+}
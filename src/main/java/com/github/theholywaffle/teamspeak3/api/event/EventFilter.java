@@ -0,0 +1,207 @@
+package com.github.theholywaffle.teamspeak3.api.event;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.github.theholywaffle.teamspeak3.api.TextMessageTargetMode;
+
+import java.util.Arrays;
+
+/**
+ * Describes which events of one type a listener is interested in.
+ * <p>
+ * Filters are immutable, every method returns a new filter with an additional criterion.
+ * An event has to match all criteria of a filter. Unlike checks inside of a listener, the criteria
+ * are indexed by the event manager, so the cost of dispatching an event depends on the number of
+ * listeners interested in it, rather than on the total number of listeners.
+ * </p><p>
+ * The <i>channel</i> of an event is
+ * </p><ul>
+ * <li>the target channel for {@link ClientJoinEvent}s and {@link ClientMovedEvent}s,</li>
+ * <li>the channel the client left from for {@link ClientLeaveEvent}s,</li>
+ * <li>the affected channel for channel events, e.g. {@link ChannelEditedEvent}s.</li>
+ * </ul><p>
+ * Other events, including {@link TextMessageEvent}s, have no channel and never match a channel criterion.
+ * </p>
+ *
+ * @param <E>
+ * 		the type of event
+ *
+ * @see com.github.theholywaffle.teamspeak3.TS3ApiAsync#addEventListener(EventFilter, java.util.function.Consumer)
+ */
+public final class EventFilter<E extends TS3Event> {
+
+	private final Class<E> eventClass;
+	private final int[] channelIds;
+	private final int channelFrom;
+	private final int channelTo;
+	private final String invokerUniqueId;
+	private final TextMessageTargetMode targetMode;
+
+	private EventFilter(Class<E> eventClass, int[] channelIds, int channelFrom, int channelTo,
+	                    String invokerUniqueId, TextMessageTargetMode targetMode) {
+		this.eventClass = eventClass;
+		this.channelIds = channelIds;
+		this.channelFrom = channelFrom;
+		this.channelTo = channelTo;
+		this.invokerUniqueId = invokerUniqueId;
+		this.targetMode = targetMode;
+	}
+
+	/**
+	 * Creates a filter matching all events of the given type.
+	 *
+	 * @param eventClass
+	 * 		the class of events to match, e.g. {@code TextMessageEvent.class}
+	 * @param <E>
+	 * 		the type of event
+	 *
+	 * @return a new filter
+	 */
+	public static <E extends TS3Event> EventFilter<E> of(Class<E> eventClass) {
+		if (eventClass == null) throw new IllegalArgumentException("eventClass cannot be null!");
+		return new EventFilter<>(eventClass, null, 1, 0, null, null);
+	}
+
+	/**
+	 * Only matches events in one of the given channels.
+	 *
+	 * @param channelIds
+	 * 		the IDs of the channels, e.g. all channels of a subtree
+	 *
+	 * @return a new filter with this additional criterion
+	 */
+	public EventFilter<E> inChannels(int... channelIds) {
+		if (channelIds == null || channelIds.length == 0) {
+			throw new IllegalArgumentException("At least one channel ID required");
+		}
+
+		// Duplicates would register the route several times under the same channel
+		int[] ids = Arrays.stream(channelIds).distinct().sorted().toArray();
+		return new EventFilter<>(eventClass, ids, channelFrom, channelTo, invokerUniqueId, targetMode);
+	}
+
+	/**
+	 * Only matches events in channels whose ID lies within the given range.
+	 *
+	 * @param fromChannelId
+	 * 		the lowest matching channel ID
+	 * @param toChannelId
+	 * 		the highest matching channel ID, inclusive
+	 *
+	 * @return a new filter with this additional criterion
+	 */
+	public EventFilter<E> inChannelRange(int fromChannelId, int toChannelId) {
+		if (fromChannelId > toChannelId) throw new IllegalArgumentException("Empty channel range");
+		return new EventFilter<>(eventClass, channelIds, fromChannelId, toChannelId, invokerUniqueId, targetMode);
+	}
+
+	/**
+	 * Only matches events caused by the client with the given unique identifier.
+	 *
+	 * @param uniqueId
+	 * 		the unique identifier of the invoker
+	 *
+	 * @return a new filter with this additional criterion
+	 *
+	 * @see BaseEvent#getInvokerUniqueId()
+	 */
+	public EventFilter<E> fromInvoker(String uniqueId) {
+		if (uniqueId == null) throw new IllegalArgumentException("uniqueId cannot be null!");
+		return new EventFilter<>(eventClass, channelIds, channelFrom, channelTo, uniqueId, targetMode);
+	}
+
+	/**
+	 * Only matches text messages sent to the given target.
+	 *
+	 * @param mode
+	 * 		the target mode of the text message
+	 *
+	 * @return a new filter with this additional criterion
+	 *
+	 * @see TextMessageEvent#getTargetMode()
+	 */
+	public EventFilter<E> withTargetMode(TextMessageTargetMode mode) {
+		if (mode == null) throw new IllegalArgumentException("mode cannot be null!");
+		return new EventFilter<>(eventClass, channelIds, channelFrom, channelTo, invokerUniqueId, mode);
+	}
+
+	public Class<E> getEventClass() {
+		return eventClass;
+	}
+
+	/**
+	 * @return the sorted channel IDs to match, or {@code null} if there is no such criterion
+	 */
+	public int[] getChannelIds() {
+		return (channelIds == null) ? null : channelIds.clone();
+	}
+
+	public boolean hasChannelRange() {
+		return channelFrom <= channelTo;
+	}
+
+	public int getChannelRangeFrom() {
+		return channelFrom;
+	}
+
+	public int getChannelRangeTo() {
+		return channelTo;
+	}
+
+	/**
+	 * @return the unique identifier of the invoker to match, or {@code null} if there is no such criterion
+	 */
+	public String getInvokerUniqueId() {
+		return invokerUniqueId;
+	}
+
+	/**
+	 * @return the target mode to match, or {@code null} if there is no such criterion
+	 */
+	public TextMessageTargetMode getTargetMode() {
+		return targetMode;
+	}
+
+	/**
+	 * Checks whether an event with the given properties matches this filter.
+	 *
+	 * @param channelId
+	 * 		the channel of the event, or {@code -1} if it has none
+	 * @param uniqueId
+	 * 		the unique identifier of the invoker, or an empty string if it has none
+	 * @param mode
+	 * 		the target mode of a text message, or {@code null}
+	 *
+	 * @return whether all criteria are fulfilled
+	 */
+	public boolean matches(int channelId, String uniqueId, TextMessageTargetMode mode) {
+		if (channelIds != null && (channelId < 0 || Arrays.binarySearch(channelIds, channelId) < 0)) return false;
+		if (hasChannelRange() && (channelId < channelFrom || channelId > channelTo)) return false;
+		if (invokerUniqueId != null && !invokerUniqueId.equals(uniqueId)) return false;
+		return targetMode == null || targetMode == mode;
+	}
+}
@@ -0,0 +1,53 @@
+package com.github.theholywaffle.teamspeak3.api.event;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.List;
+
+/**
+ * A listener receiving events in batches instead of one at a time.
+ * <p>
+ * All events fired during a time window are collected and delivered together once the window
+ * ends. Within a batch, an event about a client or channel replaces any earlier event of the
+ * same type about the same client or channel, so for example only the last move of each client
+ * is delivered. Edit events only contain the changed properties and are never replaced.
+ * Events are ordered by the time they were fired.
+ * </p>
+ *
+ * @see com.github.theholywaffle.teamspeak3.TS3ApiAsync#addBatchListener(TS3BatchListener, int, Class...)
+ */
+@FunctionalInterface
+public interface TS3BatchListener {
+
+	/**
+	 * Handles all events collected during one time window.
+	 *
+	 * @param events
+	 * 		an unmodifiable, non-empty list of events
+	 */
+	void onEvents(List<TS3Event> events);
+}
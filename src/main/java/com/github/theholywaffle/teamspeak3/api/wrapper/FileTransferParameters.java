@@ -94,6 +94,18 @@ public class FileTransferParameters extends Wrapper {
 		return getLong("size");
 	}
 
+	/**
+	 * Gets the position in the file at which the transfer starts.
+	 * Only present if this is a successfully started upload. If an upload is resumed,
+	 * this is the number of bytes the file server already received in an earlier upload.
+	 *
+	 * @return the position in the file at which the upload starts
+	 */
+	public long getSeekPosition() {
+		final long seekPosition = getLong("seekpos");
+		return seekPosition == -1 ? 0 : seekPosition;
+	}
+
 	/**
 	 * Gets a {@link QueryError} that can be used when throwing an exception.
 	 *
@@ -28,15 +28,27 @@ package com.github.theholywaffle.teamspeak3.commands;
 
 import com.github.theholywaffle.teamspeak3.api.CommandFuture;
 import com.github.theholywaffle.teamspeak3.commands.parameter.Parameter;
+import com.github.theholywaffle.teamspeak3.commands.parameter.StreamParam;
 import com.github.theholywaffle.teamspeak3.commands.response.DefaultArrayResponse;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 public class Command {
 
+	// Commands that change the login, selected virtual server or registrations every later command depends on
+	private static final Set<String> SESSION_COMMANDS = new HashSet<>(Arrays.asList(
+			"login", "logout", "use", "servernotifyregister", "servernotifyunregister", "clientupdate", "quit"));
+
 	private final String name;
 	private final Collection<Parameter> parameters;
 	private final CommandFuture<DefaultArrayResponse> future;
+	private Writer responseSink = null; // null if the response is parsed
+	private volatile boolean responseStreamed = false;
 
 	Command(String commandName, Collection<Parameter> parameters) {
 		this.name = commandName;
@@ -52,6 +64,75 @@ public class Command {
 		return future;
 	}
 
+	/**
+	 * Makes the reader copy the raw response of this command to {@code sink} as it arrives,
+	 * instead of buffering and parsing it. Multiple response lines are separated by {@code |},
+	 * just like in {@link DefaultArrayResponse#getRawResponse()}. The sink is closed once the
+	 * response is complete, and the future of the command then completes with an empty response.
+	 * If the command is dropped, cancelled or failed before its response arrives, the sink is
+	 * closed before the future completes.
+	 * <p>
+	 * The sink is written to by the reading thread, so it should not block for long.
+	 * </p>
+	 *
+	 * @param sink
+	 * 		the writer the raw response should be copied to
+	 */
+	public void streamResponseTo(Writer sink) {
+		this.responseSink = sink;
+	}
+
+	public Writer getResponseSink() {
+		return responseSink;
+	}
+
+	/**
+	 * Marks that the reader has started copying the response to the sink.
+	 * Such a command cannot be re-sent after a reconnect, as the sink already holds part of the response.
+	 */
+	public void markResponseStreamed() {
+		responseStreamed = true;
+	}
+
+	public boolean isResponseStreamed() {
+		return responseStreamed;
+	}
+
+	/**
+	 * Returns {@code false} for commands that change the session state of the query, like {@code use} or
+	 * {@code login}. Dropping such a command would make every later command run in the wrong context.
+	 *
+	 * @return whether this command may be dropped from a full command queue
+	 */
+	public boolean isDroppable() {
+		return !SESSION_COMMANDS.contains(name);
+	}
+
+	/**
+	 * Writes this command to {@code out}, copying the contents of streamed parameters
+	 * instead of building the whole command in memory first.
+	 *
+	 * @param out
+	 * 		the writer to write the command to
+	 *
+	 * @throws IOException
+	 * 		if a streamed parameter could not be read
+	 */
+	public void writeTo(Writer out) throws IOException {
+		StringBuilder builder = new StringBuilder(name);
+		for (Parameter param : parameters) {
+			builder.append(' ');
+			if (param instanceof StreamParam) {
+				out.append(builder);
+				builder.setLength(0);
+				((StreamParam) param).writeTo(out);
+			} else {
+				param.appendTo(builder);
+			}
+		}
+		out.append(builder);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder(name);
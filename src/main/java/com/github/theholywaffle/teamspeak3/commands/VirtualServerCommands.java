@@ -30,6 +30,7 @@ import com.github.theholywaffle.teamspeak3.api.VirtualServerProperty;
 import com.github.theholywaffle.teamspeak3.commands.parameter.KeyValueParam;
 import com.github.theholywaffle.teamspeak3.commands.parameter.OptionParam;
 import com.github.theholywaffle.teamspeak3.commands.parameter.RawParam;
+import com.github.theholywaffle.teamspeak3.commands.parameter.StreamParam;
 
 import java.util.Map;
 
@@ -89,6 +90,12 @@ public final class VirtualServerCommands {
 		return new CommandBuilder("serversnapshotdeploy", 1).add(new RawParam(snapshot)).build();
 	}
 
+	public static Command serverSnapshotDeploy(StreamParam snapshot) {
+		if (snapshot == null) throw new IllegalArgumentException("Server snapshot cannot be null");
+
+		return new CommandBuilder("serversnapshotdeploy", 1).add(snapshot).build();
+	}
+
 	public static Command serverStart(int id) {
 		return new CommandBuilder("serverstart", 1).add(new KeyValueParam("sid", id)).build();
 	}
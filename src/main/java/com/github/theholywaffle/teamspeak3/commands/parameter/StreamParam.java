@@ -0,0 +1,86 @@
+package com.github.theholywaffle.teamspeak3.commands.parameter;
+
+/*
+ * #%L
+ * TeamSpeak 3 Java API
+ * %%
+ * Copyright (C) 2014 Bert De Geyter
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * A raw parameter whose contents are copied from a reader while the command is being sent,
+ * so that large payloads don't need to be held in memory.
+ * <p>
+ * The source is opened again every time the command is written.
+ * </p>
+ */
+public class StreamParam extends Parameter {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Source source;
+	private final String description;
+
+	public StreamParam(Source source, String description) {
+		this.source = source;
+		this.description = description;
+	}
+
+	/**
+	 * Only appends a description of the parameter, the contents are streamed by {@link #writeTo(Writer)}.
+	 */
+	@Override
+	public void appendTo(StringBuilder str) {
+		str.append('<').append(description).append('>');
+	}
+
+	/**
+	 * Copies the contents of the source to {@code out}.
+	 *
+	 * @throws IOException
+	 * 		if the source could not be read or contains a line break, which would end the command early
+	 * 		and make the server run the rest of the contents as separate commands
+	 */
+	public void writeTo(Writer out) throws IOException {
+		try (Reader in = source.open()) {
+			char[] buffer = new char[BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				for (int i = 0; i < read; ++i) {
+					if (buffer[i] == '\n' || buffer[i] == '\r') {
+						throw new IOException("Line break in " + description);
+					}
+				}
+				out.write(buffer, 0, read);
+			}
+		}
+	}
+
+	public interface Source {
+
+		Reader open() throws IOException;
+	}
+}
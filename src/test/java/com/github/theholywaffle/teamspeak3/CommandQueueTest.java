@@ -0,0 +1,124 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.TS3Query.QueueFullPolicy;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3CommandQueueFullException;
+import com.github.theholywaffle.teamspeak3.commands.Command;
+import com.github.theholywaffle.teamspeak3.commands.QueryCommands;
+import com.github.theholywaffle.teamspeak3.commands.VirtualServerCommands;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CommandQueueTest {
+
+	@Test
+	public void enqueueCommand_DropOldestKeepsSessionCommands() {
+		final CommandQueue queue = CommandQueue.newGlobalQueue(new TS3Query(), true, 2, QueueFullPolicy.DROP_OLDEST);
+		final Command use = QueryCommands.useId(1, null);
+		final Command whoAmI = QueryCommands.whoAmI();
+		final Command next = QueryCommands.whoAmI();
+
+		queue.enqueueCommand(use);
+		queue.enqueueCommand(whoAmI);
+		queue.enqueueCommand(next);
+
+		Assert.assertFalse(use.getFuture().isDone());
+		Assert.assertThrows(TS3CommandQueueFullException.class, whoAmI.getFuture()::getUninterruptibly);
+		Assert.assertEquals(2, queue.size());
+	}
+
+	@Test
+	public void enqueueCommand_DropOldestRejectsWhenOnlySessionCommandsQueued() {
+		final CommandQueue queue = CommandQueue.newGlobalQueue(new TS3Query(), true, 1, QueueFullPolicy.DROP_OLDEST);
+		final Command logIn = QueryCommands.logIn("serveradmin", "secret");
+		final Command whoAmI = QueryCommands.whoAmI();
+
+		queue.enqueueCommand(logIn);
+		queue.enqueueCommand(whoAmI);
+
+		Assert.assertFalse(logIn.getFuture().isDone());
+		Assert.assertTrue(whoAmI.getFuture().hasFailed());
+	}
+
+	@Test
+	public void enqueueCommand_ClosesSinkOfRejectedCommand() {
+		final CommandQueue queue = CommandQueue.newGlobalQueue(new TS3Query(), true, 1, QueueFullPolicy.FAIL);
+		queue.enqueueCommand(QueryCommands.whoAmI());
+		final Command snapshot = VirtualServerCommands.serverSnapshotCreate();
+		final ClosingWriter sink = new ClosingWriter();
+		snapshot.streamResponseTo(sink);
+		// Like createServerSnapshot(Path, boolean), which deletes its file on failure
+		final boolean[] closedOnFailure = {false};
+		snapshot.getFuture().onFailure(e -> closedOnFailure[0] = sink.closed);
+
+		queue.enqueueCommand(snapshot);
+
+		Assert.assertTrue(snapshot.getFuture().hasFailed());
+		Assert.assertTrue(closedOnFailure[0]);
+	}
+
+	@Test
+	public void enqueueCommand_ClosesSinkOfDroppedAndCancelledCommands() {
+		final CommandQueue queue = CommandQueue.newGlobalQueue(new TS3Query(), true, 1, QueueFullPolicy.DROP_OLDEST);
+		final Command dropped = VirtualServerCommands.serverSnapshotCreate();
+		final ClosingWriter droppedSink = new ClosingWriter();
+		dropped.streamResponseTo(droppedSink);
+		final Command cancelled = VirtualServerCommands.serverSnapshotCreate();
+		final ClosingWriter cancelledSink = new ClosingWriter();
+		cancelled.streamResponseTo(cancelledSink);
+
+		queue.enqueueCommand(dropped);
+		queue.enqueueCommand(cancelled);
+		Assert.assertTrue(dropped.getFuture().hasFailed());
+		Assert.assertTrue(droppedSink.closed);
+
+		cancelled.getFuture().cancel(false);
+		Assert.assertTrue(cancelledSink.closed);
+		Assert.assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void failRemainingCommands_ClosesSinks() {
+		final CommandQueue queue = CommandQueue.newGlobalQueue(new TS3Query(), true, Integer.MAX_VALUE, QueueFullPolicy.BLOCK);
+		final Command snapshot = VirtualServerCommands.serverSnapshotCreate();
+		final ClosingWriter sink = new ClosingWriter();
+		snapshot.streamResponseTo(sink);
+
+		queue.enqueueCommand(snapshot);
+		queue.failRemainingCommands();
+
+		Assert.assertTrue(snapshot.getFuture().hasFailed());
+		Assert.assertTrue(sink.closed);
+	}
+
+	@Test
+	public void transferCommand_SkipsCancelledCommandsInOrder() throws InterruptedException {
+		final CommandQueue queue = CommandQueue.newGlobalQueue(new TS3Query(), true, Integer.MAX_VALUE, QueueFullPolicy.BLOCK);
+		final List<Command> commands = new ArrayList<>();
+		for (int i = 0; i < 100_000; ++i) {
+			final Command command = QueryCommands.whoAmI();
+			commands.add(command);
+			queue.enqueueCommand(command);
+		}
+		for (int i = 1; i < commands.size() - 1; ++i) {
+			commands.get(i).getFuture().cancel(false);
+		}
+
+		Assert.assertEquals(2, queue.size());
+		Assert.assertSame(commands.get(0), queue.transferCommand());
+		Assert.assertSame(commands.get(commands.size() - 1), queue.transferCommand());
+	}
+
+	private static final class ClosingWriter extends StringWriter {
+
+		boolean closed = false;
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.DatabasePruneResult;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3CommandFailedException;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3QueryShutDownException;
+import com.github.theholywaffle.teamspeak3.api.wrapper.DatabaseClient;
+import com.github.theholywaffle.teamspeak3.api.wrapper.QueryError;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class DatabasePrunerTest {
+
+	@Test
+	public void prune_DeletesMatchingClientsOnAllConnections() {
+		final List<DatabaseClient> database = createDatabase(1000);
+		final FakeApi first = new FakeApi(database);
+		final FakeApi second = new FakeApi(database);
+		final List<Integer> reported = new ArrayList<>();
+
+		final DatabasePruneResult result = new DatabasePruner(first, second)
+				.addFilter(client -> client.getDatabaseId() % 2 == 0)
+				.addFilter(client -> client.getDatabaseId() > 100)
+				.setMaxPendingDeletions(8)
+				.setDeletionListener(client -> reported.add(client.getDatabaseId()))
+				.prune().getUninterruptibly();
+
+		Assert.assertEquals(1000, result.getScannedClients());
+		Assert.assertEquals(450, result.getMatchedClients());
+		Assert.assertEquals(450, result.getDeletedClients());
+		Assert.assertEquals(450, reported.size());
+		Assert.assertEquals(550, database.size());
+		for (DatabaseClient client : database) {
+			Assert.assertTrue(client.getDatabaseId() % 2 == 1 || client.getDatabaseId() <= 100);
+		}
+		Assert.assertEquals(225, first.deletions);
+		Assert.assertEquals(225, second.deletions);
+	}
+
+	@Test
+	public void prune_DryRunOnlyReportsMatches() {
+		final List<DatabaseClient> database = createDatabase(500);
+		final List<Integer> reported = new ArrayList<>();
+
+		final DatabasePruneResult result = new DatabasePruner(new FakeApi(database))
+				.addFilter(DatabasePruner.inactiveFor(100, TimeUnit.DAYS))
+				.setDryRun(true)
+				.setDeletionListener(client -> reported.add(client.getDatabaseId()))
+				.prune().getUninterruptibly();
+
+		Assert.assertTrue(result.isDryRun());
+		Assert.assertEquals(500, database.size());
+		Assert.assertEquals(400, result.getMatchedClients());
+		Assert.assertEquals(0, result.getDeletedClients());
+		Assert.assertEquals(400, reported.size());
+		Assert.assertTrue(reported.stream().allMatch(id -> id <= 400));
+	}
+
+	@Test
+	public void prune_CountsRefusedDeletions() {
+		final List<DatabaseClient> database = createDatabase(10);
+		final FakeApi api = new FakeApi(database) {
+			@Override
+			public CommandFuture<Void> deleteDatabaseClientProperties(int clientDBId) {
+				if (clientDBId != 5) return super.deleteDatabaseClientProperties(clientDBId);
+				final CommandFuture<Void> future = new CommandFuture<>();
+				final Map<String, String> error = new HashMap<>();
+				error.put("id", "512");
+				future.fail(new TS3CommandFailedException(new QueryError(error), "clientdbdelete"));
+				return future;
+			}
+		};
+
+		final DatabasePruneResult result = new DatabasePruner(api)
+				.addFilter(client -> true)
+				.prune().getUninterruptibly();
+
+		Assert.assertEquals(9, result.getDeletedClients());
+		Assert.assertEquals(1, result.getFailedDeletions());
+		Assert.assertEquals(1, database.size());
+	}
+
+	@Test
+	public void prune_ResumesFromCheckpoint() throws IOException {
+		final List<DatabaseClient> database = createDatabase(1000);
+		final Path checkpoint = Files.createTempDirectory("prune").resolve("checkpoint");
+		final FakeApi closing = new FakeApi(database) {
+			@Override
+			public CommandFuture<Void> deleteDatabaseClientProperties(int clientDBId) {
+				if (clientDBId > 500) return super.deleteDatabaseClientProperties(clientDBId);
+				final CommandFuture<Void> future = new CommandFuture<>();
+				future.fail(new TS3QueryShutDownException());
+				return future;
+			}
+		};
+		final DatabasePruner pruner = new DatabasePruner(closing)
+				.addFilter(client -> client.getDatabaseId() % 3 == 0)
+				.setCheckpoint(checkpoint);
+
+		Assert.assertTrue(pruner.prune().hasFailed());
+		Assert.assertTrue(Files.exists(checkpoint));
+
+		final DatabasePruneResult result = new DatabasePruner(new FakeApi(database))
+				.addFilter(client -> client.getDatabaseId() % 3 == 0)
+				.setCheckpoint(checkpoint)
+				.prune().getUninterruptibly();
+
+		Assert.assertTrue(result.getScannedClients() < 1000 - 333 / 2);
+		Assert.assertEquals(1000 - 333, database.size());
+		Assert.assertTrue(database.stream().noneMatch(client -> client.getDatabaseId() % 3 == 0));
+		Assert.assertFalse(Files.exists(checkpoint));
+	}
+
+	@Test
+	public void prune_RequiresFilter() {
+		final DatabasePruner pruner = new DatabasePruner(new FakeApi(new ArrayList<>()));
+		Assert.assertThrows(IllegalStateException.class, pruner::prune);
+	}
+
+	/**
+	 * Creates clients with the IDs {@code 1} to {@code size}, client {@code n} last connected {@code size - n} days ago.
+	 */
+	private static List<DatabaseClient> createDatabase(int size) {
+		final long now = System.currentTimeMillis() / 1000;
+		final List<DatabaseClient> database = new ArrayList<>(size);
+		for (int i = 1; i <= size; ++i) {
+			final Map<String, String> map = new HashMap<>();
+			map.put("cldbid", String.valueOf(i));
+			map.put("client_lastconnected", String.valueOf(now - TimeUnit.DAYS.toSeconds(size - i)));
+			database.add(new DatabaseClient(map));
+		}
+		return database;
+	}
+
+	private static class FakeApi extends TS3ApiAsync {
+
+		private final List<DatabaseClient> database;
+		int deletions = 0;
+
+		FakeApi(List<DatabaseClient> database) {
+			super(null, null);
+			this.database = database;
+		}
+
+		@Override
+		public CommandFuture<Integer> getDatabaseClientCount() {
+			return CommandFuture.immediate(database.size());
+		}
+
+		@Override
+		public CommandFuture<List<DatabaseClient>> getDatabaseClients(int offset, int count) {
+			final int end = Math.min(offset + count, database.size());
+			if (offset >= end) return CommandFuture.immediate(new ArrayList<>());
+			return CommandFuture.immediate(new ArrayList<>(database.subList(offset, end)));
+		}
+
+		@Override
+		public CommandFuture<Void> deleteDatabaseClientProperties(int clientDBId) {
+			++deletions;
+			final List<DatabaseClient> remaining = database.stream()
+					.filter(client -> client.getDatabaseId() != clientDBId)
+					.collect(Collectors.toList());
+			database.clear();
+			database.addAll(remaining);
+			return CommandFuture.immediate(null);
+		}
+	}
+}
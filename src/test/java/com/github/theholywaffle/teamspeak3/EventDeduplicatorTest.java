@@ -0,0 +1,49 @@
+package com.github.theholywaffle.teamspeak3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class EventDeduplicatorTest {
+
+	private static final String MOVE_5 = "notifyclientmoved ctid=2 reasonid=0 clid=5";
+	private static final String MOVE_6 = "notifyclientmoved ctid=2 reasonid=0 clid=6";
+
+	@Test
+	public void isDuplicate_DetectsNonAdjacentDuplicates() {
+		final EventDeduplicator deduplicator = new EventDeduplicator(8, TimeUnit.SECONDS.toNanos(10));
+
+		Assert.assertFalse(deduplicator.isDuplicate(MOVE_5));
+		Assert.assertFalse(deduplicator.isDuplicate(MOVE_6));
+		Assert.assertTrue(deduplicator.isDuplicate(MOVE_5));
+		Assert.assertTrue(deduplicator.isDuplicate(MOVE_6));
+		Assert.assertTrue(deduplicator.isDuplicate(MOVE_5));
+	}
+
+	@Test
+	public void isDuplicate_ForgetsLinesOutsideWindow() {
+		final EventDeduplicator deduplicator = new EventDeduplicator(1, TimeUnit.SECONDS.toNanos(10));
+
+		Assert.assertFalse(deduplicator.isDuplicate(MOVE_5));
+		Assert.assertFalse(deduplicator.isDuplicate(MOVE_6));
+		Assert.assertFalse(deduplicator.isDuplicate(MOVE_5));
+	}
+
+	@Test
+	public void isDuplicate_ForgetsLinesAfterHorizon() {
+		final EventDeduplicator deduplicator = new EventDeduplicator(8, 0L);
+
+		Assert.assertFalse(deduplicator.isDuplicate(MOVE_5));
+		Assert.assertFalse(deduplicator.isDuplicate(MOVE_5));
+	}
+
+	@Test
+	public void isDuplicate_IgnoresTextMessages() {
+		final EventDeduplicator deduplicator = new EventDeduplicator(8, TimeUnit.SECONDS.toNanos(10));
+		final String message = "notifytextmessage targetmode=3 msg=hi invokerid=1 invokername=a invokeruid=b";
+
+		Assert.assertFalse(deduplicator.isDuplicate(message));
+		Assert.assertFalse(deduplicator.isDuplicate(message));
+	}
+}
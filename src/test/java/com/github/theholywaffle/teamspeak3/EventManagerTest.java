@@ -0,0 +1,335 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.TextMessageTargetMode;
+import com.github.theholywaffle.teamspeak3.api.event.ChannelEditedEvent;
+import com.github.theholywaffle.teamspeak3.api.event.ClientJoinEvent;
+import com.github.theholywaffle.teamspeak3.api.event.ClientLeaveEvent;
+import com.github.theholywaffle.teamspeak3.api.event.ClientMovedEvent;
+import com.github.theholywaffle.teamspeak3.api.event.EventFilter;
+import com.github.theholywaffle.teamspeak3.api.event.TS3Event;
+import com.github.theholywaffle.teamspeak3.api.event.TS3EventAdapter;
+import com.github.theholywaffle.teamspeak3.api.event.TextMessageEvent;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3EventTimeoutException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.theholywaffle.teamspeak3.TS3Query.BacklogPolicy;
+import com.github.theholywaffle.teamspeak3.TS3Query.EventWaitStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class EventManagerTest {
+
+	private static final String TEXT_MESSAGE = "targetmode=3 msg=hello invokerid=1 invokername=Bert invokeruid=abc=";
+	private static final String CLIENT_MOVED = "ctid=2 reasonid=0 clid=5";
+
+	private static EventManager newEventManager() {
+		// Run listener tasks on the calling thread so the tests are deterministic
+		TS3Config config = new TS3Config().setUserExecutor(Runnable::run);
+		return new TS3Query(config).getEventManager();
+	}
+
+	@Test
+	public void fireEvent_AdapterOnlyReceivesOverriddenEvents() {
+		final EventManager manager = newEventManager();
+		final List<String> calls = new ArrayList<>();
+		manager.addListeners(new TS3EventAdapter() {
+			@Override
+			public void onTextMessage(TextMessageEvent e) {
+				calls.add(e.getMessage());
+			}
+		});
+
+		manager.fireEvent("notifyclientmoved", CLIENT_MOVED);
+		manager.fireEvent("notifytextmessage", TEXT_MESSAGE);
+		Assert.assertEquals("[hello]", calls.toString());
+	}
+
+	@Test
+	public void fireEvent_UnwantedEventIsNotParsed() {
+		final EventManager manager = newEventManager();
+		manager.addListener(TextMessageEvent.class, e -> {});
+
+		// Would throw a TS3UnknownEventException if it was parsed
+		manager.fireEvent("notifyunknown", "a=b");
+	}
+
+	@Test
+	public void addListener_ReceivesOnlyItsEventType() {
+		final EventManager manager = newEventManager();
+		final List<Integer> moves = new ArrayList<>();
+		final Consumer<ClientMovedEvent> listener = e -> moves.add(e.getClientId());
+		manager.addListener(ClientMovedEvent.class, listener);
+
+		manager.fireEvent("notifytextmessage", TEXT_MESSAGE);
+		manager.fireEvent("notifyclientmoved", CLIENT_MOVED);
+		Assert.assertEquals("[5]", moves.toString());
+
+		manager.removeListener(ClientMovedEvent.class, listener);
+		manager.fireEvent("notifyclientmoved", CLIENT_MOVED);
+		Assert.assertEquals(1, moves.size());
+	}
+
+	@Test
+	public void ringBuffer_DeliversAllEventsInOrderToEveryListener() throws InterruptedException {
+		final int eventCount = 1000;
+		final TS3Config config = new TS3Config().setEventRingBuffer(8, EventWaitStrategy.BLOCKING);
+		final EventManager manager = new TS3Query(config).getEventManager();
+
+		final List<Integer> fast = Collections.synchronizedList(new ArrayList<>());
+		final List<Integer> slow = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch done = new CountDownLatch(2 * eventCount);
+		manager.addListener(ClientMovedEvent.class, e -> {
+			fast.add(e.getClientId());
+			done.countDown();
+		});
+		manager.addListener(ClientMovedEvent.class, e -> {
+			if (e.getClientId() % 100 == 0) Thread.yield();
+			slow.add(e.getClientId());
+			done.countDown();
+		});
+
+		for (int i = 0; i < eventCount; ++i) {
+			manager.fireEvent("notifyclientmoved", "ctid=2 reasonid=0 clid=" + i);
+		}
+
+		Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < eventCount; ++i) {
+			Assert.assertEquals(Integer.valueOf(i), fast.get(i));
+			Assert.assertEquals(Integer.valueOf(i), slow.get(i));
+		}
+		manager.shutDown();
+	}
+
+	@Test
+	public void backlog_CoalescePendingEventsByKey() {
+		final List<Runnable> tasks = new ArrayList<>();
+		final TS3Config config = new TS3Config().setUserExecutor(tasks::add)
+				.setListenerBacklog(100, BacklogPolicy.COALESCE);
+		final EventManager manager = new TS3Query(config).getEventManager();
+		final List<String> moves = new ArrayList<>();
+		manager.addListener(ClientMovedEvent.class, e -> moves.add(e.getClientId() + "->" + e.getTargetChannelId()));
+
+		manager.fireEvent("notifyclientmoved", "ctid=1 reasonid=0 clid=5");
+		manager.fireEvent("notifyclientmoved", "ctid=1 reasonid=0 clid=6");
+		manager.fireEvent("notifyclientmoved", "ctid=2 reasonid=0 clid=5");
+		manager.fireEvent("notifyclientmoved", "ctid=3 reasonid=0 clid=5");
+		tasks.forEach(Runnable::run);
+
+		Assert.assertEquals("[5->3, 6->1]", moves.toString());
+	}
+
+	@Test
+	public void backlog_CoalesceKeepsOrderOfEventsAboutSameClient() {
+		final List<Runnable> tasks = new ArrayList<>();
+		final TS3Config config = new TS3Config().setUserExecutor(tasks::add)
+				.setListenerBacklog(100, BacklogPolicy.COALESCE);
+		final EventManager manager = new TS3Query(config).getEventManager();
+		final List<String> calls = new ArrayList<>();
+		manager.addListeners(new TS3EventAdapter() {
+			@Override
+			public void onClientJoin(ClientJoinEvent e) {
+				calls.add("join " + e.getClientNickname());
+			}
+
+			@Override
+			public void onClientLeave(ClientLeaveEvent e) {
+				calls.add("leave " + e.getClientId());
+			}
+		});
+
+		// Client ID 5 is reused by another client, its join must not overtake the leave
+		manager.fireEvent("notifycliententerview", "cfid=0 ctid=1 reasonid=0 clid=5 client_nickname=Alice");
+		manager.fireEvent("notifyclientleftview", "cfid=1 ctid=0 reasonid=8 clid=5");
+		manager.fireEvent("notifycliententerview", "cfid=0 ctid=1 reasonid=0 clid=5 client_nickname=Bob");
+		tasks.forEach(Runnable::run);
+
+		Assert.assertEquals("[join Alice, leave 5, join Bob]", calls.toString());
+	}
+
+	@Test
+	public void backlog_CoalesceKeepsEveryEditEvent() {
+		final List<Runnable> tasks = new ArrayList<>();
+		final TS3Config config = new TS3Config().setUserExecutor(tasks::add)
+				.setListenerBacklog(100, BacklogPolicy.COALESCE);
+		final EventManager manager = new TS3Query(config).getEventManager();
+		final List<String> edits = new ArrayList<>();
+		manager.addListener(ChannelEditedEvent.class, e -> edits.add(e.get("channel_name") + "/" + e.get("channel_topic")));
+
+		manager.fireEvent("notifychanneledited", "cid=1 reasonid=10 channel_name=Lobby invokerid=1 invokername=A invokeruid=a");
+		manager.fireEvent("notifychanneledited", "cid=1 reasonid=10 channel_topic=Welcome invokerid=1 invokername=A invokeruid=a");
+		tasks.forEach(Runnable::run);
+
+		Assert.assertEquals("[Lobby/, /Welcome]", edits.toString());
+	}
+
+	@Test
+	public void backlog_DropNewestWhenFull() {
+		final List<Runnable> tasks = new ArrayList<>();
+		final TS3Config config = new TS3Config().setUserExecutor(tasks::add)
+				.setListenerBacklog(2, BacklogPolicy.DROP_NEWEST);
+		final EventManager manager = new TS3Query(config).getEventManager();
+		final List<Integer> moves = new ArrayList<>();
+		manager.addListener(ClientMovedEvent.class, e -> moves.add(e.getClientId()));
+
+		for (int i = 1; i <= 4; ++i) {
+			manager.fireEvent("notifyclientmoved", "ctid=1 reasonid=0 clid=" + i);
+		}
+		tasks.forEach(Runnable::run);
+
+		Assert.assertEquals("[1, 2]", moves.toString());
+	}
+
+	@Test
+	public void partitionedListener_HandlesDifferentClientsInParallel() throws InterruptedException {
+		final EventManager manager = new TS3Query().getEventManager();
+		final CountDownLatch clientOneDone = new CountDownLatch(1);
+		final CountDownLatch secondHandled = new CountDownLatch(1);
+		final List<String> moves = Collections.synchronizedList(new ArrayList<>());
+		manager.addPartitionedListener(new TS3EventAdapter() {
+			@Override
+			public void onClientMoved(ClientMovedEvent e) {
+				try {
+					if (e.getClientId() == 1 && e.getTargetChannelId() == 1) {
+						// Only returns once the event of client 2 was handled by another lane
+						Assert.assertTrue(secondHandled.await(5, TimeUnit.SECONDS));
+					}
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				moves.add(e.getClientId() + "->" + e.getTargetChannelId());
+				if (e.getClientId() == 2) secondHandled.countDown();
+				if (e.getClientId() == 1 && e.getTargetChannelId() == 2) clientOneDone.countDown();
+			}
+		}, 2);
+
+		manager.fireEvent("notifyclientmoved", "ctid=1 reasonid=0 clid=1");
+		manager.fireEvent("notifyclientmoved", "ctid=2 reasonid=0 clid=1");
+		manager.fireEvent("notifyclientmoved", "ctid=1 reasonid=0 clid=2");
+
+		Assert.assertTrue(clientOneDone.await(10, TimeUnit.SECONDS));
+		Assert.assertEquals("[2->1, 1->1, 1->2]", moves.toString());
+	}
+
+	@Test
+	public void batchListener_DeliversCoalescedBatch() throws InterruptedException {
+		final EventManager manager = new TS3Query().getEventManager();
+		final List<List<TS3Event>> batches = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch delivered = new CountDownLatch(1);
+		manager.addBatchListener(events -> {
+			batches.add(events);
+			delivered.countDown();
+		}, 50, ClientMovedEvent.class, TextMessageEvent.class);
+
+		manager.fireEvent("notifyclientmoved", "ctid=1 reasonid=0 clid=5");
+		manager.fireEvent("notifytextmessage", TEXT_MESSAGE);
+		manager.fireEvent("notifyclientmoved", "ctid=2 reasonid=0 clid=5");
+		manager.fireEvent("notifyclientmoved", "ctid=1 reasonid=0 clid=6");
+
+		Assert.assertTrue(delivered.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, batches.size());
+
+		final List<TS3Event> batch = batches.get(0);
+		Assert.assertEquals(3, batch.size());
+		Assert.assertTrue(batch.get(0) instanceof TextMessageEvent);
+		Assert.assertEquals(2, ((ClientMovedEvent) batch.get(1)).getTargetChannelId());
+		Assert.assertEquals(6, ((ClientMovedEvent) batch.get(2)).getClientId());
+		manager.shutDown();
+	}
+
+	@Test
+	public void batchListener_OnlyParsesWantedEvents() {
+		final EventManager manager = newEventManager();
+		manager.addBatchListener(events -> {}, 50, TextMessageEvent.class);
+
+		// Would throw a TS3UnknownEventException if it was parsed
+		manager.fireEvent("notifyunknown", "a=b");
+		manager.shutDown();
+	}
+
+	@Test
+	public void batchListener_IgnoresEventsAfterShutDown() {
+		final EventManager manager = newEventManager();
+		manager.addBatchListener(events -> Assert.fail(), 50, TextMessageEvent.class);
+
+		manager.shutDown();
+		manager.fireEvent("notifytextmessage", TEXT_MESSAGE);
+	}
+
+	@Test
+	public void borrowingListener_ReceivesReusedEventOnCallingThread() {
+		final EventManager manager = new TS3Query().getEventManager();
+		final List<String> moves = new ArrayList<>();
+		final List<TS3Event> events = new ArrayList<>();
+		final Thread caller = Thread.currentThread();
+		manager.addBorrowingListener(new TS3EventAdapter() {
+			@Override
+			public void onClientMoved(ClientMovedEvent e) {
+				Assert.assertSame(caller, Thread.currentThread());
+				moves.add(e.getClientId() + "->" + e.getTargetChannelId() + " " + e.getInvokerName());
+				events.add(e);
+			}
+		});
+
+		manager.fireEvent("notifyclientmoved", "ctid=1 reasonid=1 invokername=a\\sb clid=5|clid=6");
+		manager.fireEvent("notifyclientmoved", "ctid=2 reasonid=0 clid=7");
+
+		Assert.assertEquals("[5->1 a b, 6->1 a b, 7->2 ]", moves.toString());
+		Assert.assertSame(events.get(0), events.get(2));
+	}
+
+	@Test
+	public void filteredListener_OnlyReceivesMatchingEvents() {
+		final EventManager manager = newEventManager();
+		final List<String> calls = new ArrayList<>();
+		final Consumer<ClientMovedEvent> inChannels = e -> calls.add("channels " + e.getClientId());
+		manager.addListener(EventFilter.of(ClientMovedEvent.class).inChannels(2, 4), inChannels);
+		manager.addListener(EventFilter.of(ClientMovedEvent.class).inChannelRange(3, 10),
+				e -> calls.add("range " + e.getClientId()));
+		manager.addListener(EventFilter.of(TextMessageEvent.class).withTargetMode(TextMessageTargetMode.SERVER),
+				e -> calls.add("server " + e.getMessage()));
+		manager.addListener(EventFilter.of(TextMessageEvent.class).fromInvoker("other"),
+				e -> calls.add("other " + e.getMessage()));
+
+		manager.fireEvent("notifyclientmoved", "ctid=2 reasonid=0 clid=1");
+		manager.fireEvent("notifyclientmoved", "ctid=4 reasonid=0 clid=2");
+		manager.fireEvent("notifyclientmoved", "ctid=11 reasonid=0 clid=3");
+		manager.fireEvent("notifytextmessage", TEXT_MESSAGE);
+		Assert.assertEquals("[channels 1, channels 2, range 2, server hello]", calls.toString());
+
+		manager.removeListener(ClientMovedEvent.class, inChannels);
+		manager.fireEvent("notifyclientmoved", "ctid=2 reasonid=0 clid=4");
+		Assert.assertEquals(4, calls.size());
+	}
+
+	@Test
+	public void awaitEvent_CompletesWithMatchingEvent() {
+		final EventManager manager = newEventManager();
+		final CommandFuture<ClientMovedEvent> moved = manager.awaitEvent(ClientMovedEvent.class, 5,
+				e -> e.getTargetChannelId() == 3, 10, TimeUnit.SECONDS);
+
+		manager.fireEvent("notifyclientmoved", "ctid=3 reasonid=0 clid=6");
+		manager.fireEvent("notifyclientmoved", "ctid=2 reasonid=0 clid=5");
+		Assert.assertFalse(moved.isDone());
+
+		manager.fireEvent("notifyclientmoved", "ctid=3 reasonid=0 clid=5");
+		Assert.assertEquals(5, moved.getUninterruptibly().getClientId());
+		manager.shutDown();
+	}
+
+	@Test
+	public void awaitEvent_FailsAfterTimeout() {
+		final EventManager manager = newEventManager();
+		final CommandFuture<ClientMovedEvent> moved = manager.awaitEvent(ClientMovedEvent.class, -1,
+				null, 10, TimeUnit.MILLISECONDS);
+
+		Assert.assertThrows(TS3EventTimeoutException.class, moved::getUninterruptibly);
+		manager.shutDown();
+	}
+}
@@ -0,0 +1,82 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.event.ClientMovedEvent;
+import com.github.theholywaffle.teamspeak3.api.wrapper.Wrapper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class EventWaitersTest {
+
+	private static final String MOVED = "notifyclientmoved";
+
+	private final EventWaiters waiters = new EventWaiters(new TS3Query(new TS3Config().setUserExecutor(Runnable::run)));
+	private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+
+	public EventWaitersTest() {
+		scheduler.setRemoveOnCancelPolicy(true);
+	}
+
+	@After
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void offer_CancelsTimeoutOfCompletedWaiter() throws Exception {
+		final CommandFuture<ClientMovedEvent> future = waiters.await(MOVED, ClientMovedEvent.class, 5, null,
+				1, TimeUnit.HOURS, scheduler);
+		Assert.assertEquals(1, scheduler.getQueue().size());
+
+		waiters.offer(MOVED, moved(5));
+
+		Assert.assertEquals(5, future.get(5, TimeUnit.SECONDS).getClientId());
+		Assert.assertTrue(scheduler.getQueue().isEmpty());
+	}
+
+	@Test
+	public void offer_TestsPredicatesWithoutHoldingTheLock() throws Exception {
+		final CommandFuture<ClientMovedEvent> future = waiters.await(MOVED, ClientMovedEvent.class, -1, event -> {
+			// Another thread needs the lock while the predicate runs, e.g. the reader offering the next event
+			final Thread other = new Thread(() -> waiters.wants(MOVED));
+			other.start();
+			try {
+				other.join(5000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return !other.isAlive();
+		}, 1, TimeUnit.HOURS, scheduler);
+
+		waiters.offer(MOVED, moved(5));
+
+		Assert.assertTrue(future.isDone());
+		Assert.assertEquals(5, future.get(5, TimeUnit.SECONDS).getClientId());
+	}
+
+	@Test
+	public void offer_CompletesEachWaiterOnce() throws Exception {
+		final CommandFuture<ClientMovedEvent> future = waiters.await(MOVED, ClientMovedEvent.class, 5, null,
+				1, TimeUnit.HOURS, scheduler);
+
+		waiters.offer(MOVED, moved(5));
+		waiters.offer(MOVED, moved(5));
+
+		Assert.assertEquals(5, future.get(5, TimeUnit.SECONDS).getClientId());
+		Assert.assertFalse(waiters.wants(MOVED));
+	}
+
+	private static ClientMovedEvent moved(int clientId) {
+		final Map<String, String> map = new HashMap<>();
+		map.put("clid", String.valueOf(clientId));
+		map.put("ctid", "2");
+		map.put("reasonid", "0");
+		return new ClientMovedEvent(new Wrapper(map));
+	}
+}
@@ -0,0 +1,108 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.FileCrawlOptions;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import com.github.theholywaffle.teamspeak3.api.wrapper.FileListEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class FileCrawlerTest {
+
+	private static final Map<String, List<FileListEntry>> TREE = new HashMap<>();
+
+	static {
+		TREE.put("/", Arrays.asList(directory("docs"), file("a.png", 100), file("b.txt", 5)));
+		TREE.put("/docs/", Arrays.asList(directory("old"), file("c.png", 2000)));
+		TREE.put("/docs/old/", Collections.singletonList(file("d.png", 10)));
+	}
+
+	@Test
+	public void crawl_StreamsAllFilesOfAllChannels() {
+		final List<String> paths = new ArrayList<>();
+		final CommandFuture<Void> crawl = new FileCrawler(FileCrawlerTest::list, null,
+				entry -> paths.add(entry.getChannelId() + ":" + entry.getPath())).crawl(Arrays.asList(1, 2));
+
+		Assert.assertTrue(crawl.isSuccessful());
+		Assert.assertEquals(8, paths.size());
+		Assert.assertTrue(paths.contains("1:/docs/old/d.png"));
+		Assert.assertTrue(paths.contains("2:/b.txt"));
+	}
+
+	@Test
+	public void crawl_AppliesDepthSizeAndPathFilters() {
+		final FileCrawlOptions options = FileCrawlOptions.defaults()
+				.withMaxDepth(1)
+				.withSizeRange(50, Long.MAX_VALUE)
+				.withPathPattern(Pattern.compile(".*\\.png"));
+		final List<String> paths = new ArrayList<>();
+		new FileCrawler(FileCrawlerTest::list, options, entry -> paths.add(entry.getPath()))
+				.crawl(Collections.singletonList(1)).getUninterruptibly();
+
+		Collections.sort(paths);
+		Assert.assertEquals("[/a.png, /docs/c.png]", paths.toString());
+	}
+
+	@Test
+	public void crawl_LimitsListingsInFlight() {
+		final List<CommandFuture<List<FileListEntry>>> listings = new ArrayList<>();
+		final FileCrawlOptions options = FileCrawlOptions.defaults().withMaxPendingListings(2);
+		final CommandFuture<Void> crawl = new FileCrawler((path, channelId, password) -> {
+			final CommandFuture<List<FileListEntry>> listing = new CommandFuture<>();
+			listings.add(listing);
+			return listing;
+		}, options, entry -> {}).crawl(Arrays.asList(1, 2, 3));
+
+		Assert.assertEquals(2, listings.size());
+		listings.get(0).set(Collections.emptyList());
+		Assert.assertEquals(3, listings.size());
+		listings.get(1).set(Collections.emptyList());
+		Assert.assertFalse(crawl.isDone());
+		listings.get(2).set(Collections.emptyList());
+		Assert.assertTrue(crawl.isSuccessful());
+	}
+
+	@Test
+	public void crawl_FailsWhenListingFails() {
+		final List<String> requested = new ArrayList<>();
+		final CommandFuture<Void> crawl = new FileCrawler((path, channelId, password) -> {
+			requested.add(path);
+			final CommandFuture<List<FileListEntry>> listing = new CommandFuture<>();
+			if (channelId == 1) listing.fail(new TS3Exception("failed"));
+			else listing.set(TREE.get(path));
+			return listing;
+		}, FileCrawlOptions.defaults().withMaxPendingListings(1), entry -> {}).crawl(Arrays.asList(1, 2));
+
+		Assert.assertTrue(crawl.hasFailed());
+		Assert.assertEquals(1, requested.size());
+	}
+
+	private static CommandFuture<List<FileListEntry>> list(String path, int channelId, String password) {
+		final CommandFuture<List<FileListEntry>> listing = new CommandFuture<>();
+		listing.set(TREE.get(path));
+		return listing;
+	}
+
+	private static FileListEntry directory(String name) {
+		final Map<String, String> map = new HashMap<>();
+		map.put("name", name);
+		map.put("type", "0");
+		return new FileListEntry(map);
+	}
+
+	private static FileListEntry file(String name, long size) {
+		final Map<String, String> map = new HashMap<>();
+		map.put("name", name);
+		map.put("size", String.valueOf(size));
+		map.put("type", "1");
+		return new FileListEntry(map);
+	}
+}
@@ -0,0 +1,196 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.FileSyncResult;
+import com.github.theholywaffle.teamspeak3.api.FileTransferOptions;
+import com.github.theholywaffle.teamspeak3.api.wrapper.FileListEntry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class FileSynchronizerTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final FakeApi api = new FakeApi();
+	private Path local;
+
+	@Before
+	public void setUp() throws IOException {
+		local = folder.newFolder("sync").toPath();
+	}
+
+	@Test
+	public void download_SkipsUnchangedFiles() throws IOException {
+		api.tree.put("/", Arrays.asList(file("same.txt", 3, 1000), file("touched.txt", 3, 2000), file("new.txt", 5, 3000)));
+		writeLocal("same.txt", 3, 1000);
+		writeLocal("touched.txt", 3, 1500);
+
+		final FileSyncResult result = synchronizer(false).download().getUninterruptibly();
+
+		Assert.assertEquals("[/new.txt, /touched.txt]", sorted(api.downloads));
+		Assert.assertEquals(1, result.getUnchangedFiles());
+		Assert.assertEquals(8, result.getTransferredBytes());
+		Assert.assertEquals(3000, Files.getLastModifiedTime(local.resolve("new.txt")).to(TimeUnit.SECONDS));
+
+		// The downloaded files got the remote modification time, so a second sync transfers nothing
+		api.downloads.clear();
+		final FileSyncResult again = synchronizer(false).download().getUninterruptibly();
+		Assert.assertTrue(api.downloads.isEmpty());
+		Assert.assertEquals(3, again.getUnchangedFiles());
+	}
+
+	@Test
+	public void download_DeletesNestedExtraLocalDirectories() throws IOException {
+		api.tree.put("/", Collections.singletonList(file("keep.txt", 3, 1000)));
+		writeLocal("keep.txt", 3, 1000);
+		Files.createDirectories(local.resolve("extra").resolve("deep"));
+		writeLocal("extra/deep/a.txt", 1, 1000);
+		writeLocal("extra/b.txt", 1, 1000);
+		writeLocal("stale.txt", 1, 1000);
+
+		final FileSyncResult result = synchronizer(true).download().getUninterruptibly();
+
+		Assert.assertEquals(Arrays.asList("extra", "stale.txt"), result.getDeletedFiles());
+		Assert.assertFalse(Files.exists(local.resolve("extra")));
+		Assert.assertFalse(Files.exists(local.resolve("stale.txt")));
+		Assert.assertTrue(Files.exists(local.resolve("keep.txt")));
+	}
+
+	@Test
+	public void upload_OnlyTransfersFilesNewerThanRemote() throws IOException {
+		api.tree.put("/", Arrays.asList(file("older.txt", 3, 2000), file("newer.txt", 3, 2000), file("resized.txt", 3, 2000)));
+		writeLocal("older.txt", 3, 1000);
+		writeLocal("newer.txt", 3, 3000);
+		writeLocal("resized.txt", 4, 1000);
+		writeLocal("new.txt", 1, 1000);
+
+		final FileSyncResult result = synchronizer(false).upload().getUninterruptibly();
+
+		Assert.assertEquals("[/new.txt, /newer.txt, /resized.txt]", sorted(api.uploads));
+		Assert.assertEquals(1, result.getUnchangedFiles());
+	}
+
+	@Test
+	public void upload_BatchesRemoteDeletions() {
+		final List<FileListEntry> root = new ArrayList<>();
+		root.add(directory("old"));
+		for (int i = 0; i < 250; ++i) {
+			root.add(file("file" + i + ".txt", 1, 1000));
+		}
+		api.tree.put("/", root);
+		api.tree.put("/old/", Arrays.asList(file("a.txt", 1, 1000), file("b.txt", 1, 1000)));
+
+		final FileSyncResult result = synchronizer(true).upload().getUninterruptibly();
+
+		Assert.assertEquals(251, result.getDeletedFiles().size());
+		Assert.assertEquals(3, api.deletions.size());
+		Assert.assertEquals(100, api.deletions.get(0).size());
+		Assert.assertEquals(100, api.deletions.get(1).size());
+		Assert.assertEquals(51, api.deletions.get(2).size());
+		Assert.assertEquals("/old", api.deletions.get(0).get(0));
+		for (List<String> batch : api.deletions) {
+			for (String path : batch) {
+				// Deleting the directory already deletes its contents
+				Assert.assertFalse(path, path.startsWith("/old/"));
+			}
+		}
+	}
+
+	private FileSynchronizer synchronizer(boolean deleteExtra) {
+		return new FileSynchronizer(api, "/", 1, null, local, deleteExtra, FileTransferOptions.defaults());
+	}
+
+	private void writeLocal(String path, int size, long modified) throws IOException {
+		final Path file = local.resolve(path);
+		Files.write(file, new byte[size]);
+		Files.setLastModifiedTime(file, FileTime.from(modified, TimeUnit.SECONDS));
+	}
+
+	private static String sorted(List<String> paths) {
+		final List<String> copy = new ArrayList<>(paths);
+		Collections.sort(copy);
+		return copy.toString();
+	}
+
+	private static FileListEntry directory(String name) {
+		final Map<String, String> map = new HashMap<>();
+		map.put("name", name);
+		map.put("type", "0");
+		return new FileListEntry(map);
+	}
+
+	private static FileListEntry file(String name, long size, long modified) {
+		final Map<String, String> map = new HashMap<>();
+		map.put("name", name);
+		map.put("size", String.valueOf(size));
+		map.put("datetime", String.valueOf(modified));
+		map.put("type", "1");
+		return new FileListEntry(map);
+	}
+
+	private static class FakeApi extends TS3ApiAsync {
+
+		final Map<String, List<FileListEntry>> tree = new HashMap<>();
+		final List<String> downloads = new ArrayList<>();
+		final List<String> uploads = new ArrayList<>();
+		final List<List<String>> deletions = new ArrayList<>();
+
+		FakeApi() {
+			super(null, null);
+		}
+
+		@Override
+		public CommandFuture<List<FileListEntry>> getFileList(String directoryPath, int channelId, String channelPassword) {
+			return CommandFuture.immediate(tree.getOrDefault(directoryPath, Collections.emptyList()));
+		}
+
+		@Override
+		public CommandFuture<Long> downloadFile(Path file, String filePath, int channelId, String channelPassword,
+		                                        FileTransferOptions options) {
+			downloads.add(filePath);
+			final String name = filePath.substring(filePath.lastIndexOf('/') + 1);
+			final FileListEntry entry = tree.get(filePath.substring(0, filePath.lastIndexOf('/') + 1)).stream()
+					.filter(e -> e.getName().equals(name)).findFirst().orElseThrow(IllegalStateException::new);
+			try {
+				Files.write(file, new byte[(int) entry.getFileSize()]);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			return CommandFuture.immediate(entry.getFileSize());
+		}
+
+		@Override
+		public CommandFuture<Void> uploadFile(Path file, String filePath, boolean overwrite, int channelId,
+		                                      String channelPassword, FileTransferOptions options) {
+			uploads.add(filePath);
+			return CommandFuture.immediate(null);
+		}
+
+		@Override
+		public CommandFuture<Void> deleteFiles(String[] filePaths, int channelId, String channelPassword) {
+			deletions.add(Arrays.asList(filePaths));
+			return CommandFuture.immediate(null);
+		}
+
+		@Override
+		public CommandFuture<Void> createFileDirectory(String directoryPath, int channelId, String channelPassword) {
+			return CommandFuture.immediate(null);
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.wrapper.FileTransferParameters;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class FileTransferHelperTest {
+
+	private static final String KEY = "0123456789abcdef0123456789abcdef";
+
+	private final FileTransferHelper helper = new FileTransferHelper("127.0.0.1");
+	private ServerSocket fileServer;
+	private Path file;
+
+	@Before
+	public void setUp() throws IOException {
+		fileServer = new ServerSocket(0);
+		file = Files.createTempFile("ts3-transfer", ".bin");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		fileServer.close();
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void downloadFile_TransfersIntoFileChannel() throws Exception {
+		final byte[] data = testData(100_000);
+		final CompletableFuture<String> key = serveDownload(data);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			helper.downloadFile(channel, parameters(data.length), FileTransferManager.Transfer.unlimited(data.length));
+		}
+
+		Assert.assertEquals(KEY, key.get(5, TimeUnit.SECONDS));
+		Assert.assertArrayEquals(data, Files.readAllBytes(file));
+	}
+
+	@Test
+	public void downloadFile_WritesRangeAtOffset() throws Exception {
+		final byte[] data = testData(10_000);
+		// Like a download started at seekpos=4000, the server sends the rest of the file
+		serveDownload(Arrays.copyOfRange(data, 4000, data.length));
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(data, 0, 4000));
+			helper.downloadFile(channel, 4000, 2000, parameters(data.length), FileTransferManager.Transfer.unlimited(2000));
+			Assert.assertEquals(4000, channel.position());
+		}
+
+		Assert.assertArrayEquals(Arrays.copyOf(data, 6000), Files.readAllBytes(file));
+	}
+
+	@Test
+	public void openRangedDownload_AcceptsRangesInAnyOrder() throws Exception {
+		final byte[] data = testData(10_000);
+
+		try (FileChannel channel = FileTransferHelper.openRangedDownload(file, data.length)) {
+			Assert.assertEquals(data.length, channel.size());
+
+			// The later range finishes first, before anything has been written in front of it
+			serveDownload(Arrays.copyOfRange(data, 5000, data.length));
+			helper.downloadFile(channel, 5000, 5000, parameters(data.length), FileTransferManager.Transfer.unlimited(5000));
+			serveDownload(data);
+			helper.downloadFile(channel, 0, 5000, parameters(data.length), FileTransferManager.Transfer.unlimited(5000));
+		}
+
+		Assert.assertArrayEquals(data, Files.readAllBytes(file));
+	}
+
+	@Test
+	public void downloadFile_FillsByteBuffer() throws Exception {
+		final byte[] data = testData(10_000);
+		serveDownload(data);
+
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 10);
+		helper.downloadFile(buffer, parameters(data.length), FileTransferManager.Transfer.unlimited(data.length));
+
+		Assert.assertEquals(data.length, buffer.position());
+		buffer.flip();
+		final byte[] received = new byte[buffer.remaining()];
+		buffer.get(received);
+		Assert.assertArrayEquals(data, received);
+	}
+
+	@Test
+	public void downloadFile_RejectsTooSmallBuffer() {
+		final ByteBuffer buffer = ByteBuffer.allocate(10);
+		Assert.assertThrows(IOException.class, () -> helper.downloadFile(buffer, parameters(11), FileTransferManager.Transfer.unlimited(11)));
+		Assert.assertEquals(0, buffer.position());
+	}
+
+	@Test
+	public void uploadFile_TransfersFromFileChannel() throws Exception {
+		final byte[] data = testData(100_000);
+		Files.write(file, data);
+		final CompletableFuture<byte[]> received = receiveUpload(data.length);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			helper.uploadFile(channel, data.length, parameters(data.length), FileTransferManager.Transfer.unlimited(data.length));
+		}
+
+		Assert.assertArrayEquals(data, received.get(5, TimeUnit.SECONDS));
+	}
+
+	private FileTransferParameters parameters(long size) {
+		final Map<String, String> map = new HashMap<>();
+		map.put("clientftfid", "1");
+		map.put("ftkey", KEY);
+		map.put("ip", "127.0.0.1,::1");
+		map.put("port", String.valueOf(fileServer.getLocalPort()));
+		map.put("size", String.valueOf(size));
+		return new FileTransferParameters(map);
+	}
+
+	private CompletableFuture<String> serveDownload(byte[] data) {
+		return CompletableFuture.supplyAsync(() -> {
+			try (Socket socket = fileServer.accept()) {
+				final String key = new String(readBytes(socket.getInputStream(), KEY.length()), StandardCharsets.UTF_8);
+				socket.getOutputStream().write(data);
+				return key;
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	private CompletableFuture<byte[]> receiveUpload(int length) {
+		return CompletableFuture.supplyAsync(() -> {
+			try (Socket socket = fileServer.accept()) {
+				final InputStream in = socket.getInputStream();
+				readBytes(in, KEY.length());
+				return readBytes(in, length);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	private static byte[] readBytes(InputStream in, int length) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+		final byte[] buffer = new byte[4096];
+		while (out.size() < length) {
+			final int read = in.read(buffer, 0, Math.min(buffer.length, length - out.size()));
+			if (read < 0) throw new IOException("Stream ended early");
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] testData(int length) {
+		final byte[] data = new byte[length];
+		for (int i = 0; i < length; ++i) {
+			data[i] = (byte) (i * 31 + (i >> 8));
+		}
+		return data;
+	}
+}
@@ -0,0 +1,172 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.FileTransferOptions;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3FileTransferFailedException;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3QueryShutDownException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ReadOnlyBufferException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class FileTransferManagerTest {
+
+	private FileTransferManager manager;
+
+	@After
+	public void tearDown() {
+		if (manager != null) manager.shutDown();
+	}
+
+	@Test
+	public void submit_StartsQueuedTransfersByPriority() throws Exception {
+		manager = new FileTransferManager(1, 1, 0, Runnable::run);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+		final CommandFuture<String> blocker = manager.submit("host", FileTransferOptions.defaults(), "failed",
+				transfer -> {
+					await(release);
+					return "blocker";
+				});
+		final CommandFuture<String> low = manager.submit("host", FileTransferOptions.defaults(), "failed",
+				transfer -> record(started, "low"));
+		final CommandFuture<String> high = manager.submit("host", FileTransferOptions.defaults().withPriority(5), "failed",
+				transfer -> record(started, "high"));
+
+		release.countDown();
+		Assert.assertEquals("blocker", blocker.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals("low", low.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals("high", high.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals("[high, low]", started.toString());
+	}
+
+	@Test
+	public void submit_LimitsTransfersPerHost() throws Exception {
+		manager = new FileTransferManager(2, 1, 0, Runnable::run);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch otherHostStarted = new CountDownLatch(1);
+		final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+		manager.submit("a", FileTransferOptions.defaults(), "failed", transfer -> {
+			await(release);
+			return null;
+		});
+		final CommandFuture<String> sameHost = manager.submit("a", FileTransferOptions.defaults(), "failed",
+				transfer -> record(started, "a"));
+		manager.submit("b", FileTransferOptions.defaults(), "failed", transfer -> {
+			record(started, "b");
+			otherHostStarted.countDown();
+			return null;
+		});
+
+		Assert.assertTrue(otherHostStarted.await(5, TimeUnit.SECONDS));
+		Assert.assertFalse(sameHost.isDone());
+
+		release.countDown();
+		sameHost.get(5, TimeUnit.SECONDS);
+		Assert.assertEquals("[b, a]", started.toString());
+	}
+
+	@Test
+	public void submit_FailsWithTransferException() {
+		manager = new FileTransferManager(1, 1, 0, Runnable::run);
+		final CommandFuture<Void> future = manager.submit("host", FileTransferOptions.defaults(), "Download failed",
+				transfer -> {
+					throw new IOException("Connection reset");
+				});
+
+		final TS3FileTransferFailedException thrown = Assert.assertThrows(TS3FileTransferFailedException.class,
+				() -> future.getUninterruptibly(5, TimeUnit.SECONDS));
+		Assert.assertEquals("Download failed", thrown.getMessage());
+	}
+
+	@Test
+	public void submit_FailsWithUnexpectedException() {
+		manager = new FileTransferManager(1, 1, 0, Runnable::run);
+		final CommandFuture<Void> future = manager.submit("host", FileTransferOptions.defaults(), "Download failed",
+				transfer -> {
+					throw new ReadOnlyBufferException();
+				});
+
+		final TS3Exception thrown = Assert.assertThrows(TS3Exception.class, () -> future.getUninterruptibly(5, TimeUnit.SECONDS));
+		Assert.assertEquals("Download failed", thrown.getMessage());
+		Assert.assertTrue(thrown.getCause() instanceof ReadOnlyBufferException);
+	}
+
+	@Test
+	public void submit_FailsWithExceptionOfRefusedTransfer() {
+		manager = new FileTransferManager(1, 1, 0, Runnable::run);
+		final TS3Exception refused = new TS3Exception("ftinitdownload failed");
+		final CommandFuture<Void> future = manager.submit("host", FileTransferOptions.defaults(), "Download failed",
+				transfer -> {
+					throw refused;
+				});
+
+		final TS3Exception thrown = Assert.assertThrows(TS3Exception.class, () -> future.getUninterruptibly(5, TimeUnit.SECONDS));
+		Assert.assertSame(refused, thrown);
+	}
+
+	@Test
+	public void shutDown_FailsQueuedTransfers() throws Exception {
+		manager = new FileTransferManager(1, 1, 0, Runnable::run);
+		final CountDownLatch release = new CountDownLatch(1);
+		manager.submit("host", FileTransferOptions.defaults(), "failed", transfer -> {
+			await(release);
+			return null;
+		});
+		final CommandFuture<Void> queued = manager.submit("host", FileTransferOptions.defaults(), "failed",
+				transfer -> null);
+
+		manager.shutDown();
+		Assert.assertThrows(TS3QueryShutDownException.class, queued::getUninterruptibly);
+	}
+
+	@Test
+	public void transfer_ReportsProgressInChunks() throws Exception {
+		final List<Long> progress = new ArrayList<>();
+		final FileTransferManager.Transfer transfer = new FileTransferManager.Transfer(100_000, null,
+				new TokenBucket(1_000_000), (transferred, total) -> progress.add(transferred));
+
+		long total = 0;
+		while (total < 100_000) {
+			final long chunk = transfer.acquire(100_000 - total);
+			Assert.assertTrue(chunk <= 50_000);
+			transfer.transferred(chunk);
+			total += chunk;
+		}
+		Assert.assertEquals(Long.valueOf(100_000), progress.get(progress.size() - 1));
+	}
+
+	@Test
+	public void tokenBucket_DelaysWhenInDebt() {
+		final TokenBucket bucket = new TokenBucket(1000);
+		final long now = System.nanoTime();
+
+		Assert.assertEquals(0, bucket.reserve(1000, now));
+		Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.reserve(500, now));
+		Assert.assertEquals(0, bucket.reserve(0, now + TimeUnit.MILLISECONDS.toNanos(500)));
+	}
+
+	private static void await(CountDownLatch latch) throws InterruptedIOException {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+	}
+
+	private static String record(List<String> started, String name) {
+		started.add(name);
+		return name;
+	}
+}
@@ -0,0 +1,115 @@
+package com.github.theholywaffle.teamspeak3;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class IconCacheTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void get_ReturnsCachedIcon() {
+		final IconCache cache = new IconCache(null, 0, 1000);
+		final byte[] icon = icon(1, 100);
+		final long iconId = FileTransferHelper.getIconId(icon);
+		cache.put(iconId, icon);
+
+		Assert.assertArrayEquals(icon, cache.get(iconId));
+		Assert.assertNull(cache.get(iconId + 1));
+	}
+
+	@Test
+	public void put_IgnoresDataNotMatchingIconId() {
+		final IconCache cache = new IconCache(null, 0, 1000);
+		final byte[] icon = icon(1, 100);
+		cache.put(FileTransferHelper.getIconId(icon) + 1, icon);
+
+		Assert.assertNull(cache.get(FileTransferHelper.getIconId(icon) + 1));
+	}
+
+	@Test
+	public void put_EvictsLeastRecentlyUsedFromMemory() {
+		final IconCache cache = new IconCache(null, 0, 250);
+		final byte[] first = icon(1, 100);
+		final byte[] second = icon(2, 100);
+		final byte[] third = icon(3, 100);
+		cache.put(FileTransferHelper.getIconId(first), first);
+		cache.put(FileTransferHelper.getIconId(second), second);
+		cache.get(FileTransferHelper.getIconId(first));
+		cache.put(FileTransferHelper.getIconId(third), third);
+
+		Assert.assertNotNull(cache.get(FileTransferHelper.getIconId(first)));
+		Assert.assertNull(cache.get(FileTransferHelper.getIconId(second)));
+		Assert.assertNotNull(cache.get(FileTransferHelper.getIconId(third)));
+	}
+
+	@Test
+	public void get_ReadsIconsCachedOnDiskByEarlierInstance_EvictingOldestFirst() throws Exception {
+		final Path directory = folder.getRoot().toPath().resolve("icons");
+		final byte[] first = icon(1, 100);
+		final byte[] second = icon(2, 100);
+		final byte[] third = icon(3, 100);
+		final IconCache cache = new IconCache(directory, 1000, 0);
+		cache.put(FileTransferHelper.getIconId(first), first);
+		cache.put(FileTransferHelper.getIconId(second), second);
+		cache.put(FileTransferHelper.getIconId(third), third);
+		age(directory, first, 3);
+		age(directory, second, 2);
+		age(directory, third, 1);
+
+		final IconCache reopened = new IconCache(directory, 250, 0);
+		Assert.assertNull(reopened.get(FileTransferHelper.getIconId(first)));
+		Assert.assertArrayEquals(second, reopened.get(FileTransferHelper.getIconId(second)));
+		Assert.assertArrayEquals(third, reopened.get(FileTransferHelper.getIconId(third)));
+	}
+
+	@Test
+	public void get_RemovesDamagedFile() throws Exception {
+		final Path directory = folder.getRoot().toPath();
+		final byte[] icon = icon(1, 100);
+		final long iconId = FileTransferHelper.getIconId(icon);
+		new IconCache(directory, 1000, 0).put(iconId, icon);
+		Files.write(directory.resolve("icon_" + iconId), new byte[] {1, 2, 3});
+
+		Assert.assertNull(new IconCache(directory, 1000, 0).get(iconId));
+		Assert.assertFalse(Files.exists(directory.resolve("icon_" + iconId)));
+	}
+
+	@Test
+	public void isOnServer_ExpiresAfterFiveMinutes() {
+		final IconCache cache = new IconCache(null, 0, 1000);
+		Assert.assertNull(cache.isOnServer(1, 0));
+
+		cache.setServerIcons(Arrays.asList(1L, 2L), 0);
+		cache.removeServerIcons(2);
+		Assert.assertEquals(Boolean.TRUE, cache.isOnServer(1, TimeUnit.MINUTES.toNanos(4)));
+		Assert.assertEquals(Boolean.FALSE, cache.isOnServer(2, TimeUnit.MINUTES.toNanos(4)));
+		Assert.assertNull(cache.isOnServer(1, TimeUnit.MINUTES.toNanos(6)));
+
+		cache.clearServerIcons();
+		Assert.assertNull(cache.isOnServer(1, 0));
+	}
+
+	private static void age(Path directory, byte[] icon, int minutes) throws Exception {
+		final Path file = directory.resolve("icon_" + FileTransferHelper.getIconId(icon));
+		final long modified = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(minutes);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+	}
+
+	private static byte[] icon(int seed, int length) {
+		final byte[] data = new byte[length];
+		for (int i = 0; i < length; ++i) {
+			data[i] = (byte) (seed * 31 + i);
+		}
+		return data;
+	}
+}
@@ -0,0 +1,92 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+public class PagedSpliteratorTest {
+
+	@Test
+	public void tryAdvance_PagesWithGrowingPageSize() {
+		final List<String> requests = new ArrayList<>();
+		final PagedSpliterator<Integer> spliterator = new PagedSpliterator<>((offset, count) -> {
+			requests.add(offset + "+" + count);
+			return CommandFuture.immediate(range(offset, Math.min(offset + count, 300)));
+		}, 200, 1);
+
+		final List<Integer> all = StreamSupport.stream(spliterator, false).collect(Collectors.toList());
+
+		Assert.assertEquals(range(0, 300), all);
+		Assert.assertEquals("[0+25, 25+50, 75+100, 175+200]", requests.toString());
+	}
+
+	@Test
+	public void tryAdvance_KeepsPrefetchedPagesBounded() {
+		final List<CommandFuture<List<Integer>>> requested = new ArrayList<>();
+		final PagedSpliterator<Integer> spliterator = new PagedSpliterator<>((offset, count) -> {
+			final CommandFuture<List<Integer>> page = new CommandFuture<>();
+			// The first page is already there, later pages never arrive
+			if (requested.isEmpty()) page.set(range(offset, offset + count));
+			requested.add(page);
+			return page;
+		}, 200, 3);
+
+		Assert.assertTrue(spliterator.tryAdvance(value -> Assert.assertEquals(Integer.valueOf(0), value)));
+		Assert.assertEquals(4, requested.size());
+
+		spliterator.cancel();
+		Assert.assertFalse(spliterator.tryAdvance(value -> Assert.fail()));
+		for (int i = 1; i < requested.size(); ++i) {
+			Assert.assertTrue(requested.get(i).isCancelled());
+		}
+	}
+
+	@Test
+	public void nextPage_CancelsRequestsAfterLastPage() {
+		final List<CommandFuture<List<Integer>>> requested = new ArrayList<>();
+		final PagedSpliterator<Integer> spliterator = new PagedSpliterator<>((offset, count) -> {
+			final CommandFuture<List<Integer>> page = new CommandFuture<>();
+			if (requested.isEmpty()) page.set(range(0, 10)); // Shorter than requested
+			requested.add(page);
+			return page;
+		}, 200, 2);
+
+		final long count = StreamSupport.stream(spliterator, false).count();
+
+		Assert.assertEquals(10, count);
+		Assert.assertTrue(requested.get(1).isCancelled());
+	}
+
+	@Test
+	public void trySplit_AllowsParallelConsumption() {
+		final PagedSpliterator<Integer> spliterator = new PagedSpliterator<>(
+				(offset, count) -> CommandFuture.immediate(range(offset, Math.min(offset + count, 10_000))), 200, 4);
+
+		final long sum = StreamSupport.stream(spliterator, true).mapToLong(Integer::longValue).sum();
+
+		Assert.assertEquals(10_000L * 9_999L / 2, sum);
+	}
+
+	@Test
+	public void tryAdvance_RethrowsFailedPage() {
+		final Spliterator<Integer> spliterator = new PagedSpliterator<Integer>((offset, count) -> {
+			final CommandFuture<List<Integer>> page = new CommandFuture<>();
+			page.fail(new TS3Exception("failed"));
+			return page;
+		}, 200, 2);
+
+		Assert.assertThrows(TS3Exception.class, () -> spliterator.tryAdvance(value -> {}));
+	}
+
+	private static List<Integer> range(int from, int to) {
+		return IntStream.range(from, to).boxed().collect(Collectors.toList());
+	}
+}
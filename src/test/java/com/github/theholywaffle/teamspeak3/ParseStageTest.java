@@ -0,0 +1,74 @@
+package com.github.theholywaffle.teamspeak3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ParseStageTest {
+
+	@Test
+	public void submit_DeliversInSubmissionOrder() throws Exception {
+		final ParseStage stage = new ParseStage(4);
+		final List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch done = new CountDownLatch(100);
+
+		try {
+			for (int i = 0; i < 100; ++i) {
+				final int value = i;
+				stage.submit(() -> {
+					// Later jobs finish parsing first
+					sleep((100 - value) % 7);
+					return value;
+				}, result -> {
+					delivered.add(result);
+					done.countDown();
+				});
+			}
+
+			Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+		} finally {
+			stage.shutDown();
+		}
+
+		for (int i = 0; i < 100; ++i) {
+			Assert.assertEquals(Integer.valueOf(i), delivered.get(i));
+		}
+	}
+
+	@Test
+	public void submit_SkipsFailedJobs() throws Exception {
+		final ParseStage stage = new ParseStage(2);
+		final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch done = new CountDownLatch(1);
+
+		try {
+			stage.submit(() -> "first", delivered::add);
+			stage.<String> submit(() -> {
+				throw new IllegalStateException("Malformed");
+			}, delivered::add);
+			stage.submit(() -> "third", result -> {
+				delivered.add(result);
+				done.countDown();
+			});
+
+			Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+		} finally {
+			stage.shutDown();
+		}
+
+		Assert.assertEquals("[first, third]", delivered.toString());
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
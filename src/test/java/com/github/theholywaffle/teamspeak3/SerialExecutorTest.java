@@ -0,0 +1,41 @@
+package com.github.theholywaffle.teamspeak3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public class SerialExecutorTest {
+
+	@Test
+	public void execute_RunsTasksInOrder() {
+		final List<String> calls = new ArrayList<>();
+		final SerialExecutor executor = new SerialExecutor(Runnable::run);
+
+		executor.execute(() -> calls.add("first"));
+		executor.execute(() -> calls.add("second"));
+
+		Assert.assertEquals("[first, second]", calls.toString());
+	}
+
+	@Test
+	public void execute_RecoversFromRejectedDrain() {
+		final List<String> calls = new ArrayList<>();
+		final boolean[] reject = {true};
+		final Executor delegate = task -> {
+			if (reject[0]) throw new RejectedExecutionException("saturated");
+			task.run();
+		};
+		final SerialExecutor executor = new SerialExecutor(delegate);
+
+		Assert.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> calls.add("rejected")));
+
+		reject[0] = false;
+		executor.execute(() -> calls.add("accepted"));
+
+		Assert.assertEquals("[accepted]", calls.toString());
+	}
+}
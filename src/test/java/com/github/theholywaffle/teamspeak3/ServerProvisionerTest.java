@@ -0,0 +1,140 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.CommandFuture;
+import com.github.theholywaffle.teamspeak3.api.PrivilegeKeyType;
+import com.github.theholywaffle.teamspeak3.api.ProvisioningResult;
+import com.github.theholywaffle.teamspeak3.api.ProvisioningTask;
+import com.github.theholywaffle.teamspeak3.api.VirtualServerProperty;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import com.github.theholywaffle.teamspeak3.api.wrapper.CreatedVirtualServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ServerProvisionerTest {
+
+	@Test
+	public void provision_RunsAllStepsOnEachConnection() {
+		final FakeApi first = new FakeApi(0);
+		final FakeApi second = new FakeApi(0);
+		final List<ProvisioningTask> tasks = new ArrayList<>();
+		for (int i = 0; i < 4; ++i) {
+			tasks.add(new ProvisioningTask("Server " + i)
+					.setProperty(VirtualServerProperty.VIRTUALSERVER_MAXCLIENTS, "32")
+					.addServerGroupPermission(6, "b_virtualserver_info_view", 1, false, false)
+					.addPrivilegeKey(PrivilegeKeyType.SERVER_GROUP, 6, 0, null));
+		}
+		final List<String> progress = new ArrayList<>();
+
+		final List<ProvisioningResult> results = new ServerProvisioner(first, second)
+				.setProgressListener(result -> progress.add(result.getTask().getName()))
+				.provision(tasks).getUninterruptibly();
+
+		Assert.assertEquals(4, results.size());
+		for (int i = 0; i < 4; ++i) {
+			final ProvisioningResult result = results.get(i);
+			Assert.assertTrue(result.isSuccessful());
+			Assert.assertEquals("Server " + i, result.getTask().getName());
+			Assert.assertEquals(Collections.singletonList("key" + result.getServerId()), result.getPrivilegeKeys());
+		}
+		Assert.assertEquals(4, progress.size());
+		// Each connection runs the steps of one task after another
+		final List<String> calls = new ArrayList<>(first.calls);
+		calls.addAll(second.calls);
+		Assert.assertEquals(16, calls.size());
+		for (int i = 0; i < calls.size(); i += 4) {
+			Assert.assertEquals("[create, use, perm, key]", calls.subList(i, i + 4).toString());
+		}
+	}
+
+	@Test
+	public void provision_RetriesFailedCommands() {
+		final FakeApi api = new FakeApi(2);
+		final List<ProvisioningResult> results = new ServerProvisioner(api)
+				.setRetries(3, 1, TimeUnit.MILLISECONDS)
+				.provision(Collections.singletonList(new ProvisioningTask("Server")))
+				.getUninterruptibly();
+
+		Assert.assertTrue(results.get(0).isSuccessful());
+		Assert.assertEquals("[create, create, create, use]", api.calls.toString());
+	}
+
+	@Test
+	public void provision_ReportsFailedStepAndContinues() {
+		final FakeApi api = new FakeApi(0) {
+			@Override
+			public CommandFuture<Void> selectVirtualServerById(int id) {
+				calls.add("use");
+				final CommandFuture<Void> future = new CommandFuture<>();
+				if (id == 1) future.fail(new TS3Exception("failed"));
+				else future.set(null);
+				return future;
+			}
+		};
+		final List<ProvisioningResult> results = new ServerProvisioner(api)
+				.setRetries(1, 0, TimeUnit.MILLISECONDS)
+				.provision(Arrays.asList(new ProvisioningTask("First"), new ProvisioningTask("Second")))
+				.getUninterruptibly();
+
+		Assert.assertFalse(results.get(0).isSuccessful());
+		Assert.assertEquals(ProvisioningResult.Step.SELECT_SERVER, results.get(0).getFailedStep());
+		Assert.assertEquals(1, results.get(0).getServerId());
+		Assert.assertTrue(results.get(1).isSuccessful());
+	}
+
+	private static class FakeApi extends TS3ApiAsync {
+
+		final List<String> calls = new ArrayList<>();
+		private final AtomicInteger failuresLeft;
+		private int serverIdBase = -1;
+
+		FakeApi(int failures) {
+			super(null, null);
+			this.failuresLeft = new AtomicInteger(failures);
+		}
+
+		@Override
+		public synchronized CommandFuture<CreatedVirtualServer> createServer(String name, Map<VirtualServerProperty, String> options) {
+			calls.add("create");
+			final CommandFuture<CreatedVirtualServer> future = new CommandFuture<>();
+			if (failuresLeft.getAndDecrement() > 0) {
+				future.fail(new TS3Exception("failed"));
+				return future;
+			}
+
+			if (serverIdBase < 0) serverIdBase = 0;
+			final Map<String, String> map = new HashMap<>();
+			map.put("sid", String.valueOf(++serverIdBase));
+			map.put("virtualserver_port", String.valueOf(9986 + serverIdBase));
+			map.put("token", "admin");
+			future.set(new CreatedVirtualServer(map));
+			return future;
+		}
+
+		@Override
+		public synchronized CommandFuture<Void> selectVirtualServerById(int id) {
+			calls.add("use");
+			return CommandFuture.immediate(null);
+		}
+
+		@Override
+		public synchronized CommandFuture<Void> addServerGroupPermission(int groupId, String permName, int value, boolean negated, boolean skipped) {
+			calls.add("perm");
+			return CommandFuture.immediate(null);
+		}
+
+		@Override
+		public synchronized CommandFuture<String> addPrivilegeKey(PrivilegeKeyType type, int groupId, int channelId, String description) {
+			calls.add("key");
+			return CommandFuture.immediate("key" + serverIdBase);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import com.github.theholywaffle.teamspeak3.api.exception.TS3FileTransferFailedException;
+import com.github.theholywaffle.teamspeak3.commands.Command;
+import com.github.theholywaffle.teamspeak3.commands.VirtualServerCommands;
+import com.github.theholywaffle.teamspeak3.commands.response.DefaultArrayResponse;
+import com.github.theholywaffle.teamspeak3.commands.response.ResponseBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+public class StreamReaderTest {
+
+	@Test
+	public void isResponseLine_SkipsTerminatorsAndDetectsEventsAndErrors() throws IOException {
+		final BufferedReader in = new BufferedReader(new StringReader("\r\nnotifytextmessage\nerror id=0\ndata=1\n"));
+
+		Assert.assertFalse(StreamReader.isResponseLine(in));
+		Assert.assertEquals("notifytextmessage", in.readLine());
+		Assert.assertFalse(StreamReader.isResponseLine(in));
+		Assert.assertEquals("error id=0", in.readLine());
+		Assert.assertTrue(StreamReader.isResponseLine(in));
+		Assert.assertEquals("data=1", in.readLine());
+	}
+
+	@Test
+	public void copyLine_CopiesLongLinesAndLeavesRestUnread() throws IOException {
+		final StringBuilder payload = new StringBuilder();
+		for (int i = 0; i < 50_000; ++i) {
+			payload.append((char) ('a' + i % 26));
+		}
+		final BufferedReader in = new BufferedReader(new StringReader(payload + "\r\nsecond\n\rerror id=0\n\r"));
+		final StringWriter sink = new StringWriter();
+		final StreamReader.StreamedResponse response = new StreamReader.StreamedResponse(command(sink));
+
+		Assert.assertTrue(response.copyLine(in, () -> false));
+		Assert.assertTrue(StreamReader.isResponseLine(in));
+		Assert.assertTrue(response.copyLine(in, () -> false));
+		Assert.assertFalse(StreamReader.isResponseLine(in));
+		Assert.assertNull(response.finish());
+
+		Assert.assertEquals(payload + "|second", sink.toString());
+		Assert.assertEquals("error id=0", in.readLine());
+	}
+
+	@Test
+	public void copyLine_DiscardsRestOfLineWhenSinkFails() throws IOException {
+		final BufferedReader in = new BufferedReader(new StringReader("data=1\nerror id=0\n"));
+		final IOException failure = new IOException("disk full");
+		final Writer sink = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) throws IOException {
+				throw failure;
+			}
+
+			@Override
+			public void flush() {}
+
+			@Override
+			public void close() {}
+		};
+		final StreamReader.StreamedResponse response = new StreamReader.StreamedResponse(command(sink));
+
+		Assert.assertTrue(response.copyLine(in, () -> false));
+		Assert.assertSame(failure, response.finish());
+		Assert.assertEquals("error id=0", in.readLine());
+	}
+
+	@Test
+	public void completion_SinkFailureOverridesSuccessfulError() {
+		final Command command = command(new StringWriter());
+		final TS3FileTransferFailedException failure = new TS3FileTransferFailedException("Writing response failed");
+
+		StreamReader.Completion.parse(new ResponseBuilder(command), "error id=0 msg=ok", failure).run();
+
+		Assert.assertTrue(command.getFuture().hasFailed());
+		final TS3Exception thrown = Assert.assertThrows(TS3Exception.class, command.getFuture()::getUninterruptibly);
+		Assert.assertSame(failure, thrown);
+	}
+
+	@Test
+	public void completion_ParseErrorFailsCommand() {
+		final Command command = VirtualServerCommands.serverSnapshotCreate();
+		final ResponseBuilder responseBuilder = new ResponseBuilder(command) {
+			@Override
+			public DefaultArrayResponse buildResponse() {
+				throw new IllegalArgumentException("malformed");
+			}
+		};
+
+		StreamReader.Completion.parse(responseBuilder, "error id=0 msg=ok", null).run();
+
+		Assert.assertTrue(command.getFuture().hasFailed());
+	}
+
+	private static Command command(Writer sink) {
+		final Command command = VirtualServerCommands.serverSnapshotCreate();
+		command.streamResponseTo(sink);
+		return command;
+	}
+}
@@ -0,0 +1,59 @@
+package com.github.theholywaffle.teamspeak3;
+
+import com.github.theholywaffle.teamspeak3.api.event.ClientMovedEvent;
+import com.github.theholywaffle.teamspeak3.api.event.EventFilter;
+import com.github.theholywaffle.teamspeak3.api.wrapper.Wrapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class SubscriptionIndexTest {
+
+	@Test
+	public void forEachMatch_FindsExactlyTheOverlappingRanges() {
+		final Random random = new Random(42);
+		final List<SubscriptionIndex.Route<Integer>> routes = new ArrayList<>();
+		for (int i = 0; i < 200; ++i) {
+			final int from = random.nextInt(100);
+			final int to = from + random.nextInt(30);
+			routes.add(new SubscriptionIndex.Route<>(EventFilter.of(ClientMovedEvent.class).inChannelRange(from, to), i));
+		}
+		final SubscriptionIndex<Integer> index = new SubscriptionIndex<>(routes);
+
+		for (int channelId = 0; channelId < 140; ++channelId) {
+			final List<Integer> expected = new ArrayList<>();
+			for (SubscriptionIndex.Route<Integer> route : routes) {
+				if (route.filter.matches(channelId, "", null)) expected.add(route.target);
+			}
+			final List<Integer> actual = new ArrayList<>();
+			index.forEachMatch(moved(channelId), (target, event) -> actual.add(target));
+
+			Assert.assertEquals("Channel " + channelId, expected, actual);
+		}
+	}
+
+	@Test
+	public void forEachMatch_DeliversOnceForDuplicateChannelIds() {
+		final List<SubscriptionIndex.Route<Integer>> routes = new ArrayList<>();
+		routes.add(new SubscriptionIndex.Route<>(EventFilter.of(ClientMovedEvent.class).inChannels(5, 5, 7), 1));
+		final SubscriptionIndex<Integer> index = new SubscriptionIndex<>(routes);
+
+		final List<Integer> actual = new ArrayList<>();
+		index.forEachMatch(moved(5), (target, event) -> actual.add(target));
+
+		Assert.assertEquals("[1]", actual.toString());
+	}
+
+	private static ClientMovedEvent moved(int channelId) {
+		final Map<String, String> map = new HashMap<>();
+		map.put("clid", "1");
+		map.put("ctid", String.valueOf(channelId));
+		map.put("reasonid", "0");
+		return new ClientMovedEvent(new Wrapper(map));
+	}
+}
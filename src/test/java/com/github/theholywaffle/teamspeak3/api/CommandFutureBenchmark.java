@@ -0,0 +1,351 @@
+package com.github.theholywaffle.teamspeak3.api;
+
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the allocation and latency of the aggregate combinators {@link CommandFuture#ofAll(Collection)}
+ * and {@link CommandFuture#ofAny(Collection)} against the previous implementation.
+ * <p>
+ * The baseline side runs on {@link BaselineFuture}, a copy of the monitor-based future
+ * with a single success and failure listener that {@code CommandFuture} replaced,
+ * combined exactly like the previous {@code ofAll} and {@code ofAny} did.
+ * </p><p>
+ * This is not a unit test, run it manually using {@code main}, e.g. from your IDE.
+ * The allocation numbers require a HotSpot-based JVM.
+ * </p>
+ */
+public final class CommandFutureBenchmark {
+
+	private static final int[] SIZES = {100, 1_000, 10_000, 50_000};
+	private static final int WARMUP_ROUNDS = 20;
+	private static final int MEASURED_ROUNDS = 20;
+
+	private CommandFutureBenchmark() {}
+
+	public static void main(String[] args) {
+		System.out.printf("%-12s %8s %16s %16s%n", "combinator", "futures", "bytes / future", "ns / future");
+		for (int size : SIZES) {
+			run("ofAll-old", size, new BaselineSubject(true));
+			run("ofAll", size, new CurrentSubject(true));
+			run("ofAny-old", size, new BaselineSubject(false));
+			run("ofAny", size, new CurrentSubject(false));
+		}
+	}
+
+	private static <F> void run(String name, int size, Subject<F> subject) {
+		for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+			measure(size, subject);
+		}
+
+		long bytes = 0;
+		long nanos = 0;
+		for (int i = 0; i < MEASURED_ROUNDS; ++i) {
+			final long[] result = measure(size, subject);
+			bytes += result[0];
+			nanos += result[1];
+		}
+
+		final long samples = (long) MEASURED_ROUNDS * size;
+		System.out.printf("%-12s %8d %16d %16d%n", name, size, bytes / samples, nanos / samples);
+	}
+
+	/**
+	 * Creates {@code size} futures, combines them and completes them in order.
+	 *
+	 * @return the allocated bytes and the elapsed nanoseconds between combining and completion
+	 */
+	private static <F> long[] measure(int size, Subject<F> subject) {
+		final List<F> futures = new ArrayList<>(size);
+		for (int i = 0; i < size; ++i) {
+			futures.add(subject.newFuture());
+		}
+
+		final long bytesBefore = allocatedBytes();
+		final long start = System.nanoTime();
+
+		final F combined = subject.combine(futures);
+		for (int i = 0; i < size; ++i) {
+			subject.complete(futures.get(i), i);
+		}
+		if (!subject.isDone(combined)) throw new IllegalStateException("Combined future did not complete");
+
+		final long elapsed = System.nanoTime() - start;
+		final long allocated = allocatedBytes() - bytesBefore;
+		return new long[] {allocated, elapsed};
+	}
+
+	private static long allocatedBytes() {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0L;
+	}
+
+	/**
+	 * The operations a benchmarked future implementation has to provide.
+	 */
+	private interface Subject<F> {
+
+		F newFuture();
+
+		F combine(List<F> futures);
+
+		void complete(F future, int value);
+
+		boolean isDone(F future);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static final class CurrentSubject implements Subject<CommandFuture> {
+
+		private final boolean all;
+
+		CurrentSubject(boolean all) {
+			this.all = all;
+		}
+
+		@Override
+		public CommandFuture newFuture() {
+			return new CommandFuture<Integer>();
+		}
+
+		@Override
+		public CommandFuture combine(List<CommandFuture> futures) {
+			final Collection collection = futures;
+			return all ? CommandFuture.ofAll(collection) : CommandFuture.ofAny(collection);
+		}
+
+		@Override
+		public void complete(CommandFuture future, int value) {
+			future.set(value);
+		}
+
+		@Override
+		public boolean isDone(CommandFuture future) {
+			return future.isDone();
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static final class BaselineSubject implements Subject<BaselineFuture> {
+
+		private final boolean all;
+
+		BaselineSubject(boolean all) {
+			this.all = all;
+		}
+
+		@Override
+		public BaselineFuture newFuture() {
+			return new BaselineFuture<Integer>();
+		}
+
+		@Override
+		public BaselineFuture combine(List<BaselineFuture> futures) {
+			final Collection collection = futures;
+			return all ? BaselineFuture.ofAll(collection) : BaselineFuture.ofAny(collection);
+		}
+
+		@Override
+		public void complete(BaselineFuture future, int value) {
+			future.set(value);
+		}
+
+		@Override
+		public boolean isDone(BaselineFuture future) {
+			return future.isDone();
+		}
+	}
+
+	/**
+	 * The completion and listener logic of {@code CommandFuture} before it was made lock-free,
+	 * including the previous {@code ofAll} and {@code ofAny}. The blocking getters are left out,
+	 * they play no part in the benchmark.
+	 */
+	private static final class BaselineFuture<V> {
+
+		private static final Logger log = LoggerFactory.getLogger(BaselineFuture.class);
+
+		private enum FutureState {
+			WAITING,
+			CANCELLED,
+			FAILED,
+			SUCCEEDED
+		}
+
+		private final Object monitor = new Object();
+		private volatile FutureState state = FutureState.WAITING;
+
+		// All guarded by monitor
+		private V value = null;
+		private TS3Exception exception = null;
+		private CommandFuture.SuccessListener<? super V> successListener = null;
+		private CommandFuture.FailureListener failureListener = null;
+
+		boolean isDone() {
+			return state != FutureState.WAITING;
+		}
+
+		boolean isSuccessful() {
+			return state == FutureState.SUCCEEDED;
+		}
+
+		boolean hasFailed() {
+			return state == FutureState.FAILED;
+		}
+
+		boolean set(V value) {
+			CommandFuture.SuccessListener<? super V> listener;
+
+			synchronized (monitor) {
+				if (isDone()) return false; // Ignore
+
+				this.state = FutureState.SUCCEEDED;
+				this.value = value;
+				listener = successListener;
+				monitor.notifyAll();
+			}
+
+			if (listener != null) {
+				try {
+					listener.handleSuccess(value);
+				} catch (Exception e) {
+					log.error("SuccessListener threw an exception", e);
+				}
+			}
+			return true;
+		}
+
+		boolean fail(TS3Exception exception) {
+			CommandFuture.FailureListener listener;
+
+			synchronized (monitor) {
+				if (isDone()) return false; // Ignore
+
+				this.state = FutureState.FAILED;
+				this.exception = exception;
+				listener = failureListener;
+				monitor.notifyAll();
+			}
+
+			if (listener != null) {
+				try {
+					listener.handleFailure(exception);
+				} catch (Exception e) {
+					log.error("FailureListener threw an exception", e);
+				}
+			}
+			return true;
+		}
+
+		BaselineFuture<V> onSuccess(CommandFuture.SuccessListener<? super V> listener) {
+			boolean runSuccessListener;
+			V successValue;
+
+			synchronized (monitor) {
+				if (successListener != null) {
+					throw new IllegalStateException("Listener already set");
+				}
+				successListener = listener;
+
+				runSuccessListener = isSuccessful();
+				successValue = value;
+			}
+
+			if (runSuccessListener) {
+				listener.handleSuccess(successValue);
+			}
+
+			return this;
+		}
+
+		BaselineFuture<V> onFailure(CommandFuture.FailureListener listener) {
+			boolean runFailureListener;
+			TS3Exception failureException;
+
+			synchronized (monitor) {
+				if (failureListener != null) {
+					throw new IllegalStateException("Listener already set");
+				}
+				failureListener = listener;
+
+				runFailureListener = hasFailed();
+				failureException = exception;
+			}
+
+			if (runFailureListener) {
+				listener.handleFailure(failureException);
+			}
+
+			return this;
+		}
+
+		BaselineFuture<V> forwardSuccess(final BaselineFuture<? super V> otherFuture) {
+			return onSuccess(otherFuture::set);
+		}
+
+		BaselineFuture<V> forwardFailure(final BaselineFuture<?> otherFuture) {
+			return onFailure(otherFuture::fail);
+		}
+
+		static <V> BaselineFuture<V> immediate(V value) {
+			final BaselineFuture<V> future = new BaselineFuture<>();
+			future.set(value);
+			return future;
+		}
+
+		static <F> BaselineFuture<List<F>> ofAll(final Collection<BaselineFuture<F>> futures) {
+			if (futures.isEmpty()) return immediate(Collections.emptyList());
+
+			@SuppressWarnings("unchecked") final F[] results = (F[]) new Object[futures.size()];
+			final AtomicInteger successCounter = new AtomicInteger(futures.size());
+			final BaselineFuture<List<F>> combined = new BaselineFuture<>();
+
+			final Iterator<BaselineFuture<F>> iterator = futures.iterator();
+			for (int i = 0; iterator.hasNext(); ++i) {
+				final int index = i;
+				final BaselineFuture<F> future = iterator.next();
+
+				future.forwardFailure(combined).onSuccess(result -> {
+					results[index] = result;
+
+					if (successCounter.decrementAndGet() == 0) {
+						combined.set(Arrays.asList(results));
+					}
+				});
+			}
+
+			return combined;
+		}
+
+		static <F> BaselineFuture<F> ofAny(final Collection<BaselineFuture<F>> futures) {
+			if (futures.isEmpty()) throw new IllegalArgumentException("Requires at least 1 future");
+
+			final BaselineFuture<F> any = new BaselineFuture<>();
+			final AtomicInteger failureCounter = new AtomicInteger(futures.size());
+
+			for (BaselineFuture<F> future : futures) {
+				future.forwardSuccess(any).onFailure(exception -> {
+					if (failureCounter.decrementAndGet() == 0) {
+						any.fail(exception);
+					}
+				});
+			}
+
+			return any;
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package com.github.theholywaffle.teamspeak3.api;
+
+import com.github.theholywaffle.teamspeak3.api.exception.TS3Exception;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class CommandFutureTest {
+
+	@Test
+	public void set_NotifiesAllListenersInOrder() {
+		final CommandFuture<Integer> future = new CommandFuture<>();
+		final List<String> calls = new ArrayList<>();
+		future.onSuccess(value -> calls.add("first " + value));
+		future.onSuccess(value -> calls.add("second " + value));
+		future.onFailure(exception -> calls.add("failure"));
+
+		Assert.assertTrue(future.set(42));
+		Assert.assertFalse(future.set(43));
+		future.onSuccess(value -> calls.add("late " + value));
+
+		Assert.assertEquals("[first 42, second 42, late 42]", calls.toString());
+		Assert.assertEquals(Integer.valueOf(42), future.getUninterruptibly());
+	}
+
+	@Test
+	public void fail_ThrowsFromGet() {
+		final CommandFuture<Integer> future = new CommandFuture<>();
+		future.fail(new TS3Exception("failed"));
+
+		Assert.assertTrue(future.hasFailed());
+		Assert.assertThrows(TS3Exception.class, future::getUninterruptibly);
+	}
+
+	@Test
+	public void getWithTimeout_TimesOut() {
+		final CommandFuture<Integer> future = new CommandFuture<>();
+		Assert.assertThrows(TimeoutException.class, () -> future.get(10, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void getWithTimeout_UnlinksAbandonedWaiters() throws Exception {
+		final CommandFuture<Integer> future = new CommandFuture<>();
+		final List<Integer> calls = new ArrayList<>();
+		for (int i = 0; i < 10; ++i) {
+			final Thread poller = new Thread(() -> Assert.assertThrows(TimeoutException.class,
+					() -> future.get(100, TimeUnit.MILLISECONDS)));
+			poller.start();
+			while (poller.getState() != Thread.State.TIMED_WAITING) {
+				Thread.yield();
+			}
+
+			// Bury the waiter below a listener, so it cannot simply be popped off the top
+			future.onSuccess(calls::add);
+			poller.join();
+		}
+
+		Assert.assertEquals(10, stackSize(future));
+		future.set(1);
+		Assert.assertEquals(10, calls.size());
+	}
+
+	private static int stackSize(CommandFuture<?> future) throws ReflectiveOperationException {
+		final Field stack = CommandFuture.class.getDeclaredField("stack");
+		stack.setAccessible(true);
+		Object node = stack.get(future);
+		if (node == null) return 0;
+
+		final Field next = node.getClass().getSuperclass().getDeclaredField("next");
+		next.setAccessible(true);
+		int size = 0;
+		for (; node != null; node = next.get(node)) {
+			++size;
+		}
+		return size;
+	}
+
+	@Test
+	public void get_WakesUpWaitingThread() throws Exception {
+		final CommandFuture<String> future = new CommandFuture<>();
+		final Thread setter = new Thread(() -> future.set("done"));
+		setter.start();
+
+		Assert.assertEquals("done", future.get(5, TimeUnit.SECONDS));
+		setter.join();
+	}
+
+	@Test
+	public void map_ChainsValuesAndFailures() {
+		final CommandFuture<Integer> source = new CommandFuture<>();
+		final CommandFuture<String> mapped = source.map(i -> i + 1).map(i -> i * 2).map(String::valueOf);
+		source.set(1);
+		Assert.assertEquals("4", mapped.getUninterruptibly());
+
+		final CommandFuture<Integer> failing = new CommandFuture<>();
+		final CommandFuture<Integer> failingMapped = failing.map(i -> i + 1);
+		failing.fail(new TS3Exception("failed"));
+		Assert.assertTrue(failingMapped.hasFailed());
+	}
+
+	@Test
+	public void map_LongChainDoesNotOverflowStack() {
+		final CommandFuture<Integer> source = new CommandFuture<>();
+		CommandFuture<Integer> mapped = source;
+		for (int i = 0; i < 100_000; ++i) {
+			mapped = mapped.map(value -> value + 1);
+		}
+
+		source.set(0);
+		Assert.assertEquals(Integer.valueOf(100_000), mapped.getUninterruptibly());
+	}
+
+	@Test
+	public void then_ForwardsResultOfNextFuture() {
+		final CommandFuture<Integer> source = new CommandFuture<>();
+		final CommandFuture<Integer> next = new CommandFuture<>();
+		final CommandFuture<Integer> chained = source.then(value -> next);
+
+		source.set(1);
+		Assert.assertFalse(chained.isDone());
+		next.set(2);
+		Assert.assertEquals(Integer.valueOf(2), chained.getUninterruptibly());
+	}
+
+	@Test
+	public void cancel_PropagatesToUnsharedSource() {
+		final CommandFuture<Integer> source = new CommandFuture<>();
+		final CommandFuture<Integer> mapped = source.map(i -> i + 1);
+
+		Assert.assertTrue(mapped.cancel(false));
+		Assert.assertTrue(source.isCancelled());
+	}
+
+	@Test
+	public void cancel_DoesNotPropagateToSharedSource() {
+		final CommandFuture<Integer> source = new CommandFuture<>();
+		final CommandFuture<Integer> first = source.map(i -> i + 1);
+		final CommandFuture<Integer> second = source.map(i -> i + 2);
+
+		first.cancel(false);
+		Assert.assertFalse(source.isDone());
+
+		second.cancel(false);
+		Assert.assertTrue(source.isCancelled());
+	}
+
+	@Test
+	public void cancel_NotifiesCancellationListenersAndDependents() {
+		final CommandFuture<Integer> source = new CommandFuture<>();
+		final CommandFuture<Integer> mapped = source.map(i -> i + 1);
+		final List<String> calls = new ArrayList<>();
+		source.onCancellation(() -> calls.add("cancelled"));
+
+		source.cancel(false);
+		Assert.assertEquals("[cancelled]", calls.toString());
+		Assert.assertTrue(mapped.isCancelled());
+		Assert.assertThrows(CancellationException.class, mapped::getUninterruptibly);
+	}
+
+	@Test
+	public void toCompletableFuture_MirrorsOutcome() throws Exception {
+		final CommandFuture<Integer> success = new CommandFuture<>();
+		final CompletableFuture<Integer> successStage = success.toCompletableFuture();
+		success.set(5);
+		Assert.assertEquals(Integer.valueOf(5), successStage.get());
+
+		final CommandFuture<Integer> failure = new CommandFuture<>();
+		final CompletableFuture<Integer> failureStage = failure.toCompletableFuture();
+		failure.fail(new TS3Exception("failed"));
+		final ExecutionException thrown = Assert.assertThrows(ExecutionException.class, failureStage::get);
+		Assert.assertTrue(thrown.getCause() instanceof TS3Exception);
+
+		final CommandFuture<Integer> cancelled = new CommandFuture<>();
+		cancelled.toCompletableFuture().cancel(false);
+		Assert.assertTrue(cancelled.isCancelled());
+	}
+
+	@Test
+	public void fromCompletionStage_MirrorsOutcome() {
+		final CompletableFuture<Integer> success = new CompletableFuture<>();
+		final CommandFuture<Integer> successFuture = CommandFuture.fromCompletionStage(success);
+		success.complete(7);
+		Assert.assertEquals(Integer.valueOf(7), successFuture.getUninterruptibly());
+
+		final CompletableFuture<Integer> failure = new CompletableFuture<>();
+		final CommandFuture<Integer> failureFuture = CommandFuture.fromCompletionStage(failure);
+		failure.completeExceptionally(new IllegalStateException());
+		Assert.assertTrue(failureFuture.hasFailed());
+
+		final CompletableFuture<Integer> cancelled = new CompletableFuture<>();
+		CommandFuture.fromCompletionStage(cancelled).cancel(false);
+		Assert.assertTrue(cancelled.isCancelled());
+	}
+
+	@Test
+	public void ofAll_CollectsResultsInOrder() {
+		final CommandFuture<Integer> first = new CommandFuture<>();
+		final CommandFuture<Integer> second = new CommandFuture<>();
+		final CommandFuture<List<Integer>> all = CommandFuture.ofAll(first, second);
+
+		second.set(2);
+		first.set(1);
+		Assert.assertEquals("[1, 2]", all.getUninterruptibly().toString());
+	}
+
+	@Test
+	public void ofAny_SucceedsWithFirstSuccess() {
+		final CommandFuture<Integer> first = new CommandFuture<>();
+		final CommandFuture<Integer> second = new CommandFuture<>();
+		final CommandFuture<Integer> any = CommandFuture.ofAny(first, second);
+
+		first.fail(new TS3Exception("failed"));
+		Assert.assertFalse(any.isDone());
+		second.set(2);
+		Assert.assertEquals(Integer.valueOf(2), any.getUninterruptibly());
+	}
+
+	@Test
+	public void ofAll_CancelsRemainingOnFailure() {
+		final CommandFuture<Integer> first = new CommandFuture<>();
+		final CommandFuture<Integer> second = new CommandFuture<>();
+		final CommandFuture<List<Integer>> all = CommandFuture.ofAll(Arrays.asList(first, second), true);
+
+		first.fail(new TS3Exception("failed"));
+		Assert.assertTrue(all.hasFailed());
+		Assert.assertTrue(second.isCancelled());
+	}
+
+	@Test
+	public void inCompletionOrder_CompletesInCompletionOrder() {
+		final CommandFuture<Integer> first = new CommandFuture<>();
+		final CommandFuture<Integer> second = new CommandFuture<>();
+		final List<CommandFuture<Integer>> ordered = CommandFuture.inCompletionOrder(Arrays.asList(first, second));
+
+		second.set(2);
+		Assert.assertEquals(Integer.valueOf(2), ordered.get(0).getUninterruptibly());
+		Assert.assertFalse(ordered.get(1).isDone());
+		first.set(1);
+		Assert.assertEquals(Integer.valueOf(1), ordered.get(1).getUninterruptibly());
+	}
+}
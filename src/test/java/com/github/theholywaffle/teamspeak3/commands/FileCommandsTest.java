@@ -144,6 +144,17 @@ public class FileCommandsTest {
 		Assert.assertEquals(expected, FileCommands.ftInitDownload(1, "dir1", 1, null).toString());
 	}
 
+	@Test
+	public void ftInitDownload_SeekPosition() {
+		final String expected = "ftinitdownload clientftfid=1 name=\\/dir1 cid=1 cpw= seekpos=4096 proto=0";
+		Assert.assertEquals(expected, FileCommands.ftInitDownload(1, "/dir1", 1, null, 4096).toString());
+	}
+
+	@Test
+	public void ftInitDownload_NegativeSeekPositionException() {
+		Assert.assertThrows(IllegalArgumentException.class, () -> FileCommands.ftInitDownload(1, "/dir1", 1, null, -1));
+	}
+
 	@Test
 	public void ftInitUpload_NullDirectoryPathException() {
 		Assert.assertThrows(IllegalArgumentException.class, () -> FileCommands.ftInitUpload(1, null, 1, null, 1024, true));
@@ -156,6 +167,17 @@ public class FileCommandsTest {
 		Assert.assertEquals(expected, FileCommands.ftInitUpload(1, "dir1", 1, null, 1024, true).toString());
 	}
 
+	@Test
+	public void ftInitUpload_Resume() {
+		final String expected = "ftinitupload clientftfid=1 name=\\/dir1 cid=1 cpw= size=1024 overwrite=0 resume=1 proto=0";
+		Assert.assertEquals(expected, FileCommands.ftInitUpload(1, "/dir1", 1, null, 1024, false, true).toString());
+	}
+
+	@Test
+	public void ftInitUpload_OverwriteAndResumeException() {
+		Assert.assertThrows(IllegalArgumentException.class, () -> FileCommands.ftInitUpload(1, "/dir1", 1, null, 1024, true, true));
+	}
+
 	@Test
 	public void ftList() {
 		final String expected = "ftlist";
@@ -0,0 +1,45 @@
+package com.github.theholywaffle.teamspeak3.commands;
+
+import com.github.theholywaffle.teamspeak3.commands.parameter.StreamParam;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+public class VirtualServerCommandsTest {
+
+	@Test
+	public void serverSnapshotDeploy_NullSnapshotException() {
+		Assert.assertThrows(IllegalArgumentException.class, () -> VirtualServerCommands.serverSnapshotDeploy((StreamParam) null));
+	}
+
+	@Test
+	public void serverSnapshotDeploy_StreamsSnapshot() throws IOException {
+		final StreamParam snapshot = new StreamParam(() -> new StringReader("version=2 data=abc"), "snapshot.dat");
+		final Command command = VirtualServerCommands.serverSnapshotDeploy(snapshot);
+		final StringWriter out = new StringWriter();
+		command.writeTo(out);
+
+		Assert.assertEquals("serversnapshotdeploy version=2 data=abc", out.toString());
+		Assert.assertEquals("serversnapshotdeploy <snapshot.dat>", command.toString());
+	}
+
+	@Test
+	public void serverSnapshotDeploy_RejectsLineBreaks() {
+		final StreamParam snapshot = new StreamParam(() -> new StringReader("version=2 data=abc\nserverstop"), "snapshot.dat");
+		final Command command = VirtualServerCommands.serverSnapshotDeploy(snapshot);
+
+		Assert.assertThrows(IOException.class, () -> command.writeTo(new StringWriter()));
+	}
+
+	@Test
+	public void writeTo_MatchesToStringWithoutStreamedParameters() throws IOException {
+		final Command command = VirtualServerCommands.serverSnapshotDeploy("version=2 data=abc");
+		final StringWriter out = new StringWriter();
+		command.writeTo(out);
+
+		Assert.assertEquals(command.toString(), out.toString());
+	}
+}